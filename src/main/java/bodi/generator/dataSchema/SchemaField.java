@@ -324,6 +324,7 @@ public class SchemaField implements Serializable {
         }
         entity.put("numDifferentValues", this.numDifferentValues);
         entity.put("key", this.key);
+        entity.put("categorical", this.categorical);
         JSONObject valuesEntity = new JSONObject();
         for (var entry : mainValues.entrySet()) {
             JSONObject languagesEntity = new JSONObject();
@@ -9,7 +9,26 @@ import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvException;
 import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.CountMinSketch;
+import com.xatkit.bot.sql.DataPartitions;
+import com.xatkit.bot.sql.HyperLogLog;
+import com.xatkit.bot.sql.SpaceSaving;
+import com.xatkit.bot.sql.SqlQueries;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
@@ -17,13 +36,20 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static bodi.generator.dataSchema.DataType.DATETIME;
 import static bodi.generator.dataSchema.DataType.EMPTY;
@@ -32,6 +58,10 @@ import static bodi.generator.dataSchema.DataType.TEXT;
 import static bodi.generator.library.BodiGeneratorProperties.MAIN_SCHEMA_TYPE;
 import static com.xatkit.bot.library.Utils.isDatetime;
 import static com.xatkit.bot.library.Utils.isNumeric;
+import static com.xatkit.bot.library.Utils.normalize;
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 /**
@@ -79,6 +109,25 @@ public class TabularDataSource implements Serializable {
      */
     private char delimiter;
 
+    /**
+     * The partition fields, that is, the columns whose values were derived from the names of the files the data was
+     * read from (see {@link #fromPartitions(Map)}). They are the last columns of the {@link #header}.
+     */
+    private List<String> partitionFields = new ArrayList<>();
+
+    /**
+     * The size (in bytes) of the row groups of the Parquet files written by {@link #writeParquet(String, SchemaType)}.
+     * Each row group stores the minimum and maximum values of its columns, so smaller row groups can be skipped more
+     * often by the filters.
+     */
+    private static final int PARQUET_ROW_GROUP_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The number of counters of the {@link SpaceSaving} summaries written by {@link #generateStatisticsJson(SchemaType)}.
+     * The frequencies of the most frequent values are overestimated by at most {@code numRows / capacity}.
+     */
+    private static final int HEAVY_HITTERS_CAPACITY = 1000;
+
     /**
      * Instantiates a new {@link TabularDataSource} from a given csv file.
      * <p>
@@ -145,6 +194,99 @@ public class TabularDataSource implements Serializable {
         }
     }
 
+    /**
+     * Instantiates a new {@link TabularDataSource} with a given content.
+     *
+     * @param header    the names of the columns
+     * @param table     the rows, each one with a value for each column
+     * @param delimiter the csv delimiter or separator
+     */
+    private TabularDataSource(List<String> header, List<Row> table, char delimiter) {
+        this.header = header;
+        this.table = table;
+        this.delimiter = delimiter;
+        numColumns = header.size();
+        numRows = table.size();
+    }
+
+    /**
+     * Instantiates a new {@link TabularDataSource} from the csv files of a folder (and its subfolders), which are the
+     * partitions of the data.
+     *
+     * @param folderPath the path of the folder
+     * @param delimiter  the csv delimiter or separator
+     * @return the tabular data source
+     * @throws IOException if the folder cannot be read
+     * @see #fromPartitions(Map)
+     */
+    public static TabularDataSource fromPartitions(String folderPath, char delimiter) throws IOException {
+        java.nio.file.Path folder = Paths.get(folderPath);
+        List<java.nio.file.Path> files;
+        try (Stream<java.nio.file.Path> paths = Files.walk(folder)) {
+            files = paths.filter(path -> path.toString().endsWith(".csv")).sorted().collect(Collectors.toList());
+        }
+        Map<String, TabularDataSource> partitions = new LinkedHashMap<>();
+        for (java.nio.file.Path file : files) {
+            String relativePath = folder.relativize(file).toString().replace(File.separatorChar, '/');
+            partitions.put(relativePath, new TabularDataSource(file.toString(), delimiter));
+        }
+        return fromPartitions(partitions);
+    }
+
+    /**
+     * Instantiates a new {@link TabularDataSource} from a set of partitions, that is, files with the same columns whose
+     * names contain the values of some partition fields, following the {@code field=value} convention (e.g.
+     * {@code year=2020/district=Gracia.csv}, see {@link DataPartitions#parsePath(String)}).
+     * <p>
+     * The rows of all the partitions are stored in {@link #table}, in the order of the partitions, and the partition
+     * fields are added as the last columns, with the values of the partition of each row.
+     *
+     * @param partitions the partitions, by file path (relative to the folder of the partitions)
+     * @return the tabular data source
+     * @throws IllegalArgumentException if the partitions do not have the same columns or partition fields
+     */
+    public static TabularDataSource fromPartitions(Map<String, TabularDataSource> partitions) {
+        List<String> header = null;
+        List<String> fields = null;
+        List<Row> table = new ArrayList<>();
+        char delimiter = ',';
+        for (Map.Entry<String, TabularDataSource> entry : partitions.entrySet()) {
+            String path = entry.getKey().replaceAll("\\.csv$", "");
+            Map<String, String> values = DataPartitions.parsePath(path);
+            TabularDataSource partition = entry.getValue();
+            if (isNull(header)) {
+                header = partition.getHeaderCopy();
+                fields = new ArrayList<>(values.keySet());
+                delimiter = partition.delimiter;
+                for (String field : fields) {
+                    if (header.contains(field)) {
+                        throw new IllegalArgumentException("The partition field " + field + " is also a column of "
+                                + entry.getKey());
+                    }
+                }
+            } else if (!header.equals(partition.header)) {
+                throw new IllegalArgumentException("The columns of " + entry.getKey() + " are not the same as the "
+                        + "columns of the other partitions");
+            } else if (!fields.equals(new ArrayList<>(values.keySet()))) {
+                throw new IllegalArgumentException("The partition fields of " + entry.getKey() + " (" + values.keySet()
+                        + ") are not the same as the ones of the other partitions (" + fields + ")");
+            }
+            for (Row row : partition.table) {
+                List<String> rowValues = new ArrayList<>(row.getValues());
+                rowValues.addAll(values.values());
+                table.add(new Row(rowValues));
+            }
+        }
+        if (isNull(header)) {
+            throw new IllegalArgumentException("There are no partitions");
+        }
+        List<String> newHeader = new ArrayList<>(header);
+        newHeader.addAll(fields);
+        TabularDataSource tds = new TabularDataSource(newHeader, table, delimiter);
+        tds.partitionFields = fields;
+        return tds;
+    }
+
     /**
      * Gets a row from {@link #table}.
      *
@@ -182,6 +324,15 @@ public class TabularDataSource implements Serializable {
         return new ArrayList<>(header);
     }
 
+    /**
+     * Gets a copy of {@link #partitionFields}.
+     *
+     * @return the partition fields (empty if the data is not partitioned)
+     */
+    public List<String> getPartitionFields() {
+        return new ArrayList<>(partitionFields);
+    }
+
     /**
      * Gets a deep copy of {@link #table} (reminder that the {@link TabularDataSource} content is immutable).
      *
@@ -217,6 +368,7 @@ public class TabularDataSource implements Serializable {
      * @see #removeColumn(String)
      */
     public TabularDataSource removeColumn(int i) {
+        partitionFields.remove(header.get(i));
         header.remove(i);
         --numColumns;
         for (Row row : table) {
@@ -286,6 +438,220 @@ public class TabularDataSource implements Serializable {
         }
     }
 
+    /**
+     * Creates a copy of the {@link TabularDataSource} with a normalized shadow column for each {@link DataType#TEXT}
+     * column (according to the schema fields), appended after the original columns.
+     * <p>
+     * The shadow column of a column is named {@link SqlQueries#getNormalizedColumn(String)} and contains its values
+     * normalized with {@link com.xatkit.bot.library.Utils#normalize(String)} (case-folded, without accents and with
+     * collapsed whitespace), so the chatbot can evaluate the textual filters comparing them with a normalized value,
+     * instead of upper-casing every row in every query.
+     *
+     * @param schemaType the schema type containing the schema fields of the columns
+     * @return the new tabular data source
+     */
+    public TabularDataSource withNormalizedColumns(SchemaType schemaType) {
+        List<Integer> textColumns = new ArrayList<>();
+        List<String> newHeader = new ArrayList<>(header);
+        for (int i = 0; i < header.size(); i++) {
+            SchemaField schemaField = schemaType.getSchemaField(header.get(i));
+            if (!isNull(schemaField) && schemaField.getType() == TEXT) {
+                textColumns.add(i);
+                newHeader.add(SqlQueries.getNormalizedColumn(header.get(i)));
+            }
+        }
+        List<Row> newTable = new ArrayList<>();
+        for (Row row : table) {
+            List<String> values = new ArrayList<>(row.getValues());
+            for (int i : textColumns) {
+                String value = row.getColumnValue(i);
+                values.add(isNull(value) ? "" : normalize(value));
+            }
+            newTable.add(new Row(values));
+        }
+        TabularDataSource tds = new TabularDataSource(newHeader, newTable, delimiter);
+        tds.partitionFields = new ArrayList<>(partitionFields);
+        return tds;
+    }
+
+    /**
+     * Write the {@link TabularDataSource} as a Parquet file, with typed columns.
+     * <p>
+     * The type of each column is taken from its {@link SchemaField}: {@link DataType#NUMBER} columns are stored as
+     * {@code DOUBLE}, {@link DataType#DATETIME} columns as {@code TIMESTAMP} (UTC milliseconds) and the rest as UTF-8
+     * text. Numeric and datetime values that cannot be parsed are stored as {@code null}. The column names are
+     * preprocessed with {@link SqlQueries#replaceSpecialChars(String)}, like the chatbot does with the csv columns.
+     * <p>
+     * This way, the chatbot can query the data with native types instead of casting the text of each row in every
+     * query, and the database can read only the needed columns and skip the row groups that do not match a filter
+     * (using the statistics of each row group).
+     *
+     * @param path       the path where to write the Parquet file
+     * @param schemaType the schema type containing the schema fields of the columns
+     * @throws IOException if the file cannot be written
+     */
+    public void writeParquet(String path, SchemaType schemaType) throws IOException {
+        List<DataType> dataTypes = new ArrayList<>();
+        Types.MessageTypeBuilder schemaBuilder = Types.buildMessage();
+        for (String field : header) {
+            SchemaField schemaField = schemaType.getSchemaField(field);
+            DataType dataType = (isNull(schemaField) ? TEXT : schemaField.getType());
+            dataTypes.add(dataType);
+            String column = SqlQueries.replaceSpecialChars(field);
+            if (dataType == NUMBER) {
+                schemaBuilder.optional(PrimitiveType.PrimitiveTypeName.DOUBLE).named(column);
+            } else if (dataType == DATETIME) {
+                schemaBuilder.optional(PrimitiveType.PrimitiveTypeName.INT64)
+                        .as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS))
+                        .named(column);
+            } else {
+                schemaBuilder.optional(PrimitiveType.PrimitiveTypeName.BINARY)
+                        .as(LogicalTypeAnnotation.stringType()).named(column);
+            }
+        }
+        MessageType schema = schemaBuilder.named("data");
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new Path(path))
+                .withType(schema)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .withRowGroupSize(PARQUET_ROW_GROUP_SIZE)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .build()) {
+            for (Row row : table) {
+                Group group = groupFactory.newGroup();
+                for (int i = 0; i < header.size(); i++) {
+                    String value = row.getColumnValue(i);
+                    if (dataTypes.get(i) == NUMBER) {
+                        BigDecimal number = parseDecimal(value);
+                        if (!isNull(number)) {
+                            group.add(i, number.doubleValue());
+                        }
+                    } else if (dataTypes.get(i) == DATETIME) {
+                        OffsetDateTime datetime = parseDatetime(value);
+                        if (!isNull(datetime)) {
+                            group.add(i, datetime.toInstant().toEpochMilli());
+                        }
+                    } else if (!isNull(value)) {
+                        group.add(i, value);
+                    }
+                }
+                writer.write(group);
+            }
+        }
+        // The local file system of Hadoop also writes a checksum file, which is not needed
+        File file = new File(path);
+        Files.deleteIfExists(Paths.get(file.getAbsoluteFile().getParent(), "." + file.getName() + ".crc"));
+    }
+
+    /**
+     * Generates a JSON object containing the statistics of the {@link TabularDataSource}: the number of rows, the
+     * columns and the frequency table (i.e. the number of rows of each different value) of the categorical columns
+     * (according to the schema fields).
+     * <p>
+     * It also contains a {@link HyperLogLog} sketch of the distinct values of each column, and of the distinct values of
+     * each column in the rows with each value of a categorical column, to estimate the number of distinct values under
+     * a filter without reading the data.
+     * <p>
+     * For the textual columns that are not categorical (whose frequency tables would be too big), it contains a
+     * {@link SpaceSaving} summary of their most frequent values and a {@link CountMinSketch} of the frequencies of
+     * their values. The empty values are not counted, as in the frequency queries.
+     * <p>
+     * It is shipped with the chatbot, so it can answer some questions about the data (e.g. the number of fields or the
+     * frequency of a value) without reading it. Therefore, it must be generated from the same data that is written in
+     * the chatbot, every time it is written.
+     *
+     * @param schemaType the schema type containing the schema fields of the columns
+     * @return the json object containing the statistics
+     */
+    public JSONObject generateStatisticsJson(SchemaType schemaType) {
+        JSONObject statistics = new JSONObject();
+        statistics.put("numRows", table.size());
+        statistics.put("fields", new JSONArray(header));
+        JSONObject valueCounts = new JSONObject();
+        List<Integer> categoricalColumns = new ArrayList<>();
+        for (String field : header) {
+            SchemaField schemaField = schemaType.getSchemaField(field);
+            if (!isNull(schemaField) && schemaField.isCategorical()) {
+                int i = header.indexOf(field);
+                categoricalColumns.add(i);
+                Map<String, Integer> counts = new HashMap<>();
+                for (Row row : table) {
+                    counts.merge(row.getColumnValue(i), 1, Integer::sum);
+                }
+                valueCounts.put(field, new JSONObject(counts));
+            }
+        }
+        statistics.put("valueCounts", valueCounts);
+        List<HyperLogLog> distinctSketches = new ArrayList<>();
+        for (int i = 0; i < header.size(); i++) {
+            distinctSketches.add(new HyperLogLog());
+        }
+        // The sketches of each column, for each value of each categorical column
+        List<Map<String, List<HyperLogLog>>> valueSketches = new ArrayList<>();
+        for (int i = 0; i < categoricalColumns.size(); i++) {
+            valueSketches.add(new HashMap<>());
+        }
+        long[] hashes = new long[header.size()];
+        for (Row row : table) {
+            for (int i = 0; i < header.size(); i++) {
+                hashes[i] = HyperLogLog.hash(row.getColumnValue(i));
+                distinctSketches.get(i).addHash(hashes[i]);
+            }
+            for (int c = 0; c < categoricalColumns.size(); c++) {
+                List<HyperLogLog> sketches = valueSketches.get(c).computeIfAbsent(
+                        row.getColumnValue(categoricalColumns.get(c)), value -> new ArrayList<>());
+                if (sketches.isEmpty()) {
+                    for (int i = 0; i < header.size(); i++) {
+                        sketches.add(new HyperLogLog());
+                    }
+                }
+                for (int i = 0; i < header.size(); i++) {
+                    sketches.get(i).addHash(hashes[i]);
+                }
+            }
+        }
+        JSONObject distinctSketchesJson = new JSONObject();
+        for (int i = 0; i < header.size(); i++) {
+            distinctSketchesJson.put(header.get(i), distinctSketches.get(i).encode());
+        }
+        statistics.put("distinctSketches", distinctSketchesJson);
+        JSONObject valueSketchesJson = new JSONObject();
+        for (int c = 0; c < categoricalColumns.size(); c++) {
+            JSONObject sketchesByValueJson = new JSONObject();
+            for (Map.Entry<String, List<HyperLogLog>> entry : valueSketches.get(c).entrySet()) {
+                JSONObject sketchesJson = new JSONObject();
+                for (int i = 0; i < header.size(); i++) {
+                    sketchesJson.put(header.get(i), entry.getValue().get(i).encode());
+                }
+                sketchesByValueJson.put(entry.getKey(), sketchesJson);
+            }
+            valueSketchesJson.put(header.get(categoricalColumns.get(c)), sketchesByValueJson);
+        }
+        statistics.put("valueSketches", valueSketchesJson);
+        JSONObject heavyHitters = new JSONObject();
+        JSONObject frequencySketches = new JSONObject();
+        for (String field : header) {
+            SchemaField schemaField = schemaType.getSchemaField(field);
+            if (!isNull(schemaField) && schemaField.getType() == TEXT && !schemaField.isCategorical()) {
+                int i = header.indexOf(field);
+                SpaceSaving summary = new SpaceSaving(HEAVY_HITTERS_CAPACITY);
+                CountMinSketch sketch = new CountMinSketch();
+                for (Row row : table) {
+                    String value = row.getColumnValue(i);
+                    if (!isEmpty(value)) {
+                        summary.offer(value);
+                        sketch.offer(value);
+                    }
+                }
+                heavyHitters.put(field, summary.toJson());
+                frequencySketches.put(field, sketch.encode());
+            }
+        }
+        statistics.put("heavyHitters", heavyHitters);
+        statistics.put("frequencySketches", frequencySketches);
+        return statistics;
+    }
+
     /**
      * Write the {@link TabularDataSource} as csv file.
      *
@@ -316,6 +682,94 @@ public class TabularDataSource implements Serializable {
         out.close();
     }
 
+    /**
+     * Write the {@link TabularDataSource} as a set of csv files, one for each combination of values of the
+     * {@link #partitionFields} (see {@link DataPartitions}).
+     * <p>
+     * The files are written in the {@code dataName} folder, with a {@code field=value} path segment for each partition
+     * field. The partition fields are not written in the files (the chatbot derives them from the manifest), but their
+     * normalized shadow columns are.
+     *
+     * @param resourcesFolder the resources folder of the chatbot
+     * @param dataName        the name of the data
+     * @return the manifest of the partitions, to be written as {@link DataPartitions#PARTITIONS_JSON_FILE}
+     * @throws IOException if a file cannot be written
+     */
+    public JSONObject writePartitionsCsv(String resourcesFolder, String dataName) throws IOException {
+        List<Integer> partitionColumns = new ArrayList<>();
+        List<String> fileHeader = new ArrayList<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (partitionFields.contains(header.get(i))) {
+                partitionColumns.add(i);
+            } else {
+                fileHeader.add(header.get(i));
+            }
+        }
+        List<String> paths = new ArrayList<>();
+        List<List<String>> partitionValues = new ArrayList<>();
+        for (Map.Entry<List<String>, List<Row>> partition : groupByPartition().entrySet()) {
+            List<Row> fileTable = new ArrayList<>();
+            for (Row row : partition.getValue()) {
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < header.size(); i++) {
+                    if (!partitionColumns.contains(i)) {
+                        values.add(row.getColumnValue(i));
+                    }
+                }
+                fileTable.add(new Row(values));
+            }
+            String path = dataName + "/" + DataPartitions.getPath(partitionFields, partition.getKey());
+            Files.createDirectories(Paths.get(resourcesFolder, path).getParent());
+            new TabularDataSource(fileHeader, fileTable, delimiter).writeCsv(resourcesFolder + "/" + path + ".csv");
+            paths.add(path);
+            partitionValues.add(partition.getKey());
+        }
+        return DataPartitions.toJson(partitionFields, paths, partitionValues);
+    }
+
+    /**
+     * Write the {@link TabularDataSource} as a set of Parquet files, one for each combination of values of the
+     * {@link #partitionFields}, in the same paths as {@link #writePartitionsCsv(String, String)}.
+     * <p>
+     * Unlike the csv files, the Parquet files contain the partition fields, with their types.
+     *
+     * @param resourcesFolder the resources folder of the chatbot
+     * @param dataName        the name of the data
+     * @param schemaType      the schema type containing the schema fields of the columns
+     * @throws IOException if a file cannot be written
+     * @see #writeParquet(String, SchemaType)
+     */
+    public void writePartitionsParquet(String resourcesFolder, String dataName, SchemaType schemaType)
+            throws IOException {
+        for (Map.Entry<List<String>, List<Row>> partition : groupByPartition().entrySet()) {
+            String path = dataName + "/" + DataPartitions.getPath(partitionFields, partition.getKey());
+            Files.createDirectories(Paths.get(resourcesFolder, path).getParent());
+            new TabularDataSource(header, partition.getValue(), delimiter)
+                    .writeParquet(resourcesFolder + "/" + path + ".parquet", schemaType);
+        }
+    }
+
+    /**
+     * Groups the rows by the values of the {@link #partitionFields}.
+     *
+     * @return the rows of each combination of values of the partition fields, in order of appearance
+     */
+    private Map<List<String>, List<Row>> groupByPartition() {
+        List<Integer> partitionColumns = new ArrayList<>();
+        for (String field : partitionFields) {
+            partitionColumns.add(header.indexOf(field));
+        }
+        Map<List<String>, List<Row>> partitions = new LinkedHashMap<>();
+        for (Row row : table) {
+            List<String> values = new ArrayList<>();
+            for (int i : partitionColumns) {
+                values.add(row.getColumnValue(i));
+            }
+            partitions.computeIfAbsent(values, k -> new ArrayList<>()).add(row);
+        }
+        return partitions;
+    }
+
     /**
      * Creates a Data Schema from the Tabular Data Source.
      *
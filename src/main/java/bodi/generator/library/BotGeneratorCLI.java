@@ -1,16 +1,26 @@
 package bodi.generator.library;
 
+import bodi.generator.dataSchema.SchemaType;
+import bodi.generator.dataSource.TabularDataSource;
+import com.xatkit.bot.library.BotProperties;
+import com.xatkit.bot.sql.DataPartitions;
 import org.apache.commons.configuration2.Configuration;
+import org.json.JSONObject;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 
+import static bodi.generator.library.BodiGeneratorProperties.MAIN_SCHEMA_TYPE;
 import static bodi.generator.library.BotGeneratorUtils.copyDirectory;
 import static bodi.generator.library.BotGeneratorUtils.copyFile;
 import static bodi.generator.library.BotGeneratorUtils.deleteFolder;
+import static bodi.generator.library.BotGeneratorUtils.getPartitionFiles;
+import static bodi.generator.library.BotGeneratorUtils.putDataVersion;
 import static bodi.generator.library.BotGeneratorUtils.writeFile;
+import static java.util.Objects.isNull;
 
 /**
  * The necessary methods to generate a chatbot application (CLI version).
@@ -25,8 +35,10 @@ public final class BotGeneratorCLI {
      *
      * Required files:
      *
-     *  - the csv file
+     *  - the csv file (and its Parquet version, if enabled), or the files of its partitions and their manifest
+     *    partitions.json, if the data folder contains a partitions folder
      *  - entities.json to be copied
+     *  - statistics.json (generated from the csv file)
      *  - config.properties, config_en.properties...
      *
      * @param conf the bodi-generator configuration properties
@@ -53,8 +65,36 @@ public final class BotGeneratorCLI {
             Files.createDirectories(Paths.get(outputFolder + "/src/test/java/"));
             Files.createDirectories(Paths.get(outputFolder + "/src/test/resources/"));
 
-            // .csv
-            copyFile("src/main/resources/" + dataName + "/" + inputDocName, outputFolder + "/src/main/resources/" + inputDocName);
+            char delimiter = conf.getString(BodiGeneratorProperties.CSV_DELIMITER).charAt(0);
+            String resourcesFolder = outputFolder + "/src/main/resources";
+            // The partitions (e.g. partitions/year=2020.csv) have the same columns, and their partition fields are
+            // derived from the file names
+            File partitionsFolder = new File("src/main/resources/" + dataName + "/partitions");
+            TabularDataSource tds;
+            JSONObject partitionsManifest = null;
+            if (partitionsFolder.isDirectory()) {
+                // .csv partitions
+                tds = TabularDataSource.fromPartitions(partitionsFolder.getPath(), delimiter);
+                System.out.println("Writing the partitions of " + dataName + " by " + tds.getPartitionFields());
+                partitionsManifest = tds.writePartitionsCsv(resourcesFolder, dataName);
+                writeFile(resourcesFolder + "/" + DataPartitions.PARTITIONS_JSON_FILE,
+                        partitionsManifest.toString().getBytes());
+            } else {
+                // .csv
+                copyFile("src/main/resources/" + dataName + "/" + inputDocName, resourcesFolder + "/" + inputDocName);
+                tds = new TabularDataSource("src/main/resources/" + dataName + "/" + inputDocName, delimiter);
+            }
+            SchemaType schemaType = tds.toDataSchema().getSchemaType(MAIN_SCHEMA_TYPE);
+
+            // .parquet
+            if (conf.getBoolean(BotProperties.SQL_PARQUET, false)) {
+                System.out.println("Writing the Parquet version of " + dataName);
+                if (isNull(partitionsManifest)) {
+                    tds.writeParquet(resourcesFolder + "/" + dataName + ".parquet", schemaType);
+                } else {
+                    tds.writePartitionsParquet(resourcesFolder, dataName, schemaType);
+                }
+            }
 
             // pom.xml
             writeFile(outputFolder + "/pom.xml", CodeGenerator.generatePomFile(botName, enableTesting).getBytes());
@@ -88,6 +128,14 @@ public final class BotGeneratorCLI {
             // entities.json
             copyFile("src/main/resources/" + dataName + "/entities.json", outputFolder + "/src/main/resources/entities.json");
 
+            // statistics.json (it must be written after the csv, whose size and checksum identify the data it
+            // describes)
+            JSONObject statistics = tds.generateStatisticsJson(schemaType);
+            putDataVersion(statistics, isNull(partitionsManifest)
+                    ? Collections.singletonList(new File(resourcesFolder + "/" + inputDocName))
+                    : getPartitionFiles(resourcesFolder, partitionsManifest));
+            writeFile(outputFolder + "/src/main/resources/statistics.json", statistics.toString().getBytes());
+
             if (enableTesting) {
                 copyFile("src/test/resources/customQueryUtterances_en.csv", outputFolder + "/src/test/resources/customQueryUtterances_en.csv");
                 copyFile("src/test/resources/customQueryUtterances_es.csv", outputFolder + "/src/test/resources/customQueryUtterances_es.csv");
@@ -5,21 +5,27 @@ import bodi.generator.dataSource.TabularDataSource;
 import bodi.generator.ui.model.Properties;
 import bodi.generator.ui.service.DownloadZipService;
 import com.xatkit.bot.library.BotProperties;
+import com.xatkit.bot.sql.DataPartitions;
+import org.json.JSONObject;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Set;
 
 import static bodi.generator.library.BodiGeneratorProperties.MAIN_SCHEMA_TYPE;
 import static bodi.generator.library.BotGeneratorUtils.copyDirectory;
 import static bodi.generator.library.BotGeneratorUtils.copyFile;
 import static bodi.generator.library.BotGeneratorUtils.deleteFolder;
+import static bodi.generator.library.BotGeneratorUtils.getPartitionFiles;
+import static bodi.generator.library.BotGeneratorUtils.putDataVersion;
 import static bodi.generator.library.BotGeneratorUtils.writeFile;
 import static bodi.generator.library.CodeGenerator.createBotLanguagePropertiesFile;
 import static bodi.generator.library.CodeGenerator.createBotPropertiesFile;
+import static java.util.Objects.isNull;
 
 /**
  * The necessary methods to generate a chatbot application (UI version).
@@ -58,8 +64,31 @@ public final class BotGeneratorUI {
             Files.createDirectories(Paths.get(outputFolder + "/src/test/java/"));
             Files.createDirectories(Paths.get(outputFolder + "/src/test/resources/"));
 
-            // .csv
-            tds.writeCsv(outputFolder + "/src/main/resources/" + inputDocName);
+            // .csv (with the normalized shadow columns of the textual fields, if enabled)
+            String resourcesFolder = outputFolder + "/src/main/resources";
+            TabularDataSource writtenTds = tds;
+            if (Boolean.TRUE.equals(properties.getBotProperties().get(BotProperties.SQL_NORMALIZED_COLUMNS))) {
+                writtenTds = tds.withNormalizedColumns(ds.getSchemaType(MAIN_SCHEMA_TYPE));
+            }
+            // If the data was imported from partitions, it is written as partitions too
+            JSONObject partitionsManifest = null;
+            if (writtenTds.getPartitionFields().isEmpty()) {
+                writtenTds.writeCsv(resourcesFolder + "/" + inputDocName);
+            } else {
+                partitionsManifest = writtenTds.writePartitionsCsv(resourcesFolder, dataName);
+                writeFile(resourcesFolder + "/" + DataPartitions.PARTITIONS_JSON_FILE,
+                        partitionsManifest.toString().getBytes());
+            }
+
+            // .parquet
+            if (Boolean.TRUE.equals(properties.getBotProperties().get(BotProperties.SQL_PARQUET))) {
+                if (isNull(partitionsManifest)) {
+                    writtenTds.writeParquet(resourcesFolder + "/" + dataName + ".parquet",
+                            ds.getSchemaType(MAIN_SCHEMA_TYPE));
+                } else {
+                    writtenTds.writePartitionsParquet(resourcesFolder, dataName, ds.getSchemaType(MAIN_SCHEMA_TYPE));
+                }
+            }
 
             // pom.xml
             writeFile(outputFolder + "/pom.xml", CodeGenerator.generatePomFile(botName, enableTesting).getBytes());
@@ -94,6 +123,14 @@ public final class BotGeneratorUI {
             // entities.json
             writeFile(outputFolder + "/src/main/resources/entities.json", ds.getSchemaType(MAIN_SCHEMA_TYPE).generateEntitiesJson().toString().getBytes());
 
+            // statistics.json (it must be written after the csv, whose size and checksum identify the data it
+            // describes)
+            JSONObject statistics = tds.generateStatisticsJson(ds.getSchemaType(MAIN_SCHEMA_TYPE));
+            putDataVersion(statistics, isNull(partitionsManifest)
+                    ? Collections.singletonList(new File(resourcesFolder + "/" + inputDocName))
+                    : getPartitionFiles(resourcesFolder, partitionsManifest));
+            writeFile(outputFolder + "/src/main/resources/statistics.json", statistics.toString().getBytes());
+
         } catch (IOException e) {
             e.printStackTrace();
         }
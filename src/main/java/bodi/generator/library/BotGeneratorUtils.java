@@ -1,17 +1,26 @@
 package bodi.generator.library;
 
+import com.xatkit.bot.sql.DataPartitions;
 import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.builder.fluent.Configurations;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.FileUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
 
 /**
  * Auxiliary methods for the bot generation.
@@ -71,4 +80,42 @@ public final class BotGeneratorUtils {
         Path path = Paths.get(dest);
         Files.write(path, bytes);
     }
+
+    /**
+     * Gets the csv files of a set of partitions.
+     *
+     * @param resourcesFolder    the resources folder of the chatbot
+     * @param partitionsManifest the manifest of the partitions
+     * @return the files of the partitions, in the order of the manifest
+     */
+    public static List<File> getPartitionFiles(String resourcesFolder, JSONObject partitionsManifest) {
+        List<File> files = new ArrayList<>();
+        JSONArray partitions = partitionsManifest.getJSONArray("partitions");
+        for (int i = 0; i < partitions.length(); i++) {
+            files.add(new File(resourcesFolder + "/" + partitions.getJSONObject(i).getString("path") + ".csv"));
+        }
+        return files;
+    }
+
+    /**
+     * Adds to the statistics of the chatbot data the size and the checksum of its files, like the chatbot computes
+     * them to check that the statistics were generated from its data (see {@link DataPartitions#getDataSize()} and
+     * {@link DataPartitions#getDataChecksum()}).
+     *
+     * @param statistics the statistics of the data
+     * @param dataFiles  the files of the data, in the order of the partitions
+     * @throws IOException if a file cannot be read
+     */
+    public static void putDataVersion(JSONObject statistics, List<File> dataFiles) throws IOException {
+        long size = 0;
+        Checksum checksum = new CRC32();
+        for (File file : dataFiles) {
+            size += file.length();
+            try (InputStream is = new FileInputStream(file)) {
+                DataPartitions.updateChecksum(checksum, is);
+            }
+        }
+        statistics.put("dataSize", size);
+        statistics.put("dataChecksum", checksum.getValue());
+    }
 }
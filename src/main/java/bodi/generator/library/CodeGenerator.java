@@ -2,6 +2,8 @@ package bodi.generator.library;
 
 import bodi.generator.ui.model.Properties;
 import com.xatkit.bot.library.BotProperties;
+import com.xatkit.bot.sql.ConnectionPool;
+import com.xatkit.bot.sql.SqlEngine;
 import org.apache.commons.configuration2.Configuration;
 
 import java.io.FileWriter;
@@ -122,6 +124,11 @@ public final class CodeGenerator {
                                    <artifactId>drill-java-exec</artifactId>
                                    <version>1.20.0</version>
                                </dependency>
+                               <dependency>
+                                   <groupId>com.h2database</groupId>
+                                   <artifactId>h2</artifactId>
+                                   <version>1.4.200</version>
+                               </dependency>
                                <dependency>
                                    <groupId>org.codehaus.janino</groupId>
                                    <artifactId>janino</artifactId>
@@ -240,6 +247,25 @@ public final class CodeGenerator {
             String languagesString = String.join(",", (Set<String>) properties.getBotProperties().get(BotProperties.BOT_LANGUAGES));
             fw.write(BotProperties.BOT_LANGUAGES + " = " + languagesString + "\n");
 
+            fw.write("\n# SQL engine\n\n");
+            fw.write(BotProperties.SQL_BACKEND + " = " + properties.getBotProperties().get(BotProperties.SQL_BACKEND) + "\n");
+            fw.write(BotProperties.SQL_POOL_SIZE + " = " + properties.getBotProperties().get(BotProperties.SQL_POOL_SIZE) + "\n");
+            fw.write(BotProperties.SQL_POOL_TIMEOUT + " = " + properties.getBotProperties().get(BotProperties.SQL_POOL_TIMEOUT) + "\n");
+            fw.write(BotProperties.SQL_PARQUET + " = " + properties.getBotProperties().get(BotProperties.SQL_PARQUET) + "\n");
+            fw.write(BotProperties.SQL_COLUMNAR + " = " + properties.getBotProperties().get(BotProperties.SQL_COLUMNAR) + "\n");
+            fw.write(BotProperties.SQL_TRIGRAM_INDEX + " = " + properties.getBotProperties().get(BotProperties.SQL_TRIGRAM_INDEX) + "\n");
+            fw.write(BotProperties.SQL_CACHE_SIZE + " = " + properties.getBotProperties().get(BotProperties.SQL_CACHE_SIZE) + "\n");
+            fw.write(BotProperties.SQL_CACHE_TTL + " = " + properties.getBotProperties().get(BotProperties.SQL_CACHE_TTL) + "\n");
+            fw.write(BotProperties.SQL_FETCH_SIZE + " = " + properties.getBotProperties().get(BotProperties.SQL_FETCH_SIZE) + "\n");
+            fw.write(BotProperties.SQL_CURSOR_TIMEOUT + " = " + properties.getBotProperties().get(BotProperties.SQL_CURSOR_TIMEOUT) + "\n");
+            fw.write(BotProperties.SQL_STATEMENT_CACHE_SIZE + " = " + properties.getBotProperties().get(BotProperties.SQL_STATEMENT_CACHE_SIZE) + "\n");
+            fw.write(BotProperties.SQL_QUERY_TIMEOUT + " = " + properties.getBotProperties().get(BotProperties.SQL_QUERY_TIMEOUT) + "\n");
+            fw.write(BotProperties.SQL_QUERY_NOTICE_DELAY + " = " + properties.getBotProperties().get(BotProperties.SQL_QUERY_NOTICE_DELAY) + "\n");
+            fw.write(BotProperties.SQL_REFINE_MAX_ROWS + " = " + properties.getBotProperties().get(BotProperties.SQL_REFINE_MAX_ROWS) + "\n");
+            fw.write(BotProperties.SQL_NORMALIZED_COLUMNS + " = " + properties.getBotProperties().get(BotProperties.SQL_NORMALIZED_COLUMNS) + "\n");
+            fw.write(BotProperties.SQL_SAMPLE_SIZE + " = " + properties.getBotProperties().get(BotProperties.SQL_SAMPLE_SIZE) + "\n");
+            fw.write(BotProperties.SQL_SAMPLE_LATENCY_BUDGET + " = " + properties.getBotProperties().get(BotProperties.SQL_SAMPLE_LATENCY_BUDGET) + "\n");
+
             fw.write("\n# NLP Server properties\n\n");
             fw.write(BotProperties.SERVER_URL + " = " + properties.getBotProperties().get(BotProperties.SERVER_URL) + "\n");
             fw.write(BotProperties.TEXT_TO_TABLE_ENDPOINT + " = " + properties.getBotProperties().get(BotProperties.TEXT_TO_TABLE_ENDPOINT) + "\n");
@@ -328,6 +354,25 @@ public final class CodeGenerator {
             fw.write(BotProperties.BOT_ENABLE_CHECK_CORRECT_ANSWER + " = " + "true" + "\n");
             fw.write(BotProperties.BOT_LANGUAGES + " = " + conf.getString(BotProperties.BOT_LANGUAGES) + "\n");
 
+            fw.write("\n# SQL engine\n\n");
+            fw.write(BotProperties.SQL_BACKEND + " = " + SqlEngine.DRILL + "\n");
+            fw.write(BotProperties.SQL_POOL_SIZE + " = " + ConnectionPool.DEFAULT_MAX_SIZE + "\n");
+            fw.write(BotProperties.SQL_POOL_TIMEOUT + " = " + SqlEngine.DEFAULT_POOL_TIMEOUT + "\n");
+            fw.write(BotProperties.SQL_PARQUET + " = " + conf.getBoolean(BotProperties.SQL_PARQUET, false) + "\n");
+            fw.write(BotProperties.SQL_COLUMNAR + " = " + "false" + "\n");
+            fw.write(BotProperties.SQL_TRIGRAM_INDEX + " = " + "false" + "\n");
+            fw.write(BotProperties.SQL_CACHE_SIZE + " = " + SqlEngine.DEFAULT_CACHE_SIZE + "\n");
+            fw.write(BotProperties.SQL_CACHE_TTL + " = " + SqlEngine.DEFAULT_CACHE_TTL + "\n");
+            fw.write(BotProperties.SQL_FETCH_SIZE + " = " + SqlEngine.DEFAULT_FETCH_SIZE + "\n");
+            fw.write(BotProperties.SQL_CURSOR_TIMEOUT + " = " + SqlEngine.DEFAULT_CURSOR_TIMEOUT + "\n");
+            fw.write(BotProperties.SQL_STATEMENT_CACHE_SIZE + " = " + SqlEngine.DEFAULT_STATEMENT_CACHE_SIZE + "\n");
+            fw.write(BotProperties.SQL_QUERY_TIMEOUT + " = " + SqlEngine.DEFAULT_QUERY_TIMEOUT + "\n");
+            fw.write(BotProperties.SQL_QUERY_NOTICE_DELAY + " = " + SqlEngine.DEFAULT_QUERY_NOTICE_DELAY + "\n");
+            fw.write(BotProperties.SQL_REFINE_MAX_ROWS + " = " + SqlEngine.DEFAULT_REFINE_MAX_ROWS + "\n");
+            fw.write(BotProperties.SQL_NORMALIZED_COLUMNS + " = " + "false" + "\n");
+            fw.write(BotProperties.SQL_SAMPLE_SIZE + " = " + SqlEngine.DEFAULT_SAMPLE_SIZE + "\n");
+            fw.write(BotProperties.SQL_SAMPLE_LATENCY_BUDGET + " = " + SqlEngine.DEFAULT_SAMPLE_LATENCY_BUDGET + "\n");
+
             fw.write("\n# NLP Server properties\n\n");
             fw.write(BotProperties.SERVER_URL + " = " + "127.0.0.1:5050" + "\n");
             fw.write(BotProperties.TEXT_TO_TABLE_ENDPOINT + " = " + "text-to-table" + "\n");
@@ -7,6 +7,8 @@ import bodi.generator.ui.model.BodiGeneratorObjects;
 import bodi.generator.ui.model.Properties;
 import bodi.generator.ui.service.DashboardService;
 import com.xatkit.bot.library.BotProperties;
+import com.xatkit.bot.sql.ConnectionPool;
+import com.xatkit.bot.sql.SqlEngine;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +21,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static bodi.generator.library.BodiGeneratorProperties.MAIN_SCHEMA_TYPE;
@@ -67,20 +70,35 @@ public class ImportDataController {
     /**
      * Store the data file.
      *
+     * Several files can be stored as the partitions of the data, if they have the same columns and their names contain
+     * the values of the partition fields (e.g. {@code year=2020.csv}, see
+     * {@link TabularDataSource#fromPartitions(Map)}).
+     *
      * Also sets the default values of the {@link Properties}.
      *
-     * @param file         the file
+     * @param files        the file, or the files of the partitions
      * @param csvDelimiter the csv delimiter
      * @return the name of the endpoint to redirect
      * @throws IOException the io exception
      */
     @PostMapping("/store_file")
-    public String storeFile(@RequestParam("file") MultipartFile file,
+    public String storeFile(@RequestParam("file") MultipartFile[] files,
                             @RequestParam("csvDelimiter") char csvDelimiter) throws IOException {
         objects.setCsvDelimiter(csvDelimiter);
         // TODO: check csv.getContentType().equals("text/csv")
-        objects.setDataName(file.getOriginalFilename());
-        objects.setTds(new TabularDataSource(new ByteArrayInputStream(file.getInputStream().readAllBytes()), csvDelimiter)); // TODO: HANDLE DELIMITER ERROR
+        if (files.length == 1) {
+            objects.setDataName(files[0].getOriginalFilename());
+            objects.setTds(new TabularDataSource(new ByteArrayInputStream(files[0].getInputStream().readAllBytes()), csvDelimiter)); // TODO: HANDLE DELIMITER ERROR
+        } else {
+            Map<String, TabularDataSource> partitions = new LinkedHashMap<>();
+            for (MultipartFile file : files) {
+                partitions.put(file.getOriginalFilename(),
+                        new TabularDataSource(new ByteArrayInputStream(file.getInputStream().readAllBytes()), csvDelimiter));
+            }
+            // The file names are the values of the partition fields, so they cannot name the data
+            objects.setDataName("data.csv");
+            objects.setTds(TabularDataSource.fromPartitions(partitions));
+        }
         objects.setDs(objects.getTds().toDataSchema());
         objects.setSchemaType(objects.getDs().getSchemaType(MAIN_SCHEMA_TYPE));
 
@@ -104,6 +122,23 @@ public class ImportDataController {
         properties.getBotProperties().put(BotProperties.BOT_MAX_ENTRIES_TO_DISPLAY, 7);
         properties.getBotProperties().put(BotProperties.BOT_ENABLE_CHECK_CORRECT_ANSWER, true);
         properties.getBotProperties().put(BotProperties.BOT_LANGUAGES, (new HashSet<>(DataSchema.languages)));
+        properties.getBotProperties().put(BotProperties.SQL_BACKEND, SqlEngine.DRILL);
+        properties.getBotProperties().put(BotProperties.SQL_POOL_SIZE, ConnectionPool.DEFAULT_MAX_SIZE);
+        properties.getBotProperties().put(BotProperties.SQL_POOL_TIMEOUT, SqlEngine.DEFAULT_POOL_TIMEOUT);
+        properties.getBotProperties().put(BotProperties.SQL_PARQUET, false);
+        properties.getBotProperties().put(BotProperties.SQL_COLUMNAR, false);
+        properties.getBotProperties().put(BotProperties.SQL_TRIGRAM_INDEX, false);
+        properties.getBotProperties().put(BotProperties.SQL_CACHE_SIZE, SqlEngine.DEFAULT_CACHE_SIZE);
+        properties.getBotProperties().put(BotProperties.SQL_CACHE_TTL, SqlEngine.DEFAULT_CACHE_TTL);
+        properties.getBotProperties().put(BotProperties.SQL_FETCH_SIZE, SqlEngine.DEFAULT_FETCH_SIZE);
+        properties.getBotProperties().put(BotProperties.SQL_CURSOR_TIMEOUT, SqlEngine.DEFAULT_CURSOR_TIMEOUT);
+        properties.getBotProperties().put(BotProperties.SQL_STATEMENT_CACHE_SIZE, SqlEngine.DEFAULT_STATEMENT_CACHE_SIZE);
+        properties.getBotProperties().put(BotProperties.SQL_QUERY_TIMEOUT, SqlEngine.DEFAULT_QUERY_TIMEOUT);
+        properties.getBotProperties().put(BotProperties.SQL_QUERY_NOTICE_DELAY, SqlEngine.DEFAULT_QUERY_NOTICE_DELAY);
+        properties.getBotProperties().put(BotProperties.SQL_REFINE_MAX_ROWS, SqlEngine.DEFAULT_REFINE_MAX_ROWS);
+        properties.getBotProperties().put(BotProperties.SQL_NORMALIZED_COLUMNS, false);
+        properties.getBotProperties().put(BotProperties.SQL_SAMPLE_SIZE, SqlEngine.DEFAULT_SAMPLE_SIZE);
+        properties.getBotProperties().put(BotProperties.SQL_SAMPLE_LATENCY_BUDGET, SqlEngine.DEFAULT_SAMPLE_LATENCY_BUDGET);
         properties.getBotProperties().put(BotProperties.SERVER_URL, "127.0.0.1:5002");
         properties.getBotProperties().put(BotProperties.TEXT_TO_TABLE_ENDPOINT, "text-to-table");
 
@@ -133,6 +133,23 @@ public class PropertiesController {
         properties.getBotProperties().put(BotProperties.BOT_PAGE_LIMIT, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.BOT_PAGE_LIMIT).toString()));
         properties.getBotProperties().put(BotProperties.BOT_MAX_ENTRIES_TO_DISPLAY, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.BOT_MAX_ENTRIES_TO_DISPLAY).toString()));
         properties.getBotProperties().put(BotProperties.BOT_ENABLE_CHECK_CORRECT_ANSWER, Boolean.valueOf(updatedProperties.getBotProperties().get(BotProperties.BOT_ENABLE_CHECK_CORRECT_ANSWER).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_BACKEND, updatedProperties.getBotProperties().get(BotProperties.SQL_BACKEND).toString());
+        properties.getBotProperties().put(BotProperties.SQL_POOL_SIZE, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_POOL_SIZE).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_POOL_TIMEOUT, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_POOL_TIMEOUT).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_PARQUET, Boolean.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_PARQUET).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_COLUMNAR, Boolean.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_COLUMNAR).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_TRIGRAM_INDEX, Boolean.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_TRIGRAM_INDEX).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_CACHE_SIZE, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_CACHE_SIZE).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_CACHE_TTL, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_CACHE_TTL).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_FETCH_SIZE, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_FETCH_SIZE).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_CURSOR_TIMEOUT, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_CURSOR_TIMEOUT).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_STATEMENT_CACHE_SIZE, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_STATEMENT_CACHE_SIZE).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_QUERY_TIMEOUT, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_QUERY_TIMEOUT).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_QUERY_NOTICE_DELAY, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_QUERY_NOTICE_DELAY).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_REFINE_MAX_ROWS, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_REFINE_MAX_ROWS).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_NORMALIZED_COLUMNS, Boolean.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_NORMALIZED_COLUMNS).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_SAMPLE_SIZE, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_SAMPLE_SIZE).toString()));
+        properties.getBotProperties().put(BotProperties.SQL_SAMPLE_LATENCY_BUDGET, Integer.valueOf(updatedProperties.getBotProperties().get(BotProperties.SQL_SAMPLE_LATENCY_BUDGET).toString()));
 
         errors = new ArrayList<>();
 
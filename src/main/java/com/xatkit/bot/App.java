@@ -61,7 +61,9 @@ public final class App {
         try {
             botConfiguration = configurations.properties(Thread.currentThread().getContextClassLoader().getResource(BOT_PROPERTIES_FILE));
             nlpServerClient = new NLPServerClient("http://" + botConfiguration.getString("SERVER_URL") + "/", botConfiguration.getString(BotProperties.TEXT_TO_TABLE_ENDPOINT));
-            sql = new SqlEngine();
+            sql = new SqlEngine(botConfiguration);
+            // Release the connections (and the in-memory database) when the chatbot stops
+            Runtime.getRuntime().addShutdownHook(new Thread(sql::close, "sql-engine-close"));
 
             String[] languages = botConfiguration.getString(BotProperties.BOT_LANGUAGES).split(",");
             bots = new ArrayList<>();
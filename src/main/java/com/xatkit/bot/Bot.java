@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
+import static com.xatkit.bot.App.sql;
 import static com.xatkit.dsl.DSL.eventIs;
 import static com.xatkit.dsl.DSL.fallbackState;
 import static com.xatkit.dsl.DSL.intentIs;
@@ -146,7 +147,6 @@ public class Bot {
         pageLimit = botConfiguration.getInt(BotProperties.BOT_PAGE_LIMIT, 10);
         maxEntriesToDisplay = botConfiguration.getInt(BotProperties.BOT_MAX_ENTRIES_TO_DISPLAY, 7);
         coreLibraryI18n = new CoreLibraryI18n(locale);
-        char delimiter = botConfiguration.getString(BotProperties.CSV_DELIMITER, ",").charAt(0);
         boolean enableCheckCorrectAnswer = botConfiguration.getBoolean(BotProperties.BOT_ENABLE_CHECK_CORRECT_ANSWER, false);
         String odataTitle = botConfiguration.getString(BotProperties.BOT_ODATA_TITLE, null);
         String odataUrl = botConfiguration.getString(BotProperties.BOT_ODATA_URL, null);
@@ -188,7 +188,7 @@ public class Bot {
                 .when(eventIs(ReactEventProvider.ClientReady)).moveTo(awaitingInput);
         awaitingInput
                 .body(context -> {
-                    SqlQueries sqlQueries = new SqlQueries(inputDoc, delimiter);
+                    SqlQueries sqlQueries = new SqlQueries(sql.getBackend(), sql.isNormalizedColumns());
                     List<String> fields = new ArrayList<>(entities.readableNames.keySet());
                     sqlQueries.getAllFields().addAll(fields);
                     context.getSession().put(ContextKeys.SQL_QUERIES, sqlQueries);
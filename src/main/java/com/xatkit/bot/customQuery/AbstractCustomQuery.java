@@ -3,14 +3,21 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
+import com.xatkit.bot.library.Utils;
+import com.xatkit.bot.sql.Query;
+import com.xatkit.bot.sql.QueryExecution;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
+import com.xatkit.intent.RecognizedIntent;
 import fr.inria.atlanmod.commons.log.Log;
 import lombok.Getter;
 import lombok.val;
 
+import java.util.concurrent.TimeoutException;
+
 import static com.xatkit.bot.App.sql;
 import static com.xatkit.dsl.DSL.state;
+import static java.util.Objects.isNull;
 import static org.apache.logging.log4j.util.Strings.isEmpty;
 
 /**
@@ -25,6 +32,10 @@ import static org.apache.logging.log4j.util.Strings.isEmpty;
  * </ul>
  * It allows defining dedicated states to navigate to when something is wrong (the intent parameters or the result set)
  * to, for instance, ask about a missing parameter.
+ * <p>
+ * The SQL statement is run asynchronously with a deadline (see {@link #getQueryTimeout(StateContext)}). If it takes
+ * long, the user is told that the chatbot is still working on it. If the deadline expires, the query is cancelled, the
+ * user is given a fallback message and the workflow goes back to the {@link #returnState}.
  */
 public abstract class AbstractCustomQuery {
 
@@ -73,13 +84,17 @@ public abstract class AbstractCustomQuery {
                     context.getSession().put(ContextKeys.BAD_PARAMS, false);
                     context.getSession().put(ContextKeys.BAD_RESULTSET, false);
                     context.getSession().put(ContextKeys.ALL_OK, false);
+                    context.getSession().put(ContextKeys.QUERY_TIMED_OUT, false);
                     if (!checkParamsOk(context)) {
                         context.getSession().put(ContextKeys.BAD_PARAMS, true);
                         Log.error("Intent parameters are not OK");
                         return;
                     }
-                    String sqlStatement = generateSqlStatement(context);
+                    Query sqlStatement = generateSqlStatement(context);
                     executeSqlAndStoreResultSet(sqlStatement, context);
+                    if ((boolean) context.getSession().get(ContextKeys.QUERY_TIMED_OUT)) {
+                        return;
+                    }
                     if (!checkResultSetOk(context)) {
                         context.getSession().put(ContextKeys.BAD_RESULTSET, true);
                         Log.error("The obtained result set is not OK");
@@ -93,6 +108,7 @@ public abstract class AbstractCustomQuery {
 
                 })
                 .next()
+                .when(context -> (boolean) context.getSession().get(ContextKeys.QUERY_TIMED_OUT)).moveTo(returnState)
                 .when(context -> (boolean) context.getSession().get(ContextKeys.BAD_PARAMS) && !continueWhenParamsNotOk(context)).moveTo(bot.getResult.getGenerateResultSetFromQueryState())
                 .when(context -> (boolean) context.getSession().get(ContextKeys.BAD_PARAMS) && continueWhenParamsNotOk(context)).moveTo(getNextStateWhenParamsNotOk())
                 .when(context -> (boolean) context.getSession().get(ContextKeys.BAD_RESULTSET) && !continueWhenResultSetNotOk(context)).moveTo(bot.getResult.getGenerateResultSetFromQueryState())
@@ -130,19 +146,137 @@ public abstract class AbstractCustomQuery {
      * Generates the appropriate SQL statement to obtain the data requested by the user query.
      *
      * @param context the current context
-     * @return the string
+     * @return the query
      */
-    protected abstract String generateSqlStatement(StateContext context);
+    protected abstract Query generateSqlStatement(StateContext context);
 
     /**
      * Executes the SQL statement and stores the obtained result set in the current context.
+     * <p>
+     * The statement is submitted to the {@link com.xatkit.bot.sql.SqlEngine} and its result is waited for at most
+     * {@link #getQueryTimeout(StateContext)} milliseconds. If it is not available after
+     * {@link com.xatkit.bot.sql.SqlEngine#getQueryNoticeDelay()} milliseconds, the user is told that the chatbot is
+     * still working. If the deadline expires, the query is cancelled, the user is given a fallback message and
+     * {@link ContextKeys#QUERY_TIMED_OUT} is set in the context.
+     * <p>
+     * If the query is approximate (see {@link Query#isApproximate()}) and the data is sampled, its result is only
+     * waited for {@link com.xatkit.bot.sql.SqlEngine#getSampleLatencyBudget()} milliseconds. After that, the result
+     * is estimated from the sample (with a confidence interval) and the query goes on running in the background, so
+     * if the user asks the same question again (e.g. for the exact number), its exact result is waited for instead of
+     * running the query again.
+     *
+     * @param sqlStatement the query containing the sql statement
+     * @param context      the context
+     */
+    protected void executeSqlAndStoreResultSet(Query sqlStatement, StateContext context) {
+        QueryExecution execution = takePendingExecution(sqlStatement, context);
+        if (isNull(execution)) {
+            execution = sql.submitSqlQuery(bot, sqlStatement);
+        }
+        long timeout = getQueryTimeout(context);
+        long noticeDelay = sql.getQueryNoticeDelay();
+        long budget = sql.getSampleLatencyBudget();
+        long waited = 0;
+        ResultSet resultSet;
+        try {
+            if (sqlStatement.isApproximate() && sql.isSampling() && (timeout <= 0 || budget < timeout)) {
+                try {
+                    Utils.storeResultSet(context.getSession(), execution.get(budget));
+                    return;
+                } catch (TimeoutException e) {
+                    ResultSet estimate = sql.estimateSqlQuery(bot, sqlStatement);
+                    if (!isNull(estimate)) {
+                        context.getSession().put(ContextKeys.PENDING_QUERY_EXECUTION, execution);
+                        bot.reactPlatform.reply(context, bot.messages.getString("ApproximateAnswer"));
+                        Utils.storeResultSet(context.getSession(), estimate);
+                        return;
+                    }
+                    waited = budget;
+                }
+            }
+            if (noticeDelay > 0 && (timeout <= 0 || noticeDelay < timeout)) {
+                try {
+                    // A wait of 0 ms would not expire
+                    resultSet = execution.get(Math.max(1, noticeDelay - waited));
+                } catch (TimeoutException e) {
+                    bot.reactPlatform.reply(context, bot.messages.getString("StillWorking"));
+                    resultSet = execution.get(timeout <= 0 ? 0 : timeout - Math.max(noticeDelay, waited));
+                }
+            } else {
+                resultSet = execution.get(timeout <= 0 ? 0 : timeout - waited);
+            }
+        } catch (TimeoutException e) {
+            execution.cancel();
+            Log.error("The query {0} did not finish in {1} ms", sqlStatement, timeout);
+            bot.reactPlatform.reply(context, bot.messages.getString("QueryTimedOut"));
+            context.getSession().put(ContextKeys.QUERY_TIMED_OUT, true);
+            resultSet = null;
+        }
+        Utils.storeResultSet(context.getSession(), resultSet);
+    }
+
+    /**
+     * Takes the execution of an approximate query that was left running in the background (see
+     * {@link #executeSqlAndStoreResultSet(Query, StateContext)}) from the context.
+     * <p>
+     * If it runs the same SQL statement with the same parameters as the given query, it is returned so its result is
+     * waited for. Otherwise, the user has moved on to another question, so it is cancelled.
      *
-     * @param sqlStatement the sql statement
+     * @param sqlStatement the query containing the sql statement
      * @param context      the context
+     * @return the pending execution of the query, or {@code null} if there is none
+     */
+    private QueryExecution takePendingExecution(Query sqlStatement, StateContext context) {
+        QueryExecution pending = (QueryExecution) context.getSession().remove(ContextKeys.PENDING_QUERY_EXECUTION);
+        if (isNull(pending)) {
+            return null;
+        }
+        Query pendingQuery = pending.getQuery();
+        if (pendingQuery.getSql().equals(sqlStatement.getSql())
+                && pendingQuery.getParameters().equals(sqlStatement.getParameters())) {
+            return pending;
+        }
+        pending.cancel();
+        return null;
+    }
+
+    /**
+     * Returns the maximum number of milliseconds to wait for the result of the SQL statement (0 to wait without
+     * limit).
+     * <p>
+     * By default, it is the deadline of the matched intent (see
+     * {@link com.xatkit.bot.sql.SqlEngine#getQueryTimeout(String)}), so it can be set per intent in the chatbot
+     * properties. Custom queries can override it to compute a different deadline.
+     *
+     * @param context the current context
+     * @return the timeout
+     */
+    protected long getQueryTimeout(StateContext context) {
+        RecognizedIntent intent = context.getIntent();
+        String intentName = (isNull(intent) || isNull(intent.getDefinition()) ? null
+                : intent.getDefinition().getName());
+        return sql.getQueryTimeout(intentName);
+    }
+
+    /**
+     * Returns true if the user asked for exact numbers (i.e. the matched input contains one of the
+     * {@link com.xatkit.bot.library.Intents#exactNumbersWords}), so the query must not be answered with estimated
+     * numbers (e.g. frequencies or sampled counts), and false otherwise.
+     *
+     * @param context the current context
+     * @return the boolean
      */
-    protected void executeSqlAndStoreResultSet(String sqlStatement, StateContext context) {
-        ResultSet resultSet = sql.runSqlQuery(bot, sqlStatement);
-        context.getSession().put(ContextKeys.RESULTSET, resultSet);
+    protected boolean asksForExactNumbers(StateContext context) {
+        String input = context.getIntent().getMatchedInput();
+        if (isEmpty(input)) {
+            return false;
+        }
+        for (String word : input.toLowerCase(bot.locale).split("[^\\p{L}]+")) {
+            if (bot.intents.exactNumbersWords.contains(word)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -3,6 +3,7 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Utils;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -68,7 +69,7 @@ public class FieldBetweenValues extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String field = (String) context.getSession().get(ContextKeys.FIELD);
         String value1 = (String) context.getSession().get(ContextKeys.VALUE + "1");
         String value2 = (String) context.getSession().get(ContextKeys.VALUE + "2");
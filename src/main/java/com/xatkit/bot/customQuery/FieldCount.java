@@ -3,6 +3,7 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -41,7 +42,7 @@ public class FieldCount extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
         return sqlQueries.fieldCount();
     }
@@ -3,6 +3,7 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Utils;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -76,7 +77,7 @@ public class FieldOperatorValue extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String field = (String) context.getSession().get(ContextKeys.FIELD);
         String operator = (String) context.getSession().get(ContextKeys.OPERATOR);
         String value = (String) context.getSession().get(ContextKeys.VALUE);
@@ -3,6 +3,7 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -10,12 +11,16 @@ import com.xatkit.execution.StateContext;
 import java.text.MessageFormat;
 import java.util.List;
 
+import static com.xatkit.bot.customQuery.SelectFieldsWithConditions.DEFAULT_NUMBER;
+import static com.xatkit.bot.customQuery.SelectFieldsWithConditions.getNumberOrDefault;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 /**
  * The Frequent Value In Field workflow of a chatbot.
  * <p>
  * Given a field name, this workflow gets the most or least frequent values of that field and shows them to the user.
+ * If a number k is specified (e.g. "What are the 5 most frequent cities?"), the values with the k highest (or lowest)
+ * frequencies are shown.
  * <p>
  * This workflow is run within a {@link CustomQuery} workflow.
  *
@@ -44,14 +49,17 @@ public class FrequentValueInField extends AbstractCustomQuery {
         return bot.getResult.getGenerateResultSetFromQueryState();
     }
 
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         boolean mostFrequent = false;
         if (context.getSession().get(ContextKeys.INTENT_NAME).equals(bot.intents.mostFrequentValueInFieldIntent.getName())) {
             mostFrequent = true;
         }
         String field = (String) context.getSession().get(ContextKeys.FIELD);
+        String number = getNumberOrDefault((String) context.getSession().get(ContextKeys.NUMBER));
         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
-        return sqlQueries.frequentValueInField(field, mostFrequent);
+        // The frequencies may be estimated, unless the user asks for exact numbers
+        return sqlQueries.frequentValueInField(field, mostFrequent, Integer.parseInt(number),
+                !asksForExactNumbers(context));
     }
 
     @Override
@@ -60,7 +68,7 @@ public class FrequentValueInField extends AbstractCustomQuery {
         String fieldRN = bot.entities.readableNames.get(field);
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
         List<String> header = resultSet.getHeader();
-        return header.get(0).equals(fieldRN) && header.get(1).equals("freq") && resultSet.getNumRows() > 0;
+        return header.get(0).equals(fieldRN) && header.get(1).equals("freq") && resultSet.hasMoreRowsThan(0);
     }
 
     @Override
@@ -74,11 +82,16 @@ public class FrequentValueInField extends AbstractCustomQuery {
         String field = (String) context.getSession().get(ContextKeys.FIELD);
         String fieldRN = bot.entities.readableNames.get(field);
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        String frequency = resultSet.getRow(0).getColumnValue(1);
-        String messageName = "LeastFrequentValueInField";
-        if (context.getSession().get(ContextKeys.INTENT_NAME).equals(bot.intents.mostFrequentValueInFieldIntent.getName())) {
-            messageName = "MostFrequentValueInField";
+        String number = getNumberOrDefault((String) context.getSession().get(ContextKeys.NUMBER));
+        boolean mostFrequent = context.getSession().get(ContextKeys.INTENT_NAME)
+                .equals(bot.intents.mostFrequentValueInFieldIntent.getName());
+        if (!number.equals(DEFAULT_NUMBER)) {
+            // Top k values, with different frequencies
+            String messageName = (mostFrequent ? "MostFrequentValuesInField" : "LeastFrequentValuesInField");
+            return MessageFormat.format(bot.messages.getString(messageName), number, fieldRN);
         }
+        String frequency = resultSet.getDisplayValue(0, 1);
+        String messageName = (mostFrequent ? "MostFrequentValueInField" : "LeastFrequentValueInField");
         return MessageFormat.format(bot.messages.getString(messageName), fieldRN, frequency);
     }
 
@@ -4,12 +4,15 @@ import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
 
 import java.text.MessageFormat;
 
+import static java.util.Objects.isNull;
 import static org.apache.logging.log4j.util.Strings.isEmpty;
 
 /**
@@ -46,15 +49,15 @@ public class RowCount extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
-        return sqlQueries.rowCount();
+        return sqlQueries.rowCount(!asksForExactNumbers(context));
     }
 
     @Override
     protected boolean checkResultSetOk(StateContext context) {
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        return resultSet.getNumRows() > 0;
+        return resultSet.hasMoreRowsThan(0);
     }
 
     @Override
@@ -67,7 +70,12 @@ public class RowCount extends AbstractCustomQuery {
     protected String generateMessage(StateContext context) {
         String rowName = (String) context.getSession().get(ContextKeys.ROW_NAME);
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        int rowCount = Integer.parseInt(resultSet.getRow(0).getColumnValue(0));
+        Estimate estimate = resultSet.getEstimate(0, 0);
+        if (!isNull(estimate)) {
+            // An estimated count, with its confidence interval
+            return MessageFormat.format(bot.messages.getString("ShowRowCount"), estimate.toString(), rowName);
+        }
+        int rowCount = (int) resultSet.getLong(0, 0);
         return MessageFormat.format(bot.messages.getString("ShowRowCount"), rowCount, rowName);
     }
 
@@ -6,6 +6,7 @@ import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Entities;
 import com.xatkit.bot.library.Utils;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -359,7 +360,7 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String number = (String) context.getSession().get(ContextKeys.NUMBER);
         String field1 = (String) context.getSession().get(ContextKeys.FIELD + "1");
         String operator = (String) context.getSession().get(ContextKeys.OPERATOR);
@@ -390,7 +391,8 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
         } else {
             // Other operators (AVG, SUM)
             // SELECT AVG(operatorField) WHERE conditions
-            return sqlQueries.selectFieldsWithConditionsAvgSumOperator(operatorField, operator, valueFieldMap);
+            return sqlQueries.selectFieldsWithConditionsAvgSumOperator(operatorField, operator, valueFieldMap,
+                    !asksForExactNumbers(context));
         }
     }
 
@@ -401,12 +403,12 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
         number = getNumberOrDefault(number);
         String rowName = (String) context.getSession().get(ContextKeys.ROW_NAME);
         String operator = (String) context.getSession().get(ContextKeys.OPERATOR);
-        if (isEmpty(operator) && isEmpty(rowName) && resultSet.getNumRows() > 1) {
+        if (isEmpty(operator) && isEmpty(rowName) && resultSet.hasMoreRowsThan(1)) {
             // We should ask the user to apply an operator
             // When there is a rowName, we allow a result set with > 1 rows
             return false;
         }
-        if (!isEmpty(operator) && !allDistinct(operator) && resultSet.getNumRows() > Integer.parseInt(number)) {
+        if (!isEmpty(operator) && !allDistinct(operator) && resultSet.hasMoreRowsThan(Integer.parseInt(number))) {
             // There are more rows than expected
             return false;
         }
@@ -417,7 +419,7 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
     protected boolean continueWhenResultSetNotOk(StateContext context) {
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
         String operator = (String) context.getSession().get(ContextKeys.OPERATOR);
-        if (isEmpty(operator) && resultSet.getNumRows() > 1) {
+        if (isEmpty(operator) && resultSet.hasMoreRowsThan(1)) {
             // We ask the operator to the user
             return true;
         }
@@ -448,7 +450,7 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
         Map<String, String> valueFieldMap = (Map<String, String>) context.getSession().get(ContextKeys.VALUE_FIELD_MAP);
         String conditions = String.join(", ", Streams.zip(valueFieldMap.keySet().stream(),
                 valueFieldMap.values().stream(), (v, f) -> bot.entities.readableNames.get(f) + " " + "= " + v).collect(Collectors.toList()));
-        if (resultSet.getNumRows() == 0) {
+        if (!resultSet.hasMoreRowsThan(0)) {
             return MessageFormat.format(bot.messages.getString("SelectFieldsWithConditions0"), targetFieldRN, conditions);
         } else {
             if (isEmpty(operator)) {
@@ -508,12 +510,19 @@ public class SelectFieldsWithConditions extends AbstractCustomQuery {
                     }
                     String targetField = getTargetField(operator, field1, field2);
                     List<String> selectFields = getSelectFields(null, null, targetField, null);
-                    String sqlQuery = sqlQueries.selectFieldsWithConditionsNoOperator(selectFields, valueFieldMap, true);
+                    // The number of distinct rows is only informative, so it may be estimated from the statistics
+                    // instead of selecting all the distinct rows. The statistics only have sketches of single fields
+                    // (alone or in the rows with one value of a categorical field), so a count of several fields, or
+                    // with more conditions (e.g. filters), still runs a full COUNT(DISTINCT) in the database
+                    Query sqlQuery = sqlQueries.selectFieldsWithConditionsDistinctCount(selectFields, valueFieldMap);
                     ResultSet resultSetDistinct = sql.runSqlQuery(bot, sqlQuery);
+                    String numDistinctRows = (resultSetDistinct.getNumRows() > 0
+                            ? resultSetDistinct.getDisplayValue(0, 0) : "?");
+                    resultSetDistinct.close();
                     buttons.add(Utils.getFirstTrainingSentences(bot.coreLibraryI18n.Quit).get(0));
                     bot.reactPlatform.reply(context, MessageFormat.format(bot.messages.getString(
                                     "SelectFieldsWithConditionsAskOperator"), resultSet.getNumRows(), field1RN,
-                            resultSetDistinct.getNumRows(), conditions), buttons);
+                            numDistinctRows, conditions), buttons);
                 })
                 .next()
                 .when(intentIs(bot.intents.showAllIntent)).moveTo(saveOperator)
@@ -3,6 +3,7 @@ package com.xatkit.bot.customQuery;
 import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -44,7 +45,7 @@ public class ShowFieldDistinct extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String field = (String) context.getSession().get(ContextKeys.FIELD);
         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
         return sqlQueries.showFieldDistinct(field);
@@ -53,7 +54,7 @@ public class ShowFieldDistinct extends AbstractCustomQuery {
     @Override
     protected boolean checkResultSetOk(StateContext context) {
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        return resultSet.getNumRows() > 0;
+        return resultSet.hasMoreRowsThan(0);
     }
 
     @Override
@@ -4,6 +4,7 @@ import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
@@ -46,7 +47,7 @@ public class Value1vsValue2 extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String value1 = (String) context.getSession().get(ContextKeys.VALUE + "1");
         String value2 = (String) context.getSession().get(ContextKeys.VALUE + "2");
         String field1 = Entities.fieldValueMap.get(value1);
@@ -58,7 +59,7 @@ public class Value1vsValue2 extends AbstractCustomQuery {
     @Override
     protected boolean checkResultSetOk(StateContext context) {
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        return resultSet.getNumRows() == 1 && resultSet.getHeader().size() == 6;
+        return resultSet.getNumRows() == 1 && resultSet.getHeader().size() == 2;
     }
 
     @Override
@@ -77,8 +78,8 @@ public class Value1vsValue2 extends AbstractCustomQuery {
         String field1RN = bot.entities.readableNames.get(field1);
         String field2RN = bot.entities.readableNames.get(field2);
 
-        int value1Freq = Integer.parseInt(resultSet.getRow(0).getColumnValue(2));
-        int value2Freq = Integer.parseInt(resultSet.getRow(0).getColumnValue(5));
+        int value1Freq = (int) resultSet.getLong(0, 0);
+        int value2Freq = (int) resultSet.getLong(0, 1);
 
         if (context.getIntent().getDefinition().getName().equals(bot.intents.value1MoreThanValue2Intent.getName())) {
             if (value1Freq > value2Freq) {
@@ -4,12 +4,15 @@ import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.sql.Query;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import com.xatkit.execution.StateContext;
 
 import java.text.MessageFormat;
 
+import static java.util.Objects.isNull;
 import static org.apache.logging.log4j.util.Strings.isEmpty;
 
 /**
@@ -48,17 +51,18 @@ public class ValueFrequency extends AbstractCustomQuery {
     }
 
     @Override
-    protected String generateSqlStatement(StateContext context) {
+    protected Query generateSqlStatement(StateContext context) {
         String value = (String) context.getSession().get(ContextKeys.VALUE);
         String field = Entities.fieldValueMap.get(value);
         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
-        return sqlQueries.valueFrequency(field, value);
+        // The frequency may be estimated, unless the user asks for exact numbers
+        return sqlQueries.valueFrequency(field, value, !asksForExactNumbers(context));
     }
 
     @Override
     protected boolean checkResultSetOk(StateContext context) {
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        return resultSet.getNumRows() > 0;
+        return resultSet.hasMoreRowsThan(0);
     }
 
     @Override
@@ -73,7 +77,13 @@ public class ValueFrequency extends AbstractCustomQuery {
         String field = Entities.fieldValueMap.get(value);
         String fieldRN = bot.entities.readableNames.get(field);
         ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-        int valueFrequency = Integer.parseInt(resultSet.getRow(0).getColumnValue(0));
+        Estimate estimate = resultSet.getEstimate(0, 0);
+        if (!isNull(estimate)) {
+            // An estimated frequency, with its bounds
+            return MessageFormat.format(bot.messages.getString("ShowValueFrequency"), estimate.toString(), fieldRN,
+                    value);
+        }
+        int valueFrequency = (int) resultSet.getLong(0, 0);
         return MessageFormat.format(bot.messages.getString("ShowValueFrequency"), valueFrequency, fieldRN, value);
     }
 
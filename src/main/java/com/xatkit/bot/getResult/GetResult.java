@@ -5,12 +5,20 @@ import com.xatkit.bot.App;
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Utils;
+import com.xatkit.bot.sql.Condition;
+import com.xatkit.bot.sql.Query;
+import com.xatkit.bot.sql.ResultPages;
+import com.xatkit.bot.sql.SqlEngine;
 import com.xatkit.bot.sql.SqlQueries;
+import com.xatkit.bot.sql.columnar.RefinableResult;
 import com.xatkit.execution.State;
+import com.xatkit.execution.StateContext;
+import fr.inria.atlanmod.commons.log.Log;
 import lombok.Getter;
 import lombok.val;
 
 import java.text.MessageFormat;
+import java.util.List;
 
 import static com.xatkit.bot.App.nlpServerClient;
 import static com.xatkit.bot.App.sql;
@@ -30,7 +38,9 @@ import static java.util.Objects.isNull;
  * After one of these states is executed, the generated result is printed in the chatbot interface.
  * <p>
  * If the resulting table is too long to display it in the chatbot chat box, it is divided by pages of a maximum
- * length so the user can navigate through the pages in a more friendly way.
+ * length so the user can navigate through the pages in a more friendly way. When the table is generated from a
+ * query (see {@link #storePagedQuery(Bot, StateContext, SqlQueries)}), only the rows of the displayed page are
+ * retrieved from the database (see {@link ResultPages}).
  */
 public class GetResult {
 
@@ -59,7 +69,8 @@ public class GetResult {
      * One of the entry points for the Get Result workflow.
      * <p>
      * This state shows the result set stored in the context session object {@link ContextKeys#RESULTSET} (previously
-     * set by another workflow)
+     * set by another workflow). If there is no result set, it shows the result of the query stored in
+     * {@link ContextKeys#PAGED_QUERY}, running a query for each page (see {@link ResultPages}).
      */
     @Getter
     private final State showDataState;
@@ -78,8 +89,7 @@ public class GetResult {
         generateResultSetState
                 .body(context -> {
                     SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
-                    String sqlQuery = sqlQueries.selectAll();
-                    context.getSession().put(ContextKeys.RESULTSET, sql.runSqlQuery(bot, sqlQuery));
+                    storePagedQuery(bot, context, sqlQueries);
                 })
                 .next()
                 .moveTo(showDataState);
@@ -90,10 +100,10 @@ public class GetResult {
                 .body(context -> {
                     String query = context.getIntent().getMatchedInput();
                     ResultSet resultSet = nlpServerClient.runQuery(bot, query);
-                    if (resultSet.getNumRows() > 0) {
+                    if (resultSet.hasMoreRowsThan(0)) {
                         bot.reactPlatform.reply(context, bot.messages.getString("NLPServerMessage"));
                     }
-                    context.getSession().put(ContextKeys.RESULTSET, resultSet);
+                    Utils.storeResultSet(context.getSession(), resultSet);
                 })
                 .next()
                 .moveTo(showDataState);
@@ -103,8 +113,15 @@ public class GetResult {
         showDataState
                 .body(context -> {
                     ResultSet resultSet = (ResultSet) context.getSession().get(ContextKeys.RESULTSET);
-                    if (isNull(resultSet)) {
+                    ResultPages pages = (ResultPages) context.getSession().get(ContextKeys.PAGED_QUERY);
+                    int totalEntries;
+                    if (!isNull(resultSet)) {
+                        totalEntries = resultSet.getNumRows();
+                    } else if (!isNull(pages)) {
+                        totalEntries = (int) context.getSession().get(ContextKeys.RESULTSET_NUM_ROWS);
+                    } else {
                         resultSet = new ResultSet();
+                        totalEntries = 0;
                     }
                     int pageCount = 1;
                     if (context.getIntent().getMatchedInput()
@@ -114,7 +131,6 @@ public class GetResult {
                             .equals(bot.intents.showPreviousPageIntent.getTrainingSentences().get(0))) {
                         pageCount = (int) context.getSession().get(ContextKeys.PAGE_COUNT) - 1;
                     }
-                    int totalEntries = resultSet.getNumRows();
                     int totalPages = totalEntries / bot.pageLimit;
                     if (totalEntries % bot.pageLimit != 0) {
                         totalPages += 1;
@@ -128,10 +144,18 @@ public class GetResult {
                     }
                     int offset = (pageCount - 1) * bot.pageLimit;
                     context.getSession().put(ContextKeys.PAGE_COUNT, pageCount);
+                    context.getSession().put(ContextKeys.RESULTSET_NUM_ROWS, totalEntries);
 
                     if (totalEntries > 0) {
                         // Print table
-                        String resultSetString = resultSet.printTable(offset, bot.pageLimit);
+                        String resultSetString;
+                        if (!isNull(resultSet)) {
+                            resultSetString = resultSet.printTable(offset, bot.pageLimit);
+                        } else {
+                            ResultSet page = sql.runSqlQuery(bot, pages.getPage(offset));
+                            pages.pageShown(offset, page);
+                            resultSetString = page.printTable(0, bot.pageLimit);
+                        }
                         int selectedEntries = (offset + bot.pageLimit > totalEntries ? totalEntries - offset : bot.pageLimit);
                         bot.reactPlatform.reply(context, MessageFormat.format(
                                 bot.messages.getString("ShowingRecords"), selectedEntries, totalEntries));
@@ -150,11 +174,85 @@ public class GetResult {
                     }
                 })
                 .next()
-                .when(context -> ((ResultSet) context.getSession().get(ContextKeys.RESULTSET)).getNumRows() <= bot.pageLimit).moveTo(returnState)
+                .when(context -> (int) context.getSession().get(ContextKeys.RESULTSET_NUM_ROWS) <= bot.pageLimit).moveTo(returnState)
                 .when(intentIs(bot.intents.showPreviousPageIntent)).moveTo(showDataState)
                 .when(intentIs(bot.intents.showNextPageIntent)).moveTo(showDataState)
                 .when(intentIs(bot.coreLibraryI18n.Quit)).moveTo(returnState);
 
         this.showDataState = showDataState.getState();
     }
+
+    /**
+     * Stores the pages of the query that selects all the data (with the current filters) in the context session
+     * object {@link ContextKeys#PAGED_QUERY}, so {@link #showDataState} can retrieve its rows page by page. Only the
+     * number of rows of the result is computed, and it is stored in {@link ContextKeys#RESULTSET_NUM_ROWS}.
+     * <p>
+     * If the result is small enough (see {@link SqlEngine#getRefineMaxRows()}), its rows are retrieved and kept in
+     * {@link ContextKeys#REFINABLE_RESULT}, so when the user adds another filter, only the new filter is applied to
+     * them in memory (see {@link RefinableResult}), and no query is run. The query is run again when the kept result
+     * cannot be refined (e.g. a filter was removed) or there is no kept result (e.g. it was too big).
+     *
+     * @param bot        the chatbot
+     * @param context    the current context
+     * @param sqlQueries the SQL queries generator of the current session
+     * @return the number of rows of the result
+     */
+    public static int storePagedQuery(Bot bot, StateContext context, SqlQueries sqlQueries) {
+        List<Condition> conditions = sqlQueries.getFiltersAsConditions();
+        RefinableResult lastResult = (RefinableResult) context.getSession().get(ContextKeys.REFINABLE_RESULT);
+        if (!isNull(lastResult)) {
+            RefinableResult refinedResult = lastResult.refine(conditions);
+            if (!isNull(refinedResult)) {
+                Log.info("Refined the last filtered result in memory ({0} -> {1} rows)", lastResult.getNumRows(),
+                        refinedResult.getNumRows());
+                return storeRefinableResult(context, refinedResult);
+            }
+            context.getSession().remove(ContextKeys.REFINABLE_RESULT);
+        }
+        int numRows = countRows(bot, sqlQueries.rowCount());
+        if (numRows > 0 && numRows <= sql.getRefineMaxRows()) {
+            ResultSet resultSet = sql.runSqlQuery(bot, sqlQueries.selectAll());
+            RefinableResult result = RefinableResult.of(conditions, sqlQueries.getAllFields(), resultSet,
+                    sqlQueries.isNormalizedColumns());
+            resultSet.close();
+            if (result.getNumRows() == numRows) {
+                return storeRefinableResult(context, result);
+            }
+        }
+        Utils.storeResultSet(context.getSession(), null);
+        context.getSession().put(ContextKeys.PAGED_QUERY, sqlQueries.selectAllPages(bot.pageLimit));
+        context.getSession().put(ContextKeys.RESULTSET_NUM_ROWS, numRows);
+        return numRows;
+    }
+
+    /**
+     * Stores a filtered result in {@link ContextKeys#REFINABLE_RESULT}, and its rows in {@link ContextKeys#RESULTSET}
+     * so {@link #showDataState} shows them without running any query.
+     *
+     * @param context the current context
+     * @param result  the filtered result
+     * @return the number of rows of the result
+     */
+    private static int storeRefinableResult(StateContext context, RefinableResult result) {
+        context.getSession().put(ContextKeys.REFINABLE_RESULT, result);
+        Utils.storeResultSet(context.getSession(), result.toResultSet());
+        context.getSession().remove(ContextKeys.PAGED_QUERY);
+        context.getSession().put(ContextKeys.RESULTSET_NUM_ROWS, result.getNumRows());
+        return result.getNumRows();
+    }
+
+    /**
+     * Runs a query that counts rows (e.g. {@link SqlQueries#rowCount()}) and gets the result.
+     *
+     * @param bot        the chatbot
+     * @param countQuery the query that counts rows
+     * @return the number of rows, or 0 if the query failed
+     */
+    public static int countRows(Bot bot, Query countQuery) {
+        ResultSet resultSet = sql.runSqlQuery(bot, countQuery);
+        if (!resultSet.hasMoreRowsThan(0) || isNull(resultSet.getValue(0, 0))) {
+            return 0;
+        }
+        return (int) resultSet.getLong(0, 0);
+    }
 }
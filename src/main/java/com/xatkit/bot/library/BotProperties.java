@@ -20,6 +20,26 @@ public final class BotProperties {
     public static final String BOT_MAX_ENTRIES_TO_DISPLAY = "bot.maxEntriesToDisplay";
     public static final String BOT_ENABLE_CHECK_CORRECT_ANSWER = "bot.enableCheckCorrectAnswer";
 
+    // SQL engine
+
+    public static final String SQL_BACKEND = "sql.backend";
+    public static final String SQL_POOL_SIZE = "sql.pool.size";
+    public static final String SQL_POOL_TIMEOUT = "sql.pool.timeout";
+    public static final String SQL_PARQUET = "sql.parquet";
+    public static final String SQL_COLUMNAR = "sql.columnar";
+    public static final String SQL_TRIGRAM_INDEX = "sql.trigram.index";
+    public static final String SQL_CACHE_SIZE = "sql.cache.size";
+    public static final String SQL_CACHE_TTL = "sql.cache.ttl";
+    public static final String SQL_FETCH_SIZE = "sql.fetch.size";
+    public static final String SQL_CURSOR_TIMEOUT = "sql.cursor.timeout";
+    public static final String SQL_STATEMENT_CACHE_SIZE = "sql.statement.cache.size";
+    public static final String SQL_QUERY_TIMEOUT = "sql.query.timeout";
+    public static final String SQL_QUERY_NOTICE_DELAY = "sql.query.notice.delay";
+    public static final String SQL_REFINE_MAX_ROWS = "sql.refine.max.rows";
+    public static final String SQL_NORMALIZED_COLUMNS = "sql.normalized.columns";
+    public static final String SQL_SAMPLE_SIZE = "sql.sample.size";
+    public static final String SQL_SAMPLE_LATENCY_BUDGET = "sql.sample.latency.budget";
+
     // Intent provider
 
     public static final String XATKIT_INTENT_PROVIDER = "xatkit.intent.provider";
@@ -42,6 +42,18 @@ public final class ContextKeys {
      * The constant RESULTSET.
      */
     public static final String RESULTSET = "resultset";
+    /**
+     * The constant PAGED_QUERY.
+     */
+    public static final String PAGED_QUERY = "paged_query";
+    /**
+     * The constant REFINABLE_RESULT.
+     */
+    public static final String REFINABLE_RESULT = "refinable_result";
+    /**
+     * The constant PENDING_QUERY_EXECUTION.
+     */
+    public static final String PENDING_QUERY_EXECUTION = "pending_query_execution";
     /**
      * The constant SQL_QUERIES.
      */
@@ -74,6 +86,10 @@ public final class ContextKeys {
      * The constant ALL_OK.
      */
     public static final String ALL_OK = "all_ok";
+    /**
+     * The constant QUERY_TIMED_OUT.
+     */
+    public static final String QUERY_TIMED_OUT = "query_timed_out";
 
     // Intent Parameter Keys
 
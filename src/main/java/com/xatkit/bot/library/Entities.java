@@ -53,6 +53,11 @@ public class Entities {
      */
     private static final JSONObject entitiesJson;
 
+    /**
+     * The names of the field entities, one for each data type.
+     */
+    private static final List<String> typeFieldEntityNames = Arrays.asList("numericFieldEntity", "textualFieldEntity", "datetimeFieldEntity");
+
     /**
      * The keys of this map are the entries of the entity {@link #fieldValueEntity} (i.e. the values of the fields),
      * and the values of the map are the field they belong to.
@@ -190,6 +195,66 @@ public class Entities {
         rowNameEntity = generateRowNameEntity();
     }
 
+    /**
+     * Gets the name of the field entity a field belongs to (i.e. {@code numericFieldEntity},
+     * {@code textualFieldEntity} or {@code datetimeFieldEntity}), which determines the data type of the field.
+     *
+     * @param field the field
+     * @return the name of the field entity, or {@code null} if the field does not exist
+     */
+    public static String getFieldEntityName(String field) {
+        for (String typeFieldEntityName : typeFieldEntityNames) {
+            if (entitiesJson.getJSONObject(typeFieldEntityName).has(field)) {
+                return typeFieldEntityName;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a field is a key field.
+     *
+     * @param field the field
+     * @return true if the field is a key field, false otherwise
+     * @see #keyFields
+     */
+    public static boolean isKeyField(String field) {
+        JSONObject fieldJson = getFieldJson(field);
+        return fieldJson != null && fieldJson.optBoolean("key", false);
+    }
+
+    /**
+     * Checks if a field is categorical (i.e. it has a small set of different values).
+     * <p>
+     * Entities generated before the {@code categorical} property existed are considered categorical when they contain
+     * the main values of the field.
+     *
+     * @param field the field
+     * @return true if the field is categorical, false otherwise
+     */
+    public static boolean isCategoricalField(String field) {
+        JSONObject fieldJson = getFieldJson(field);
+        if (fieldJson == null) {
+            return false;
+        }
+        boolean hasValues = fieldJson.has("values") && !fieldJson.getJSONObject("values").isEmpty();
+        return fieldJson.optBoolean("categorical", hasValues);
+    }
+
+    /**
+     * Gets the JSON object of a field stored in {@link #entitiesJson}.
+     *
+     * @param field the field
+     * @return the JSON object of the field, or {@code null} if the field does not exist
+     */
+    private static JSONObject getFieldJson(String field) {
+        String typeFieldEntityName = getFieldEntityName(field);
+        if (typeFieldEntityName == null) {
+            return null;
+        }
+        return entitiesJson.getJSONObject(typeFieldEntityName).getJSONObject(field);
+    }
+
     /**
      * Generates a chatbot field entity.
      * <p>
@@ -271,7 +336,6 @@ public class Entities {
     private EntityDefinitionReferenceProvider generateFieldValueEntity() {
         fieldValueMap = new HashMap<>();
         MappingEntryStep entity = mapping("fieldValueEntity");
-        List<String> typeFieldEntityNames = Arrays.asList("numericFieldEntity", "textualFieldEntity", "datetimeFieldEntity");
         for (String typeFieldEntityName : typeFieldEntityNames) {
             for (String fieldName : entitiesJson.getJSONObject(typeFieldEntityName).keySet()) {
                 JSONObject field = entitiesJson.getJSONObject(typeFieldEntityName).getJSONObject(fieldName);
@@ -0,0 +1,109 @@
+package com.xatkit.bot.library;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * An estimated value of a {@link ResultSet}, with the bounds of its confidence interval (or the bounds it is known to
+ * be within).
+ * <p>
+ * The cell of an estimated value contains the point estimate, so it can be read like any other value (e.g. with
+ * {@link ResultSet#getLong(int, int)}). The bounds are kept apart (see {@link ResultSet#getEstimate(int, int)}), and
+ * the estimate is only formatted when it is shown to the user (see {@link #toString()}).
+ */
+public final class Estimate {
+
+    /**
+     * The number of significant digits the width of the interval is rounded to, which sets the precision of the
+     * formatted estimate.
+     */
+    private static final int INTERVAL_PRECISION = 2;
+
+    /**
+     * The number of significant digits of the formatted estimate when its interval is empty.
+     */
+    private static final int VALUE_PRECISION = 4;
+
+    /**
+     * The point estimate.
+     */
+    @Getter
+    private final BigDecimal value;
+
+    /**
+     * The lower bound of the interval.
+     */
+    @Getter
+    private final BigDecimal lower;
+
+    /**
+     * The upper bound of the interval.
+     */
+    @Getter
+    private final BigDecimal upper;
+
+    /**
+     * Instantiates a new {@link Estimate}.
+     *
+     * @param value the point estimate
+     * @param lower the lower bound of the interval, which must not be greater than the point estimate
+     * @param upper the upper bound of the interval, which must not be lower than the point estimate
+     */
+    public Estimate(BigDecimal value, BigDecimal lower, BigDecimal upper) {
+        if (lower.compareTo(value) > 0 || upper.compareTo(value) < 0) {
+            throw new IllegalArgumentException("The interval [" + lower + ", " + upper + "] does not contain the "
+                    + "estimate " + value);
+        }
+        this.value = value;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Instantiates a new {@link Estimate} of an integer (e.g. a count).
+     *
+     * @param value the point estimate
+     * @param lower the lower bound of the interval
+     * @param upper the upper bound of the interval
+     */
+    public Estimate(long value, long lower, long upper) {
+        this(BigDecimal.valueOf(value), BigDecimal.valueOf(lower), BigDecimal.valueOf(upper));
+    }
+
+    /**
+     * Formats the estimate to be shown to the user, with a {@code ~} prefix.
+     * <p>
+     * The values are rounded to the precision of the interval: its half width is rounded (up) to
+     * {@link #INTERVAL_PRECISION} significant digits, and the estimate and the bounds are rounded to the same number of
+     * decimals (but never to more decimals than they have, and integers are never rounded). A symmetric interval (at
+     * that precision) is written with its half width (e.g. {@code ~12.35 (+/-0.41)}), and an asymmetric one with its
+     * bounds (e.g. {@code ~3 [1, 9]}). An empty interval is not written, and the estimate is rounded to
+     * {@link #VALUE_PRECISION} significant digits (e.g. {@code ~12.35}).
+     *
+     * @return the formatted estimate
+     */
+    @Override
+    public String toString() {
+        BigDecimal above = upper.subtract(value);
+        BigDecimal below = value.subtract(lower);
+        BigDecimal halfWidth = above.max(below);
+        if (halfWidth.signum() == 0) {
+            return "~" + value.round(new MathContext(VALUE_PRECISION)).stripTrailingZeros().toPlainString();
+        }
+        int maxScale = Math.max(value.stripTrailingZeros().scale(), Math.max(lower.stripTrailingZeros().scale(),
+                upper.stripTrailingZeros().scale()));
+        int scale = Math.max(0, Math.min(maxScale,
+                halfWidth.round(new MathContext(INTERVAL_PRECISION, RoundingMode.UP)).scale()));
+        String roundedValue = value.setScale(scale, RoundingMode.HALF_UP).toPlainString();
+        BigDecimal roundedAbove = above.setScale(scale, RoundingMode.UP);
+        if (roundedAbove.compareTo(below.setScale(scale, RoundingMode.UP)) == 0) {
+            // Symmetric (but for the rounding errors of the bounds computed with doubles)
+            return "~" + roundedValue + " (+/-" + roundedAbove.toPlainString() + ")";
+        }
+        return "~" + roundedValue + " [" + lower.setScale(scale, RoundingMode.FLOOR).toPlainString() + ", "
+                + upper.setScale(scale, RoundingMode.CEILING).toPlainString() + "]";
+    }
+}
@@ -3,6 +3,8 @@ package com.xatkit.bot.library;
 import com.xatkit.i18n.XatkitI18nHelper;
 import com.xatkit.intent.IntentDefinition;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 import static com.xatkit.dsl.DSL.any;
@@ -188,6 +190,11 @@ public class Intents {
      */
     public final IntentDefinition datetimeFieldBetweenValuesIntent;
 
+    /**
+     * The words a user writes to ask for exact numbers (e.g. "What is exactly the most frequent FIELD?"), so the
+     * chatbot does not answer with estimated frequencies.
+     */
+    public final List<String> exactNumbersWords;
 
     /**
      * Instantiates a new {@link Intents} object.
@@ -197,6 +204,7 @@ public class Intents {
      */
     public Intents(Entities entities, Locale locale) {
         BUNDLE = new XatkitI18nHelper("intents", locale);
+        exactNumbersWords = Arrays.asList(BUNDLE.getStringArray("ExactNumbers"));
 
         resetIntent = intent("Reset")
                 .trainingSentences(BUNDLE.getStringArray("Reset"))
@@ -288,11 +296,13 @@ public class Intents {
 
         mostFrequentValueInFieldIntent = intent("MostFrequentValueInField")
                 .trainingSentences(BUNDLE.getStringArray("MostFrequentValueInField"))
+                .parameter(ContextKeys.NUMBER).fromFragment("NUMBER").entity(number())
                 .parameter(ContextKeys.FIELD).fromFragment("FIELD").entity(entities.fieldEntity)
                 .parameter(ContextKeys.ROW_NAME).fromFragment("ROW_NAME").entity(entities.rowNameEntity)
                 .getIntentDefinition();
         leastFrequentValueInFieldIntent = intent("LeastFrequentValueInField")
                 .trainingSentences(BUNDLE.getStringArray("LeastFrequentValueInField"))
+                .parameter(ContextKeys.NUMBER).fromFragment("NUMBER").entity(number())
                 .parameter(ContextKeys.FIELD).fromFragment("FIELD").entity(entities.fieldEntity)
                 .parameter(ContextKeys.ROW_NAME).fromFragment("ROW_NAME").entity(entities.rowNameEntity)
                 .getIntentDefinition();
@@ -2,15 +2,27 @@ package com.xatkit.bot.library;
 
 import com.xatkit.bot.Bot;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * The tabular answer container.
  * <p>
  * Representation of a tabular data structure, that is, data organized as a table.
- * @see com.xatkit.bot.sql.SqlEngine#runSqlQuery(Bot, String)
+ * <p>
+ * Subclasses can retrieve the rows lazily (e.g. {@link com.xatkit.bot.sql.CursorResultSet}). For this reason,
+ * questions about the number of rows that do not need the exact number should use {@link #hasMoreRowsThan(int)}, and
+ * result sets that are no longer used should be closed with {@link #close()}.
+ * <p>
+ * The values can be estimated (e.g. the answers of the approximate queries, see
+ * {@link com.xatkit.bot.sql.Query#isApproximate()}). An estimated value contains the point estimate, and its interval
+ * is kept apart (see {@link #getEstimate(int, int)}), so it is only formatted when it is shown to the user (see
+ * {@link #getDisplayValue(int, int)}).
+ * @see com.xatkit.bot.sql.SqlEngine#runSqlQuery(Bot, com.xatkit.bot.sql.Query)
  * @see com.xatkit.bot.nlp.NLPServerClient#runQuery(Bot, String)
  */
 public class ResultSet {
@@ -38,6 +50,12 @@ public class ResultSet {
      */
     private List<Row> table;
 
+    /**
+     * The estimates of the cells whose value is estimated (e.g. from a sample of the data), by cell (see
+     * {@link #getCell(int, int)}). The other values are exact.
+     */
+    private final Map<Long, Estimate> estimates = new HashMap<>();
+
     /**
      * Instantiates a new {@link ResultSet}.
      *
@@ -77,6 +95,91 @@ public class ResultSet {
         return table.get(i);
     }
 
+    /**
+     * Gets a value (i.e. a cell) of the {@link ResultSet}.
+     *
+     * @param row    the index of the row
+     * @param column the index of the column
+     * @return the value, or {@code null} if the cell is empty
+     */
+    public String getValue(int row, int column) {
+        return getRow(row).getColumnValue(column);
+    }
+
+    /**
+     * Gets a numeric value (i.e. a cell) of the {@link ResultSet} as a {@code long}, truncating its decimals.
+     * <p>
+     * It is meant for the results of aggregation queries (e.g. counts).
+     *
+     * @param row    the index of the row
+     * @param column the index of the column
+     * @return the value
+     * @throws NumberFormatException if the value is not a number
+     */
+    public long getLong(int row, int column) {
+        String value = getValue(row, column);
+        if (value == null) {
+            throw new NumberFormatException("null");
+        }
+        return new BigDecimal(value.trim()).longValue();
+    }
+
+    /**
+     * Marks a value (i.e. a cell) of the {@link ResultSet} as estimated. The cell must contain the point estimate, so
+     * the value can be read like the exact ones.
+     *
+     * @param row      the index of the row
+     * @param column   the index of the column
+     * @param estimate the estimate
+     */
+    public void setEstimate(int row, int column, Estimate estimate) {
+        estimates.put(getCell(row, column), estimate);
+    }
+
+    /**
+     * Gets the estimate of a value (i.e. a cell) of the {@link ResultSet}.
+     *
+     * @param row    the index of the row
+     * @param column the index of the column
+     * @return the estimate, or {@code null} if the value is exact
+     */
+    public Estimate getEstimate(int row, int column) {
+        return estimates.get(getCell(row, column));
+    }
+
+    /**
+     * Checks whether some value of the {@link ResultSet} is estimated.
+     *
+     * @return {@code true} if some value is estimated, {@code false} if all the values are exact
+     */
+    public boolean isEstimate() {
+        return !estimates.isEmpty();
+    }
+
+    /**
+     * Gets a value (i.e. a cell) of the {@link ResultSet} as it is shown to the user: the estimated values are
+     * formatted with their interval (see {@link Estimate#toString()}).
+     *
+     * @param row    the index of the row
+     * @param column the index of the column
+     * @return the value, or {@code null} if the cell is empty
+     */
+    public String getDisplayValue(int row, int column) {
+        Estimate estimate = getEstimate(row, column);
+        return (estimate == null ? getValue(row, column) : estimate.toString());
+    }
+
+    /**
+     * Gets the key of a cell in {@link #estimates}.
+     *
+     * @param row    the index of the row
+     * @param column the index of the column
+     * @return the key of the cell
+     */
+    private long getCell(int row, int column) {
+        return (long) row * numColumns + column;
+    }
+
     /**
      * Gets the number of rows of the {@link ResultSet}.
      *
@@ -95,6 +198,34 @@ public class ResultSet {
         return numColumns;
     }
 
+    /**
+     * Checks whether the {@link ResultSet} has more than {@code n} rows.
+     * <p>
+     * Unlike {@link #getNumRows()}, it does not need to know the exact number of rows.
+     *
+     * @param n the number of rows
+     * @return {@code true} if the number of rows is greater than {@code n}, {@code false} otherwise
+     */
+    public boolean hasMoreRowsThan(int n) {
+        return hasRow(n);
+    }
+
+    /**
+     * Checks whether the {@link ResultSet} has a row at a given index.
+     *
+     * @param i the index of the row
+     * @return {@code true} if the row exists, {@code false} otherwise
+     */
+    protected boolean hasRow(int i) {
+        return i < numRows;
+    }
+
+    /**
+     * Releases the resources held by the {@link ResultSet}, if any.
+     */
+    public void close() {
+    }
+
     /**
      * Gets the {@link #header} of the {@link ResultSet}.
      *
@@ -118,7 +249,8 @@ public class ResultSet {
      * |Row[offset+maxRows][0]|Row[offset+maxRows][1]|...|Row[offset+maxRows][n]|
      * <p>
      * <p>
-     * Only the rows with index between {@code [offset, max(offset+maxRows, numRows)]} are included.
+     * Only the rows with index between {@code [offset, max(offset+maxRows, numRows)]} are included (so only these
+     * rows need to be retrieved).
      *
      * @param offset the offset that indicates the first row
      * @param maxRows the maximum number of rows that can be included in the result
@@ -130,8 +262,12 @@ public class ResultSet {
                         + "|" + String.join("|", this.header.stream().map(e -> "---")
                         .collect(Collectors.joining("|"))) + "|" + "\n";
         String data = "";
-        for (int i = offset; i < this.numRows && i < offset + maxRows; i++) {
-            data += "|" + String.join("|", this.getRow(i).getValues()) + "|" + "\n";
+        for (int i = offset; i < offset + maxRows && hasRow(i); i++) {
+            List<String> values = new ArrayList<>();
+            for (int j = 0; j < numColumns; j++) {
+                values.add(getDisplayValue(i, j));
+            }
+            data += "|" + String.join("|", values) + "|" + "\n";
         }
         return headerString + data;
     }
@@ -7,16 +7,25 @@ import com.xatkit.intent.MappingEntityDefinition;
 import com.xatkit.intent.MappingEntityDefinitionEntry;
 import lombok.NonNull;
 
+import java.math.BigDecimal;
 import java.text.MessageFormat;
+import java.text.Normalizer;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
 import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
 import static java.util.Objects.nonNull;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 /**
  * A set of methods that provide useful functionalities to be used in a chatbot system.
@@ -110,4 +119,87 @@ public final class Utils {
         }
         return false;
     }
+
+    /**
+     * Parses a text as a decimal number.
+     * <p>
+     * As in {@link #isNumeric(String)}, the first comma is considered a decimal separator.
+     *
+     * @param text the text to be parsed to a number
+     * @return the number, or {@code null} if the text is not a number
+     */
+    public static BigDecimal parseDecimal(String text) {
+        if (isEmpty(text)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text.trim().replaceFirst(",", "."));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a text as a datetime.
+     * <p>
+     * ISO datetimes keep their original offset. Other date formats stored in {@link #datetimeFormats} are parsed in
+     * the system default time zone.
+     *
+     * @param text the text to be parsed to a datetime
+     * @return the datetime, or {@code null} if the text is not a datetime
+     */
+    public static OffsetDateTime parseDatetime(String text) {
+        if (isEmpty(text)) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(text);
+        } catch (DateTimeParseException ignored) { }
+        for (String dateFormat : datetimeFormats) {
+            try {
+                SimpleDateFormat format = new SimpleDateFormat(dateFormat, Locale.ENGLISH);
+                format.setLenient(false);
+                Date date = format.parse(text);
+                return OffsetDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+            } catch (ParseException ignored) { }
+        }
+        return null;
+    }
+
+    /**
+     * Normalizes a text for case and accent insensitive comparisons: the text is case-folded, the accents (and other
+     * diacritical marks) are stripped, and the whitespace is collapsed.
+     * <p>
+     * E.g. {@code "  Les   Corts "} is normalized to {@code "les corts"}, and an accented vowel is normalized to the
+     * lower case vowel without the accent.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    public static String normalize(String text) {
+        if (isEmpty(text)) {
+            return text;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return normalized.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * Stores a result set in the session object {@link ContextKeys#RESULTSET}, closing the previously stored one (which
+     * may hold an open database cursor).
+     *
+     * @param session   the session object
+     * @param resultSet the result set to store, or {@code null} to just remove the stored one
+     */
+    public static void storeResultSet(Map<Object, Object> session, ResultSet resultSet) {
+        ResultSet previousResultSet = (ResultSet) session.get(ContextKeys.RESULTSET);
+        if (nonNull(previousResultSet) && previousResultSet != resultSet) {
+            previousResultSet.close();
+        }
+        if (nonNull(resultSet)) {
+            session.put(ContextKeys.RESULTSET, resultSet);
+        } else {
+            session.remove(ContextKeys.RESULTSET);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Row;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link com.xatkit.bot.library.ResultSet} that stores its content by columns.
+ * <p>
+ * Each column is a typed {@link ResultColumn} (numbers and datetimes in primitive arrays, texts encoded with a
+ * dictionary), whose type is chosen from the metadata of the JDBC result set it is loaded from (see
+ * {@link #load(ResultSet, List)}). This avoids storing a {@code String} object (and a list per row) for each cell,
+ * and the values can be read with their type (see {@link #getLong(int, int)}) without parsing them again.
+ * <p>
+ * The rows are built on demand when they are requested (see {@link #getRow(int)}), so it can be used wherever a
+ * {@link com.xatkit.bot.library.ResultSet} is expected.
+ */
+public class ColumnarResultSet extends com.xatkit.bot.library.ResultSet {
+
+    /**
+     * The columns of the result set, in the same order as the header.
+     */
+    private final List<ResultColumn> columns;
+
+    /**
+     * The number of rows of the result set.
+     */
+    private final int numRows;
+
+    /**
+     * Instantiates a new {@link ColumnarResultSet}.
+     *
+     * @param header  the header
+     * @param columns the columns, which must have {@code numRows} values each
+     * @param numRows the number of rows
+     */
+    public ColumnarResultSet(List<String> header, List<ResultColumn> columns, int numRows) {
+        super(header, new ArrayList<>());
+        if (columns.size() != header.size()) {
+            throw new IllegalArgumentException("The header size (" + header.size() + ") is not equal to the number "
+                    + "of columns (" + columns.size() + ")");
+        }
+        this.columns = columns;
+        this.numRows = numRows;
+    }
+
+    /**
+     * Loads all the rows of a JDBC result set.
+     *
+     * @param resultSet the JDBC result set
+     * @param header    the header of the result set
+     * @return the result set
+     * @throws SQLException if the rows cannot be read
+     */
+    public static ColumnarResultSet load(ResultSet resultSet, List<String> header) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        List<ResultColumn> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(ResultColumn.of(metaData.getColumnType(i)));
+        }
+        int numRows = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).append(resultSet, i + 1);
+            }
+            numRows++;
+        }
+        for (ResultColumn column : columns) {
+            column.trim();
+        }
+        return new ColumnarResultSet(header, columns, numRows);
+    }
+
+    /**
+     * Gets a column of the result set.
+     *
+     * @param i the index of the column
+     * @return the column
+     */
+    public ResultColumn getColumn(int i) {
+        return columns.get(i);
+    }
+
+    @Override
+    public Row getRow(int i) {
+        if (i < 0 || i >= numRows) {
+            throw new IndexOutOfBoundsException("Row " + i + " out of " + numRows);
+        }
+        List<String> values = new ArrayList<>(columns.size());
+        for (ResultColumn column : columns) {
+            values.add(column.getString(i));
+        }
+        return new Row(values);
+    }
+
+    @Override
+    public String getValue(int row, int column) {
+        return columns.get(column).getString(row);
+    }
+
+    @Override
+    public long getLong(int row, int column) {
+        ResultColumn resultColumn = columns.get(column);
+        if (resultColumn.getType() == ResultColumn.Type.STRING) {
+            return super.getLong(row, column);
+        }
+        return resultColumn.getLong(row);
+    }
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    @Override
+    protected boolean hasRow(int i) {
+        return i < numRows;
+    }
+
+    /**
+     * Estimates the number of bytes the content of the result set takes in memory.
+     *
+     * @return the estimated number of bytes
+     */
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (ResultColumn column : columns) {
+            bytes += column.getSizeInBytes();
+        }
+        return bytes;
+    }
+}
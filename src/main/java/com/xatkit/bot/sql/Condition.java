@@ -0,0 +1,100 @@
+package com.xatkit.bot.sql;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A condition of a {@link Query} (i.e. a predicate of its WHERE clause).
+ * <p>
+ * The operator is one of the field operators the chatbot recognizes (see {@code fieldOperators.json}) or one of the
+ * internal operators {@link #VALUE_EQUALS}, {@link #NOT_EMPTY} and {@link #BETWEEN}.
+ *
+ * @see SqlQueries#toSqlCondition(String, String, String)
+ */
+@Getter
+@EqualsAndHashCode
+public class Condition {
+
+    /**
+     * Exact (case sensitive) equality between a field and a value, used when the value is one of the values of the
+     * field entity.
+     */
+    public static final String VALUE_EQUALS = "value_equals";
+
+    /**
+     * The field is not empty (and it can be cast to {@link #dataType}).
+     */
+    public static final String NOT_EMPTY = "not_empty";
+
+    /**
+     * The field is between {@link #value} and {@link #value2} (both included).
+     */
+    public static final String BETWEEN = "between";
+
+    /**
+     * The field of the condition.
+     */
+    private final String field;
+
+    /**
+     * The operator of the condition.
+     */
+    private final String operator;
+
+    /**
+     * The value of the condition.
+     */
+    private final String value;
+
+    /**
+     * The second value of the condition (only for {@link #BETWEEN}).
+     */
+    private final String value2;
+
+    /**
+     * The data type the field is cast to (only for {@link #NOT_EMPTY} and {@link #BETWEEN}).
+     *
+     * @see com.xatkit.bot.customQuery.AbstractCustomQuery#DECIMAL
+     * @see com.xatkit.bot.customQuery.AbstractCustomQuery#DATETIME
+     */
+    private final String dataType;
+
+    /**
+     * Instantiates a new {@link Condition}.
+     *
+     * @param field    the field
+     * @param operator the operator
+     * @param value    the value
+     * @param value2   the second value
+     * @param dataType the data type of the field
+     */
+    public Condition(String field, String operator, String value, String value2, String dataType) {
+        this.field = field;
+        this.operator = operator;
+        this.value = value;
+        this.value2 = value2;
+        this.dataType = dataType;
+    }
+
+    /**
+     * Instantiates a new {@link Condition}.
+     *
+     * @param field    the field
+     * @param operator the operator
+     * @param value    the value
+     */
+    public Condition(String field, String operator, String value) {
+        this(field, operator, value, null, null);
+    }
+
+    @Override
+    public String toString() {
+        if (BETWEEN.equals(operator)) {
+            return field + " " + operator + " " + value + " and " + value2;
+        }
+        if (NOT_EMPTY.equals(operator)) {
+            return field + " " + operator;
+        }
+        return field + " " + operator + " " + value;
+    }
+}
@@ -0,0 +1,293 @@
+package com.xatkit.bot.sql;
+
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * Connections are created lazily (up to {@link #maxSize}) and reused by the different chatbot sessions. When all the
+ * connections are in use, the callers wait up to {@link #timeout} milliseconds for a connection to be released.
+ * Connections are health-checked before being handed out, and replaced by a new one when they are no longer valid
+ * (e.g. the database was restarted).
+ * <p>
+ * Each connection keeps a cache of its most recently used {@link PreparedStatement}s (see
+ * {@link #prepare(Connection, String)}), so the statements of the queries with the same shape are only prepared once
+ * per connection.
+ */
+public class ConnectionPool {
+
+    /**
+     * The default maximum number of connections of a pool, used by the chatbots and written by the generator.
+     */
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    /**
+     * The number of seconds to wait for the database to validate a connection.
+     */
+    private static final int VALIDATION_TIMEOUT = 5;
+
+    /**
+     * The backend that creates the connections.
+     */
+    private final QueryBackend backend;
+
+    /**
+     * The maximum number of connections of the pool.
+     */
+    private final int maxSize;
+
+    /**
+     * The maximum number of milliseconds to wait for an available connection.
+     */
+    private final long timeout;
+
+    /**
+     * The maximum number of prepared statements cached by each connection.
+     */
+    private final int statementCacheSize;
+
+    /**
+     * The prepared statements cached by each connection, by SQL statement and in access order.
+     */
+    private final Map<Connection, Map<String, PreparedStatement>> statementCaches = new ConcurrentHashMap<>();
+
+    /**
+     * The connections that are not being used.
+     */
+    private final BlockingQueue<Connection> idleConnections;
+
+    /**
+     * The number of connections created by the pool (either idle or in use).
+     */
+    private final AtomicInteger numConnections = new AtomicInteger(0);
+
+    /**
+     * All the open connections created by the pool (either idle or in use), so they can be closed with the pool.
+     */
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether the pool has been closed or not.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Instantiates a new {@link ConnectionPool}.
+     *
+     * @param backend the backend that creates the connections
+     * @param maxSize the maximum number of connections of the pool
+     * @param timeout the maximum number of milliseconds to wait for an available connection
+     * @param statementCacheSize the maximum number of prepared statements cached by each connection
+     */
+    public ConnectionPool(QueryBackend backend, int maxSize, long timeout, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The size of the connection pool must be at least 1, found " + maxSize);
+        }
+        this.backend = backend;
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.statementCacheSize = statementCacheSize;
+        this.idleConnections = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * Gets a valid connection from the pool.
+     * <p>
+     * If there is no idle connection and the pool is not full, a new connection is created. Otherwise, it waits until
+     * a connection is released. The connection must be given back to the pool with {@link #release(Connection)}.
+     *
+     * @return the connection
+     * @throws SQLException if a connection could not be established or no connection was released on time
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool of " + backend.getUrl() + " is closed");
+        }
+        Connection conn = idleConnections.poll();
+        if (isNull(conn)) {
+            conn = tryCreateConnection();
+        }
+        if (isNull(conn)) {
+            try {
+                conn = idleConnections.poll(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection to " + backend.getUrl(), e);
+            }
+            if (isNull(conn)) {
+                throw new SQLException("Timed out after " + timeout + " ms waiting for a connection to " + backend.getUrl());
+            }
+        }
+        return validate(conn);
+    }
+
+    /**
+     * Gives a connection back to the pool, so it can be used by another caller.
+     *
+     * @param conn the connection
+     */
+    public void release(Connection conn) {
+        if (isNull(conn)) {
+            return;
+        }
+        try {
+            if (closed || conn.isClosed() || !idleConnections.offer(conn)) {
+                discard(conn);
+            }
+        } catch (SQLException e) {
+            discard(conn);
+        }
+    }
+
+    /**
+     * Gets a prepared statement of a borrowed connection.
+     * <p>
+     * If the connection already prepared the same SQL statement, the cached statement is returned. Otherwise, a new
+     * statement is prepared and cached (closing the least recently used one if the cache is full). The returned
+     * statement belongs to the cache, so it must not be closed by the caller.
+     *
+     * @param conn the connection, which must be borrowed from this pool
+     * @param sql  the SQL statement
+     * @return the prepared statement
+     * @throws SQLException if the statement could not be prepared
+     */
+    public PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        Map<String, PreparedStatement> statementCache = statementCaches.computeIfAbsent(conn,
+                c -> new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > statementCacheSize) {
+                            closeStatement(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                });
+        PreparedStatement statement = statementCache.get(sql);
+        if (isNull(statement) || statement.isClosed()) {
+            statement = conn.prepareStatement(sql);
+            statementCache.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Closes all the connections of the pool, including the ones in use (e.g. by an open cursor), which can no longer
+     * be used. The connections released later are discarded.
+     */
+    public void close() {
+        closed = true;
+        idleConnections.clear();
+        for (Connection conn : connections) {
+            discard(conn);
+        }
+    }
+
+    /**
+     * Creates a new connection if the pool is not full.
+     *
+     * @return the new connection, or {@code null} if the pool is full
+     * @throws SQLException if the connection could not be established
+     */
+    private Connection tryCreateConnection() throws SQLException {
+        int current;
+        do {
+            current = numConnections.get();
+            if (current >= maxSize) {
+                return null;
+            }
+        } while (!numConnections.compareAndSet(current, current + 1));
+        try {
+            return track(backend.newConnection());
+        } catch (SQLException e) {
+            numConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that a connection is still valid. If not, it is replaced by a new one.
+     *
+     * @param conn the connection to check
+     * @return a valid connection
+     * @throws SQLException if the connection could not be re-established
+     */
+    private Connection validate(Connection conn) throws SQLException {
+        boolean valid;
+        try {
+            valid = !conn.isClosed() && conn.isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (valid) {
+            return conn;
+        }
+        Log.warn("The connection to {0} was lost. Trying to establish connection again.", backend.getUrl());
+        connections.remove(conn);
+        statementCaches.remove(conn);
+        try {
+            conn.close();
+        } catch (SQLException ignored) { }
+        try {
+            return track(backend.newConnection());
+        } catch (SQLException e) {
+            numConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a connection and removes it from the pool.
+     *
+     * @param conn the connection
+     */
+    private void discard(Connection conn) {
+        if (!connections.remove(conn)) {
+            // Already discarded (e.g. by close())
+            return;
+        }
+        numConnections.decrementAndGet();
+        // Closing the connection also closes its statements
+        statementCaches.remove(conn);
+        try {
+            conn.close();
+        } catch (SQLException ignored) { }
+    }
+
+    /**
+     * Registers a new connection of the pool.
+     *
+     * @param conn the connection
+     * @return the connection
+     */
+    private Connection track(Connection conn) {
+        connections.add(conn);
+        return conn;
+    }
+
+    /**
+     * Closes a statement, ignoring the errors.
+     *
+     * @param statement the statement
+     */
+    private static void closeStatement(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) { }
+    }
+}
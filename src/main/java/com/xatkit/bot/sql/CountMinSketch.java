@@ -0,0 +1,133 @@
+package com.xatkit.bot.sql;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * A Count-Min sketch, which estimates the frequency of any value of a stream in a fixed amount of memory.
+ * <p>
+ * The sketch has {@link #DEPTH} rows of {@link #WIDTH} counters, and each row maps a value to one of its counters with
+ * a different hash. The estimated frequency of a value is the lowest of its counters: it is never lower than the real
+ * frequency, and it is at most {@link #getErrorBound()} (i.e. {@code e / WIDTH} of the offered values) higher with a
+ * probability of {@code 1 - e^-DEPTH} (98%).
+ */
+public final class CountMinSketch {
+
+    /**
+     * The number of counters of each row.
+     */
+    private static final int WIDTH = 2048;
+
+    /**
+     * The number of rows.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * The counters, row by row.
+     */
+    private final int[] counters;
+
+    /**
+     * The number of offered values.
+     */
+    @Getter
+    private long numRows;
+
+    /**
+     * Instantiates a new (empty) {@link CountMinSketch}.
+     */
+    public CountMinSketch() {
+        this.counters = new int[WIDTH * DEPTH];
+        this.numRows = 0;
+    }
+
+    /**
+     * Offers a value of the stream.
+     *
+     * @param value the value
+     */
+    public void offer(String value) {
+        long hash = HyperLogLog.hash(value);
+        for (int row = 0; row < DEPTH; row++) {
+            counters[row * WIDTH + column(hash, row)]++;
+        }
+        numRows++;
+    }
+
+    /**
+     * Estimates the frequency of a value.
+     *
+     * @param value the value
+     * @return the estimated frequency, which is not lower than the real one
+     */
+    public long estimate(String value) {
+        long hash = HyperLogLog.hash(value);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[row * WIDTH + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Gets the maximum overestimation of {@link #estimate(String)} (with a probability of {@code 1 - e^-DEPTH}).
+     *
+     * @return the error bound
+     */
+    public long getErrorBound() {
+        return (long) Math.ceil(Math.E * numRows / WIDTH);
+    }
+
+    /**
+     * Encodes the sketch as a Base64 string, to be stored in a json file.
+     *
+     * @return the encoded sketch
+     * @see #decode(String)
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES * counters.length);
+        buffer.putLong(numRows);
+        for (int counter : counters) {
+            buffer.putInt(counter);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a sketch encoded with {@link #encode()}.
+     *
+     * @param encoded the encoded sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the string is not an encoded sketch
+     */
+    public static CountMinSketch decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        CountMinSketch sketch = new CountMinSketch();
+        if (buffer.remaining() != Long.BYTES + Integer.BYTES * sketch.counters.length) {
+            throw new IllegalArgumentException("Invalid Count-Min sketch");
+        }
+        sketch.numRows = buffer.getLong();
+        for (int i = 0; i < sketch.counters.length; i++) {
+            sketch.counters[i] = buffer.getInt();
+        }
+        return sketch;
+    }
+
+    /**
+     * Gets the counter of a row that a value is mapped to.
+     * <p>
+     * The hashes of the rows are derived from the two halves of the hash of the value ({@code h1 + row * h2}).
+     *
+     * @param hash the hash of the value
+     * @param row  the row
+     * @return the position of the counter in the row
+     */
+    private static int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return ((h1 + row * h2) & Integer.MAX_VALUE) % WIDTH;
+    }
+}
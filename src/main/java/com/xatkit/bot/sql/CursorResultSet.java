@@ -0,0 +1,299 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Row;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link com.xatkit.bot.library.ResultSet} backed by an open database cursor.
+ * <p>
+ * The rows are fetched from the database (in batches of {@link #fetchSize} rows) only when they are needed, so the
+ * first page of a big result can be shown without retrieving the whole result. The exact number of rows is obtained
+ * with a {@code COUNT} query (see {@link Query#count()}) instead of fetching all the rows.
+ * <p>
+ * The cursor runs the query as it is (i.e. without sorting its rows), so the first rows arrive without waiting for the
+ * whole result. It holds a connection of the {@link ConnectionPool}, which is released when all the rows have been
+ * fetched, when the result set is closed, or when the cursor has not been used for a while (see
+ * {@link #releaseIfIdle(long)}). In the last case, the cursor is opened again if more rows are needed, and the rows it
+ * returns that were already fetched are skipped by value (not by position, since the database may return them in a
+ * different order). If the engine already has too many open cursors (see {@link SqlEngine#reserveCursor()}), the
+ * connection is only borrowed while the needed rows are fetched.
+ */
+public class CursorResultSet extends com.xatkit.bot.library.ResultSet {
+
+    /**
+     * The engine that created this result set.
+     */
+    private final SqlEngine engine;
+
+    /**
+     * The query of the result set.
+     */
+    private final Query query;
+
+    /**
+     * The number of rows fetched from the database in each round trip.
+     */
+    private final int fetchSize;
+
+    /**
+     * The rows fetched so far.
+     */
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * The connection used by the cursor, or {@code null} if the cursor is not open.
+     */
+    private Connection conn;
+
+    /**
+     * The cursor.
+     */
+    private ResultSet cursor;
+
+    /**
+     * Whether the open cursor is registered in the engine (see {@link SqlEngine#cursorOpened(CursorResultSet)}) or
+     * not, in which case it is released as soon as the needed rows are fetched.
+     */
+    private boolean registered = true;
+
+    /**
+     * Whether all the rows have been fetched or not.
+     */
+    private boolean exhausted = false;
+
+    /**
+     * Whether the result set has been closed or not.
+     */
+    private boolean closed = false;
+
+    /**
+     * The number of rows of the result set, or {@code -1} if it is not known yet.
+     */
+    private int numRows = -1;
+
+    /**
+     * The last time the cursor was used.
+     */
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    /**
+     * Instantiates a new {@link CursorResultSet} with an open cursor, which must be registered in the engine.
+     *
+     * @param engine    the engine that created this result set
+     * @param query     the query of the result set
+     * @param header    the header of the result set
+     * @param conn      the connection used by the cursor
+     * @param cursor    the cursor
+     * @param fetchSize the number of rows fetched from the database in each round trip
+     */
+    CursorResultSet(SqlEngine engine, Query query, List<String> header, Connection conn, ResultSet cursor,
+                    int fetchSize) {
+        super(header, new ArrayList<>());
+        this.engine = engine;
+        this.query = query;
+        this.fetchSize = fetchSize;
+        this.conn = conn;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public synchronized Row getRow(int i) {
+        fetchUpTo(i + 1);
+        return rows.get(i);
+    }
+
+    @Override
+    protected synchronized boolean hasRow(int i) {
+        fetchUpTo(i + 1);
+        return i < rows.size();
+    }
+
+    @Override
+    public synchronized int getNumRows() {
+        if (exhausted || closed) {
+            return rows.size();
+        }
+        if (numRows < 0) {
+            // The count runs in the connection of the cursor (if it is open), since waiting for another connection
+            // while holding one could exhaust the pool
+            long count = engine.countRows(query, conn);
+            if (count >= 0) {
+                numRows = (int) count;
+                releaseIfFetched();
+            } else {
+                // The count failed, so all the rows must be fetched
+                fetchUpTo(Integer.MAX_VALUE);
+                numRows = rows.size();
+            }
+        }
+        return numRows;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        release();
+    }
+
+    /**
+     * Gets the number of rows fetched from the database so far.
+     *
+     * @return the number of fetched rows
+     */
+    synchronized int getNumFetchedRows() {
+        return rows.size();
+    }
+
+    /**
+     * Releases the connection of the cursor if it has not been used for a given time.
+     *
+     * @param timeout the maximum number of milliseconds the cursor can be idle
+     */
+    synchronized void releaseIfIdle(long timeout) {
+        if (!isNull(conn) && System.currentTimeMillis() - lastAccess > timeout) {
+            Log.info("Releasing the idle cursor of the query {0} after fetching {1} rows", query, rows.size());
+            release();
+        }
+    }
+
+    /**
+     * Fetches rows from the cursor until {@code n} rows have been fetched or there are no more rows.
+     *
+     * @param n the number of rows
+     */
+    private void fetchUpTo(int n) {
+        lastAccess = System.currentTimeMillis();
+        if (rows.size() >= n || exhausted || closed) {
+            return;
+        }
+        try {
+            if (isNull(conn)) {
+                reopen();
+            }
+            int numColumns = getHeader().size();
+            while (rows.size() < n) {
+                if (!cursor.next()) {
+                    exhausted = true;
+                    numRows = rows.size();
+                    release();
+                    return;
+                }
+                rows.add(new Row(readRow(numColumns)));
+            }
+            if (releaseIfFetched()) {
+                return;
+            }
+            if (!registered) {
+                // The cursor cannot stay open, so it is opened again the next time more rows are needed
+                release();
+            }
+        } catch (SQLException e) {
+            Log.error("An error occurred while fetching the rows of the SQL query {0}, see the attached exception",
+                    query);
+            Log.error(e.getMessage());
+            exhausted = true;
+            release();
+        }
+    }
+
+    /**
+     * Opens the cursor again and skips the rows that were already fetched. The cursor is registered in the engine if
+     * it can stay open (see {@link SqlEngine#reserveCursor()}).
+     * <p>
+     * The rows of the new cursor may come in a different order, so the fetched rows are skipped as a multiset: each
+     * row returned by the cursor is skipped while it has fetched copies left, and the cursor stops after skipping as
+     * many rows as were fetched.
+     *
+     * @throws SQLException if the query could not be run
+     */
+    private void reopen() throws SQLException {
+        conn = engine.getPool().borrow();
+        try {
+            cursor = engine.executeQuery(conn, query, fetchSize);
+        } catch (SQLException e) {
+            engine.getPool().release(conn);
+            conn = null;
+            throw e;
+        }
+        Map<List<String>, Integer> fetched = new HashMap<>();
+        for (Row row : rows) {
+            fetched.merge(row.getValues(), 1, Integer::sum);
+        }
+        int numColumns = getHeader().size();
+        int numSkipped = rows.size();
+        while (numSkipped > 0 && cursor.next()) {
+            List<String> values = readRow(numColumns);
+            Integer copies = fetched.get(values);
+            if (isNull(copies)) {
+                rows.add(new Row(values));
+            } else {
+                if (copies == 1) {
+                    fetched.remove(values);
+                } else {
+                    fetched.put(values, copies - 1);
+                }
+                numSkipped--;
+            }
+        }
+        if (engine.reserveCursor()) {
+            registered = true;
+            engine.cursorOpened(this);
+        }
+    }
+
+    /**
+     * Releases the connection of the cursor if all the rows have been fetched, which is known without reading past
+     * the last row once the rows have been counted.
+     *
+     * @return {@code true} if all the rows have been fetched, {@code false} otherwise
+     */
+    private boolean releaseIfFetched() {
+        if (numRows >= 0 && rows.size() >= numRows) {
+            exhausted = true;
+            release();
+        }
+        return exhausted;
+    }
+
+    /**
+     * Reads the values of the current row of the cursor.
+     *
+     * @param numColumns the number of columns of the row
+     * @return the values of the row
+     * @throws SQLException if the values could not be read
+     */
+    private List<String> readRow(int numColumns) throws SQLException {
+        List<String> values = new ArrayList<>();
+        for (int i = 1; i <= numColumns; i++) {
+            values.add(cursor.getString(i));
+        }
+        return values;
+    }
+
+    /**
+     * Closes the cursor and gives its connection back to the pool.
+     */
+    private void release() {
+        if (isNull(conn)) {
+            return;
+        }
+        engine.closeResultSet(cursor);
+        engine.getPool().release(conn);
+        conn = null;
+        cursor = null;
+        if (registered) {
+            registered = false;
+            engine.cursorReleased(this);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.xatkit.bot.sql;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import fr.inria.atlanmod.commons.log.Log;
+import lombok.Getter;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The files the chatbot data is stored in.
+ * <p>
+ * The data can be a single {@code .csv} file or a set of partitions (i.e. files with the same columns), written by the
+ * generator and listed in the manifest {@link #PARTITIONS_JSON_FILE}. Each partition contains the rows with a given
+ * value of each partition field, so these fields are not stored in the files: their values are derived from the
+ * file names, which follow the {@code field=value} convention (e.g. {@code year=2020/district=Gracia.csv}).
+ * <p>
+ * This way, a query filtering a partition field only needs to read the partitions whose value matches the filter
+ * (see {@link com.xatkit.bot.sql.ast.QueryOptimizer}), and the partitions can be read in parallel.
+ */
+public class DataPartitions {
+
+    /**
+     * The name of the manifest listing the partitions, stored in the resources folder.
+     */
+    public static final String PARTITIONS_JSON_FILE = "partitions.json";
+
+    /**
+     * The size (in bytes) of the buffer used to read the files to compute their checksum.
+     */
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A file of the chatbot data.
+     */
+    @Getter
+    public static final class Partition {
+
+        /**
+         * The name of the file in the resources folder.
+         */
+        private final String file;
+
+        /**
+         * The values of the partition fields in the rows of the file, in the order of {@link #fields}.
+         */
+        private final List<String> values;
+
+        /**
+         * Instantiates a new {@link Partition}.
+         *
+         * @param file   the name of the file
+         * @param values the values of the partition fields
+         */
+        public Partition(String file, List<String> values) {
+            this.file = file;
+            this.values = Collections.unmodifiableList(values);
+        }
+    }
+
+    /**
+     * The partition fields, which are the last columns of the data (after the columns stored in the files).
+     */
+    @Getter
+    private final List<String> fields;
+
+    /**
+     * The partitions of the data.
+     */
+    @Getter
+    private final List<Partition> partitions;
+
+    /**
+     * Instantiates a new {@link DataPartitions}.
+     *
+     * @param fields     the partition fields
+     * @param partitions the partitions
+     */
+    public DataPartitions(List<String> fields, List<Partition> partitions) {
+        this.fields = Collections.unmodifiableList(fields);
+        this.partitions = Collections.unmodifiableList(partitions);
+    }
+
+    /**
+     * Loads the files of the chatbot data: the partitions listed in the manifest {@link #PARTITIONS_JSON_FILE} or, if
+     * there is no manifest, a single file.
+     *
+     * @param dataName  the name of the data
+     * @param extension the extension of the files to read (e.g. {@code .csv} or {@code .parquet})
+     * @return the files of the data
+     */
+    public static DataPartitions load(String dataName, String extension) {
+        InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(PARTITIONS_JSON_FILE);
+        if (!isNull(is)) {
+            try {
+                DataPartitions partitions = fromJson(new JSONObject(new JSONTokener(is)), extension);
+                Log.info("The data is stored in {0} partitions by {1}", partitions.getPartitions().size(),
+                        partitions.getFields());
+                return partitions;
+            } catch (JSONException e) {
+                Log.error("An error occurred while loading the json file \"{0}\", see the attached exception",
+                        PARTITIONS_JSON_FILE);
+                Log.error(e.getMessage());
+            }
+        }
+        return new DataPartitions(Collections.emptyList(),
+                Collections.singletonList(new Partition(dataName + extension, Collections.emptyList())));
+    }
+
+    /**
+     * Checks whether the data is split in partitions or it is a single file.
+     *
+     * @return {@code true} if the data has partition fields, {@code false} otherwise
+     */
+    public boolean isPartitioned() {
+        return !fields.isEmpty();
+    }
+
+    /**
+     * Gets the value of a partition field in the rows of a partition.
+     *
+     * @param partition the partition
+     * @param field     the field
+     * @return the value, or {@code null} if the field is not a partition field
+     */
+    public String getValue(Partition partition, String field) {
+        int i = fields.indexOf(field);
+        return (i < 0 ? null : partition.getValues().get(i));
+    }
+
+    /**
+     * Gets the header of the data, that is, the header of a file followed by the partition fields.
+     *
+     * @param fileHeader the header of a file
+     * @return the header of the data
+     */
+    public String[] getHeader(String[] fileHeader) {
+        String[] header = new String[fileHeader.length + fields.size()];
+        System.arraycopy(fileHeader, 0, header, 0, fileHeader.length);
+        for (int i = 0; i < fields.size(); i++) {
+            header[fileHeader.length + i] = fields.get(i);
+        }
+        return header;
+    }
+
+    /**
+     * Gets a row of the data, that is, a row of a file followed by the values of the partition fields. The missing
+     * values of the file row are {@code null}.
+     *
+     * @param fileRow        the row of the file
+     * @param numFileColumns the number of columns of the file
+     * @param partition      the partition the file belongs to
+     * @return the row of the data
+     */
+    public String[] getRow(String[] fileRow, int numFileColumns, Partition partition) {
+        if (fields.isEmpty() && fileRow.length == numFileColumns) {
+            return fileRow;
+        }
+        String[] row = new String[numFileColumns + fields.size()];
+        System.arraycopy(fileRow, 0, row, 0, Math.min(fileRow.length, numFileColumns));
+        for (int i = 0; i < fields.size(); i++) {
+            row[numFileColumns + i] = partition.getValues().get(i);
+        }
+        return row;
+    }
+
+    /**
+     * Opens a reader of the {@code .csv} file of a partition.
+     *
+     * @param partition the partition
+     * @param delimiter the csv delimiter
+     * @return the reader
+     * @throws IOException if the file cannot be found
+     */
+    public static CSVReader openReader(Partition partition, char delimiter) throws IOException {
+        InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(partition.getFile());
+        if (isNull(is)) {
+            throw new IOException("Cannot find the csv file \"" + partition.getFile() + "\"");
+        }
+        return new CSVReaderBuilder(new InputStreamReader(is, StandardCharsets.UTF_8))
+                .withCSVParser(new CSVParserBuilder().withSeparator(delimiter).build()).build();
+    }
+
+    /**
+     * Reads the header of the data, that is, the header of the {@code .csv} file of the first partition followed by
+     * the partition fields.
+     *
+     * @param delimiter the csv delimiter
+     * @return the header of the data, or {@code null} if it cannot be read
+     */
+    public String[] readHeader(char delimiter) {
+        Partition partition = partitions.get(0);
+        try (CSVReader reader = openReader(partition, delimiter)) {
+            String[] fileHeader = reader.readNext();
+            if (isNull(fileHeader)) {
+                Log.error("The csv file \"{0}\" is empty", partition.getFile());
+                return null;
+            }
+            return getHeader(fileHeader);
+        } catch (IOException | CsvValidationException e) {
+            Log.error("An error occurred while reading the header of {0}, see the attached exception",
+                    partition.getFile());
+            Log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gets the size of the data, that is, the sum of the sizes of its files.
+     *
+     * @return the size of the data in bytes, or {@code -1} if the size of a file is unknown
+     */
+    public long getDataSize() {
+        long dataSize = 0;
+        for (Partition partition : partitions) {
+            URL url = Thread.currentThread().getContextClassLoader().getResource(partition.getFile());
+            if (isNull(url)) {
+                return -1;
+            }
+            try {
+                long size = url.openConnection().getContentLengthLong();
+                if (size < 0) {
+                    return -1;
+                }
+                dataSize += size;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return dataSize;
+    }
+
+    /**
+     * Gets a checksum of the content of the data, that is, the CRC-32 of the bytes of its files (in the order of the
+     * partitions).
+     * <p>
+     * Unlike {@link #getDataSize()}, it changes when a file is edited without changing its size, but all the data must
+     * be read to compute it.
+     *
+     * @return the checksum of the data, or {@code -1} if a file cannot be read
+     * @see #updateChecksum(Checksum, InputStream)
+     */
+    public long getDataChecksum() {
+        Checksum checksum = new CRC32();
+        for (Partition partition : partitions) {
+            try (InputStream is = Thread.currentThread().getContextClassLoader()
+                    .getResourceAsStream(partition.getFile())) {
+                if (isNull(is)) {
+                    return -1;
+                }
+                updateChecksum(checksum, is);
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Updates a checksum with all the bytes of a stream. The generator uses it to write the checksum of the data the
+     * chatbot checks with {@link #getDataChecksum()}.
+     *
+     * @param checksum the checksum
+     * @param is       the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public static void updateChecksum(Checksum checksum, InputStream is) throws IOException {
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        for (int n = is.read(buffer); n >= 0; n = is.read(buffer)) {
+            checksum.update(buffer, 0, n);
+        }
+    }
+
+    /**
+     * Gets the path of the file of a partition (without extension), with a {@code field=value} segment for each
+     * partition field. The values are URL-encoded, so they can be stored in any file system.
+     *
+     * @param fields the partition fields
+     * @param values the values of the partition fields
+     * @return the path of the partition
+     * @see #parsePath(String)
+     */
+    public static String getPath(List<String> fields, List<String> values) {
+        List<String> segments = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            segments.add(encode(fields.get(i)) + "=" + encode(values.get(i)));
+        }
+        return String.join("/", segments);
+    }
+
+    /**
+     * Gets the values of the partition fields from the path of a file (without extension). The segments of the path
+     * that do not follow the {@code field=value} convention are skipped.
+     *
+     * @param path the path of the file
+     * @return the values of the partition fields, in the order of the path
+     * @see #getPath(List, List)
+     */
+    public static Map<String, String> parsePath(String path) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String segment : path.replace('\\', '/').split("/")) {
+            int i = segment.indexOf('=');
+            if (i > 0) {
+                values.put(decode(segment.substring(0, i)), decode(segment.substring(i + 1)));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Generates the manifest of a set of partitions.
+     *
+     * @param fields the partition fields
+     * @param paths  the path of the file of each partition (without extension), as returned by
+     *               {@link #getPath(List, List)}
+     * @param values the values of the partition fields of each partition
+     * @return the json object of the manifest
+     */
+    public static JSONObject toJson(List<String> fields, List<String> paths, List<List<String>> values) {
+        JSONObject manifest = new JSONObject();
+        manifest.put("fields", new JSONArray(fields));
+        JSONArray partitionsJson = new JSONArray();
+        for (int i = 0; i < paths.size(); i++) {
+            JSONObject partitionJson = new JSONObject();
+            partitionJson.put("path", paths.get(i));
+            partitionJson.put("values", new JSONArray(values.get(i)));
+            partitionsJson.put(partitionJson);
+        }
+        manifest.put("partitions", partitionsJson);
+        return manifest;
+    }
+
+    private static DataPartitions fromJson(JSONObject manifest, String extension) {
+        List<String> fields = new ArrayList<>();
+        JSONArray fieldsJson = manifest.getJSONArray("fields");
+        for (int i = 0; i < fieldsJson.length(); i++) {
+            fields.add(fieldsJson.getString(i));
+        }
+        List<Partition> partitions = new ArrayList<>();
+        JSONArray partitionsJson = manifest.getJSONArray("partitions");
+        for (int i = 0; i < partitionsJson.length(); i++) {
+            JSONObject partitionJson = partitionsJson.getJSONObject(i);
+            JSONArray valuesJson = partitionJson.getJSONArray("values");
+            List<String> values = new ArrayList<>();
+            for (int j = 0; j < valuesJson.length(); j++) {
+                values.add(valuesJson.getString(j));
+            }
+            if (values.size() != fields.size()) {
+                throw new JSONException("The partition " + partitionJson.getString("path") + " has " + values.size()
+                        + " values, but there are " + fields.size() + " partition fields");
+            }
+            partitions.add(new Partition(partitionJson.getString("path") + extension, values));
+        }
+        if (partitions.isEmpty()) {
+            throw new JSONException("There are no partitions");
+        }
+        return new DataPartitions(fields, partitions);
+    }
+
+    private static String encode(String text) {
+        try {
+            return URLEncoder.encode(text, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
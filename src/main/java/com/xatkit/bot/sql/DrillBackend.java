@@ -0,0 +1,252 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link QueryBackend} that runs the SQL queries in a local Apache Drill instance (i.e. a drillbit).
+ * <p>
+ * The data is read directly from the {@code .csv} file stored in the resources folder, so all the columns are text
+ * and must be cast when they are compared as numbers or datetimes.
+ * <p>
+ * Alternatively, the data can be read from a typed {@code .parquet} file written by the generator (see
+ * {@code TabularDataSource#writeParquet}). Then the numeric and datetime columns have native types (empty values are
+ * stored as {@code null}), so they are compared without casting them, and Drill only reads the columns (and row
+ * groups) each query needs.
+ * <p>
+ * If the data is split in partitions (see {@link DataPartitions}), each query only reads the files of the partitions
+ * that match its filters.
+ */
+public class DrillBackend implements QueryBackend {
+
+    /**
+     * The scale of decimal values (i.e. the number of decimal digits).
+     */
+    private static final int SCALE = 4;
+
+    private static final String isoDatetimeFormat = "yyyy-MM-dd''T''HH:mm:ssZ";
+
+    /**
+     * The url of the database.
+     */
+    private final String url = "jdbc:drill:drillbit=localhost";
+
+    /**
+     * The files of the data.
+     */
+    private final DataPartitions partitions;
+
+    /**
+     * The csv delimiter, or {@code 0} if the data is read from {@code .parquet} files.
+     */
+    private final char delimiter;
+
+    /**
+     * Whether the data is read from typed {@code .parquet} files.
+     */
+    private final boolean parquet;
+
+    /**
+     * The columns stored in the files (i.e. without the partition fields in the {@code .csv} files), which are
+     * projected explicitly when the files of the partitions are read, since Drill cannot union files without a schema
+     * (like {@code .csv} and {@code .parquet} files) with {@code SELECT *}.
+     */
+    private final String[] fileHeader;
+
+    /**
+     * The table referencing all the files of the data.
+     */
+    private final String table;
+
+    /**
+     * Instantiates a new {@link DrillBackend}.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     */
+    public DrillBackend(DataPartitions partitions, char delimiter) {
+        this(partitions, delimiter, false, readFileHeader(partitions, delimiter));
+    }
+
+    /**
+     * Instantiates a new {@link DrillBackend} that reads the data from {@code .parquet} files.
+     * <p>
+     * Unlike the {@code .csv} files, the {@code .parquet} files of the partitions contain the partition fields.
+     *
+     * @param partitions the {@code .parquet} files of the data
+     * @param header     the columns of the data, including the partition fields
+     */
+    public DrillBackend(DataPartitions partitions, String[] header) {
+        this(partitions, (char) 0, true, header);
+    }
+
+    private DrillBackend(DataPartitions partitions, char delimiter, boolean parquet, String[] fileHeader) {
+        this.partitions = partitions;
+        this.delimiter = delimiter;
+        this.parquet = parquet;
+        this.fileHeader = fileHeader;
+        this.table = table(partitions.getPartitions());
+        try {
+            Class.forName("org.apache.drill.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            Log.error("An error occurred while loading the Drill JDBC driver, see the attached exception");
+            Log.error(e.getMessage());
+        }
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public Connection newConnection() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    @Override
+    public String table() {
+        return table;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The partitions are read with a {@code UNION ALL} of their files, projecting the columns of the files
+     * explicitly. The values of the partition fields are added as constant columns, since they are not stored in the
+     * {@code .csv} files.
+     */
+    @Override
+    public String table(List<Partition> partitions) {
+        // A single file with all the columns is read directly
+        if (partitions.size() == 1 && (parquet || !this.partitions.isPartitioned())) {
+            return file(partitions.get(0));
+        }
+        List<String> scans = new ArrayList<>();
+        for (Partition partition : partitions) {
+            List<String> columns = new ArrayList<>();
+            for (String field : fileHeader) {
+                // The csv columns are referenced by their original names, and renamed like in the rest of the query
+                columns.add(parquet ? alias(column(field))
+                        : "`" + field.replace("`", "``") + "` AS " + alias(column(field)));
+            }
+            if (!parquet) {
+                for (String field : this.partitions.getFields()) {
+                    columns.add("'" + this.partitions.getValue(partition, field).replace("'", "''") + "' AS "
+                            + alias(column(field)));
+                }
+            }
+            scans.add("SELECT " + String.join(", ", columns) + " FROM " + file(partition));
+        }
+        return "(" + String.join(" UNION ALL ", scans) + ")";
+    }
+
+    /**
+     * Reads the header of the {@code .csv} files of the partitions of the data.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     * @return the header of the files, or an empty header if the data is not partitioned or the header cannot be read
+     */
+    private static String[] readFileHeader(DataPartitions partitions, char delimiter) {
+        if (!partitions.isPartitioned()) {
+            return new String[0];
+        }
+        String[] header = partitions.readHeader(delimiter);
+        if (isNull(header)) {
+            return new String[0];
+        }
+        return Arrays.copyOf(header, header.length - partitions.getFields().size());
+    }
+
+    @Override
+    public DataPartitions getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Gets the reference to the file of a partition.
+     *
+     * @param partition the partition
+     * @return the file reference
+     */
+    private String file(Partition partition) {
+        if (parquet) {
+            return "cp.`" + partition.getFile() + "`";
+        }
+        return "table(cp.`" + partition.getFile() + "`(type => 'text', fieldDelimiter => '" + delimiter
+                + "', extractHeader =>" + " true))";
+    }
+
+    @Override
+    public String column(String field) {
+        return SqlQueries.replaceSpecialChars(field);
+    }
+
+    @Override
+    public String alias(String alias) {
+        return "`" + alias + "`";
+    }
+
+    @Override
+    public String notEmpty(String column) {
+        if (parquet) {
+            return column + " IS NOT NULL";
+        }
+        return column + " <> ''";
+    }
+
+    @Override
+    public String upper(String expression) {
+        return "UPPER(" + expression + ")";
+    }
+
+    @Override
+    public String toDecimal(String column) {
+        if (parquet) {
+            return column;
+        }
+        return "CAST(" + column + " AS DECIMAL(38," + SCALE + "))";
+    }
+
+    @Override
+    public String decimalParameter() {
+        if (parquet) {
+            return "CAST(? AS DOUBLE)";
+        }
+        return toDecimal("?");
+    }
+
+    @Override
+    public String toDateTime(String column) {
+        if (parquet) {
+            return column;
+        }
+        // TODO: The format depends on the dataset. We need to know it
+        return "TO_TIMESTAMP(" + column + ", '" + isoDatetimeFormat + "')";
+    }
+
+    @Override
+    public String dateTimeParameter() {
+        return "TO_TIMESTAMP(?, '" + isoDatetimeFormat + "')";
+    }
+
+    @Override
+    public boolean supportsParameters() {
+        // The Drill JDBC driver does not support dynamic parameters in prepared statements
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+}
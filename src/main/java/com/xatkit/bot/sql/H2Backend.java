@@ -0,0 +1,343 @@
+package com.xatkit.bot.sql;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link QueryBackend} that runs the SQL queries in an embedded, in-memory H2 database.
+ * <p>
+ * At startup, the {@code .csv} file stored in the resources folder (or the files of its partitions, see
+ * {@link DataPartitions}) is loaded into a table with typed columns (the types are taken from the field entities, see
+ * {@link Entities#getFieldEntityName(String)}) and B-tree indexes are created on the key, categorical and partition
+ * fields. This way, no external database process is needed and the equality and
+ * range filters can be answered with index lookups.
+ * <p>
+ * The textual columns are case sensitive (like in the other backends), and each one has an invisible, upper-cased
+ * shadow column computed by the database (see {@link #UPPER_COLUMN_SUFFIX}), which the case insensitive filters use
+ * (see {@link #upper(String)}) so they can also be answered with index lookups.
+ */
+public class H2Backend implements QueryBackend {
+
+    /**
+     * The name of the table where the data is loaded.
+     */
+    private static final String TABLE_NAME = "data";
+
+    /**
+     * The number of rows inserted in each batch when loading the data.
+     */
+    private static final int BATCH_SIZE = 10000;
+
+    /**
+     * The suffix of the name of the upper-cased shadow column of a textual column.
+     */
+    private static final String UPPER_COLUMN_SUFFIX = "__upper";
+
+    /**
+     * The SQL type of the textual columns.
+     */
+    private static final String TEXT_TYPE = "VARCHAR";
+
+    /**
+     * The url of the database.
+     */
+    private final String url;
+
+    /**
+     * A connection kept open while the backend is alive, so the in-memory database is not dropped.
+     */
+    private Connection mainConnection;
+
+    /**
+     * The upper-cased shadow column of each textual column.
+     */
+    private final Map<String, String> upperColumns = new HashMap<>();
+
+    /**
+     * Instantiates a new {@link H2Backend} and loads the data into it.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     */
+    public H2Backend(DataPartitions partitions, char delimiter) {
+        String inputDoc = partitions.getPartitions().get(0).getFile();
+        url = "jdbc:h2:mem:" + SqlQueries.replaceSpecialChars(inputDoc) + ";DB_CLOSE_DELAY=-1";
+        try {
+            Class.forName("org.h2.Driver");
+            mainConnection = DriverManager.getConnection(url);
+            load(partitions, delimiter);
+        } catch (SQLException | ClassNotFoundException | IOException | CsvValidationException e) {
+            Log.error("An error occurred while loading {0} into {1}, see the attached exception", inputDoc, url);
+            Log.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the {@code .csv} files into the database.
+     * <p>
+     * The files are inserted in parallel, each one with its own connection. The partition fields are indexed too.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     */
+    private void load(DataPartitions partitions, char delimiter) throws SQLException, IOException,
+            CsvValidationException {
+        long start = System.currentTimeMillis();
+        String[] fileHeader;
+        try (CSVReader reader = DataPartitions.openReader(partitions.getPartitions().get(0), delimiter)) {
+            fileHeader = reader.readNext();
+        }
+        if (isNull(fileHeader)) {
+            throw new IOException("The csv file \"" + partitions.getPartitions().get(0).getFile() + "\" is empty");
+        }
+        String[] header = partitions.getHeader(fileHeader);
+        List<String> fieldEntityNames = new ArrayList<>();
+        List<String> columnDefinitions = new ArrayList<>();
+        for (String field : header) {
+            String fieldEntityName = Entities.getFieldEntityName(field);
+            fieldEntityNames.add(fieldEntityName);
+            columnDefinitions.add(column(field) + " " + sqlType(fieldEntityName));
+        }
+        for (String field : header) {
+            // The normalized shadow columns are compared with normalized values, without upper-casing them
+            if (TEXT_TYPE.equals(sqlType(Entities.getFieldEntityName(field)))
+                    && !field.endsWith(SqlQueries.NORMALIZED_COLUMN_SUFFIX)) {
+                String upperColumn = column(field + UPPER_COLUMN_SUFFIX);
+                columnDefinitions.add(upperColumn + " " + TEXT_TYPE + " INVISIBLE AS UPPER(" + column(field) + ")");
+                upperColumns.put(column(field), upperColumn);
+            }
+        }
+        mainConnection.setAutoCommit(false);
+        try (Statement statement = mainConnection.createStatement()) {
+            statement.execute("CREATE TABLE " + table() + " (" + String.join(", ", columnDefinitions) + ")");
+        }
+        mainConnection.commit();
+        int numThreads = Math.min(partitions.getPartitions().size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        int numRows = 0;
+        try {
+            List<Future<Integer>> insertions = new ArrayList<>();
+            for (Partition partition : partitions.getPartitions()) {
+                insertions.add(executor.submit(() -> insert(partitions, partition, fileHeader, fieldEntityNames,
+                        delimiter)));
+            }
+            for (Future<Integer> insertion : insertions) {
+                numRows += insertion.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = (isNull(e.getCause()) ? e : e.getCause());
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+        try (Statement statement = mainConnection.createStatement()) {
+            for (String field : header) {
+                // The normalized shadow columns are indexed like the fields they normalize
+                String indexedField = (field.endsWith(SqlQueries.NORMALIZED_COLUMN_SUFFIX)
+                        ? field.substring(0, field.length() - SqlQueries.NORMALIZED_COLUMN_SUFFIX.length())
+                        : field);
+                if (Entities.isKeyField(indexedField) || Entities.isCategoricalField(indexedField)
+                        || partitions.getFields().contains(indexedField)) {
+                    String index = "\"idx_" + SqlQueries.replaceSpecialChars(field) + "\"";
+                    statement.execute("CREATE INDEX " + index + " ON " + table() + " (" + column(field) + ")");
+                    String upperColumn = upperColumns.get(column(field));
+                    if (!isNull(upperColumn)) {
+                        String upperIndex = "\"idx_" + SqlQueries.replaceSpecialChars(field) + UPPER_COLUMN_SUFFIX
+                                + "\"";
+                        statement.execute("CREATE INDEX " + upperIndex + " ON " + table() + " (" + upperColumn
+                                + ")");
+                    }
+                }
+            }
+        }
+        mainConnection.commit();
+        mainConnection.setAutoCommit(true);
+        Log.info("Loaded {0} rows from {1} files in {2} ms", numRows, partitions.getPartitions().size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Inserts the rows of the {@code .csv} file of a partition into the table, with a new connection.
+     *
+     * @param partitions       the {@code .csv} files of the data
+     * @param partition        the partition to insert
+     * @param fileHeader       the header of the files
+     * @param fieldEntityNames the names of the field entities of the columns
+     * @param delimiter        the csv delimiter
+     * @return the number of inserted rows
+     */
+    private int insert(DataPartitions partitions, Partition partition, String[] fileHeader,
+                       List<String> fieldEntityNames, char delimiter)
+            throws SQLException, IOException, CsvValidationException {
+        String placeholders = String.join(", ", Collections.nCopies(fieldEntityNames.size(), "?"));
+        // The upper-cased shadow columns are computed by the database
+        List<String> columns = new ArrayList<>();
+        for (String field : partitions.getHeader(fileHeader)) {
+            columns.add(column(field));
+        }
+        int numRows = 0;
+        try (CSVReader reader = DataPartitions.openReader(partition, delimiter);
+             Connection connection = newConnection()) {
+            if (!Arrays.equals(fileHeader, reader.readNext())) {
+                throw new IOException("The csv file \"" + partition.getFile() + "\" does not have the same columns "
+                        + "as \"" + partitions.getPartitions().get(0).getFile() + "\"");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO " + table() + " (" + String.join(", ", columns) + ") VALUES (" + placeholders
+                            + ")")) {
+                String[] fileRow;
+                while (!isNull(fileRow = reader.readNext())) {
+                    String[] row = partitions.getRow(fileRow, fileHeader.length, partition);
+                    for (int i = 0; i < fieldEntityNames.size(); i++) {
+                        String value = (i < row.length ? row[i] : null);
+                        setValue(insert, i + 1, fieldEntityNames.get(i), value);
+                    }
+                    insert.addBatch();
+                    if (++numRows % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+        }
+        return numRows;
+    }
+
+    /**
+     * Gets the SQL type of the column of a field.
+     *
+     * @param fieldEntityName the name of the field entity the field belongs to
+     * @return the SQL type
+     */
+    private static String sqlType(String fieldEntityName) {
+        if ("numericFieldEntity".equals(fieldEntityName)) {
+            return "DECIMAL";
+        } else if ("datetimeFieldEntity".equals(fieldEntityName)) {
+            return "TIMESTAMP WITH TIME ZONE";
+        }
+        return TEXT_TYPE;
+    }
+
+    /**
+     * Sets the value of a column in the insert statement, converting it to the column type. Numeric and datetime
+     * values that cannot be parsed are stored as {@code NULL}.
+     *
+     * @see com.xatkit.bot.library.Utils#parseDecimal(String)
+     * @see com.xatkit.bot.library.Utils#parseDatetime(String)
+     *
+     * @param insert          the insert statement
+     * @param index           the index of the column
+     * @param fieldEntityName the name of the field entity the field belongs to
+     * @param value           the value to insert
+     */
+    private static void setValue(PreparedStatement insert, int index, String fieldEntityName, String value)
+            throws SQLException {
+        if ("numericFieldEntity".equals(fieldEntityName)) {
+            insert.setObject(index, parseDecimal(value), Types.DECIMAL);
+        } else if ("datetimeFieldEntity".equals(fieldEntityName)) {
+            insert.setObject(index, parseDatetime(value), Types.TIMESTAMP_WITH_TIMEZONE);
+        } else {
+            insert.setString(index, isNull(value) ? "" : value);
+        }
+    }
+
+    @Override
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public Connection newConnection() throws SQLException {
+        return DriverManager.getConnection(url);
+    }
+
+    @Override
+    public String table() {
+        return "\"" + TABLE_NAME + "\"";
+    }
+
+    @Override
+    public String column(String field) {
+        return "\"" + SqlQueries.replaceSpecialChars(field) + "\"";
+    }
+
+    @Override
+    public String alias(String alias) {
+        return "\"" + alias.replaceAll("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public String notEmpty(String column) {
+        return column + " IS NOT NULL";
+    }
+
+    @Override
+    public String upper(String expression) {
+        // The upper-cased shadow column of a textual column can be looked up in the indexes
+        String upperColumn = upperColumns.get(expression);
+        return (isNull(upperColumn) ? "UPPER(" + expression + ")" : upperColumn);
+    }
+
+    @Override
+    public String toDecimal(String column) {
+        return column;
+    }
+
+    @Override
+    public String decimalParameter() {
+        return "CAST(? AS DECIMAL)";
+    }
+
+    @Override
+    public String toDateTime(String column) {
+        return column;
+    }
+
+    @Override
+    public String dateTimeParameter() {
+        return "CAST(? AS TIMESTAMP WITH TIME ZONE)";
+    }
+
+    @Override
+    public boolean supportsParameters() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!isNull(mainConnection) && !mainConnection.isClosed()) {
+                mainConnection.close();
+            }
+        } catch (SQLException e) {
+            Log.error(e.getMessage());
+        }
+    }
+}
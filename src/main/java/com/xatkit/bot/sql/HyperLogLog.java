@@ -0,0 +1,255 @@
+package com.xatkit.bot.sql;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A HyperLogLog sketch, which estimates the number of distinct values of a set in a fixed amount of memory.
+ * <p>
+ * Each value is hashed to 64 bits: the first {@link #PRECISION} bits choose one of the {@link #NUM_REGISTERS}
+ * registers, which keeps the maximum position of the first 1 bit in the rest of the hash. The number of distinct values
+ * is estimated from the harmonic mean of the registers, with a relative standard error of about
+ * {@link #RELATIVE_STANDARD_ERROR}.
+ * <p>
+ * While the set is small (up to {@link #MAX_EXACT_HASHES} distinct values), the sketch keeps the hashes of the values
+ * instead of the registers, so its count is exact (but for hash collisions, which are negligible with 64 bits) and it
+ * takes less space. Sketches can be merged (the sketch of the union of two sets is the merge of their sketches), so the
+ * sketches of several sets can be combined without reading the values again.
+ */
+public final class HyperLogLog {
+
+    /**
+     * The number of bits of the hash that choose the register.
+     */
+    private static final int PRECISION = 10;
+
+    /**
+     * The number of registers.
+     */
+    private static final int NUM_REGISTERS = 1 << PRECISION;
+
+    /**
+     * The relative standard error of the estimated number of distinct values ({@code 1.04 / sqrt(NUM_REGISTERS)}, i.e.
+     * 3.25%) when the sketch is not exact.
+     */
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(NUM_REGISTERS);
+
+    /**
+     * The maximum number of hashes kept in exact mode. It is chosen so that the exact sketch is never bigger than the
+     * registers.
+     */
+    private static final int MAX_EXACT_HASHES = NUM_REGISTERS / Long.BYTES;
+
+    /**
+     * The sorted hashes of the values, in exact mode, or {@code null} if the sketch uses the registers.
+     */
+    private long[] hashes;
+
+    /**
+     * The number of hashes of {@link #hashes}.
+     */
+    private int numHashes;
+
+    /**
+     * The registers, or {@code null} if the sketch is in exact mode.
+     */
+    private byte[] registers;
+
+    /**
+     * Instantiates a new (empty) {@link HyperLogLog}.
+     */
+    public HyperLogLog() {
+        this.hashes = new long[4];
+        this.numHashes = 0;
+        this.registers = null;
+    }
+
+    /**
+     * Gets the 64 bits hash of a value.
+     * <p>
+     * The hash of a value can be computed once and added to several sketches (see {@link #addHash(long)}).
+     *
+     * @param value the value
+     * @return the hash
+     */
+    public static long hash(String value) {
+        // FNV-1a, followed by the MurmurHash3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value
+     */
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    /**
+     * Adds the hash of a value to the sketch.
+     *
+     * @param hash the hash of the value (see {@link #hash(String)})
+     */
+    public void addHash(long hash) {
+        if (isExact()) {
+            int i = Arrays.binarySearch(hashes, 0, numHashes, hash);
+            if (i >= 0) {
+                return;
+            }
+            if (numHashes == MAX_EXACT_HASHES) {
+                toRegisters();
+                addToRegisters(hash);
+                return;
+            }
+            int position = -i - 1;
+            if (numHashes == hashes.length) {
+                hashes = Arrays.copyOf(hashes, Math.min(hashes.length * 2, MAX_EXACT_HASHES));
+            }
+            System.arraycopy(hashes, position, hashes, position + 1, numHashes - position);
+            hashes[position] = hash;
+            numHashes++;
+        } else {
+            addToRegisters(hash);
+        }
+    }
+
+    /**
+     * Merges another sketch into this one, so this sketch counts the union of both sets.
+     *
+     * @param other the other sketch
+     */
+    public void merge(HyperLogLog other) {
+        if (other.isExact()) {
+            for (int i = 0; i < other.numHashes; i++) {
+                addHash(other.hashes[i]);
+            }
+            return;
+        }
+        if (isExact()) {
+            toRegisters();
+        }
+        for (int i = 0; i < NUM_REGISTERS; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    /**
+     * Checks if the sketch is in exact mode, i.e. its count is exact.
+     *
+     * @return {@code true} if the count is exact, {@code false} if it is an estimate
+     */
+    public boolean isExact() {
+        return registers == null;
+    }
+
+    /**
+     * Gets the number of distinct values of the set (exact in exact mode, estimated otherwise).
+     *
+     * @return the number of distinct values
+     */
+    public long count() {
+        if (isExact()) {
+            return numHashes;
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / NUM_REGISTERS);
+        double estimate = alpha * NUM_REGISTERS * NUM_REGISTERS / sum;
+        if (estimate <= 2.5 * NUM_REGISTERS && zeros > 0) {
+            // Small range correction (linear counting)
+            estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Encodes the sketch as a Base64 string, to be stored in a json file.
+     *
+     * @return the encoded sketch
+     * @see #decode(String)
+     */
+    public String encode() {
+        ByteBuffer buffer;
+        if (isExact()) {
+            buffer = ByteBuffer.allocate(1 + numHashes * Long.BYTES);
+            buffer.put((byte) 0);
+            for (int i = 0; i < numHashes; i++) {
+                buffer.putLong(hashes[i]);
+            }
+        } else {
+            buffer = ByteBuffer.allocate(1 + NUM_REGISTERS);
+            buffer.put((byte) 1);
+            buffer.put(registers);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a sketch encoded with {@link #encode()}.
+     *
+     * @param encoded the encoded sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the string is not an encoded sketch
+     */
+    public static HyperLogLog decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        HyperLogLog sketch = new HyperLogLog();
+        byte mode = (buffer.hasRemaining() ? buffer.get() : -1);
+        if (mode == 0 && buffer.remaining() % Long.BYTES == 0 && buffer.remaining() / Long.BYTES <= MAX_EXACT_HASHES) {
+            while (buffer.hasRemaining()) {
+                sketch.addHash(buffer.getLong());
+            }
+        } else if (mode == 1 && buffer.remaining() == NUM_REGISTERS) {
+            sketch.registers = new byte[NUM_REGISTERS];
+            buffer.get(sketch.registers);
+            sketch.hashes = null;
+        } else {
+            throw new IllegalArgumentException("Invalid HyperLogLog sketch");
+        }
+        return sketch;
+    }
+
+    /**
+     * Switches the sketch from exact mode to the registers.
+     */
+    private void toRegisters() {
+        registers = new byte[NUM_REGISTERS];
+        for (int i = 0; i < numHashes; i++) {
+            addToRegisters(hashes[i]);
+        }
+        hashes = null;
+        numHashes = 0;
+    }
+
+    /**
+     * Adds the hash of a value to the registers.
+     *
+     * @param hash the hash of the value
+     */
+    private void addToRegisters(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // The position of the first 1 bit after the register bits (the last bit set bounds it)
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (registers[register] < rank) {
+            registers[register] = rank;
+        }
+    }
+}
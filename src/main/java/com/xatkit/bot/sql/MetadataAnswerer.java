@@ -0,0 +1,686 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import fr.inria.atlanmod.commons.log.Log;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.xatkit.bot.library.Utils.normalize;
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link QueryAnswerer} that answers queries from the statistics manifest generated with the chatbot (see
+ * {@link #STATISTICS_JSON_FILE}), without reading the data.
+ * <p>
+ * The manifest contains the number of rows, the fields and the frequency table (i.e. the number of rows of each
+ * different value) of the categorical fields. When the user has not applied any filter, it answers:
+ * <ul>
+ *     <li>{@link Query.Operation#FIELD_COUNT} queries</li>
+ *     <li>{@link Query.Operation#COUNT} queries of all the rows, of the rows with a value of a categorical field, or of
+ *     the distinct values of a categorical field</li>
+ *     <li>{@link Query.Operation#SELECT} queries of the distinct values of a categorical field</li>
+ *     <li>{@link Query.Operation#FREQUENT_VALUE} and {@link Query.Operation#COMPARE_VALUES} queries of categorical
+ *     fields</li>
+ * </ul>
+ * With filters, the frequency tables are used to choose the cheapest plan: if a condition on a categorical field is not
+ * satisfied by any row, the (empty) result is known without reading the data. Otherwise, the query is given to the
+ * next answerer or run in the database.
+ * <p>
+ * The manifest also contains a {@link HyperLogLog} sketch of the values of each field, and of the values of each field
+ * in the rows with each value of a categorical field. They answer the {@link Query#isApproximate() approximate}
+ * {@link Query.Operation#COUNT} queries of the distinct values of a field, without filters or with an equality condition
+ * on a categorical field (merging the sketches of the values that satisfy it).
+ * <p>
+ * For the textual fields that are not categorical, the manifest contains a {@link SpaceSaving} summary of their most
+ * frequent values and a {@link CountMinSketch} of the frequencies of their values. Without filters, they answer the
+ * approximate {@link Query.Operation#FREQUENT_VALUE} queries of the most frequent values (only if the summary
+ * guarantees they are the most frequent ones) and the approximate {@link Query.Operation#COUNT} queries of the rows with
+ * a value. An estimated count is given with its bounds (see {@link ResultSet#getEstimate(int, int)}): the bounds a
+ * frequency is known to be within, or the 95% confidence interval of a number of distinct values.
+ */
+public class MetadataAnswerer implements QueryAnswerer {
+
+    /**
+     * The name of the json file containing the statistics of the chatbot data.
+     */
+    public static final String STATISTICS_JSON_FILE = "statistics.json";
+
+    /**
+     * The z-score of the 95% confidence intervals of the numbers of distinct values estimated by the sketches.
+     */
+    private static final double Z = 1.96;
+
+    /**
+     * The number of rows of the data.
+     */
+    private final int numRows;
+
+    /**
+     * The fields of the data, in the same order as the columns.
+     */
+    private final List<String> fields;
+
+    /**
+     * The frequency tables of the categorical fields.
+     * <p>
+     * The keys are the fields and the values are the number of rows of each value of the field, sorted by value.
+     */
+    private final Map<String, TreeMap<String, Integer>> valueCounts;
+
+    /**
+     * Whether the textual conditions compare normalized values (i.e. they are case and accent insensitive) or just
+     * case insensitive.
+     */
+    private final boolean normalized;
+
+    /**
+     * The sketches of the distinct values of each field.
+     */
+    private final Map<String, HyperLogLog> distinctSketches;
+
+    /**
+     * The sketches of the distinct values of each field in the rows with each value of a categorical field.
+     * <p>
+     * The keys are the categorical fields, then their values, then the fields whose values are counted.
+     */
+    private final Map<String, Map<String, Map<String, HyperLogLog>>> valueSketches;
+
+    /**
+     * The summaries of the most frequent values of the textual fields that are not categorical.
+     */
+    private final Map<String, SpaceSaving> heavyHitters;
+
+    /**
+     * The sketches of the frequencies of the values of the textual fields that are not categorical.
+     */
+    private final Map<String, CountMinSketch> frequencySketches;
+
+    /**
+     * Instantiates a new {@link MetadataAnswerer}, whose textual conditions are case insensitive.
+     *
+     * @param numRows     the number of rows of the data
+     * @param fields      the fields of the data
+     * @param valueCounts the frequency tables of the categorical fields
+     */
+    public MetadataAnswerer(int numRows, List<String> fields, Map<String, TreeMap<String, Integer>> valueCounts) {
+        this(numRows, fields, valueCounts, false);
+    }
+
+    /**
+     * Instantiates a new {@link MetadataAnswerer}.
+     *
+     * @param numRows     the number of rows of the data
+     * @param fields      the fields of the data
+     * @param valueCounts the frequency tables of the categorical fields
+     * @param normalized  whether the textual conditions compare normalized values or not
+     */
+    public MetadataAnswerer(int numRows, List<String> fields, Map<String, TreeMap<String, Integer>> valueCounts,
+                            boolean normalized) {
+        this(numRows, fields, valueCounts, normalized, new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                new HashMap<>());
+    }
+
+    /**
+     * Instantiates a new {@link MetadataAnswerer}.
+     *
+     * @param numRows           the number of rows of the data
+     * @param fields            the fields of the data
+     * @param valueCounts       the frequency tables of the categorical fields
+     * @param normalized        whether the textual conditions compare normalized values or not
+     * @param distinctSketches  the sketches of the distinct values of each field
+     * @param valueSketches     the sketches of the distinct values of each field in the rows with each value of a
+     *                          categorical field
+     * @param heavyHitters      the summaries of the most frequent values of the textual fields that are not
+     *                          categorical
+     * @param frequencySketches the sketches of the frequencies of the values of the textual fields that are not
+     *                          categorical
+     */
+    public MetadataAnswerer(int numRows, List<String> fields, Map<String, TreeMap<String, Integer>> valueCounts,
+                            boolean normalized, Map<String, HyperLogLog> distinctSketches,
+                            Map<String, Map<String, Map<String, HyperLogLog>>> valueSketches,
+                            Map<String, SpaceSaving> heavyHitters, Map<String, CountMinSketch> frequencySketches) {
+        this.numRows = numRows;
+        this.fields = fields;
+        this.valueCounts = valueCounts;
+        this.normalized = normalized;
+        this.distinctSketches = distinctSketches;
+        this.valueSketches = valueSketches;
+        this.heavyHitters = heavyHitters;
+        this.frequencySketches = frequencySketches;
+    }
+
+    /**
+     * Loads the statistics manifest {@link #STATISTICS_JSON_FILE}.
+     * <p>
+     * The manifest is discarded if it was not generated from the current data files, since its statistics (e.g. the
+     * frequency tables) would be stale. The size of the data (see {@link DataPartitions#getDataSize()}) is checked
+     * first, since it is known without reading the data, and then the checksum of its content (see
+     * {@link DataPartitions#getDataChecksum()}), which also detects the edits that do not change the size.
+     *
+     * @param partitions the files of the data
+     * @param normalized whether the textual conditions compare normalized values (see
+     *                   {@link SqlQueries#getNormalizedColumn(String)}) or not
+     * @return the answerer, or {@code null} if the manifest could not be loaded
+     */
+    public static MetadataAnswerer load(DataPartitions partitions, boolean normalized) {
+        InputStream is = Thread.currentThread().getContextClassLoader().getResourceAsStream(STATISTICS_JSON_FILE);
+        if (isNull(is)) {
+            Log.warn("Cannot find the json file \"{0}\", the schema-level queries will be run in the database",
+                    STATISTICS_JSON_FILE);
+            return null;
+        }
+        try {
+            JSONObject statistics = new JSONObject(new JSONTokener(is));
+            long dataSize = partitions.getDataSize();
+            if (dataSize != statistics.optLong("dataSize", -1)
+                    || partitions.getDataChecksum() != statistics.optLong("dataChecksum", -2)) {
+                Log.warn("The json file \"{0}\" was not generated from the current data, ignoring it",
+                        STATISTICS_JSON_FILE);
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < statistics.getJSONArray("fields").length(); i++) {
+                fields.add(statistics.getJSONArray("fields").getString(i));
+            }
+            Map<String, TreeMap<String, Integer>> valueCounts = new HashMap<>();
+            JSONObject valueCountsJson = statistics.getJSONObject("valueCounts");
+            for (String field : valueCountsJson.keySet()) {
+                JSONObject countsJson = valueCountsJson.getJSONObject(field);
+                TreeMap<String, Integer> counts = new TreeMap<>();
+                for (String value : countsJson.keySet()) {
+                    counts.put(value, countsJson.getInt(value));
+                }
+                valueCounts.put(field, counts);
+            }
+            Map<String, HyperLogLog> distinctSketches = new HashMap<>();
+            JSONObject distinctSketchesJson = statistics.optJSONObject("distinctSketches");
+            if (!isNull(distinctSketchesJson)) {
+                for (String field : distinctSketchesJson.keySet()) {
+                    distinctSketches.put(field, HyperLogLog.decode(distinctSketchesJson.getString(field)));
+                }
+            }
+            Map<String, Map<String, Map<String, HyperLogLog>>> valueSketches = new HashMap<>();
+            JSONObject valueSketchesJson = statistics.optJSONObject("valueSketches");
+            if (!isNull(valueSketchesJson)) {
+                for (String field : valueSketchesJson.keySet()) {
+                    JSONObject sketchesByValueJson = valueSketchesJson.getJSONObject(field);
+                    Map<String, Map<String, HyperLogLog>> sketchesByValue = new HashMap<>();
+                    for (String value : sketchesByValueJson.keySet()) {
+                        JSONObject sketchesJson = sketchesByValueJson.getJSONObject(value);
+                        Map<String, HyperLogLog> sketches = new HashMap<>();
+                        for (String countedField : sketchesJson.keySet()) {
+                            sketches.put(countedField, HyperLogLog.decode(sketchesJson.getString(countedField)));
+                        }
+                        sketchesByValue.put(value, sketches);
+                    }
+                    valueSketches.put(field, sketchesByValue);
+                }
+            }
+            Map<String, SpaceSaving> heavyHitters = new HashMap<>();
+            JSONObject heavyHittersJson = statistics.optJSONObject("heavyHitters");
+            if (!isNull(heavyHittersJson)) {
+                for (String field : heavyHittersJson.keySet()) {
+                    heavyHitters.put(field, SpaceSaving.fromJson(heavyHittersJson.getJSONObject(field)));
+                }
+            }
+            Map<String, CountMinSketch> frequencySketches = new HashMap<>();
+            JSONObject frequencySketchesJson = statistics.optJSONObject("frequencySketches");
+            if (!isNull(frequencySketchesJson)) {
+                for (String field : frequencySketchesJson.keySet()) {
+                    frequencySketches.put(field, CountMinSketch.decode(frequencySketchesJson.getString(field)));
+                }
+            }
+            return new MetadataAnswerer(statistics.getInt("numRows"), fields, valueCounts, normalized,
+                    distinctSketches, valueSketches, heavyHitters, frequencySketches);
+        } catch (JSONException | IllegalArgumentException e) {
+            Log.error("An error occurred while loading the json file \"{0}\", see the attached exception",
+                    STATISTICS_JSON_FILE);
+            Log.error(e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public ResultSet answer(Query query) {
+        if (isNull(query.getOperation())) {
+            return null;
+        }
+        if (query.getOperation() == Query.Operation.FIELD_COUNT) {
+            List<String> header = new ArrayList<>();
+            for (String field : fields) {
+                header.add(SqlQueries.replaceSpecialChars(field));
+            }
+            return new ResultSet(header, new ArrayList<>());
+        }
+        for (Condition condition : query.getConditions()) {
+            if (count(condition) == 0) {
+                return emptyResult(query);
+            }
+        }
+        if (query.getOperation() == Query.Operation.COUNT && query.isDistinct() && query.isApproximate()) {
+            ResultSet resultSet = approximateDistinctCount(query);
+            if (!isNull(resultSet)) {
+                return resultSet;
+            }
+        }
+        if (query.isApproximate() && query.getConditions().isEmpty()
+                && query.getOperation() == Query.Operation.FREQUENT_VALUE) {
+            ResultSet resultSet = approximateFrequentValue(query);
+            if (!isNull(resultSet)) {
+                return resultSet;
+            }
+        }
+        if (query.isApproximate() && query.getConditions().size() == 1
+                && query.getOperation() == Query.Operation.COUNT && !query.isDistinct()) {
+            ResultSet resultSet = approximateValueFrequency(query);
+            if (!isNull(resultSet)) {
+                return resultSet;
+            }
+        }
+        if (query.getOperation() == Query.Operation.COUNT && !query.isDistinct()) {
+            // The rows with a value of a categorical field (e.g. ValueFrequency)
+            if (query.getConditions().size() == 1) {
+                int count = count(query.getConditions().get(0));
+                return (count < 0 ? null : count(query.getLabel(), count));
+            }
+        }
+        if (!query.getConditions().isEmpty()) {
+            return null;
+        }
+        switch (query.getOperation()) {
+            case COUNT:
+                if (!query.isDistinct()) {
+                    return count(query.getLabel(), numRows);
+                }
+                TreeMap<String, Integer> counts = getValueCounts(query);
+                return (isNull(counts) ? null : count(query.getLabel(), counts.size()));
+            case SELECT:
+                if (!query.isDistinct() || !isNull(query.getOrderField())) {
+                    return null;
+                }
+                return selectDistinct(query);
+            case FREQUENT_VALUE:
+                return frequentValue(query);
+            case COMPARE_VALUES:
+                return compareValues(query);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Counts the rows that satisfy a condition, from the frequency table of its field.
+     *
+     * @param condition the condition
+     * @return the number of rows, or {@code -1} if it cannot be known (the field is not categorical or the operator is
+     * not an equality)
+     */
+    private int count(Condition condition) {
+        TreeMap<String, Integer> counts = valueCounts.get(condition.getField());
+        if (isNull(counts)) {
+            return -1;
+        }
+        switch (condition.getOperator()) {
+            case Condition.VALUE_EQUALS:
+                return counts.getOrDefault(condition.getValue(), 0);
+            case "equals":
+                // Case insensitive, as UPPER(field) = UPPER(value) (or accent insensitive too, as the comparison of
+                // the normalized shadow column with the normalized value)
+                String value = toMatchValue(condition.getValue());
+                int count = 0;
+                for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                    if (toMatchValue(entry.getKey()).equals(value)) {
+                        count += entry.getValue();
+                    }
+                }
+                return count;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Answers an approximate {@link Query.Operation#COUNT} query of the distinct values of a field, from the sketches.
+     * <p>
+     * The count is written with a {@code ~} prefix if it is an estimate (i.e. the merged sketch is not in exact mode).
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered (it has more than one field or condition,
+     * the condition is not an equality on a categorical field, or the count is exact from the frequency tables)
+     */
+    private ResultSet approximateDistinctCount(Query query) {
+        if (query.getFields().size() != 1) {
+            return null;
+        }
+        String field = query.getFields().get(0);
+        if (query.getConditions().isEmpty()) {
+            if (valueCounts.containsKey(field)) {
+                return null;
+            }
+            HyperLogLog sketch = distinctSketches.get(field);
+            return (isNull(sketch) ? null : approximateCount(query.getLabel(), sketch));
+        }
+        if (query.getConditions().size() != 1) {
+            return null;
+        }
+        Condition condition = query.getConditions().get(0);
+        Map<String, Map<String, HyperLogLog>> sketchesByValue = valueSketches.get(condition.getField());
+        if (isNull(sketchesByValue)) {
+            return null;
+        }
+        boolean caseInsensitive;
+        switch (condition.getOperator()) {
+            case Condition.VALUE_EQUALS:
+                caseInsensitive = false;
+                break;
+            case "equals":
+                caseInsensitive = true;
+                break;
+            default:
+                return null;
+        }
+        String value = (caseInsensitive ? toMatchValue(condition.getValue()) : condition.getValue());
+        HyperLogLog union = new HyperLogLog();
+        for (Map.Entry<String, Map<String, HyperLogLog>> entry : sketchesByValue.entrySet()) {
+            String entryValue = (caseInsensitive ? toMatchValue(entry.getKey()) : entry.getKey());
+            if (entryValue.equals(value)) {
+                HyperLogLog sketch = entry.getValue().get(field);
+                if (isNull(sketch)) {
+                    return null;
+                }
+                union.merge(sketch);
+            }
+        }
+        return approximateCount(query.getLabel(), union);
+    }
+
+    /**
+     * Answers an approximate {@link Query.Operation#FREQUENT_VALUE} query of the most frequent values of a field, from
+     * the summary of its heavy hitters.
+     * <p>
+     * The values are ranked by their estimated frequency. The answer is only given if the summary guarantees that the
+     * selected values are the most frequent ones: the lowest frequency each of them can have is not lower than the
+     * highest frequency any other value can have.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet approximateFrequentValue(Query query) {
+        if (!"max".equals(query.getFunction()) || query.getFields().size() != 1) {
+            return null;
+        }
+        SpaceSaving summary = heavyHitters.get(query.getFields().get(0));
+        if (isNull(summary)) {
+            return null;
+        }
+        List<SpaceSaving.Counter> counters = summary.getCounters();
+        List<Row> rows = new ArrayList<>();
+        List<long[]> bounds = new ArrayList<>();
+        long minCount = Long.MAX_VALUE;
+        // The highest frequency of the values that are not selected
+        long otherCount = (summary.isExact() ? 0 : summary.getMinCount());
+        int rank = 0;
+        for (int i = 0; i < counters.size(); i++) {
+            SpaceSaving.Counter counter = counters.get(i);
+            if (i == 0 || counter.getCount() != counters.get(i - 1).getCount()) {
+                rank = i + 1;
+            }
+            if (query.getLimit() >= 0 && rank > query.getLimit()) {
+                otherCount = Math.max(otherCount, counter.getCount());
+                break;
+            }
+            minCount = Math.min(minCount, counter.getCount() - counter.getError());
+            bounds.add(new long[]{counter.getCount() - counter.getError(), counter.getCount()});
+            rows.add(new Row(new ArrayList<>(Arrays.asList(counter.getValue(),
+                    String.valueOf(middle(counter.getCount() - counter.getError(), counter.getCount()))))));
+        }
+        if (rows.isEmpty() || minCount < otherCount) {
+            return null;
+        }
+        ResultSet resultSet = new ResultSet(new ArrayList<>(Arrays.asList(query.getFields().get(0), "freq")), rows);
+        for (int i = 0; i < bounds.size(); i++) {
+            setFrequencyBounds(resultSet, i, 1, bounds.get(i)[0], bounds.get(i)[1]);
+        }
+        return resultSet;
+    }
+
+    /**
+     * Answers an approximate {@link Query.Operation#COUNT} query of the rows with a value of a field, from the sketch of
+     * its frequencies and the summary of its heavy hitters.
+     * <p>
+     * The answer is not given if the estimate is not meaningful (i.e. the highest frequency the value can have is more
+     * than twice the lowest one), which happens for the infrequent values.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet approximateValueFrequency(Query query) {
+        Condition condition = query.getConditions().get(0);
+        CountMinSketch sketch = frequencySketches.get(condition.getField());
+        if (isNull(sketch) || !Condition.VALUE_EQUALS.equals(condition.getOperator())) {
+            return null;
+        }
+        long upper = sketch.estimate(condition.getValue());
+        long lower = Math.max(0, upper - sketch.getErrorBound());
+        SpaceSaving summary = heavyHitters.get(condition.getField());
+        if (!isNull(summary)) {
+            SpaceSaving.Counter counter = summary.get(condition.getValue());
+            if (!isNull(counter)) {
+                upper = Math.min(upper, counter.getCount());
+                lower = Math.max(lower, counter.getCount() - counter.getError());
+            } else if (summary.isExact()) {
+                // All the values are monitored
+                upper = 0;
+            } else {
+                upper = Math.min(upper, summary.getMinCount());
+            }
+        }
+        lower = Math.min(lower, upper);
+        if (upper > 2 * lower) {
+            return null;
+        }
+        ResultSet resultSet = new ResultSet(new ArrayList<>(Collections.singletonList(query.getLabel())),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(
+                        String.valueOf(middle(lower, upper))))))));
+        setFrequencyBounds(resultSet, 0, 0, lower, upper);
+        return resultSet;
+    }
+
+    /**
+     * Gets the estimate of a frequency known to be within some bounds.
+     *
+     * @param lower the lowest frequency
+     * @param upper the highest frequency
+     * @return the middle of the bounds
+     */
+    private static long middle(long lower, long upper) {
+        return (lower + upper) / 2;
+    }
+
+    /**
+     * Sets the bounds of a frequency of a result set, whose cell contains the {@link #middle(long, long)} of the
+     * bounds. The frequency is exact (i.e. it has no estimate) if both bounds are equal.
+     *
+     * @param resultSet the result set
+     * @param row       the row of the frequency
+     * @param column    the column of the frequency
+     * @param lower     the lowest frequency
+     * @param upper     the highest frequency
+     */
+    private static void setFrequencyBounds(ResultSet resultSet, int row, int column, long lower, long upper) {
+        if (lower != upper) {
+            resultSet.setEstimate(row, column, new Estimate(middle(lower, upper), lower, upper));
+        }
+    }
+
+    /**
+     * Gets the value that is compared by the {@code equals} conditions.
+     *
+     * @param value the value
+     * @return the normalized value (see {@link #normalized}), or the upper case value
+     */
+    private String toMatchValue(String value) {
+        return (normalized ? normalize(value) : value.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the result of a query when no row satisfies its conditions.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet emptyResult(Query query) {
+        switch (query.getOperation()) {
+            case COUNT:
+                return count(query.getLabel(), 0);
+            case SELECT:
+                return new ResultSet(new ArrayList<>(query.getFields()), new ArrayList<>());
+            case FREQUENT_VALUE:
+                return new ResultSet(new ArrayList<>(Arrays.asList(query.getFields().get(0), "freq")),
+                        new ArrayList<>());
+            case COMPARE_VALUES:
+                List<String> header = new ArrayList<>();
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < query.getValues().size(); i++) {
+                    header.add("freq" + (i + 1));
+                    values.add("0");
+                }
+                return new ResultSet(header, new ArrayList<>(Collections.singletonList(new Row(values))));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the frequency table of the only field of a query.
+     *
+     * @param query the query
+     * @return the frequency table, or {@code null} if the query has not a single field or it is not categorical
+     */
+    private TreeMap<String, Integer> getValueCounts(Query query) {
+        if (query.getFields().size() != 1) {
+            return null;
+        }
+        return valueCounts.get(query.getFields().get(0));
+    }
+
+    /**
+     * Answers a {@link Query.Operation#SELECT} query of the distinct values of a field.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet selectDistinct(Query query) {
+        TreeMap<String, Integer> counts = getValueCounts(query);
+        if (isNull(counts)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(counts.keySet());
+        int from = Math.min(query.getOffset(), values.size());
+        int to = (query.getLimit() < 0 ? values.size() : Math.min(values.size(), from + query.getLimit()));
+        List<Row> rows = new ArrayList<>();
+        for (String value : values.subList(from, to)) {
+            rows.add(new Row(new ArrayList<>(Collections.singletonList(value))));
+        }
+        return new ResultSet(new ArrayList<>(query.getFields()), rows);
+    }
+
+    /**
+     * Answers a {@link Query.Operation#FREQUENT_VALUE} query, ranking the values of the frequency table as the SQL
+     * statement does.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet frequentValue(Query query) {
+        TreeMap<String, Integer> counts = getValueCounts(query);
+        if (isNull(counts)) {
+            return null;
+        }
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Comparator<Map.Entry<String, Integer>> byFrequency = Map.Entry.comparingByValue();
+        // The sort is stable, so the values with the same frequency stay sorted by value
+        entries.sort("max".equals(query.getFunction()) ? byFrequency.reversed() : byFrequency);
+        List<Row> rows = new ArrayList<>();
+        int rank = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i == 0 || !entries.get(i).getValue().equals(entries.get(i - 1).getValue())) {
+                rank = i + 1;
+            }
+            if (query.getLimit() >= 0 && rank > query.getLimit()) {
+                break;
+            }
+            rows.add(new Row(new ArrayList<>(Arrays.asList(entries.get(i).getKey(),
+                    String.valueOf(entries.get(i).getValue())))));
+        }
+        return new ResultSet(new ArrayList<>(Arrays.asList(query.getFields().get(0), "freq")), rows);
+    }
+
+    /**
+     * Answers a {@link Query.Operation#COMPARE_VALUES} query.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet compareValues(Query query) {
+        List<String> header = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < query.getFields().size(); i++) {
+            int count = count(new Condition(query.getFields().get(i), Condition.VALUE_EQUALS,
+                    query.getValues().get(i)));
+            if (count < 0) {
+                return null;
+            }
+            header.add("freq" + (i + 1));
+            values.add(String.valueOf(count));
+        }
+        return new ResultSet(header, new ArrayList<>(Collections.singletonList(new Row(values))));
+    }
+
+    /**
+     * Creates the result set of the count of a sketch, with its 95% confidence interval if the sketch is not exact.
+     *
+     * @param label  the label of the count column
+     * @param sketch the sketch
+     * @return the result set
+     */
+    private static ResultSet approximateCount(String label, HyperLogLog sketch) {
+        long count = sketch.count();
+        ResultSet resultSet = new ResultSet(new ArrayList<>(Collections.singletonList(label)),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(
+                        String.valueOf(count)))))));
+        if (!sketch.isExact()) {
+            double error = Z * HyperLogLog.RELATIVE_STANDARD_ERROR * count;
+            resultSet.setEstimate(0, 0, new Estimate(count, Math.max(0, (long) Math.floor(count - error)),
+                    (long) Math.ceil(count + error)));
+        }
+        return resultSet;
+    }
+
+    /**
+     * Creates the result set of a count.
+     *
+     * @param label the label of the count column
+     * @param count the count
+     * @return the result set
+     */
+    private static ResultSet count(String label, int count) {
+        return new ResultSet(new ArrayList<>(Collections.singletonList(label)),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(
+                        String.valueOf(count)))))));
+    }
+}
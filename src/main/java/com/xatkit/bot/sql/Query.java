@@ -0,0 +1,305 @@
+package com.xatkit.bot.sql;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A query generated by {@link SqlQueries}.
+ * <p>
+ * The SQL statement is a template: the values given by the user are not written in it, but replaced by {@code ?}
+ * placeholders whose values are stored in {@link #parameters}. This way, queries with the same shape share the same
+ * statement, which can be prepared once and reused (see {@link ConnectionPool#prepare(java.sql.Connection, String)}).
+ * <p>
+ * Apart from the SQL statement, it contains a logical description of the query (the operation, the fields involved,
+ * the conditions...), so it can also be answered without running the SQL statement in a database.
+ *
+ * @see QueryAnswerer
+ */
+@Getter
+public class Query {
+
+    /**
+     * The operations a {@link Query} can perform.
+     */
+    public enum Operation {
+        /**
+         * Select {@link #fields} (optionally distinct), sorted by {@link #orderField}, skipping the first
+         * {@link #offset} rows and limited to {@link #limit} rows.
+         */
+        SELECT,
+        /**
+         * Count the rows (or the distinct values of {@link #fields}, if {@link #distinct}), in a column named
+         * {@link #label}.
+         */
+        COUNT,
+        /**
+         * Get the most (if {@link #function} is {@code max}) or least (if {@link #function} is {@code min}) frequent
+         * values of the first field of {@link #fields}, and their frequency: the values whose frequency rank is at most
+         * {@link #limit} (so the ties are also selected), sorted by frequency.
+         */
+        FREQUENT_VALUE,
+        /**
+         * Count the rows where each field of {@link #fields} is equal to its corresponding value of {@link #values}, in
+         * a single row with a column for each value.
+         */
+        COMPARE_VALUES,
+        /**
+         * Get the columns of the table (without rows).
+         */
+        FIELD_COUNT,
+        /**
+         * Apply the aggregate {@link #function} ({@code avg} or {@code sum}) to the first field of {@link #fields}.
+         */
+        AGGREGATE
+    }
+
+    /**
+     * The SQL statement of the query, with a {@code ?} placeholder for each parameter.
+     */
+    private final String sql;
+
+    /**
+     * The values of the parameters of {@link #sql}, in the same order as their placeholders.
+     */
+    private List<String> parameters = Collections.emptyList();
+
+    /**
+     * The operation of the query.
+     */
+    private final Operation operation;
+
+    /**
+     * The fields involved in the {@link #operation}.
+     */
+    private List<String> fields = Collections.emptyList();
+
+    /**
+     * The values involved in the {@link #operation}.
+     */
+    private List<String> values = Collections.emptyList();
+
+    /**
+     * The conditions all the selected rows must satisfy.
+     */
+    private List<Condition> conditions = Collections.emptyList();
+
+    /**
+     * Whether the selected rows must be distinct or not.
+     */
+    private boolean distinct = false;
+
+    /**
+     * The function applied by the {@link #operation}.
+     */
+    private String function;
+
+    /**
+     * The name of the resulting column, for operations that generate a single column.
+     */
+    private String label;
+
+    /**
+     * The field used to sort the selected rows.
+     */
+    private String orderField;
+
+    /**
+     * The data type of {@link #orderField}.
+     */
+    private String orderDataType;
+
+    /**
+     * Whether the rows are sorted in ascending (true) or descending (false) order.
+     */
+    private boolean ascending = true;
+
+    /**
+     * The maximum number of rows to select, or {@code -1} if there is no limit.
+     */
+    private int limit = -1;
+
+    /**
+     * The number of rows to skip before the selected rows.
+     */
+    private int offset = 0;
+
+    /**
+     * Whether the result may be approximate or not. An approximate count is written with a {@code ~} prefix (e.g.
+     * {@code ~1250}) when it is an estimate.
+     *
+     * @see MetadataAnswerer
+     */
+    private boolean approximate = false;
+
+    /**
+     * Instantiates a new {@link Query}.
+     *
+     * @param sql       the SQL statement
+     * @param operation the operation
+     */
+    public Query(String sql, Operation operation) {
+        this.sql = sql;
+        this.operation = operation;
+    }
+
+    /**
+     * Gets a query that counts the rows of the result of this query (only for {@link Operation#SELECT} queries without
+     * a limit).
+     *
+     * @return the count query
+     */
+    public Query count() {
+        return new Query("SELECT COUNT(*) FROM (" + sql + ") t", Operation.COUNT)
+                .parameters(parameters)
+                .fields(fields)
+                .conditions(conditions)
+                .distinct(distinct)
+                .label("count");
+    }
+
+    /**
+     * Gets the exact version of this query, whose result must not be an estimate.
+     *
+     * @return the exact query (this query if it is not approximate)
+     * @see #isApproximate()
+     */
+    public Query exact() {
+        return (approximate ? copy(sql).approximate(false) : this);
+    }
+
+    /**
+     * Gets a key that identifies the query, made up of its SQL statement and the values of its parameters.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        // The approximate result must not be returned for the exact query, or vice versa
+        String key = (approximate ? "~" + sql : sql);
+        if (parameters.isEmpty()) {
+            return key;
+        }
+        return key + '\u0000' + String.join("\u0000", parameters);
+    }
+
+    /**
+     * Gets the SQL statement of the query with the parameters written as (escaped) text literals.
+     * <p>
+     * It is used to run the query in the databases that do not support binding parameters (see
+     * {@link QueryBackend#supportsParameters()}).
+     *
+     * @return the SQL statement with the parameter values
+     */
+    public String getInlineSql() {
+        if (parameters.isEmpty()) {
+            return sql;
+        }
+        StringBuilder inlineSql = new StringBuilder();
+        int parameter = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                // Inside a quoted literal or identifier (an escaped quote just closes and opens it again)
+                if (c == quote) {
+                    quote = 0;
+                }
+                inlineSql.append(c);
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                inlineSql.append(c);
+            } else if (c == '?' && parameter < parameters.size()) {
+                inlineSql.append('\'').append(parameters.get(parameter++).replace("'", "''")).append('\'');
+            } else {
+                inlineSql.append(c);
+            }
+        }
+        return inlineSql.toString();
+    }
+
+    /**
+     * Copies this query with another SQL statement.
+     *
+     * @param sql the SQL statement of the copy
+     * @return the copy
+     */
+    private Query copy(String sql) {
+        Query copy = new Query(sql, operation)
+                .parameters(parameters)
+                .fields(fields)
+                .values(values)
+                .conditions(conditions)
+                .distinct(distinct)
+                .function(function)
+                .label(label)
+                .orderBy(orderField, orderDataType, ascending)
+                .limit(limit)
+                .approximate(approximate);
+        copy.offset = offset;
+        return copy;
+    }
+
+    Query parameters(List<String> parameters) {
+        this.parameters = new ArrayList<>(parameters);
+        return this;
+    }
+
+    Query fields(List<String> fields) {
+        this.fields = new ArrayList<>(fields);
+        return this;
+    }
+
+    Query values(List<String> values) {
+        this.values = new ArrayList<>(values);
+        return this;
+    }
+
+    Query conditions(List<Condition> conditions) {
+        this.conditions = new ArrayList<>(conditions);
+        return this;
+    }
+
+    Query distinct(boolean distinct) {
+        this.distinct = distinct;
+        return this;
+    }
+
+    Query function(String function) {
+        this.function = function;
+        return this;
+    }
+
+    Query label(String label) {
+        this.label = label;
+        return this;
+    }
+
+    Query orderBy(String orderField, String orderDataType, boolean ascending) {
+        this.orderField = orderField;
+        this.orderDataType = orderDataType;
+        this.ascending = ascending;
+        return this;
+    }
+
+    Query limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    Query offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    Query approximate(boolean approximate) {
+        this.approximate = approximate;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return getInlineSql();
+    }
+}
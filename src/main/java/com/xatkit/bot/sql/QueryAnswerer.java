@@ -0,0 +1,22 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+
+/**
+ * A component that can answer some {@link Query}s without running their SQL statement in the {@link QueryBackend}.
+ * <p>
+ * The {@link SqlEngine} asks its answerers before running a query in the database.
+ */
+public interface QueryAnswerer {
+
+    /**
+     * Answers a query.
+     * <p>
+     * The header of the returned {@link ResultSet} must contain the column labels the SQL statement of the query
+     * would generate (the {@link SqlEngine} replaces them by their readable names).
+     *
+     * @param query the query
+     * @return the result set of the query, or {@code null} if the query cannot be answered
+     */
+    ResultSet answer(Query query);
+}
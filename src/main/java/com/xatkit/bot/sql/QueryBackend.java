@@ -0,0 +1,151 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.ast.SqlPrinter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * A database where the chatbot data is stored and where the SQL queries are run.
+ * <p>
+ * Apart from providing the connections to the database, a backend defines the SQL dialect details that differ from
+ * one database to another (how the table and the columns are referenced, how values are cast, etc.), so
+ * {@link SqlQueries} can generate queries for any backend (see {@link #newPrinter()}).
+ *
+ * @see DrillBackend
+ * @see H2Backend
+ */
+public interface QueryBackend {
+
+    /**
+     * Gets the url of the database.
+     *
+     * @return the url
+     */
+    String getUrl();
+
+    /**
+     * Creates a new connection to the database.
+     *
+     * @return the connection
+     * @throws SQLException if the connection could not be established
+     */
+    Connection newConnection() throws SQLException;
+
+    /**
+     * Gets the table to be used in the FROM clause of the SQL queries.
+     *
+     * @return the table
+     */
+    String table();
+
+    /**
+     * Gets the table to be used in the FROM clause of the SQL queries that only need to read some partitions of the
+     * data (see {@link #getPartitions()}). By default, the whole table is read.
+     *
+     * @param partitions the partitions to read
+     * @return the table
+     */
+    default String table(List<Partition> partitions) {
+        return table();
+    }
+
+    /**
+     * Gets the partitions of the data the backend can read separately, so the queries that filter a partition field
+     * only read the partitions matching the filter (see {@link #table(List)}).
+     *
+     * @return the partitions, or {@code null} if the backend always reads the whole table
+     */
+    default DataPartitions getPartitions() {
+        return null;
+    }
+
+    /**
+     * Gets the reference to the column of a field.
+     *
+     * @param field the field (i.e. the original name of the column)
+     * @return the column reference
+     */
+    String column(String field);
+
+    /**
+     * Quotes a column alias.
+     *
+     * @param alias the alias
+     * @return the quoted alias
+     */
+    String alias(String alias);
+
+    /**
+     * Gets the condition that checks that a column is not empty.
+     *
+     * @param column the column
+     * @return the condition
+     */
+    String notEmpty(String column);
+
+    /**
+     * Gets the expression that makes a text comparison case insensitive.
+     *
+     * @param expression the expression
+     * @return the case insensitive expression
+     */
+    String upper(String expression);
+
+    /**
+     * Gets the expression of a numeric column as a decimal value.
+     *
+     * @param column the column
+     * @return the decimal expression
+     */
+    String toDecimal(String column);
+
+    /**
+     * Gets the expression of a query parameter (i.e. a {@code ?} placeholder, whose value is a text) as a decimal
+     * value.
+     *
+     * @return the decimal expression
+     */
+    String decimalParameter();
+
+    /**
+     * Gets the expression of a datetime column as a timestamp.
+     *
+     * @param column the column
+     * @return the timestamp expression
+     */
+    String toDateTime(String column);
+
+    /**
+     * Gets the expression of a query parameter (i.e. a {@code ?} placeholder, whose value is a text) as a timestamp.
+     *
+     * @return the timestamp expression
+     */
+    String dateTimeParameter();
+
+    /**
+     * Checks whether the database driver supports binding the parameters of prepared statements. If not, the
+     * parameters are written in the SQL statements as literals (see {@link Query#getInlineSql()}).
+     *
+     * @return {@code true} if the parameters can be bound, {@code false} otherwise
+     */
+    boolean supportsParameters();
+
+    /**
+     * Creates a printer that writes the statements generated by {@link SqlQueries} in the SQL dialect of the backend.
+     * By default, the printer relies on the dialect methods of this interface, but a backend can return its own printer
+     * to change how any part of a statement is written.
+     *
+     * @return the printer
+     */
+    default SqlPrinter newPrinter() {
+        return new SqlPrinter(this);
+    }
+
+    /**
+     * Releases the resources held by the backend.
+     */
+    void close();
+}
@@ -0,0 +1,277 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A cache of query results, shared by all the chatbot sessions.
+ * <p>
+ * The results are stored by the SQL statement of their query, which {@link SqlQueries} generates in a canonical form
+ * (e.g. the conditions of the WHERE clause are sorted, so the same question asked with the filters added in a
+ * different order hits the same entry), and by the version of the dataset they were computed from. The cache is
+ * bounded by the (estimated) number of bytes of the stored results: when it is full, the least recently used results
+ * are evicted. Results older than {@link #ttl} milliseconds are not returned.
+ * <p>
+ * The version of the dataset is the last modification time and length of each of its files (the {@code .csv} file or,
+ * if the data is split in partitions, the manifest and all the partition files). When any file changes (e.g. a
+ * partition is edited in place), all the stored results are discarded.
+ */
+public class QueryCache {
+
+    /**
+     * The minimum number of milliseconds between two checks of the dataset version.
+     */
+    private static final long VERSION_CHECK_INTERVAL = 1000;
+
+    /**
+     * The maximum number of bytes of the stored results.
+     */
+    private final long maxBytes;
+
+    /**
+     * The maximum number of milliseconds a result is stored, or {@code 0} if the results never expire.
+     */
+    private final long ttl;
+
+    /**
+     * The files the results are computed from. The files that are not in the file system (e.g. they are packed in a
+     * jar, so they cannot change) are not included.
+     */
+    private final List<File> dataFiles;
+
+    /**
+     * The stored results, in access order (the first one is the least recently used).
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of bytes of the stored results.
+     */
+    private long bytes = 0;
+
+    /**
+     * The version of the dataset the stored results were computed from.
+     */
+    private String dataVersion;
+
+    /**
+     * The last time the dataset version was checked.
+     */
+    private long lastVersionCheck = 0;
+
+    /**
+     * The number of lookups that found a result.
+     */
+    private long hits = 0;
+
+    /**
+     * The number of lookups that did not find a result.
+     */
+    private long misses = 0;
+
+    /**
+     * The number of results evicted because the cache was full.
+     */
+    private long evictions = 0;
+
+    /**
+     * A stored result.
+     */
+    private static class Entry {
+
+        private final ResultSet resultSet;
+
+        private final long bytes;
+
+        private final long creationTime;
+
+        Entry(ResultSet resultSet, long bytes, long creationTime) {
+            this.resultSet = resultSet;
+            this.bytes = bytes;
+            this.creationTime = creationTime;
+        }
+    }
+
+    /**
+     * Instantiates a new {@link QueryCache} of the results computed from a single file.
+     *
+     * @param inputDoc the name of the {@code .csv} file the results are computed from
+     * @param maxBytes the maximum number of bytes of the stored results
+     * @param ttl      the maximum number of milliseconds a result is stored, or {@code 0} if the results never expire
+     */
+    public QueryCache(String inputDoc, long maxBytes, long ttl) {
+        this(Collections.singletonList(inputDoc), maxBytes, ttl);
+    }
+
+    /**
+     * Instantiates a new {@link QueryCache}.
+     *
+     * @param inputDocs the names of the files the results are computed from (the {@code .csv} file, or the manifest
+     *                  of the partitions, see {@link DataPartitions#PARTITIONS_JSON_FILE}, and the partition files)
+     * @param maxBytes  the maximum number of bytes of the stored results
+     * @param ttl       the maximum number of milliseconds a result is stored, or {@code 0} if the results never expire
+     */
+    public QueryCache(List<String> inputDocs, long maxBytes, long ttl) {
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.dataFiles = new ArrayList<>();
+        for (String inputDoc : inputDocs) {
+            File dataFile = findDataFile(inputDoc);
+            if (!isNull(dataFile)) {
+                dataFiles.add(dataFile);
+            }
+        }
+        this.dataVersion = readDataVersion();
+    }
+
+    /**
+     * Gets the result of a query, if it is stored in the cache.
+     *
+     * @param query the query
+     * @return the result set, or {@code null} if it is not stored (or it expired)
+     */
+    public synchronized ResultSet get(Query query) {
+        checkDataVersion();
+        String key = query.getKey();
+        Entry entry = entries.get(key);
+        if (!isNull(entry) && ttl > 0 && System.currentTimeMillis() - entry.creationTime > ttl) {
+            remove(key);
+            entry = null;
+        }
+        if (isNull(entry)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.resultSet;
+    }
+
+    /**
+     * Stores the result of a query. Results bigger than the cache itself are not stored.
+     *
+     * @param query     the query
+     * @param resultSet the result set of the query
+     */
+    public synchronized void put(Query query, ResultSet resultSet) {
+        long entryBytes = estimateBytes(resultSet);
+        if (entryBytes > maxBytes) {
+            return;
+        }
+        String key = query.getKey();
+        remove(key);
+        entries.put(key, new Entry(resultSet, entryBytes, System.currentTimeMillis()));
+        bytes += entryBytes;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes all the stored results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets the cache statistics (hits, misses, evictions, size).
+     *
+     * @return the statistics
+     */
+    public synchronized String getStats() {
+        long lookups = hits + misses;
+        double hitRatio = (lookups == 0 ? 0 : (double) hits / lookups);
+        return "hits=" + hits + ", misses=" + misses + ", hitRatio=" + String.format("%.2f", hitRatio)
+                + ", evictions=" + evictions + ", entries=" + entries.size() + ", bytes=" + bytes + "/" + maxBytes;
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (!isNull(entry)) {
+            bytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * Discards all the stored results if the dataset changed since they were computed.
+     */
+    private void checkDataVersion() {
+        long now = System.currentTimeMillis();
+        if (dataFiles.isEmpty() || now - lastVersionCheck < VERSION_CHECK_INTERVAL) {
+            return;
+        }
+        lastVersionCheck = now;
+        String currentVersion = readDataVersion();
+        if (!currentVersion.equals(dataVersion)) {
+            Log.info("The dataset changed, discarding {0} cached results", entries.size());
+            dataVersion = currentVersion;
+            clear();
+        }
+    }
+
+    private String readDataVersion() {
+        StringBuilder version = new StringBuilder();
+        for (File dataFile : dataFiles) {
+            version.append(dataFile.lastModified()).append(':').append(dataFile.length()).append(';');
+        }
+        return version.toString();
+    }
+
+    private static File findDataFile(String inputDoc) {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(inputDoc);
+        if (isNull(url) || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Estimates the number of bytes a result set takes in memory.
+     *
+     * @param resultSet the result set
+     * @return the estimated number of bytes
+     */
+    static long estimateBytes(ResultSet resultSet) {
+        // Object headers and references of the result set, its lists and the cache entry
+        long estimation = 128;
+        for (String label : resultSet.getHeader()) {
+            estimation += estimateBytes(label);
+        }
+        if (resultSet instanceof ColumnarResultSet) {
+            return estimation + ((ColumnarResultSet) resultSet).getSizeInBytes();
+        }
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            // The Row object and its list
+            estimation += 64;
+            for (String value : resultSet.getRow(i).getValues()) {
+                estimation += estimateBytes(value);
+            }
+        }
+        return estimation;
+    }
+
+    private static long estimateBytes(String value) {
+        // A reference plus, for non-null values, the String object and its char array
+        return isNull(value) ? 8 : 8 + 40 + 2L * value.length();
+    }
+}
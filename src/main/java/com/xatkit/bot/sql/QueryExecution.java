@@ -0,0 +1,154 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+import fr.inria.atlanmod.commons.log.Log;
+import lombok.Getter;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The asynchronous execution of a {@link Query}, submitted with {@link SqlEngine#submitSqlQuery}.
+ * <p>
+ * The caller waits for the result with a deadline (see {@link #get(long)}) and, if it expires, cancels the execution
+ * (see {@link #cancel()}): the {@link Statement} running in the database is cancelled, so its connection is released
+ * as soon as possible, and the result that may arrive later is closed instead of being returned.
+ */
+public class QueryExecution {
+
+    /**
+     * The query being executed.
+     */
+    @Getter
+    private final Query query;
+
+    /**
+     * The result of the query.
+     */
+    private final CompletableFuture<ResultSet> result = new CompletableFuture<>();
+
+    /**
+     * The statement running the query in the database, or {@code null} if the query is not running in the database.
+     */
+    private Statement statement;
+
+    /**
+     * Whether the execution has been cancelled or not.
+     */
+    private boolean cancelled = false;
+
+    /**
+     * Instantiates a new {@link QueryExecution}.
+     *
+     * @param query the query to execute
+     */
+    QueryExecution(Query query) {
+        this.query = query;
+    }
+
+    /**
+     * Waits for the result of the query.
+     *
+     * @param timeout the maximum number of milliseconds to wait (0 or less to wait without limit)
+     * @return the result set of the query (an empty result set if the query failed or the execution was cancelled)
+     * @throws TimeoutException if the result is not available before the timeout
+     */
+    public ResultSet get(long timeout) throws TimeoutException {
+        try {
+            if (timeout > 0) {
+                return result.get(timeout, TimeUnit.MILLISECONDS);
+            }
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+        } catch (ExecutionException | CancellationException e) {
+            Log.error("An error occurred while running the query {0}, see the attached exception", query);
+            Log.error(e.getMessage());
+        }
+        return new ResultSet();
+    }
+
+    /**
+     * Cancels the execution. If the query is running in the database, its statement is cancelled.
+     */
+    public void cancel() {
+        Statement runningStatement;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            runningStatement = statement;
+        }
+        result.cancel(false);
+        if (!isNull(runningStatement)) {
+            try {
+                runningStatement.cancel();
+                Log.info("Cancelled the SQL query {0}", query);
+            } catch (SQLException e) {
+                Log.error("An error occurred while cancelling the SQL query {0}, see the attached exception", query);
+                Log.error(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the execution has been cancelled.
+     *
+     * @return {@code true} if the execution has been cancelled, {@code false} otherwise
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers the statement that is about to run the query in the database, so it can be cancelled.
+     *
+     * @param statement the statement
+     * @return {@code false} if the execution has already been cancelled (and the statement must not be run),
+     * {@code true} otherwise
+     */
+    synchronized boolean started(Statement statement) {
+        if (cancelled) {
+            return false;
+        }
+        this.statement = statement;
+        return true;
+    }
+
+    /**
+     * Unregisters the statement that was running the query in the database.
+     */
+    synchronized void finished() {
+        statement = null;
+    }
+
+    /**
+     * Sets the result of the query. If the execution has been cancelled, the result is closed (releasing the
+     * resources it may hold, e.g. an open cursor).
+     *
+     * @param resultSet the result set of the query
+     */
+    void complete(ResultSet resultSet) {
+        if (!result.complete(resultSet)) {
+            resultSet.close();
+        }
+    }
+
+    /**
+     * Sets the exception thrown while running the query.
+     *
+     * @param e the exception
+     */
+    void fail(Throwable e) {
+        result.completeExceptionally(e);
+    }
+}
@@ -0,0 +1,596 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.sql.columnar.Bitmaps;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A typed column of a {@link ColumnarResultSet}.
+ * <p>
+ * The values are stored in primitive arrays according to the column type (see {@link Type}), and the null values
+ * are stored in a bitmap (see {@link Bitmaps}). Columns are filled row by row from a JDBC result set (see
+ * {@link #append(ResultSet, int)}), and their type is chosen from the JDBC metadata (see {@link #of(int)}).
+ */
+public abstract class ResultColumn {
+
+    /**
+     * The type of a {@link ResultColumn}.
+     */
+    public enum Type {
+        /**
+         * Integer numbers, stored as {@code long} values.
+         */
+        LONG,
+        /**
+         * Floating-point numbers, stored as {@code double} values.
+         */
+        DOUBLE,
+        /**
+         * Exact decimal numbers, stored as unscaled {@code long} values and their scale.
+         */
+        DECIMAL,
+        /**
+         * Texts, stored as codes of a dictionary of distinct values.
+         */
+        STRING,
+        /**
+         * Datetimes, stored as epoch milliseconds.
+         */
+        DATETIME
+    }
+
+    /**
+     * The initial capacity (in rows) of a column.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The number of values of the column.
+     */
+    protected int size = 0;
+
+    /**
+     * The bitmap of the null values of the column.
+     */
+    protected long[] nulls = new long[Bitmaps.numWords(INITIAL_CAPACITY)];
+
+    /**
+     * Creates an empty column for a JDBC type.
+     *
+     * @param sqlType the JDBC type (see {@link Types})
+     * @return the column
+     */
+    public static ResultColumn of(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return new LongColumn();
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return new DoubleColumn();
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new DecimalColumn();
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return new DatetimeColumn(true);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                return new DatetimeColumn(false);
+            default:
+                return new StringColumn();
+        }
+    }
+
+    /**
+     * Gets the type of the column.
+     *
+     * @return the type
+     */
+    public abstract Type getType();
+
+    /**
+     * Gets the number of values of the column.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a value of the column is null.
+     *
+     * @param row the row of the value
+     * @return {@code true} if the value is null, {@code false} otherwise
+     */
+    public boolean isNull(int row) {
+        return Bitmaps.get(nulls, row);
+    }
+
+    /**
+     * Gets a value of the column as a {@code String}.
+     *
+     * @param row the row of the value
+     * @return the value, or {@code null} if it is null
+     */
+    public abstract String getString(int row);
+
+    /**
+     * Gets a value of the column as a {@code long}.
+     *
+     * @param row the row of the value
+     * @return the value (0 if it is null)
+     */
+    public long getLong(int row) {
+        return (long) getDouble(row);
+    }
+
+    /**
+     * Gets a value of the column as a {@code double}.
+     *
+     * @param row the row of the value
+     * @return the value (0 if it is null)
+     * @throws UnsupportedOperationException if the column is not numeric
+     */
+    public double getDouble(int row) {
+        throw new UnsupportedOperationException("The column type " + getType() + " is not numeric");
+    }
+
+    /**
+     * Gets a value of the column as a {@link BigDecimal}, which is exact for the {@link Type#DECIMAL} columns.
+     *
+     * @param row the row of the value
+     * @return the value, or {@code null} if it is null
+     * @throws UnsupportedOperationException if the column is not numeric
+     */
+    public BigDecimal getBigDecimal(int row) {
+        return isNull(row) ? null : BigDecimal.valueOf(getDouble(row));
+    }
+
+    /**
+     * Estimates the number of bytes the column takes in memory.
+     *
+     * @return the estimated number of bytes
+     */
+    public abstract long getSizeInBytes();
+
+    /**
+     * Appends the value of the current row of a JDBC result set to the column.
+     *
+     * @param resultSet the JDBC result set
+     * @param index     the index of the column in the JDBC result set (starting at 1)
+     * @throws SQLException if the value cannot be read
+     */
+    abstract void append(ResultSet resultSet, int index) throws SQLException;
+
+    /**
+     * Shrinks the arrays of the column to its {@link #size}, once all the values have been appended.
+     */
+    abstract void trim();
+
+    /**
+     * Makes room for one more value and marks it as null if necessary.
+     *
+     * @param isNull whether the new value is null
+     * @return the row of the new value
+     */
+    protected int nextRow(boolean isNull) {
+        if (Bitmaps.numWords(size + 1) > nulls.length) {
+            nulls = Arrays.copyOf(nulls, nulls.length * 2);
+        }
+        if (isNull) {
+            Bitmaps.set(nulls, size);
+        }
+        return size++;
+    }
+
+    /**
+     * Checks whether an array of the column has no room for the next value.
+     *
+     * @param length the length of the array
+     * @return {@code true} if the array must grow, {@code false} otherwise
+     */
+    protected boolean isFull(int length) {
+        return size == length;
+    }
+
+    /**
+     * A column of integer numbers.
+     */
+    public static final class LongColumn extends ResultColumn {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        @Override
+        public Type getType() {
+            return Type.LONG;
+        }
+
+        @Override
+        public String getString(int row) {
+            return isNull(row) ? null : String.valueOf(values[row]);
+        }
+
+        @Override
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public BigDecimal getBigDecimal(int row) {
+            return isNull(row) ? null : BigDecimal.valueOf(values[row]);
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 8L * (values.length + nulls.length);
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index) throws SQLException {
+            long value = resultSet.getLong(index);
+            if (isFull(values.length)) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[nextRow(resultSet.wasNull())] = value;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A column of floating-point numbers.
+     * <p>
+     * Integral values are printed without decimals, and the rest without trailing zeros.
+     */
+    public static final class DoubleColumn extends ResultColumn {
+
+        /**
+         * The greatest absolute value that is printed as an integer.
+         */
+        private static final double MAX_INTEGRAL = 1e15;
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        @Override
+        public Type getType() {
+            return Type.DOUBLE;
+        }
+
+        @Override
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            double value = values[row];
+            if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGRAL) {
+                return String.valueOf((long) value);
+            }
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 8L * (values.length + nulls.length);
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index) throws SQLException {
+            double value = resultSet.getDouble(index);
+            if (isFull(values.length)) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[nextRow(resultSet.wasNull())] = value;
+        }
+
+        @Override
+        void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A column of exact decimal numbers (e.g. the {@code DECIMAL} columns of the database, or the sums and averages
+     * over them), whose values may not fit in a {@code double} (e.g. integers greater than 2^53).
+     * <p>
+     * Each value is stored as its unscaled {@code long} value and its scale (i.e. the value is
+     * {@code unscaled * 10^-scale}), without trailing zeros. The few values whose unscaled value does not fit in a
+     * {@code long} are stored as {@link BigDecimal}s. Values are printed like in a {@link DoubleColumn}: integral
+     * values without decimals, and the rest without trailing zeros.
+     */
+    public static final class DecimalColumn extends ResultColumn {
+
+        private long[] unscaledValues = new long[INITIAL_CAPACITY];
+
+        private int[] scales = new int[INITIAL_CAPACITY];
+
+        /**
+         * The values whose unscaled value does not fit in a {@code long}, by row, or {@code null} if there is none.
+         */
+        private Map<Integer, BigDecimal> bigValues;
+
+        @Override
+        public Type getType() {
+            return Type.DECIMAL;
+        }
+
+        @Override
+        public String getString(int row) {
+            BigDecimal value = getBigDecimal(row);
+            return Objects.isNull(value) ? null : value.toPlainString();
+        }
+
+        @Override
+        public long getLong(int row) {
+            return isNull(row) ? 0 : getBigDecimal(row).longValue();
+        }
+
+        @Override
+        public double getDouble(int row) {
+            return isNull(row) ? 0 : getBigDecimal(row).doubleValue();
+        }
+
+        @Override
+        public BigDecimal getBigDecimal(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            if (!Objects.isNull(bigValues)) {
+                BigDecimal bigValue = bigValues.get(row);
+                if (!Objects.isNull(bigValue)) {
+                    return bigValue;
+                }
+            }
+            return BigDecimal.valueOf(unscaledValues[row], scales[row]);
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            long bytes = 8L * (unscaledValues.length + nulls.length) + 4L * scales.length;
+            if (!Objects.isNull(bigValues)) {
+                for (BigDecimal bigValue : bigValues.values()) {
+                    // The entry of the map, the BigDecimal object and its BigInteger
+                    bytes += 64 + 40 + 4L * (bigValue.unscaledValue().bitLength() / 32 + 1);
+                }
+            }
+            return bytes;
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index) throws SQLException {
+            if (isFull(unscaledValues.length)) {
+                unscaledValues = Arrays.copyOf(unscaledValues, unscaledValues.length * 2);
+                scales = Arrays.copyOf(scales, scales.length * 2);
+            }
+            BigDecimal value = resultSet.getBigDecimal(index);
+            int row = nextRow(Objects.isNull(value));
+            if (Objects.isNull(value)) {
+                return;
+            }
+            value = value.stripTrailingZeros();
+            if (value.scale() < 0) {
+                // Integral values are printed without exponent
+                value = value.setScale(0);
+            }
+            if (value.unscaledValue().bitLength() < Long.SIZE) {
+                unscaledValues[row] = value.unscaledValue().longValue();
+                scales[row] = value.scale();
+            } else {
+                if (Objects.isNull(bigValues)) {
+                    bigValues = new HashMap<>();
+                }
+                bigValues.put(row, value);
+            }
+        }
+
+        @Override
+        void trim() {
+            unscaledValues = Arrays.copyOf(unscaledValues, size);
+            scales = Arrays.copyOf(scales, size);
+        }
+    }
+
+    /**
+     * A column of texts.
+     * <p>
+     * Each distinct value is stored once in a dictionary, and each row stores the code (i.e. the index in the
+     * dictionary) of its value.
+     */
+    public static final class StringColumn extends ResultColumn {
+
+        private int[] codes = new int[INITIAL_CAPACITY];
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        /**
+         * The code of each dictionary value, only used while the column is being filled.
+         */
+        private Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+        @Override
+        public Type getType() {
+            return Type.STRING;
+        }
+
+        @Override
+        public String getString(int row) {
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+
+        /**
+         * Gets the dictionary code of a value of the column. Equal values have equal codes.
+         *
+         * @param row the row of the value
+         * @return the code, or {@code -1} if the value is null
+         */
+        public int getCode(int row) {
+            return isNull(row) ? -1 : codes[row];
+        }
+
+        /**
+         * Gets the number of distinct (non-null) values of the column.
+         *
+         * @return the dictionary size
+         */
+        public int getDictionarySize() {
+            return dictionary.size();
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            long bytes = 4L * codes.length + 8L * nulls.length;
+            for (String value : dictionary) {
+                bytes += 8 + 40 + 2L * value.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index) throws SQLException {
+            String value = resultSet.getString(index);
+            if (isFull(codes.length)) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            if (Objects.isNull(value)) {
+                nextRow(true);
+                return;
+            }
+            Integer code = dictionaryCodes.get(value);
+            if (Objects.isNull(code)) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+            }
+            codes[nextRow(false)] = code;
+        }
+
+        @Override
+        void trim() {
+            codes = Arrays.copyOf(codes, size);
+            dictionaryCodes = null;
+        }
+    }
+
+    /**
+     * A column of datetimes.
+     * <p>
+     * Values are printed in ISO format (e.g. {@code 1995-08-24T12:00:00+01:00}). Datetimes with time zone keep their
+     * original offset, and the rest are printed in the system default time zone.
+     */
+    public static final class DatetimeColumn extends ResultColumn {
+
+        private long[] epochMillis = new long[INITIAL_CAPACITY];
+
+        /**
+         * The offset (in seconds) of each value, or {@code null} if the datetimes have no time zone.
+         */
+        private int[] offsets;
+
+        DatetimeColumn(boolean withTimeZone) {
+            offsets = (withTimeZone ? new int[INITIAL_CAPACITY] : null);
+        }
+
+        @Override
+        public Type getType() {
+            return Type.DATETIME;
+        }
+
+        @Override
+        public String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            Instant instant = Instant.ofEpochMilli(epochMillis[row]);
+            if (Objects.isNull(offsets)) {
+                return LocalDateTime.ofInstant(instant, ZoneId.systemDefault())
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            }
+            return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(offsets[row]))
+                    .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        }
+
+        /**
+         * Gets a value of the column as epoch milliseconds.
+         *
+         * @param row the row of the value
+         * @return the epoch milliseconds (0 if the value is null)
+         */
+        public long getEpochMillis(int row) {
+            return epochMillis[row];
+        }
+
+        @Override
+        public long getLong(int row) {
+            return epochMillis[row];
+        }
+
+        @Override
+        public long getSizeInBytes() {
+            return 8L * (epochMillis.length + nulls.length) + (Objects.isNull(offsets) ? 0 : 4L * offsets.length);
+        }
+
+        @Override
+        void append(ResultSet resultSet, int index) throws SQLException {
+            if (isFull(epochMillis.length)) {
+                epochMillis = Arrays.copyOf(epochMillis, epochMillis.length * 2);
+            }
+            if (Objects.isNull(offsets)) {
+                Timestamp timestamp = resultSet.getTimestamp(index);
+                int row = nextRow(Objects.isNull(timestamp));
+                if (!Objects.isNull(timestamp)) {
+                    epochMillis[row] = timestamp.getTime();
+                }
+            } else {
+                if (isFull(offsets.length)) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                OffsetDateTime datetime = resultSet.getObject(index, OffsetDateTime.class);
+                int row = nextRow(Objects.isNull(datetime));
+                if (!Objects.isNull(datetime)) {
+                    epochMillis[row] = datetime.toInstant().toEpochMilli();
+                    offsets[row] = datetime.getOffset().getTotalSeconds();
+                }
+            }
+        }
+
+        @Override
+        void trim() {
+            epochMillis = Arrays.copyOf(epochMillis, size);
+            if (!Objects.isNull(offsets)) {
+                offsets = Arrays.copyOf(offsets, size);
+            }
+        }
+    }
+}
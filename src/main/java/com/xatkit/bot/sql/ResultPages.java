@@ -0,0 +1,146 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.sql.ast.Expression;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * The pages of the result of a selection query (see {@link SqlQueries#selectAllPages(int)}), so a big result can be
+ * shown page by page without retrieving all its rows.
+ * <p>
+ * The pages use keyset pagination: when a page is shown (see {@link #pageShown(int, ResultSet)}), its last row is
+ * kept as the anchor of the next page, whose query seeks to the anchor instead of skipping all the previous rows. This
+ * way, the cost of a page does not grow with its position in the result. The rows are sorted by all the fields (the
+ * data has no key), so the rows that are equal in all the fields are indistinguishable: the anchor also counts how
+ * many copies of its row were already shown, and only those are skipped.
+ * <p>
+ * The pages are shown one after another (from the first one), so the anchor of a page is known when the previous page
+ * was shown. The pages without anchor (e.g. the last page, when going back from the first one) are retrieved by
+ * skipping all the previous rows.
+ */
+public class ResultPages {
+
+    /**
+     * The generator of the page queries.
+     */
+    private final SqlQueries sqlQueries;
+
+    /**
+     * The selected fields.
+     */
+    private final List<String> fields;
+
+    /**
+     * The filters of the result, as SQL conditions.
+     */
+    private final List<Expression> filters;
+
+    /**
+     * The filters of the result, as {@link Condition}s.
+     */
+    private final List<Condition> conditions;
+
+    /**
+     * The maximum number of rows of each page.
+     */
+    private final int pageSize;
+
+    /**
+     * The anchors of the pages, by the number of rows before the page.
+     */
+    private final Map<Integer, Anchor> anchors = new HashMap<>();
+
+    /**
+     * Instantiates a new {@link ResultPages}.
+     *
+     * @param sqlQueries the generator of the page queries
+     * @param fields     the selected fields
+     * @param filters    the filters of the result, as SQL conditions
+     * @param conditions the filters of the result, as {@link Condition}s
+     * @param pageSize   the maximum number of rows of each page
+     */
+    ResultPages(SqlQueries sqlQueries, List<String> fields, List<Expression> filters, List<Condition> conditions,
+                int pageSize) {
+        this.sqlQueries = sqlQueries;
+        this.fields = new ArrayList<>(fields);
+        this.filters = new ArrayList<>(filters);
+        this.conditions = new ArrayList<>(conditions);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Gets the query of a page.
+     *
+     * @param offset the number of rows before the page
+     * @return the query of the page
+     */
+    public Query getPage(int offset) {
+        Anchor anchor = anchors.get(offset);
+        if (isNull(anchor)) {
+            return sqlQueries.selectAllPage(fields, filters, conditions, null, offset, offset, pageSize);
+        }
+        return sqlQueries.selectAllPage(fields, filters, conditions, anchor.row, anchor.numCopies, offset, pageSize);
+    }
+
+    /**
+     * Keeps the anchor of the page that follows a shown page.
+     *
+     * @param offset the number of rows before the shown page
+     * @param page   the rows of the shown page
+     */
+    public void pageShown(int offset, ResultSet page) {
+        int numRows = page.getNumRows();
+        if (numRows == 0) {
+            return;
+        }
+        List<String> last = page.getRow(numRows - 1).getValues();
+        int numCopies = 1;
+        while (numCopies < numRows && last.equals(page.getRow(numRows - 1 - numCopies).getValues())) {
+            numCopies++;
+        }
+        if (numCopies == numRows && offset > 0) {
+            // The whole page is made up of copies of the last row, and there may be more copies before the page
+            Anchor anchor = anchors.get(offset);
+            if (isNull(anchor)) {
+                return;
+            }
+            if (anchor.row.equals(last)) {
+                numCopies += anchor.numCopies;
+            }
+        }
+        anchors.put(offset + numRows, new Anchor(last, numCopies));
+    }
+
+    /**
+     * The row a page starts after.
+     */
+    private static final class Anchor {
+
+        /**
+         * The values of the row.
+         */
+        private final List<String> row;
+
+        /**
+         * The number of copies of the row before the page.
+         */
+        private final int numCopies;
+
+        /**
+         * Instantiates a new {@link Anchor}.
+         *
+         * @param row       the values of the row
+         * @param numCopies the number of copies of the row before the page
+         */
+        private Anchor(List<String> row, int numCopies) {
+            this.row = new ArrayList<>(row);
+            this.numCopies = numCopies;
+        }
+    }
+}
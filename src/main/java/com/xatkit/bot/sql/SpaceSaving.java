@@ -0,0 +1,269 @@
+package com.xatkit.bot.sql;
+
+import lombok.Getter;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A Space-Saving summary, which finds the most frequent values of a stream (the heavy hitters) with a fixed number of
+ * counters.
+ * <p>
+ * Each monitored value has a counter. When a value that is not monitored arrives and all the counters are taken, the
+ * value with the lowest count is replaced by the new one, which inherits its count (plus 1) as its possible error.
+ * Therefore, the count of a monitored value is never lower than its real frequency, and it is at most
+ * {@link Counter#getError()} higher. Any value that is not monitored has a frequency not higher than
+ * {@link #getMinCount()}, which is at most {@code numRows / capacity}.
+ * <p>
+ * While no value has been replaced, the counts are exact.
+ */
+public final class SpaceSaving {
+
+    /**
+     * The counter of a monitored value.
+     */
+    @Getter
+    public static final class Counter {
+
+        /**
+         * The value.
+         */
+        private String value;
+
+        /**
+         * The count of the value, which is not lower than its real frequency.
+         */
+        private long count;
+
+        /**
+         * The maximum difference between {@link #count} and the real frequency of the value.
+         */
+        private long error;
+
+        /**
+         * Instantiates a new {@link Counter}.
+         *
+         * @param value the value
+         * @param count the count of the value
+         * @param error the maximum overestimation of the count
+         */
+        private Counter(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The maximum number of monitored values.
+     */
+    @Getter
+    private final int capacity;
+
+    /**
+     * The counters, as a min-heap by count.
+     */
+    private final Counter[] heap;
+
+    /**
+     * The position in {@link #heap} of the counter of each monitored value.
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * The number of counters of {@link #heap}.
+     */
+    private int size = 0;
+
+    /**
+     * The number of offered values.
+     */
+    @Getter
+    private long numRows = 0;
+
+    /**
+     * Whether a monitored value has been replaced or not (i.e. the counts are not exact).
+     */
+    private boolean evicted = false;
+
+    /**
+     * Instantiates a new (empty) {@link SpaceSaving}.
+     *
+     * @param capacity the maximum number of monitored values
+     */
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.heap = new Counter[capacity];
+        this.positions = new HashMap<>();
+    }
+
+    /**
+     * Offers a value of the stream.
+     *
+     * @param value the value
+     */
+    public void offer(String value) {
+        numRows++;
+        Integer position = positions.get(value);
+        if (!isNull(position)) {
+            heap[position].count++;
+            siftDown(position);
+        } else if (size < capacity) {
+            heap[size] = new Counter(value, 1, 0);
+            positions.put(value, size);
+            siftUp(size++);
+        } else {
+            // Replace the value with the lowest count, which is the root of the heap
+            Counter min = heap[0];
+            positions.remove(min.value);
+            heap[0] = new Counter(value, min.count + 1, min.count);
+            positions.put(value, 0);
+            siftDown(0);
+            evicted = true;
+        }
+    }
+
+    /**
+     * Checks if the counts are exact (i.e. no monitored value has been replaced, so all the values are monitored).
+     *
+     * @return {@code true} if the counts are exact, {@code false} otherwise
+     */
+    public boolean isExact() {
+        return !evicted;
+    }
+
+    /**
+     * Gets the maximum frequency of the values that are not monitored.
+     *
+     * @return the lowest count if all the counters are taken, otherwise 0
+     */
+    public long getMinCount() {
+        return (size == capacity && capacity > 0 ? heap[0].count : 0);
+    }
+
+    /**
+     * Gets the counter of a value.
+     *
+     * @param value the value
+     * @return the counter, or {@code null} if the value is not monitored
+     */
+    public Counter get(String value) {
+        Integer position = positions.get(value);
+        return (isNull(position) ? null : heap[position]);
+    }
+
+    /**
+     * Gets the counters, sorted by count (highest first) and then by value.
+     *
+     * @return the counters
+     */
+    public List<Counter> getCounters() {
+        List<Counter> counters = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            counters.add(heap[i]);
+        }
+        counters.sort(Comparator.comparingLong(Counter::getCount).reversed().thenComparing(Counter::getValue));
+        return counters;
+    }
+
+    /**
+     * Writes the summary as a json object, to be stored in a json file.
+     *
+     * @return the json object
+     * @see #fromJson(JSONObject)
+     */
+    public JSONObject toJson() {
+        JSONArray counters = new JSONArray();
+        for (Counter counter : getCounters()) {
+            counters.put(new JSONArray().put(counter.value).put(counter.count).put(counter.error));
+        }
+        return new JSONObject()
+                .put("capacity", capacity)
+                .put("numRows", numRows)
+                .put("evicted", evicted)
+                .put("counters", counters);
+    }
+
+    /**
+     * Reads a summary written with {@link #toJson()}.
+     *
+     * @param json the json object
+     * @return the summary
+     * @throws org.json.JSONException if the json object is not a summary
+     */
+    public static SpaceSaving fromJson(JSONObject json) {
+        SpaceSaving summary = new SpaceSaving(json.getInt("capacity"));
+        summary.numRows = json.getLong("numRows");
+        summary.evicted = json.getBoolean("evicted");
+        JSONArray counters = json.getJSONArray("counters");
+        for (int i = 0; i < counters.length() && i < summary.capacity; i++) {
+            JSONArray counter = counters.getJSONArray(i);
+            summary.heap[summary.size] = new Counter(counter.getString(0), counter.getLong(1), counter.getLong(2));
+            summary.positions.put(counter.getString(0), summary.size);
+            summary.siftUp(summary.size++);
+        }
+        return summary;
+    }
+
+    /**
+     * Moves a counter of the heap up until its parent has a lower or equal count.
+     *
+     * @param i the position of the counter
+     */
+    private void siftUp(int i) {
+        Counter counter = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        heap[i] = counter;
+        positions.put(counter.value, i);
+    }
+
+    /**
+     * Moves a counter of the heap down until its children have a greater or equal count.
+     *
+     * @param i the position of the counter
+     */
+    private void siftDown(int i) {
+        Counter counter = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= counter.count) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        heap[i] = counter;
+        positions.put(counter.value, i);
+    }
+
+    /**
+     * Moves a counter of the heap to another position.
+     *
+     * @param from the position of the counter
+     * @param to   the new position of the counter
+     */
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        positions.put(heap[to].value, to);
+    }
+}
@@ -1,17 +1,38 @@
 package com.xatkit.bot.sql;
 
+import com.xatkit.bot.library.BotProperties;
+import com.xatkit.bot.library.Estimate;
 import com.xatkit.bot.library.Row;
 import com.xatkit.bot.Bot;
+import com.xatkit.bot.sql.columnar.ColumnarEngine;
+import com.xatkit.bot.sql.columnar.ColumnarTable;
+import com.xatkit.bot.sql.columnar.SampleEngine;
 import fr.inria.atlanmod.commons.log.Log;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.commons.configuration2.Configuration;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Objects.isNull;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -19,90 +40,849 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 /**
  * The SQL Engine of a chatbot.
  * <p>
- * It is the responsible for executing SQL queries in a database.
+ * It is the responsible for executing SQL queries in a database. The queries are executed through a
+ * {@link ConnectionPool}, so different chatbot sessions can run their queries concurrently.
+ * <p>
+ * Before running a query in the database, the engine asks its {@link QueryAnswerer}s, which can answer it without
+ * running its SQL statement (e.g. the {@link MetadataAnswerer} or the {@link ColumnarEngine}).
  */
 public class SqlEngine {
 
     /**
-     * The url of the database.
+     * The default maximum number of milliseconds to wait for an available connection.
+     */
+    public static final long DEFAULT_POOL_TIMEOUT = 30000;
+
+    /**
+     * The default maximum number of megabytes of the {@link #cache}.
+     */
+    public static final long DEFAULT_CACHE_SIZE = 64;
+
+    /**
+     * The default maximum number of milliseconds a result is stored in the {@link #cache}.
+     */
+    public static final long DEFAULT_CACHE_TTL = 600000;
+
+    /**
+     * The number of milliseconds between two logs of the statistics of the {@link #cache}.
+     */
+    private static final long CACHE_STATS_PERIOD = 600000;
+
+    /**
+     * The default number of rows fetched from the database in each round trip by the {@link CursorResultSet}s (0 to
+     * fetch the results eagerly).
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * The default maximum number of milliseconds a cursor can be idle before its connection is released.
+     */
+    public static final long DEFAULT_CURSOR_TIMEOUT = 60000;
+
+    /**
+     * The default maximum number of prepared statements cached by each connection.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    /**
+     * The default maximum number of milliseconds to wait for the result of a query submitted with
+     * {@link #submitSqlQuery(Bot, Query)}.
      */
-    private final String url = "jdbc:drill:drillbit=localhost";
+    public static final long DEFAULT_QUERY_TIMEOUT = 30000;
 
     /**
-     * The driver connection.
+     * The default number of milliseconds after which the user is told that a submitted query is still running.
      */
-    private Connection conn;
+    public static final long DEFAULT_QUERY_NOTICE_DELAY = 3000;
 
     /**
-     * The Statement used to execute SQL queries in a given database.
+     * The default maximum number of rows of a filtered result kept in a session to refine it in memory.
      */
-    private Statement statement;
+    public static final int DEFAULT_REFINE_MAX_ROWS = 10000;
+
+    /**
+     * The default number of rows of the sample of the {@link #sampleEngine} (0 to disable it).
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 0;
+
+    /**
+     * The default number of milliseconds an approximate query is waited for before answering it with an estimate.
+     */
+    public static final long DEFAULT_SAMPLE_LATENCY_BUDGET = 1000;
+
+    /**
+     * The {@link #backend} name of the Apache Drill backend.
+     *
+     * @see DrillBackend
+     */
+    public static final String DRILL = "drill";
+
+    /**
+     * The {@link #backend} name of the embedded H2 backend.
+     *
+     * @see H2Backend
+     */
+    public static final String H2 = "h2";
+
+    /**
+     * The backend where the queries are run.
+     */
+    @Getter
+    private final QueryBackend backend;
+
+    /**
+     * The pool of connections to the database.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final ConnectionPool pool;
+
+    /**
+     * Whether the queries are run as prepared statements with bound parameters (cached by the {@link #pool}) or not.
+     */
+    private final boolean usePreparedStatements;
+
+    /**
+     * The answerers that are asked before running a query in the database, in order.
+     */
+    private final List<QueryAnswerer> answerers = new ArrayList<>();
+
+    /**
+     * The cache of query results, or {@code null} if the results are not cached.
+     */
+    @Getter
+    private final QueryCache cache;
+
+    /**
+     * The executor that periodically logs the statistics of the {@link #cache}, or {@code null} if the results are
+     * not cached.
+     */
+    private final ScheduledExecutorService cacheStatsLogger;
+
+    /**
+     * Whether the engine has been closed or not.
+     */
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * The number of rows fetched from the database in each round trip by the {@link CursorResultSet}s, or {@code 0}
+     * if the results are fetched eagerly.
+     */
+    private final int fetchSize;
+
+    /**
+     * The maximum number of milliseconds a cursor can be idle before its connection is released.
+     */
+    private final long cursorTimeout;
+
+    /**
+     * The {@link CursorResultSet}s with an open cursor.
+     */
+    private final Set<CursorResultSet> openCursors = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The maximum number of open cursors, which is lower than the size of the {@link #pool} so the cursors (which
+     * keep their connections while they are idle) never take all the connections. The selection queries run while
+     * this number of cursors is open are fetched eagerly.
+     */
+    private final int maxOpenCursors;
+
+    /**
+     * The number of open cursors, including the ones being opened.
+     */
+    private final AtomicInteger numOpenCursors = new AtomicInteger(0);
+
+    /**
+     * The executor that periodically releases the idle cursors, or {@code null} if the results are fetched eagerly.
+     */
+    private final ScheduledExecutorService cursorReaper;
+
+    /**
+     * The executor that runs the queries submitted with {@link #submitSqlQuery(Bot, Query)}.
+     */
+    private final ExecutorService queryExecutor;
+
+    /**
+     * The maximum number of milliseconds to wait for the result of a submitted query (0 to wait without limit).
+     */
+    @Getter
+    private final long queryTimeout;
+
+    /**
+     * The maximum number of milliseconds to wait for the result of the queries of the intents with their own deadline
+     * (see {@link #getQueryTimeout(String)}), by intent name.
+     */
+    private final Map<String, Long> intentQueryTimeouts = new HashMap<>();
+
+    /**
+     * The number of milliseconds after which the user is told that a submitted query is still running (0 to never
+     * tell it).
+     */
+    @Getter
+    private final long queryNoticeDelay;
+
+    /**
+     * The maximum number of rows of a filtered result kept in a session, so the filters added later are applied to it
+     * in memory instead of running a new query (0 to never keep it, which is always the case with
+     * {@link BotProperties#SQL_PARQUET}).
+     *
+     * @see com.xatkit.bot.sql.columnar.RefinableResult
+     */
+    @Getter
+    private final int refineMaxRows;
+
+    /**
+     * Whether the data contains the normalized shadow columns of the textual fields (written by the generator) or
+     * not, so the textual filters are case and accent insensitive.
+     *
+     * @see SqlQueries#getNormalizedColumn(String)
+     */
+    @Getter
+    private final boolean normalizedColumns;
+
+    /**
+     * The engine that estimates the result of the approximate queries from a sample of the data, or {@code null} if
+     * the data is not sampled.
+     */
+    private final SampleEngine sampleEngine;
+
+    /**
+     * The number of milliseconds an approximate query is waited for before answering it with an estimate of the
+     * {@link #sampleEngine} (the query goes on running in the background).
+     */
+    @Getter
+    private final long sampleLatencyBudget;
 
     /**
      * Instantiates a new {@link SqlEngine}
      * <p>
-     * It connects to a local database made up of the {@code .csv} file(s) stored in the resources folder.
+     * It connects to a local database made up of the {@code .csv} file(s) stored in the resources folder. The
+     * database is selected with the {@link BotProperties#SQL_BACKEND} property ({@link #DRILL} by default). If the
+     * {@link BotProperties#SQL_PARQUET} property is enabled, Drill reads the typed {@code .parquet} file written by the
+     * generator instead of the {@code .csv} file. If the
+     * {@link BotProperties#SQL_COLUMNAR} property is enabled, the {@code .csv} file is also loaded into a
+     * {@link ColumnarEngine}, which answers the supported queries in-process (with trigram indexes on the free text
+     * fields if {@link BotProperties#SQL_TRIGRAM_INDEX} is enabled). If the
+     * {@link BotProperties#SQL_NORMALIZED_COLUMNS} property is enabled, the textual filters are evaluated over the
+     * normalized shadow columns of the data. The query results are stored in a
+     * {@link QueryCache} of {@link BotProperties#SQL_CACHE_SIZE} megabytes (a size of 0 disables it). If
+     * {@link BotProperties#SQL_FETCH_SIZE} is greater than 0, the results of the selection queries are fetched lazily
+     * through a {@link CursorResultSet} (while fewer cursors than connections are open). If the backend supports it,
+     * the queries are run as prepared statements, and each connection caches up to
+     * {@link BotProperties#SQL_STATEMENT_CACHE_SIZE} of them (a size of 0 disables them). The queries submitted with
+     * {@link #submitSqlQuery(Bot, Query)} are waited for at most {@link BotProperties#SQL_QUERY_TIMEOUT} milliseconds,
+     * or {@code sql.query.timeout.<IntentName>} milliseconds for the intents with their own deadline. If
+     * {@link BotProperties#SQL_SAMPLE_SIZE} is greater than 0 (and the columnar engine is disabled), a stratified
+     * sample of the {@code .csv} file is loaded into a {@link SampleEngine}, which estimates the approximate queries
+     * that take more than {@link BotProperties#SQL_SAMPLE_LATENCY_BUDGET} milliseconds.
+     *
+     * @param configuration the bot configuration, containing the database and connection pool properties
+     * @see BotProperties#SQL_BACKEND
+     * @see BotProperties#SQL_POOL_SIZE
+     * @see BotProperties#SQL_POOL_TIMEOUT
+     * @see BotProperties#SQL_PARQUET
+     * @see BotProperties#SQL_COLUMNAR
+     * @see BotProperties#SQL_TRIGRAM_INDEX
+     * @see BotProperties#SQL_CACHE_SIZE
+     * @see BotProperties#SQL_CACHE_TTL
+     * @see BotProperties#SQL_FETCH_SIZE
+     * @see BotProperties#SQL_CURSOR_TIMEOUT
+     * @see BotProperties#SQL_STATEMENT_CACHE_SIZE
+     * @see BotProperties#SQL_QUERY_TIMEOUT
+     * @see BotProperties#SQL_QUERY_NOTICE_DELAY
+     * @see BotProperties#SQL_REFINE_MAX_ROWS
+     * @see BotProperties#SQL_NORMALIZED_COLUMNS
+     * @see BotProperties#SQL_SAMPLE_SIZE
+     * @see BotProperties#SQL_SAMPLE_LATENCY_BUDGET
      */
-    public SqlEngine() {
+    public SqlEngine(Configuration configuration) {
+        int poolSize = configuration.getInt(BotProperties.SQL_POOL_SIZE, ConnectionPool.DEFAULT_MAX_SIZE);
+        long poolTimeout = configuration.getLong(BotProperties.SQL_POOL_TIMEOUT, DEFAULT_POOL_TIMEOUT);
+        String dataName = configuration.getString(BotProperties.DATA_NAME, "data");
+        // The data is a single csv file, or a set of partitions listed in a manifest
+        DataPartitions partitions = DataPartitions.load(dataName, ".csv");
+        char delimiter = configuration.getString(BotProperties.CSV_DELIMITER, ",").charAt(0);
+        String backendName = configuration.getString(BotProperties.SQL_BACKEND, DRILL);
+        switch (backendName) {
+            case H2:
+                backend = new H2Backend(partitions, delimiter);
+                break;
+            case DRILL:
+                if (configuration.getBoolean(BotProperties.SQL_PARQUET, false)) {
+                    // The Parquet files have the columns of the csv files (and the partition fields)
+                    String[] header = partitions.readHeader(delimiter);
+                    backend = new DrillBackend(DataPartitions.load(dataName, ".parquet"),
+                            isNull(header) ? new String[0] : header);
+                } else {
+                    backend = new DrillBackend(partitions, delimiter);
+                }
+                break;
+            default:
+                Log.warn("Unknown SQL backend {0}, using {1}", backendName, DRILL);
+                backend = new DrillBackend(partitions, delimiter);
+        }
+        int statementCacheSize = configuration.getInt(BotProperties.SQL_STATEMENT_CACHE_SIZE,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+        usePreparedStatements = backend.supportsParameters() && statementCacheSize > 0;
+        pool = new ConnectionPool(backend, poolSize, poolTimeout, statementCacheSize);
+        long cacheSize = configuration.getLong(BotProperties.SQL_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        long cacheTtl = configuration.getLong(BotProperties.SQL_CACHE_TTL, DEFAULT_CACHE_TTL);
+        // A partition can be edited in place without rewriting the manifest, so all the files are versioned
+        List<String> versionedFiles = new ArrayList<>();
+        if (partitions.isPartitioned()) {
+            versionedFiles.add(DataPartitions.PARTITIONS_JSON_FILE);
+        }
+        for (DataPartitions.Partition partition : partitions.getPartitions()) {
+            versionedFiles.add(partition.getFile());
+        }
+        cache = (cacheSize > 0 ? new QueryCache(versionedFiles, cacheSize * 1024 * 1024, cacheTtl) : null);
+        if (!isNull(cache)) {
+            cacheStatsLogger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sql-cache-stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            cacheStatsLogger.scheduleAtFixedRate(() -> Log.info("Query cache statistics: {0}", cache.getStats()),
+                    CACHE_STATS_PERIOD, CACHE_STATS_PERIOD, TimeUnit.MILLISECONDS);
+        } else {
+            cacheStatsLogger = null;
+        }
+        fetchSize = configuration.getInt(BotProperties.SQL_FETCH_SIZE, DEFAULT_FETCH_SIZE);
+        cursorTimeout = configuration.getLong(BotProperties.SQL_CURSOR_TIMEOUT, DEFAULT_CURSOR_TIMEOUT);
+        maxOpenCursors = poolSize - 1;
+        if (fetchSize > 0) {
+            cursorReaper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "sql-cursor-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1000, cursorTimeout / 2);
+            cursorReaper.scheduleAtFixedRate(() -> openCursors.forEach(cursor -> cursor.releaseIfIdle(cursorTimeout)),
+                    period, period, TimeUnit.MILLISECONDS);
+        } else {
+            cursorReaper = null;
+        }
+        queryTimeout = configuration.getLong(BotProperties.SQL_QUERY_TIMEOUT, DEFAULT_QUERY_TIMEOUT);
+        Iterator<String> timeoutKeys = configuration.getKeys(BotProperties.SQL_QUERY_TIMEOUT);
+        while (timeoutKeys.hasNext()) {
+            String key = timeoutKeys.next();
+            if (key.startsWith(BotProperties.SQL_QUERY_TIMEOUT + ".")) {
+                intentQueryTimeouts.put(key.substring(BotProperties.SQL_QUERY_TIMEOUT.length() + 1),
+                        configuration.getLong(key));
+            }
+        }
+        queryNoticeDelay = configuration.getLong(BotProperties.SQL_QUERY_NOTICE_DELAY, DEFAULT_QUERY_NOTICE_DELAY);
+        // The typed values read from the Parquet file are not formatted as the csv text the filters are evaluated on
+        refineMaxRows = (configuration.getBoolean(BotProperties.SQL_PARQUET, false) ? 0
+                : configuration.getInt(BotProperties.SQL_REFINE_MAX_ROWS, DEFAULT_REFINE_MAX_ROWS));
+        normalizedColumns = configuration.getBoolean(BotProperties.SQL_NORMALIZED_COLUMNS, false);
+        queryExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "sql-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The schema-level queries are answered from the statistics manifest before anything else
+        MetadataAnswerer metadataAnswerer = MetadataAnswerer.load(partitions, normalizedColumns);
+        if (!isNull(metadataAnswerer)) {
+            answerers.add(metadataAnswerer);
+        }
+        boolean columnar = false;
+        if (configuration.getBoolean(BotProperties.SQL_COLUMNAR, false)) {
+            ColumnarTable table = ColumnarTable.load(partitions, delimiter);
+            if (!isNull(table)) {
+                if (configuration.getBoolean(BotProperties.SQL_TRIGRAM_INDEX, false)) {
+                    table.buildTrigramIndexes(normalizedColumns);
+                }
+                answerers.add(new ColumnarEngine(table, normalizedColumns));
+                columnar = true;
+            }
+        }
+        // The columnar engine answers the queries in memory, so there is nothing to estimate
+        int sampleSize = configuration.getInt(BotProperties.SQL_SAMPLE_SIZE, DEFAULT_SAMPLE_SIZE);
+        sampleEngine = (!columnar && sampleSize > 0
+                ? SampleEngine.load(partitions, delimiter, sampleSize, normalizedColumns) : null);
+        sampleLatencyBudget = configuration.getLong(BotProperties.SQL_SAMPLE_LATENCY_BUDGET,
+                DEFAULT_SAMPLE_LATENCY_BUDGET);
+        // With the columnar engine, the database is only needed for the queries the engine cannot answer
+        if (!columnar) {
+            try {
+                // Check the database is reachable
+                pool.release(pool.borrow());
+            } catch (SQLException e) {
+                Log.error("An error occurred while connecting to {0}, see the attached exception", backend.getUrl());
+                Log.error(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Executes a query.
+     * <p>
+     * If the result of the query is stored in the {@link #cache}, it is returned directly. Otherwise, the query is
+     * first given to the {@link #answerers}. If none of them can answer it, its SQL statement is run
+     * in the database: a connection is taken from the {@link #pool} and a new {@link Statement} is created for this
+     * query, so it can be safely called from different sessions at the same time. The result is loaded into a
+     * {@link ColumnarResultSet}, with typed columns chosen from the JDBC metadata. The result of a selection query
+     * without limit is returned as a {@link CursorResultSet} (if {@link #fetchSize} is greater than 0), which keeps
+     * the connection until its rows are fetched.
+     *
+     * @param query the query
+     * @param bot   the chatbot
+     * @return if successful, the {@link com.xatkit.bot.library.ResultSet} containing the result of the query,
+     * otherwise an empty {@link com.xatkit.bot.library.ResultSet}.
+     */
+    public com.xatkit.bot.library.ResultSet runSqlQuery(Bot bot, Query query) {
+        return runSqlQuery(bot, query, null);
+    }
+
+    /**
+     * Gets the maximum number of milliseconds to wait for the result of a query of an intent: the
+     * {@code sql.query.timeout.<IntentName>} property of the intent if it is set, or the {@link #queryTimeout} of all
+     * the queries otherwise.
+     *
+     * @param intentName the name of the intent, or {@code null} if the query has no intent
+     * @return the timeout (0 to wait without limit)
+     */
+    public long getQueryTimeout(String intentName) {
+        Long intentQueryTimeout = (isNull(intentName) ? null : intentQueryTimeouts.get(intentName));
+        return (isNull(intentQueryTimeout) ? queryTimeout : intentQueryTimeout);
+    }
+
+    /**
+     * Submits a query to be executed asynchronously, so the caller can wait for its result with a deadline and cancel
+     * it when the deadline expires (see {@link QueryExecution}).
+     *
+     * @param bot   the chatbot
+     * @param query the query
+     * @return the execution of the query
+     * @see #runSqlQuery(Bot, Query)
+     */
+    public QueryExecution submitSqlQuery(Bot bot, Query query) {
+        QueryExecution execution = new QueryExecution(query);
         try {
-            Class.forName("org.apache.drill.jdbc.Driver");
-            conn = DriverManager.getConnection(url);
-            statement = conn.createStatement();
-        } catch (SQLException | ClassNotFoundException e) {
-            Log.error("An error occurred while connecting to {0}, see the attached exception", url);
-            Log.error(e.getMessage());
+            queryExecutor.execute(() -> {
+                try {
+                    execution.complete(runSqlQuery(bot, query, execution));
+                } catch (RuntimeException e) {
+                    execution.fail(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            execution.fail(e);
         }
+        return execution;
     }
 
     /**
-     * Executes an SQL query.
+     * Checks if the approximate queries can be estimated from a sample of the data.
      *
-     * @param sqlQuery the sql query
-     * @param bot      the chatbot
-     * @return if successful, the {@link com.xatkit.bot.library.ResultSet} containing the result of the SQL query,
-     * otherwise {@code null}.
+     * @return {@code true} if the data is sampled, {@code false} otherwise
+     * @see #estimateSqlQuery(Bot, Query)
      */
-    public com.xatkit.bot.library.ResultSet runSqlQuery(Bot bot, String sqlQuery) {
-        if (isEmpty(sqlQuery)) {
+    public boolean isSampling() {
+        return !isNull(sampleEngine) && sampleLatencyBudget > 0;
+    }
+
+    /**
+     * Estimates the result of an approximate query from a sample of the data, without running its SQL statement (see
+     * {@link SampleEngine}). The estimates are not stored in the {@link #cache}, so the exact result replaces them.
+     *
+     * @param bot   the chatbot
+     * @param query the query
+     * @return the {@link com.xatkit.bot.library.ResultSet} containing the estimated result of the query, or
+     * {@code null} if the query cannot be estimated
+     */
+    public com.xatkit.bot.library.ResultSet estimateSqlQuery(Bot bot, Query query) {
+        if (isNull(sampleEngine) || isNull(query)) {
+            return null;
+        }
+        com.xatkit.bot.library.ResultSet resultSet = sampleEngine.answer(query);
+        if (isNull(resultSet)) {
+            return null;
+        }
+        Log.info("Estimated the query {0} with {1}", query, sampleEngine.getClass().getSimpleName());
+        return withReadableHeader(resultSet, bot.entities.readableNames);
+    }
+
+    /**
+     * Executes a query (see {@link #runSqlQuery(Bot, Query)}).
+     *
+     * @param bot       the chatbot
+     * @param query     the query
+     * @param execution the execution that registers the running statement so it can be cancelled, or {@code null}
+     *                  if the query is run synchronously
+     * @return if successful, the {@link com.xatkit.bot.library.ResultSet} containing the result of the query,
+     * otherwise an empty {@link com.xatkit.bot.library.ResultSet}.
+     */
+    private com.xatkit.bot.library.ResultSet runSqlQuery(Bot bot, Query query, QueryExecution execution) {
+        if (isNull(query) || isEmpty(query.getSql())) {
             return new com.xatkit.bot.library.ResultSet();
         }
-        Log.info("Trying to run the SQL query: {0}", sqlQuery);
+        com.xatkit.bot.library.ResultSet answer = answer(query, bot.entities.readableNames);
+        if (!isNull(answer)) {
+            return answer;
+        }
+        Log.info("Trying to run the SQL query: {0}", query);
+        Connection conn = null;
         try {
-            if (isNull(conn) || conn.isClosed()) {
-                Log.warn("The drillbit connection was lost. Trying to establish connection again.");
-                conn = DriverManager.getConnection(url);
-                statement = conn.createStatement();
+            conn = pool.borrow();
+            if (!isNull(execution) && execution.isCancelled()) {
+                return new com.xatkit.bot.library.ResultSet();
             }
-            if (!conn.isClosed()) {
-                ResultSet resultSet = statement.executeQuery(sqlQuery);
-                ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
-                int numColumns = resultSetMetaData.getColumnCount();
-                List<String> header = new ArrayList<>();
-                List<Row> table = new ArrayList<>();
-                for (int i = 1; i <= numColumns; i++) {
-                    String originalName = resultSetMetaData.getColumnLabel(i);
-                    String readableName = bot.entities.readableNames.get(originalName);
-                    if (!isEmpty(readableName)) {
-                        header.add(readableName);
-                    } else {
-                        header.add(originalName);
+            if (fetchSize > 0 && query.getOperation() == Query.Operation.SELECT && query.getLimit() < 0
+                    && reserveCursor()) {
+                boolean opened = false;
+                try {
+                    // The rows are not sorted, so the first ones arrive without waiting for the whole result
+                    ResultSet cursor = executeQuery(conn, query, fetchSize, execution);
+                    try {
+                        List<String> labels = getColumnLabels(cursor.getMetaData());
+                        CursorResultSet cursorResultSet = new CursorResultSet(this, query,
+                                getReadableHeader(labels, bot.entities.readableNames), conn, cursor, fetchSize);
+                        cursorOpened(cursorResultSet);
+                        opened = true;
+                        // The connection is released by the cursor
+                        conn = null;
+                        return cursorResultSet;
+                    } catch (SQLException e) {
+                        closeResultSet(cursor);
+                        throw e;
                     }
-                }
-                while (resultSet.next()) {
-                    List<String> values = new ArrayList<>();
-                    for (int i = 1; i <= numColumns; i++) {
-                        values.add(resultSet.getString(i));
+                } finally {
+                    if (!opened) {
+                        numOpenCursors.decrementAndGet();
                     }
-                    table.add(new Row(values));
                 }
-                return new com.xatkit.bot.library.ResultSet(header, table);
-            } else {
-                Log.error("An error occurred while reconnecting to {0}, see the attached exception", url);
+            }
+            ResultSet resultSet = executeQuery(conn, query, 0, execution);
+            try {
+                List<String> labels = getColumnLabels(resultSet.getMetaData());
+                return storeExact(query, ColumnarResultSet.load(resultSet, getReadableHeader(labels,
+                        bot.entities.readableNames)));
+            } finally {
+                closeResultSet(resultSet);
             }
         } catch (SQLException e) {
-            Log.error("An error occurred while running the SQL query {0}, see the attached exception", sqlQuery);
+            Log.error("An error occurred while running the SQL query {0}, see the attached exception", query);
             Log.error(e.getMessage());
+        } finally {
+            pool.release(conn);
         }
         return new com.xatkit.bot.library.ResultSet();
     }
+
+    /**
+     * Counts the rows of a query (see {@link Query#count()}) in a connection already borrowed by the caller (e.g. the
+     * connection of a {@link CursorResultSet}), so it does not wait for another connection of the {@link #pool}, which
+     * could be taken by other callers waiting for the caller's connection.
+     * <p>
+     * The SQL statement is not prepared, so the statements cached by the connection (e.g. the one of an open cursor)
+     * are not evicted.
+     *
+     * @param query the query whose rows are counted
+     * @param conn  the borrowed connection
+     * @return the number of rows of the query, or {@code -1} if they could not be counted
+     */
+    long countRows(Query query, Connection conn) {
+        Query count = query.count();
+        // The header of the count does not contain any field, so it does not need the readable names of the chatbot
+        com.xatkit.bot.library.ResultSet resultSet = answer(count, Collections.emptyMap());
+        if (isNull(resultSet)) {
+            Log.info("Trying to run the SQL query: {0}", count);
+            try (Statement statement = conn.createStatement();
+                 ResultSet countResultSet = statement.executeQuery(count.getInlineSql())) {
+                resultSet = storeExact(count, ColumnarResultSet.load(countResultSet,
+                        getColumnLabels(countResultSet.getMetaData())));
+            } catch (SQLException e) {
+                Log.error("An error occurred while running the SQL query {0}, see the attached exception", count);
+                Log.error(e.getMessage());
+                return -1;
+            }
+        }
+        if (resultSet.getNumRows() == 0 || isNull(resultSet.getValue(0, 0))) {
+            return -1;
+        }
+        return resultSet.getLong(0, 0);
+    }
+
+    /**
+     * Answers a query without running its SQL statement, either from the {@link #cache} or with one of the
+     * {@link #answerers}.
+     *
+     * @param query         the query
+     * @param readableNames the readable names of the fields (see {@link #getReadableHeader(List, Map)})
+     * @return the {@link com.xatkit.bot.library.ResultSet} containing the result of the query, or {@code null} if it
+     * must be run in the database
+     */
+    private com.xatkit.bot.library.ResultSet answer(Query query, Map<String, String> readableNames) {
+        if (!isNull(cache)) {
+            com.xatkit.bot.library.ResultSet cachedResultSet = cache.get(query);
+            if (!isNull(cachedResultSet)) {
+                Log.info("Found the result of the query {0} in the cache", query);
+                return cachedResultSet;
+            }
+        }
+        for (QueryAnswerer answerer : answerers) {
+            com.xatkit.bot.library.ResultSet resultSet = answerer.answer(query);
+            if (!isNull(resultSet)) {
+                Log.info("Answered the query {0} with {1}", query, answerer.getClass().getSimpleName());
+                return store(query, withReadableHeader(resultSet, readableNames));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the SQL statement of a query in a connection.
+     * <p>
+     * If {@link #usePreparedStatements} is enabled, the parameters of the query are bound to the prepared statement
+     * cached by the connection. Otherwise, they are written in the SQL statement (see {@link Query#getInlineSql()}).
+     *
+     * @param conn      the connection
+     * @param query     the query
+     * @param fetchSize the number of rows fetched from the database in each round trip ({@code 0} to let the driver
+     *                  decide)
+     * @return the JDBC result set, which must be closed with {@link #closeResultSet(ResultSet)}
+     * @throws SQLException if the query could not be run
+     */
+    ResultSet executeQuery(Connection conn, Query query, int fetchSize) throws SQLException {
+        return executeQuery(conn, query, fetchSize, null);
+    }
+
+    /**
+     * Runs the SQL statement of a query in a connection (see {@link #executeQuery(Connection, Query, int)}). While it
+     * is running, the statement is registered in the given execution, so it can be cancelled.
+     *
+     * @param conn      the connection
+     * @param query     the query
+     * @param fetchSize the number of rows fetched from the database in each round trip ({@code 0} to let the driver
+     *                  decide)
+     * @param execution the execution of the query, or {@code null} if the query is run synchronously
+     * @return the JDBC result set, which must be closed with {@link #closeResultSet(ResultSet)}
+     * @throws SQLException if the query could not be run or the execution was cancelled
+     */
+    private ResultSet executeQuery(Connection conn, Query query, int fetchSize, QueryExecution execution)
+            throws SQLException {
+        if (usePreparedStatements) {
+            PreparedStatement statement = pool.prepare(conn, query.getSql());
+            List<String> parameters = query.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setString(i + 1, parameters.get(i));
+            }
+            statement.setFetchSize(fetchSize);
+            start(statement, execution);
+            try {
+                return statement.executeQuery();
+            } finally {
+                finish(execution);
+            }
+        }
+        Statement statement = conn.createStatement();
+        try {
+            statement.setFetchSize(fetchSize);
+            start(statement, execution);
+            return statement.executeQuery(query.getInlineSql());
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        } finally {
+            finish(execution);
+        }
+    }
+
+    /**
+     * Registers a statement that is about to run in the execution of its query.
+     *
+     * @param statement the statement
+     * @param execution the execution of the query, or {@code null} if the query is run synchronously
+     * @throws SQLException if the execution has been cancelled
+     */
+    private static void start(Statement statement, QueryExecution execution) throws SQLException {
+        if (!isNull(execution) && !execution.started(statement)) {
+            throw new SQLException("The execution of the query has been cancelled");
+        }
+    }
+
+    /**
+     * Unregisters the statement that was running in the execution of its query.
+     *
+     * @param execution the execution of the query, or {@code null} if the query is run synchronously
+     */
+    private static void finish(QueryExecution execution) {
+        if (!isNull(execution)) {
+            execution.finished();
+        }
+    }
+
+    /**
+     * Reserves one of the {@link #maxOpenCursors} cursors, which must be registered with
+     * {@link #cursorOpened(CursorResultSet)} once it is open (or given back by decrementing {@link #numOpenCursors}
+     * if it could not be opened).
+     *
+     * @return {@code true} if a cursor can be opened, {@code false} if there are already too many open cursors
+     */
+    boolean reserveCursor() {
+        int current;
+        do {
+            current = numOpenCursors.get();
+            if (current >= maxOpenCursors) {
+                return false;
+            }
+        } while (!numOpenCursors.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Closes a JDBC result set returned by {@link #executeQuery(Connection, Query, int)}, and its statement if it is
+     * not cached by the {@link #pool}.
+     *
+     * @param resultSet the JDBC result set
+     */
+    void closeResultSet(ResultSet resultSet) {
+        try {
+            Statement statement = resultSet.getStatement();
+            resultSet.close();
+            if (!usePreparedStatements && !isNull(statement)) {
+                statement.close();
+            }
+        } catch (SQLException ignored) { }
+    }
+
+    /**
+     * Registers a {@link CursorResultSet} with an open (and reserved) cursor, so it is released when it is idle.
+     *
+     * @param cursor the cursor result set
+     * @see #reserveCursor()
+     */
+    void cursorOpened(CursorResultSet cursor) {
+        openCursors.add(cursor);
+    }
+
+    /**
+     * Unregisters a {@link CursorResultSet} whose cursor has been closed, so another cursor can be opened.
+     *
+     * @param cursor the cursor result set
+     */
+    void cursorReleased(CursorResultSet cursor) {
+        if (openCursors.remove(cursor)) {
+            numOpenCursors.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the column labels of a JDBC result set.
+     *
+     * @param metaData the metadata of the result set
+     * @return the column labels
+     * @throws SQLException if the metadata cannot be read
+     */
+    private static List<String> getColumnLabels(ResultSetMetaData metaData) throws SQLException {
+        List<String> labels = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        return labels;
+    }
+
+    /**
+     * Stores the result of a query in the {@link #cache} (if enabled).
+     *
+     * @param query     the query
+     * @param resultSet the result set of the query
+     * @return the result set
+     */
+    private com.xatkit.bot.library.ResultSet store(Query query, com.xatkit.bot.library.ResultSet resultSet) {
+        if (!isNull(cache)) {
+            cache.put(query, resultSet);
+        }
+        return resultSet;
+    }
+
+    /**
+     * Stores the result of running the SQL statement of a query in the {@link #cache} (if enabled). The result is
+     * exact, so if the query is approximate (e.g. it was left running in the background after answering it with an
+     * estimate), the result is also stored for the exact query.
+     *
+     * @param query     the query
+     * @param resultSet the result set of the query
+     * @return the result set
+     */
+    private com.xatkit.bot.library.ResultSet storeExact(Query query, com.xatkit.bot.library.ResultSet resultSet) {
+        if (!isNull(cache) && query.isApproximate()) {
+            cache.put(query.exact(), resultSet);
+        }
+        return store(query, resultSet);
+    }
+
+    /**
+     * Replaces the column labels of a result set by their readable names (if they have one).
+     *
+     * @param labels        the column labels
+     * @param readableNames the readable names of the fields
+     * @return the header with the readable names
+     * @see com.xatkit.bot.library.Entities#readableNames
+     */
+    private static List<String> getReadableHeader(List<String> labels, Map<String, String> readableNames) {
+        List<String> header = new ArrayList<>();
+        for (String originalName : labels) {
+            String readableName = readableNames.get(originalName);
+            if (!isEmpty(readableName)) {
+                header.add(readableName);
+            } else {
+                header.add(originalName);
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Copies a result set with the readable names of its fields (see {@link #getReadableHeader(List, Map)}), keeping
+     * its estimates (see {@link com.xatkit.bot.library.ResultSet#getEstimate(int, int)}).
+     *
+     * @param resultSet     the result set
+     * @param readableNames the readable names of the fields
+     * @return the copy of the result set
+     */
+    private static com.xatkit.bot.library.ResultSet withReadableHeader(com.xatkit.bot.library.ResultSet resultSet,
+                                                                       Map<String, String> readableNames) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            rows.add(resultSet.getRow(i));
+        }
+        com.xatkit.bot.library.ResultSet copy = new com.xatkit.bot.library.ResultSet(
+                getReadableHeader(resultSet.getHeader(), readableNames), rows);
+        if (resultSet.isEstimate()) {
+            for (int i = 0; i < resultSet.getNumRows(); i++) {
+                for (int j = 0; j < resultSet.getNumColumns(); j++) {
+                    Estimate estimate = resultSet.getEstimate(i, j);
+                    if (!isNull(estimate)) {
+                        copy.setEstimate(i, j, estimate);
+                    }
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Closes the connections to the database and stops the threads of the engine. It is called when the chatbot
+     * stops (see {@link com.xatkit.bot.App#initialize()}), and it does nothing if the engine is already closed.
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (!isNull(cache)) {
+            cacheStatsLogger.shutdownNow();
+            Log.info("Query cache statistics: {0}", cache.getStats());
+        }
+        if (!isNull(cursorReaper)) {
+            cursorReaper.shutdownNow();
+        }
+        queryExecutor.shutdownNow();
+        for (CursorResultSet cursor : new ArrayList<>(openCursors)) {
+            cursor.close();
+        }
+        pool.close();
+        backend.close();
+    }
 }
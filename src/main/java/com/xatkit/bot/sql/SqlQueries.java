@@ -1,6 +1,5 @@
 package com.xatkit.bot.sql;
 
-import com.google.common.collect.Streams;
 import com.xatkit.bot.customQuery.FieldCount;
 import com.xatkit.bot.customQuery.FrequentValueInField;
 import com.xatkit.bot.customQuery.RowCount;
@@ -8,37 +7,77 @@ import com.xatkit.bot.customQuery.SelectFieldsWithConditions;
 import com.xatkit.bot.customQuery.ShowFieldDistinct;
 import com.xatkit.bot.customQuery.Value1vsValue2;
 import com.xatkit.bot.customQuery.ValueFrequency;
+import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.sql.ast.AliasRef;
+import com.xatkit.bot.sql.ast.And;
+import com.xatkit.bot.sql.ast.Between;
+import com.xatkit.bot.sql.ast.CaseWhen;
+import com.xatkit.bot.sql.ast.Cast;
+import com.xatkit.bot.sql.ast.Column;
+import com.xatkit.bot.sql.ast.Comparison;
+import com.xatkit.bot.sql.ast.DerivedTable;
+import com.xatkit.bot.sql.ast.Expression;
+import com.xatkit.bot.sql.ast.FunctionCall;
+import com.xatkit.bot.sql.ast.IsNull;
+import com.xatkit.bot.sql.ast.Literal;
+import com.xatkit.bot.sql.ast.NotEmpty;
+import com.xatkit.bot.sql.ast.Or;
+import com.xatkit.bot.sql.ast.OrderItem;
+import com.xatkit.bot.sql.ast.Parameter;
+import com.xatkit.bot.sql.ast.QueryOptimizer;
+import com.xatkit.bot.sql.ast.SelectStatement;
+import com.xatkit.bot.sql.ast.SqlPrinter;
+import com.xatkit.bot.sql.ast.Upper;
+import com.xatkit.bot.sql.ast.WindowFunction;
 import lombok.Getter;
 import org.apache.commons.lang3.tuple.ImmutableTriple;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 import static com.xatkit.bot.customQuery.AbstractCustomQuery.DATETIME;
 import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
 import static com.xatkit.bot.customQuery.SelectFieldsWithConditions.MIN;
+import static com.xatkit.bot.library.Utils.normalize;
+import static java.util.Objects.isNull;
 
 /**
  * The SQL queries generator.
+ * <p>
+ * The generated SQL statements are templates: the values given by the user (filter values, values of the
+ * conditions...) are not written in the statements but bound to {@code ?} placeholders (see
+ * {@link Query#getParameters()}). This way, the same statement is generated for the same query shape, and the database
+ * can reuse its plan.
+ * <p>
+ * Each query is first built as a {@link SelectStatement}, which is optimized by a {@link QueryOptimizer} and then
+ * printed in the SQL dialect of the backend (see {@link QueryBackend#newPrinter()}).
+ * <p>
+ * If the data contains the normalized shadow columns of the textual fields (see {@link #getNormalizedColumn(String)}),
+ * the textual filters compare them with normalized values (see {@link com.xatkit.bot.library.Utils#normalize(String)})
+ * instead of upper-casing both sides of the comparison, so they are also accent insensitive.
  */
 public class SqlQueries {
 
     /**
-     * The table name.
+     * The suffix of the name of the normalized shadow column of a textual field.
      */
-    private final String table;
+    public static final String NORMALIZED_COLUMN_SUFFIX = "__normalized";
 
     /**
-     * The scale of decimal values (i.e. the number of decimal digits).
+     * The backend where the queries are run, which defines the SQL dialect of the queries.
      */
-    private static final int SCALE = 4;
+    private final QueryBackend backend;
 
-    private static final String isoDatetimeFormat = "yyyy-MM-dd''T''HH:mm:ssZ";
+    /**
+     * The optimizer applied to the generated statements, which also prunes the partitions of the data the backend can
+     * read separately (see {@link QueryBackend#getPartitions()}).
+     */
+    private final QueryOptimizer optimizer;
 
     /**
      * A set of filters that are intended to be added to the generated SQL queries.
@@ -46,46 +85,84 @@ public class SqlQueries {
     private final List<ImmutableTriple<String, String, String>> filters;
 
     /**
-     * A list containing all the fields or column names of the {@link #table}. Must be initialized.
+     * A list containing all the fields or column names of the table. Must be initialized.
      */
     @Getter
     private final List<String> allFields;
 
+    /**
+     * Whether the data contains the normalized shadow columns of the textual fields or not.
+     */
+    @Getter
+    private final boolean normalizedColumns;
+
+    /**
+     * Instantiates a new {@link SqlQueries}.
+     * @param backend the backend where the queries are run
+     */
+    public SqlQueries(QueryBackend backend) {
+        this(backend, false);
+    }
+
     /**
      * Instantiates a new {@link SqlQueries}.
-     * @param tableName the name of the table
-     * @param delimiter the csv delimiter
+     * @param backend           the backend where the queries are run
+     * @param normalizedColumns whether the data contains the normalized shadow columns of the textual fields or not
      */
-    public SqlQueries(String tableName, char delimiter) {
-        table = "table(cp.`" + tableName + "`(type => 'text', fieldDelimiter => '" + delimiter
-                + "', extractHeader =>" + " true))";
+    public SqlQueries(QueryBackend backend, boolean normalizedColumns) {
+        this(backend, normalizedColumns, new QueryOptimizer(backend.getPartitions()));
+    }
+
+    /**
+     * Instantiates a new {@link SqlQueries} with a given optimizer (e.g. {@link QueryOptimizer#disabled()}).
+     *
+     * @param backend           the backend where the queries are run
+     * @param normalizedColumns whether the data contains the normalized shadow columns of the textual fields or not
+     * @param optimizer         the optimizer of the statements
+     */
+    SqlQueries(QueryBackend backend, boolean normalizedColumns, QueryOptimizer optimizer) {
+        this.backend = backend;
+        this.optimizer = optimizer;
+        this.normalizedColumns = normalizedColumns;
         filters = new ArrayList<>();
         allFields = new ArrayList<>();
     }
 
     /**
-     * Returns the appropriate string to cast a field to the decimal data type.
-     * @param field the field to be cast
-     * @return the cast statement
+     * Gets the name of the normalized shadow column of a field, which contains the normalized values of the field.
+     *
+     * @param field the field
+     * @return the name of the normalized column
+     * @see com.xatkit.bot.library.Utils#normalize(String)
      */
-    private static String toDecimal(String field) {
-        return "CAST(" + field + " AS DECIMAL(38," + SCALE + "))";
+    public static String getNormalizedColumn(String field) {
+        return field + NORMALIZED_COLUMN_SUFFIX;
     }
 
-    private static String toDateTime(String field) {
-        // TODO: The format depends on the dataset. We need to know it
-        return "TO_TIMESTAMP(" + field + ", '" + isoDatetimeFormat + "')";
+    /**
+     * Gets the expression of a field cast to a data type.
+     * @param field    the field to be cast
+     * @param dataType the data type ({@link com.xatkit.bot.customQuery.AbstractCustomQuery#DECIMAL} or
+     *                 {@link com.xatkit.bot.customQuery.AbstractCustomQuery#DATETIME})
+     * @return the cast expression, or the column itself if the data type cannot be cast to
+     */
+    private static Expression cast(String field, String dataType) {
+        if (DECIMAL.equals(dataType) || DATETIME.equals(dataType)) {
+            return new Cast(new Column(field), dataType);
+        }
+        return new Column(field);
     }
 
-    private static String cast(String field, String dataType) {
-        switch (dataType) {
-            case DECIMAL:
-                return toDecimal(field);
-            case DATETIME:
-                return toDateTime(field);
-            default:
-                return null;
-        }
+    /**
+     * Optimizes a statement and prints it in the SQL dialect of the {@link #backend}.
+     * @param statement the statement
+     * @param operation the operation of the query
+     * @return the query, with the printed SQL statement and its parameters
+     */
+    private Query build(SelectStatement statement, Query.Operation operation) {
+        SqlPrinter printer = backend.newPrinter();
+        String sql = printer.print(optimizer.optimize(statement));
+        return new Query(sql, operation).parameters(printer.getParameters());
     }
 
     /**
@@ -98,7 +175,7 @@ public class SqlQueries {
      * @param text the text
      * @return the processed text
      */
-    private static String replaceSpecialChars(String text) {
+    public static String replaceSpecialChars(String text) {
         String result = text.replaceAll("[^a-zA-Z0-9]", "_");
         if (result.charAt(0) == '_') {
             result = "col" + result;
@@ -106,17 +183,6 @@ public class SqlQueries {
         return result;
     }
 
-    /**
-     * Escapes all quotes in a text by duplicating them.
-     * <p>
-     * This is necessary since values of sql statement conditions must escape them.
-     * @param text text
-     * @return the processed text
-     */
-    private static String escapeQuotes(String text) {
-        return text.replaceAll("'", "''");
-    }
-
     /**
      * Add a new filter to {@link #filters}.
      *
@@ -182,30 +248,74 @@ public class SqlQueries {
     /**
      * Gets the collection of filters as SQL conditions.
      * <p>
-     * This is useful to add the statement filters as conditions in the WHERE clause of a SQL statement.
+     * This is useful to add the statement filters as conditions in the WHERE clause of a SQL statement. The conditions
+     * are sorted, so the generated queries do not depend on the order the filters were added (this way, they can be
+     * used as keys of the {@link QueryCache}).
+     *
+     * @return the filters as sql conditions, to be joined with {@code AND}
+     */
+    public List<Expression> getFiltersAsSqlConditions() {
+        List<ImmutableTriple<String, String, String>> sortedFilters = new ArrayList<>(filters);
+        sortedFilters.sort(Comparator.comparing((ImmutableTriple<String, String, String> f) -> f.left)
+                .thenComparing(f -> f.middle).thenComparing(f -> f.right));
+        List<Expression> sqlConditions = new ArrayList<>();
+        for (ImmutableTriple<String, String, String> f : sortedFilters) {
+            Expression sqlCondition = toSqlCondition(f.left, f.middle, f.right);
+            if (!isNull(sqlCondition)) {
+                sqlConditions.add(sqlCondition);
+            }
+        }
+        return sqlConditions;
+    }
+
+    /**
+     * Gets the collection of filters as {@link Condition}s.
      *
-     * @return the filters as sql conditions
+     * @return the filters as conditions
      */
-    public Set<String> getFiltersAsSqlConditions() {
-        Set<String> sqlFilters = new HashSet<>();
+    public List<Condition> getFiltersAsConditions() {
+        List<Condition> conditions = new ArrayList<>();
         for (ImmutableTriple<String, String, String> f : filters) {
-            sqlFilters.add(toSqlCondition(f.left, f.middle, f.right));
+            conditions.add(new Condition(f.left, f.middle, f.right));
+        }
+        return conditions;
+    }
+
+    /**
+     * Converts a value field map (e.g. FIELD = 'value') into a list of {@link Condition}s.
+     *
+     * @param valueFieldMap the value field map
+     * @return the conditions
+     */
+    private static List<Condition> toConditions(Map<String, String> valueFieldMap) {
+        List<Condition> conditions = new ArrayList<>();
+        for (Map.Entry<String, String> entry : valueFieldMap.entrySet()) {
+            conditions.add(new Condition(entry.getValue(), Condition.VALUE_EQUALS, entry.getKey()));
         }
-        return sqlFilters;
+        return conditions;
     }
 
     /**
-     * Given a field, an operator and a value, returns the string that represents the SQL condition with that
-     * parameters.
+     * Given a field, an operator and a value, returns the SQL condition with that parameters.
+     * <p>
+     * The value is not written in the condition, but it is a {@link Parameter} of the query.
+     * <p>
+     * Textual conditions on a textual field are evaluated over its normalized shadow column, if the data contains it.
      *
      * @param field    the field
      * @param operator the operator
      * @param value    the value
-     * @return the string
+     * @return the condition, or {@code null} if the operator is unknown
      */
-    public String toSqlCondition(String field, String operator, String value) {
-        field = replaceSpecialChars(field);
-        value = escapeQuotes(value);
+    public Expression toSqlCondition(String field, String operator, String value) {
+        Column column = new Column(field);
+        if (normalizedColumns && "textualFieldEntity".equals(Entities.getFieldEntityName(field))) {
+            Expression normalizedCondition = toNormalizedSqlCondition(new Column(getNormalizedColumn(field)), operator,
+                    normalize(value));
+            if (!isNull(normalizedCondition)) {
+                return normalizedCondition;
+            }
+        }
         switch (operator) {
             // Numeric Filters
             case "=":
@@ -213,47 +323,185 @@ public class SqlQueries {
             case "<=":
             case ">":
             case ">=":
-                return field + " <> ''" + " AND " + toDecimal(field) + " " + operator + " " + value ;
+                return guarded(column, new Comparison(new Cast(column, DECIMAL), operator,
+                        new Cast(new Parameter(value), DECIMAL)));
             case "!=":
-                return field + " <> ''" + " AND " + toDecimal(field) + " <> " + value;
+                return guarded(column, new Comparison(new Cast(column, DECIMAL), Comparison.NOT_EQUALS,
+                        new Cast(new Parameter(value), DECIMAL)));
             // Textual Filters
             case "equals":
-                return "UPPER(" + field + ") = UPPER('" + value + "')";
+                return new Comparison(new Upper(column), Comparison.EQUALS, new Upper(new Parameter(value)));
             case "different":
-                return "UPPER(" + field + ") <> UPPER('" + value + "')";
+                return new Comparison(new Upper(column), Comparison.NOT_EQUALS, new Upper(new Parameter(value)));
             case "contains":
-                return "UPPER(" + field + ") LIKE UPPER('%" + value + "%')";
+                return new Comparison(new Upper(column), Comparison.LIKE, new Upper(new Parameter("%" + value + "%")));
             case "starts with":
-                return "UPPER(" + field + ") LIKE UPPER('" + value + "%')";
+                return new Comparison(new Upper(column), Comparison.LIKE, new Upper(new Parameter(value + "%")));
             case "ends with":
-                return "UPPER(" + field + ") LIKE UPPER('%" + value + "')";
+                return new Comparison(new Upper(column), Comparison.LIKE, new Upper(new Parameter("%" + value)));
             // Datetime Filters
             case "date_equals":
-                return field + " <> ''" + " AND " + toDateTime(field) + " = " + toDateTime("'" + value + "'");
+                return guarded(column, new Comparison(new Cast(column, DATETIME), Comparison.EQUALS,
+                        new Cast(new Parameter(value), DATETIME)));
             case "date_different":
-                return field + " <> ''" + " AND " + toDateTime(field) + " <> " + toDateTime("'" + value + "'");
+                return guarded(column, new Comparison(new Cast(column, DATETIME), Comparison.NOT_EQUALS,
+                        new Cast(new Parameter(value), DATETIME)));
             case "before":
-                return field + " <> ''" + " AND " + toDateTime(field) + " < " + toDateTime("'" + value + "'");
+                return guarded(column, new Comparison(new Cast(column, DATETIME), "<",
+                        new Cast(new Parameter(value), DATETIME)));
             case "after":
-                return field + " <> ''" + " AND " + toDateTime(field) + " > " + toDateTime("'" + value + "'");
+                return guarded(column, new Comparison(new Cast(column, DATETIME), ">",
+                        new Cast(new Parameter(value), DATETIME)));
             default:
                 return null;
         }
     }
 
+    /**
+     * Gets the SQL condition of a textual operator over a normalized shadow column.
+     *
+     * @param column          the normalized column
+     * @param operator        the operator
+     * @param normalizedValue the normalized value
+     * @return the condition, or {@code null} if the operator is not textual
+     */
+    private static Expression toNormalizedSqlCondition(Column column, String operator, String normalizedValue) {
+        switch (operator) {
+            case "equals":
+                return new Comparison(column, Comparison.EQUALS, new Parameter(normalizedValue));
+            case "different":
+                return new Comparison(column, Comparison.NOT_EQUALS, new Parameter(normalizedValue));
+            case "contains":
+                return new Comparison(column, Comparison.LIKE, new Parameter("%" + normalizedValue + "%"));
+            case "starts with":
+                return new Comparison(column, Comparison.LIKE, new Parameter(normalizedValue + "%"));
+            case "ends with":
+                return new Comparison(column, Comparison.LIKE, new Parameter("%" + normalizedValue));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Guards a condition that casts a column, so the empty values of the column are discarded before casting them.
+     *
+     * @param column    the column
+     * @param condition the condition
+     * @return the guarded condition
+     */
+    private static Expression guarded(Column column, Expression condition) {
+        return new And(Arrays.asList(new NotEmpty(column), condition));
+    }
+
+    /**
+     * Gets the SQL conditions of a value field map (e.g. FIELD = ?).
+     * <p>
+     * The conditions are sorted by value, so the generated queries do not depend on the order of the map.
+     *
+     * @param valueFieldMap the value field map
+     * @return the conditions, to be joined with {@code AND}
+     */
+    private static List<Expression> toSqlConditions(Map<String, String> valueFieldMap) {
+        Map<String, String> sortedValueFieldMap = new TreeMap<>(valueFieldMap);
+        List<Expression> sqlConditions = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sortedValueFieldMap.entrySet()) {
+            sqlConditions.add(new Comparison(new Column(entry.getValue()), Comparison.EQUALS,
+                    new Parameter(entry.getKey())));
+        }
+        return sqlConditions;
+    }
+
     /**
      * Generates a SQL query to select all data.
      *
      * @return the sql query
      */
-    public String selectAll() {
-        List<String> fieldsClean = allFields.stream().map(SqlQueries::replaceSpecialChars).collect(Collectors.toList());
-        String fieldsString = String.join(", ", Streams.zip(fieldsClean.stream(), allFields.stream(), (fClean, f) -> fClean + " AS `" + f + "`").collect(Collectors.toList()));
-        String sqlQuery = "SELECT " + fieldsString + " FROM " + table;
-        if (!filters.isEmpty()) {
-            sqlQuery += " WHERE " + String.join(" AND ", getFiltersAsSqlConditions());
+    public Query selectAll() {
+        SelectStatement statement = new SelectStatement()
+                .select(allFields)
+                .where(getFiltersAsSqlConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(allFields)
+                .conditions(getFiltersAsConditions());
+    }
+
+    /**
+     * Generates the SQL queries to select all data page by page, with the current filters.
+     *
+     * @param pageSize the maximum number of rows of each page
+     * @return the pages of the result
+     * @see ResultPages
+     */
+    public ResultPages selectAllPages(int pageSize) {
+        return new ResultPages(this, allFields, getFiltersAsSqlConditions(), getFiltersAsConditions(), pageSize);
+    }
+
+    /**
+     * Generates a SQL query to select a page of the rows of some fields (see {@link ResultPages}).
+     * <p>
+     * The rows are sorted by all the fields, with the {@code NULL} values first, so every backend returns them in the
+     * same order. If the page starts after a known row, the statement seeks to it with a keyset condition (i.e. the
+     * rows must be greater than or equal to the known row, field by field) and only skips the copies of the known row
+     * that were already selected. Otherwise, the statement skips all the rows before the page. The keyset condition
+     * is added after optimizing the statement, since it is not a filter of the data (e.g. it must not be used to prune
+     * partitions).
+     *
+     * @param fields     the fields
+     * @param filters    the filters, as SQL conditions
+     * @param conditions the filters, as {@link Condition}s
+     * @param after      the values of the row the page starts after, or {@code null} to skip {@code numSkipped}
+     *                   rows from the start of the result
+     * @param numSkipped the number of rows to skip (the copies of {@code after} that were already selected, or all
+     *                   the rows before the page if it does not start after a known row)
+     * @param offset     the number of rows before the page
+     * @param limit      the maximum number of rows of the page
+     * @return the sql query
+     */
+    Query selectAllPage(List<String> fields, List<Expression> filters, List<Condition> conditions, List<String> after,
+                        int numSkipped, int offset, int limit) {
+        SelectStatement statement = new SelectStatement()
+                .select(fields)
+                .where(filters);
+        optimizer.optimize(statement);
+        if (!isNull(after)) {
+            statement.where(keysetCondition(fields, after));
+        }
+        for (String field : fields) {
+            statement.orderByNullsFirst(new Column(field), true);
         }
-        return sqlQuery;
+        statement.limit(limit).offset(numSkipped);
+        SqlPrinter printer = backend.newPrinter();
+        String sql = printer.print(statement);
+        return new Query(sql, Query.Operation.SELECT)
+                .parameters(printer.getParameters())
+                .fields(fields)
+                .conditions(conditions)
+                .limit(limit)
+                .offset(offset);
+    }
+
+    /**
+     * Gets the condition satisfied by the rows that are greater than or equal to a given row, comparing their fields
+     * in order (the {@code NULL} values are less than any other value).
+     *
+     * @param fields the fields
+     * @param row    the values of the row
+     * @return the condition
+     */
+    private static Expression keysetCondition(List<String> fields, List<String> row) {
+        List<Expression> operands = new ArrayList<>();
+        List<Expression> equalities = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Column column = new Column(fields.get(i));
+            String value = row.get(i);
+            List<Expression> greater = new ArrayList<>(equalities);
+            greater.add(isNull(value) ? new IsNull(column, true) : new Comparison(column, ">", new Parameter(value)));
+            operands.add(new And(greater));
+            equalities.add(isNull(value) ? new IsNull(column, false)
+                    : new Comparison(column, Comparison.EQUALS, new Parameter(value)));
+        }
+        operands.add(new And(equalities));
+        return new Or(operands);
     }
 
     /**
@@ -262,64 +510,114 @@ public class SqlQueries {
      * @param field the field
      * @return the sql query
      */
-    public String showFieldDistinct(String field) {
-        String fieldClean = replaceSpecialChars(field);
-        String sqlQuery = "SELECT DISTINCT " + fieldClean + " AS `" + field + "` FROM " + table;
-        if (!filters.isEmpty()) {
-            sqlQuery += " WHERE " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return sqlQuery;
+    public Query showFieldDistinct(String field) {
+        SelectStatement statement = new SelectStatement()
+                .distinct(true)
+                .select(field)
+                .where(getFiltersAsSqlConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(Collections.singletonList(field))
+                .distinct(true)
+                .conditions(getFiltersAsConditions());
     }
 
     /**
      * Generates a SQL query for the {@link FrequentValueInField} workflow.
+     * <p>
+     * The frequencies of the values (among the filtered rows) are computed in a single grouped scan, and the groups are
+     * ranked by their frequency with a window function ({@code RANK() OVER (ORDER BY COUNT(field))}), so the top (or
+     * bottom) {@code k} values are selected, with ties, without scanning the table again.
      *
      * @param field        the field
      * @param mostFrequent indicates weather to get the highest (if true) or the lowest (if false) frequency
+     * @param k            the number of frequency ranks to get (the values tied with the {@code k}-th value are also
+     *                     selected)
      * @return the sql query
      */
-    public String frequentValueInField(String field, boolean mostFrequent) {
-        String fieldClean = replaceSpecialChars(field);
+    public Query frequentValueInField(String field, boolean mostFrequent, int k) {
+        return frequentValueInField(field, mostFrequent, k, false);
+    }
+
+    /**
+     * Generates a SQL query for the {@link FrequentValueInField} workflow, whose frequencies may be approximate (see
+     * {@link MetadataAnswerer}).
+     *
+     * @param field        the field
+     * @param mostFrequent indicates weather to get the highest (if true) or the lowest (if false) frequency
+     * @param k            the number of frequency ranks to get
+     * @param approximate  whether the frequencies may be approximate or not
+     * @return the sql query
+     * @see #frequentValueInField(String, boolean, int)
+     */
+    public Query frequentValueInField(String field, boolean mostFrequent, int k, boolean approximate) {
         String operator = (mostFrequent ? "max" : "min");
-        String sqlQuery =
-            "SELECT " + fieldClean + " AS `" + field + "`, COUNT(" + fieldClean + ") AS freq FROM " + table;
-        if (!filters.isEmpty()) {
-            sqlQuery += " WHERE " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        sqlQuery += " GROUP BY `" + field + "` HAVING freq = ("
-            + "SELECT " + operator + "(freq2) FROM ("
-            + "SELECT " + fieldClean + " AS `" + field + "`, COUNT(" + fieldClean + ") AS freq2 FROM " + table
-            + " GROUP BY `" + field + "`))";
-        return sqlQuery;
+        Column column = new Column(field);
+        FunctionCall frequency = new FunctionCall("COUNT", column);
+        SelectStatement frequencies = new SelectStatement()
+                .select(field)
+                .select(frequency, "freq")
+                .select(new WindowFunction(new FunctionCall("RANK"), new OrderItem(frequency, !mostFrequent)), "rank")
+                .where(getFiltersAsSqlConditions())
+                .groupBy(column)
+                .having(new Comparison(frequency, ">", new Literal("0")));
+        SelectStatement statement = new SelectStatement()
+                .select(new AliasRef(field), field)
+                .select(new AliasRef("freq"), "freq")
+                .from(new DerivedTable(frequencies, null))
+                .where(new Comparison(new AliasRef("rank"), "<=", new Literal(String.valueOf(k))))
+                .orderBy(new AliasRef("freq"), !mostFrequent)
+                .orderBy(new AliasRef(field), true);
+        return build(statement, Query.Operation.FREQUENT_VALUE)
+                .fields(Collections.singletonList(field))
+                .function(operator)
+                .limit(k)
+                .conditions(getFiltersAsConditions())
+                .approximate(approximate);
     }
 
     /**
      * Generates a SQL query for the {@link Value1vsValue2} workflow.
-     * <p>
      *
      * @param field1 the first field
      * @param value1 the value of the first field
      * @param field2 the second field
      * @param value2 the value of the second field
      * @return the sql query
+     * @see #compareValues(List, List)
      */
-    public String value1VSValue2(String field1, String value1, String field2, String value2) {
-        String field1Clean = replaceSpecialChars(field1);
-        String field2Clean = replaceSpecialChars(field2);
-
-        String sqlQuery1 = "SELECT 1 AS id, " + field1Clean + " AS `" + field1 + "`, COUNT(" + field1Clean + ") AS freq"
-                + " FROM " + table + " WHERE " + field1Clean + " = '" + escapeQuotes(value1) + "'";
+    public Query value1VSValue2(String field1, String value1, String field2, String value2) {
+        return compareValues(Arrays.asList(field1, field2), Arrays.asList(value1, value2));
+    }
 
-        String sqlQuery2 = "SELECT 1 AS id, " + field2Clean + " AS `" + field2 + "`, COUNT(" + field2Clean + ") AS freq"
-                + " FROM " + table + " WHERE " + field2Clean + " = '" + escapeQuotes(value2) + "'";
-        if (!filters.isEmpty()) {
-            sqlQuery1 += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-            sqlQuery2 += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
+    /**
+     * Generates a SQL query that counts the rows where each field is equal to its corresponding value (e.g. to know
+     * which of some values is the most frequent one).
+     * <p>
+     * All the values are counted in a single scan of the table with conditional aggregation (i.e.
+     * {@code COUNT(CASE WHEN field = ? THEN 1 END)}), no matter how many values are compared. The result has a single
+     * row, with the frequency of each value in a column named {@code freq1}, {@code freq2}... (in the same order as
+     * the values).
+     *
+     * @param fields the fields
+     * @param values the values, one for each field
+     * @return the sql query
+     */
+    public Query compareValues(List<String> fields, List<String> values) {
+        if (fields.size() != values.size()) {
+            throw new IllegalArgumentException("The number of fields (" + fields.size() + ") is not equal to the "
+                    + "number of values (" + values.size() + ")");
         }
-        sqlQuery1 += " GROUP BY `" + field1 + "`";
-        sqlQuery2 += " GROUP BY `" + field2 + "`";
-
-        return  "SELECT * FROM (" + sqlQuery1 + ") a FULL OUTER JOIN (" + sqlQuery2 + ") b ON a.id = b.id";
+        SelectStatement statement = new SelectStatement()
+                .where(getFiltersAsSqlConditions());
+        for (int i = 0; i < fields.size(); i++) {
+            Expression condition = new Comparison(new Column(fields.get(i)), Comparison.EQUALS,
+                    new Parameter(values.get(i)));
+            statement.select(new FunctionCall("COUNT", new CaseWhen(condition, new Literal("1"))), "freq" + (i + 1));
+        }
+        return build(statement, Query.Operation.COMPARE_VALUES)
+                .fields(fields)
+                .values(values)
+                .conditions(getFiltersAsConditions());
     }
 
     /**
@@ -329,13 +627,31 @@ public class SqlQueries {
      * @param value the value of the 'where' condition
      * @return the sql query
      */
-    public String valueFrequency(String field, String value) {
-        String fieldClean = replaceSpecialChars(field);
-        String sqlQuery = "SELECT COUNT(" + fieldClean + ") AS freq FROM " + table + " WHERE " + fieldClean + " = '" + escapeQuotes(value) + "'";
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return sqlQuery;
+    public Query valueFrequency(String field, String value) {
+        return valueFrequency(field, value, false);
+    }
+
+    /**
+     * Generates a SQL query for the {@link ValueFrequency} workflow, whose frequency may be approximate (see
+     * {@link MetadataAnswerer}).
+     *
+     * @param field       the field of the 'where' condition
+     * @param value       the value of the 'where' condition
+     * @param approximate whether the frequency may be approximate or not
+     * @return the sql query
+     */
+    public Query valueFrequency(String field, String value, boolean approximate) {
+        Column column = new Column(field);
+        SelectStatement statement = new SelectStatement()
+                .select(new FunctionCall("COUNT", column), "freq")
+                .where(new Comparison(column, Comparison.EQUALS, new Parameter(value)))
+                .where(getFiltersAsSqlConditions());
+        List<Condition> conditions = getFiltersAsConditions();
+        conditions.add(new Condition(field, Condition.VALUE_EQUALS, value));
+        return build(statement, Query.Operation.COUNT)
+                .label("freq")
+                .conditions(conditions)
+                .approximate(approximate);
     }
 
     /**
@@ -343,12 +659,26 @@ public class SqlQueries {
      *
      * @return the sql query
      */
-    public String rowCount() {
-        String sqlQuery = "SELECT COUNT(*) AS count FROM " + table;
-        if (!filters.isEmpty()) {
-            sqlQuery += " WHERE " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return  sqlQuery;
+    public Query rowCount() {
+        return rowCount(false);
+    }
+
+    /**
+     * Generates a SQL query for the {@link RowCount} workflow, whose count may be estimated from a sample (see
+     * {@link com.xatkit.bot.sql.columnar.SampleEngine}).
+     *
+     * @param approximate whether the count may be approximate or not
+     * @return the sql query
+     * @see #rowCount()
+     */
+    public Query rowCount(boolean approximate) {
+        SelectStatement statement = new SelectStatement()
+                .select(new FunctionCall("COUNT", Literal.ALL), "count")
+                .where(getFiltersAsSqlConditions());
+        return build(statement, Query.Operation.COUNT)
+                .label("count")
+                .conditions(getFiltersAsConditions())
+                .approximate(approximate);
     }
 
     /**
@@ -356,8 +686,15 @@ public class SqlQueries {
      *
      * @return the sql query
      */
-    public String fieldCount() {
-        return "SELECT * FROM " + table + " LIMIT 0";
+    public Query fieldCount() {
+        SelectStatement statement = new SelectStatement().limit(0);
+        if (normalizedColumns) {
+            // The normalized shadow columns are not fields of the data
+            statement.select(allFields);
+        } else {
+            statement.select(Literal.ALL, null);
+        }
+        return build(statement, Query.Operation.FIELD_COUNT);
     }
 
     /**
@@ -372,33 +709,25 @@ public class SqlQueries {
      * @param number        the number of rows to select
      * @return the sql query
      */
-    public String selectFieldsWithConditionsMaxMinOperator(List<String> selectFields, String opField, String operator, String dataType, Map<String, String> valueFieldMap, String number) {
-        List<String> selectFieldsClean =
-                selectFields.stream().map(SqlQueries::replaceSpecialChars).collect(Collectors.toList());
-        String selectFieldsString = String.join(", ", Streams.zip(selectFieldsClean.stream(), selectFields.stream(),
-                (fClean, f) -> fClean + " AS `" + f + "`").collect(Collectors.toList()));
-        if (!selectFieldsString.isEmpty()) {
-            selectFieldsString += ", ";
-        }
-        String opFieldClean = replaceSpecialChars(opField);
-        Map<String, String> fieldValueMapClean = new HashMap<>();
-        for (Map.Entry<String, String> entry : valueFieldMap.entrySet()) {
-            fieldValueMapClean.put(escapeQuotes(entry.getKey()), replaceSpecialChars(entry.getValue()));
-        }
-        String fieldsValuesString = String.join(" AND ", Streams.zip(fieldValueMapClean.keySet().stream(), fieldValueMapClean.values().stream(),
-                (v, f) -> f + " = '" + v + "'").collect(Collectors.toList()));
-        if (!fieldsValuesString.isEmpty()) {
-            fieldsValuesString = " AND " + fieldsValuesString;
-        }
-        String order = (operator.equals(MIN) ? "ASC" : "DESC");
-
-        String sqlQuery = "SELECT " + selectFieldsString + cast(opFieldClean, dataType) + " AS `"
-                + opField + "` FROM " + table + " WHERE " + opFieldClean + " <> '' " + fieldsValuesString;
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        sqlQuery += "  ORDER BY `" + opField + "` " + order + " LIMIT " + number;
-        return sqlQuery;
+    public Query selectFieldsWithConditionsMaxMinOperator(List<String> selectFields, String opField, String operator, String dataType, Map<String, String> valueFieldMap, String number) {
+        SelectStatement statement = new SelectStatement()
+                .select(selectFields)
+                .select(cast(opField, dataType), opField)
+                .where(new NotEmpty(new Column(opField)))
+                .where(toSqlConditions(valueFieldMap))
+                .where(getFiltersAsSqlConditions())
+                .orderBy(new AliasRef(opField), operator.equals(MIN))
+                .limit(Integer.parseInt(number));
+        List<String> fields = new ArrayList<>(selectFields);
+        fields.add(opField);
+        List<Condition> conditions = toConditions(valueFieldMap);
+        conditions.add(new Condition(opField, Condition.NOT_EMPTY, null, null, dataType));
+        conditions.addAll(getFiltersAsConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(fields)
+                .conditions(conditions)
+                .orderBy(opField, dataType, operator.equals(MIN))
+                .limit(Integer.parseInt(number));
     }
 
     /**
@@ -410,24 +739,36 @@ public class SqlQueries {
      * @param valueFieldMap the value field map storing the WHERE conditions (e.g. FIELD = 'value')
      * @return the sql query
      */
-    public String selectFieldsWithConditionsAvgSumOperator(String opField, String operator, Map<String, String> valueFieldMap) {
-        String opFieldClean = replaceSpecialChars(opField);
-        Map<String, String> fieldValueMapClean = new HashMap<>();
-        for (Map.Entry<String, String> entry : valueFieldMap.entrySet()) {
-            fieldValueMapClean.put(escapeQuotes(entry.getKey()), replaceSpecialChars(entry.getValue()));
-        }
-        String fieldsValuesString = String.join(" AND ", Streams.zip(fieldValueMapClean.keySet().stream(), fieldValueMapClean.values().stream(),
-                (v, f) -> f + " = '" + v + "'").collect(Collectors.toList()));
-        if (!fieldsValuesString.isEmpty()) {
-            fieldsValuesString = " AND " + fieldsValuesString;
-        }
+    public Query selectFieldsWithConditionsAvgSumOperator(String opField, String operator, Map<String, String> valueFieldMap) {
+        return selectFieldsWithConditionsAvgSumOperator(opField, operator, valueFieldMap, false);
+    }
 
-        String sqlQuery = "SELECT " + operator + "(" + toDecimal(opFieldClean) + ") AS `"
-                + opField + "` FROM " + table + " WHERE " + opFieldClean + " <> '' " + fieldsValuesString;
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return sqlQuery;
+    /**
+     * Generates a SQL query for the {@link SelectFieldsWithConditions} workflow (avg/sum operators), whose result may
+     * be estimated from a sample (see {@link com.xatkit.bot.sql.columnar.SampleEngine}).
+     *
+     * @param opField       the field to which the operator is applied
+     * @param operator      the operator to apply to opField
+     * @param valueFieldMap the value field map storing the WHERE conditions (e.g. FIELD = 'value')
+     * @param approximate   whether the result may be approximate or not
+     * @return the sql query
+     * @see #selectFieldsWithConditionsAvgSumOperator(String, String, Map)
+     */
+    public Query selectFieldsWithConditionsAvgSumOperator(String opField, String operator,
+                                                          Map<String, String> valueFieldMap, boolean approximate) {
+        SelectStatement statement = new SelectStatement()
+                .select(new FunctionCall(operator, cast(opField, DECIMAL)), opField)
+                .where(new NotEmpty(new Column(opField)))
+                .where(toSqlConditions(valueFieldMap))
+                .where(getFiltersAsSqlConditions());
+        List<Condition> conditions = toConditions(valueFieldMap);
+        conditions.add(new Condition(opField, Condition.NOT_EMPTY, null, null, DECIMAL));
+        conditions.addAll(getFiltersAsConditions());
+        return build(statement, Query.Operation.AGGREGATE)
+                .fields(Collections.singletonList(opField))
+                .function(operator)
+                .conditions(conditions)
+                .approximate(approximate);
     }
 
 
@@ -440,27 +781,33 @@ public class SqlQueries {
      * @param isDistinct    the whether the selection should be distinct (true) or not (false)
      * @return the sql query
      */
-    public String selectFieldsWithConditionsNoOperator(List<String> selectFields, Map<String, String> valueFieldMap, boolean isDistinct) {
-        List<String> selectFieldsClean =
-                selectFields.stream().map(SqlQueries::replaceSpecialChars).collect(Collectors.toList());
-        String selectFieldsString = String.join(", ", Streams.zip(selectFieldsClean.stream(), selectFields.stream(),
-                (fClean, f) -> fClean + " AS `" + f + "`").collect(Collectors.toList()));
-        Map<String, String> fieldValueMapClean = new HashMap<>();
-        for (Map.Entry<String, String> entry : valueFieldMap.entrySet()) {
-            fieldValueMapClean.put(escapeQuotes(entry.getKey()), replaceSpecialChars(entry.getValue()));
-        }
-        String fieldsValuesString = String.join(" AND ", Streams.zip(fieldValueMapClean.keySet().stream(), fieldValueMapClean.values().stream(),
-                (v, f) -> f + " = '" + v + "'").collect(Collectors.toList()));
-        if (fieldsValuesString.isEmpty()) {
-            fieldsValuesString = "TRUE";
-        }
-        String distinct = (isDistinct ? "DISTINCT " : "");
-        String sqlQuery = "SELECT " + distinct + selectFieldsString + " FROM " + table
-                + " WHERE " + fieldsValuesString;
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return sqlQuery;
+    public Query selectFieldsWithConditionsNoOperator(List<String> selectFields, Map<String, String> valueFieldMap, boolean isDistinct) {
+        SelectStatement statement = new SelectStatement()
+                .distinct(isDistinct)
+                .select(selectFields)
+                .where(toSqlConditions(valueFieldMap))
+                .where(getFiltersAsSqlConditions());
+        List<Condition> conditions = toConditions(valueFieldMap);
+        conditions.addAll(getFiltersAsConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(selectFields)
+                .distinct(isDistinct)
+                .conditions(conditions);
+    }
+
+    /**
+     * Generates a SQL query for the {@link SelectFieldsWithConditions} workflow that counts the distinct rows of the
+     * select fields.
+     * <p>
+     * The count is only shown to the user, so it may be approximate (see {@link MetadataAnswerer}).
+     *
+     * @param selectFields  the select fields
+     * @param valueFieldMap the value field map storing the WHERE conditions (e.g. FIELD = 'value')
+     * @return the sql query
+     */
+    public Query selectFieldsWithConditionsDistinctCount(List<String> selectFields, Map<String, String> valueFieldMap) {
+        return selectFieldsWithConditionsNoOperator(selectFields, valueFieldMap, true).count()
+                .approximate(true);
     }
 
     /**
@@ -472,21 +819,20 @@ public class SqlQueries {
      * @param value        the value
      * @return the string
      */
-    public String fieldOperatorValue(List<String> selectFields, String field, String operator, String value) {
+    public Query fieldOperatorValue(List<String> selectFields, String field, String operator, String value) {
         if (!selectFields.contains(field)) {
             selectFields.add(field);
         }
-        List<String> selectFieldsClean =
-                selectFields.stream().map(SqlQueries::replaceSpecialChars).collect(Collectors.toList());
-        String selectFieldsString = String.join(", ", Streams.zip(selectFieldsClean.stream(), selectFields.stream(),
-                (fClean, f) -> fClean + " AS `" + f + "`").collect(Collectors.toList()));
-
-        String sqlQuery = "SELECT " + selectFieldsString + " FROM " + table
-                + " WHERE " + toSqlCondition(field, operator, escapeQuotes(value));
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
-        }
-        return sqlQuery;
+        SelectStatement statement = new SelectStatement()
+                .select(selectFields)
+                .where(toSqlCondition(field, operator, value))
+                .where(getFiltersAsSqlConditions());
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(new Condition(field, operator, value));
+        conditions.addAll(getFiltersAsConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(selectFields)
+                .conditions(conditions);
     }
 
     /**
@@ -499,35 +845,26 @@ public class SqlQueries {
      * @param dataType     the data type of the field
      * @return the string
      */
-    public String fieldBetweenValues(List<String> selectFields, String field, String value1, String value2, String dataType) {
+    public Query fieldBetweenValues(List<String> selectFields, String field, String value1, String value2, String dataType) {
         if (!selectFields.contains(field)) {
             selectFields.add(field);
         }
-        List<String> selectFieldsClean =
-                selectFields.stream().map(SqlQueries::replaceSpecialChars).collect(Collectors.toList());
-        String selectFieldsString = String.join(", ", Streams.zip(selectFieldsClean.stream(), selectFields.stream(),
-                (fClean, f) -> fClean + " AS `" + f + "`").collect(Collectors.toList()));
-
-        String fieldClean = replaceSpecialChars(field);
-        String castedField = null;
-        String castedValue1 = null;
-        String castedValue2 = null;
-        if (dataType.equals(DATETIME)) {
-            castedField = toDateTime(fieldClean);
-            castedValue1 = toDateTime("'" + escapeQuotes(value1) + "'");
-            castedValue2 = toDateTime("'" + escapeQuotes(value2) + "'");
-        } else if (dataType.equals(DECIMAL)) {
-            castedField = toDecimal(fieldClean);
-            castedValue1 = toDecimal(escapeQuotes(value1));
-            castedValue2 = toDecimal(escapeQuotes(value2));
-        }
-
-        String sqlQuery = "SELECT " + selectFieldsString + " FROM " + table
-                + " WHERE " + fieldClean + " <> '' AND "
-                + castedField + " BETWEEN " + castedValue1 + " AND " + castedValue2;
-        if (!filters.isEmpty()) {
-            sqlQuery += " AND " + String.join(" AND ", getFiltersAsSqlConditions());
+        Expression low = new Parameter(value1);
+        Expression high = new Parameter(value2);
+        if (DECIMAL.equals(dataType) || DATETIME.equals(dataType)) {
+            low = new Cast(low, dataType);
+            high = new Cast(high, dataType);
         }
-        return sqlQuery;
+        SelectStatement statement = new SelectStatement()
+                .select(selectFields)
+                .where(new NotEmpty(new Column(field)))
+                .where(new Between(cast(field, dataType), low, high))
+                .where(getFiltersAsSqlConditions());
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(new Condition(field, Condition.BETWEEN, value1, value2, dataType));
+        conditions.addAll(getFiltersAsConditions());
+        return build(statement, Query.Operation.SELECT)
+                .fields(selectFields)
+                .conditions(conditions);
     }
 }
@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A reference to the alias of a {@link Projection} (e.g. to sort by it).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class AliasRef extends Expression {
+
+    /**
+     * The alias.
+     */
+    private final String alias;
+
+    /**
+     * Instantiates a new {@link AliasRef}.
+     *
+     * @param alias the alias
+     */
+    public AliasRef(String alias) {
+        this.alias = alias;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
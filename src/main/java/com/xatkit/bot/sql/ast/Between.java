@@ -0,0 +1,48 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The condition {@code expression BETWEEN low AND high}.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Between extends Expression {
+
+    /**
+     * The expression to compare.
+     */
+    private final Expression expression;
+
+    /**
+     * The lower bound (inclusive).
+     */
+    private final Expression low;
+
+    /**
+     * The upper bound (inclusive).
+     */
+    private final Expression high;
+
+    /**
+     * Instantiates a new {@link Between}.
+     *
+     * @param expression the expression to compare
+     * @param low        the lower bound
+     * @param high       the upper bound
+     */
+    public Between(Expression expression, Expression low, Expression high) {
+        this.expression = expression;
+        this.low = low;
+        this.high = high;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(new Between(expression.transform(rewriter), low.transform(rewriter),
+                high.transform(rewriter)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The expression {@code CASE WHEN condition THEN result END}, which is {@code NULL} when the condition is not
+ * satisfied.
+ * <p>
+ * It is used for conditional aggregation (e.g. {@code COUNT(CASE WHEN col = ? THEN 1 END)}), so several conditions are
+ * aggregated in a single scan of the table.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class CaseWhen extends Expression {
+
+    /**
+     * The condition.
+     */
+    private final Expression condition;
+
+    /**
+     * The result when the condition is satisfied.
+     */
+    private final Expression result;
+
+    /**
+     * Instantiates a new {@link CaseWhen}.
+     *
+     * @param condition the condition
+     * @param result    the result when the condition is satisfied
+     */
+    public CaseWhen(Expression condition, Expression result) {
+        this.condition = condition;
+        this.result = result;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(new CaseWhen(condition.transform(rewriter), result.transform(rewriter)));
+    }
+}
@@ -0,0 +1,50 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DATETIME;
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+
+/**
+ * The cast of an expression to a data type ({@code decimal} or {@code datetime}).
+ * <p>
+ * How the value is cast depends on the backend (see {@link com.xatkit.bot.sql.QueryBackend#toDecimal(String)} and
+ * {@link com.xatkit.bot.sql.QueryBackend#toDateTime(String)}).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Cast extends Expression {
+
+    /**
+     * The expression to cast.
+     */
+    private final Expression expression;
+
+    /**
+     * The data type, {@link com.xatkit.bot.customQuery.AbstractCustomQuery#DECIMAL} or
+     * {@link com.xatkit.bot.customQuery.AbstractCustomQuery#DATETIME}.
+     */
+    private final String dataType;
+
+    /**
+     * Instantiates a new {@link Cast}.
+     *
+     * @param expression the expression to cast
+     * @param dataType   the data type
+     */
+    public Cast(Expression expression, String dataType) {
+        if (!DECIMAL.equals(dataType) && !DATETIME.equals(dataType)) {
+            throw new IllegalArgumentException("Cannot cast to the data type " + dataType);
+        }
+        this.expression = expression;
+        this.dataType = dataType;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(new Cast(expression.transform(rewriter), dataType));
+    }
+}
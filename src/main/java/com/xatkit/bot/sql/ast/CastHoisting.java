@@ -0,0 +1,49 @@
+package com.xatkit.bot.sql.ast;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
+
+/**
+ * Moves the conversions of the parameters out of the SQL statement, so they are done once when the query is generated
+ * instead of by the database:
+ * <ul>
+ *     <li>{@code UPPER(?)} becomes {@code ?}, with the value in upper case</li>
+ *     <li>The values of the decimal parameters are normalized (e.g. {@code 3,50} becomes {@code 3.5}), so the
+ *     database can cast them and equal values share the same cached result</li>
+ * </ul>
+ */
+class CastHoisting implements OptimizerPass {
+
+    @Override
+    public List<Expression> apply(List<Expression> conditions) {
+        List<Expression> newConditions = new ArrayList<>();
+        for (Expression condition : conditions) {
+            newConditions.add(condition.transform(CastHoisting::hoist));
+        }
+        return newConditions;
+    }
+
+    private static Expression hoist(Expression expression) {
+        if (expression instanceof Upper && ((Upper) expression).getExpression() instanceof Parameter) {
+            String value = ((Parameter) ((Upper) expression).getExpression()).getValue();
+            String upperValue = value.toUpperCase(Locale.ROOT);
+            // Only if each character has a single upper case character, like in the database
+            if (upperValue.length() == value.length()) {
+                return new Parameter(upperValue);
+            }
+        } else if (expression instanceof Cast && ((Cast) expression).getExpression() instanceof Parameter
+                && DECIMAL.equals(((Cast) expression).getDataType())) {
+            BigDecimal value = parseDecimal(((Parameter) ((Cast) expression).getExpression()).getValue());
+            if (!isNull(value)) {
+                return new Cast(new Parameter(value.stripTrailingZeros().toPlainString()), DECIMAL);
+            }
+        }
+        return expression;
+    }
+}
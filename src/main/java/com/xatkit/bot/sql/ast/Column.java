@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A reference to the column of a field of the table.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Column extends Expression {
+
+    /**
+     * The field (i.e. the original name of the column).
+     */
+    private final String field;
+
+    /**
+     * Instantiates a new {@link Column}.
+     *
+     * @param field the field
+     */
+    public Column(String field) {
+        this.field = field;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
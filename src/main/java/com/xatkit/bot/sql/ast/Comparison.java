@@ -0,0 +1,62 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A binary comparison condition (e.g. {@code a = b}, {@code a < b}, {@code a LIKE b}).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Comparison extends Expression {
+
+    /**
+     * The equality operator.
+     */
+    public static final String EQUALS = "=";
+
+    /**
+     * The inequality operator.
+     */
+    public static final String NOT_EQUALS = "<>";
+
+    /**
+     * The pattern matching operator.
+     */
+    public static final String LIKE = "LIKE";
+
+    /**
+     * The left operand.
+     */
+    private final Expression left;
+
+    /**
+     * The SQL comparison operator.
+     */
+    private final String operator;
+
+    /**
+     * The right operand.
+     */
+    private final Expression right;
+
+    /**
+     * Instantiates a new {@link Comparison}.
+     *
+     * @param left     the left operand
+     * @param operator the SQL comparison operator
+     * @param right    the right operand
+     */
+    public Comparison(Expression left, String operator, Expression right) {
+        this.left = left;
+        this.operator = operator;
+        this.right = right;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(new Comparison(left.transform(rewriter), operator, right.transform(rewriter)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.xatkit.bot.sql.ast;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
+
+/**
+ * Evaluates the conditions whose result does not depend on the rows:
+ * <ul>
+ *     <li>Nested conjunctions are flattened, and {@code TRUE} conditions are removed</li>
+ *     <li>A comparison with a decimal parameter that is not a number is {@code FALSE} (instead of failing in the
+ *     database)</li>
+ *     <li>A {@code BETWEEN} whose lower bound is greater than its upper bound is {@code FALSE}</li>
+ *     <li>A conjunction with a {@code FALSE} condition is {@code FALSE}</li>
+ * </ul>
+ */
+class ConstantFolding implements OptimizerPass {
+
+    @Override
+    public List<Expression> apply(List<Expression> conditions) {
+        List<Expression> newConditions = new ArrayList<>();
+        for (Expression condition : conditions) {
+            newConditions.add(condition.transform(ConstantFolding::fold));
+        }
+        return foldConjunction(newConditions);
+    }
+
+    private static Expression fold(Expression expression) {
+        if (expression instanceof Comparison) {
+            Comparison comparison = (Comparison) expression;
+            if (isInvalidDecimal(comparison.getLeft()) || isInvalidDecimal(comparison.getRight())) {
+                return Literal.FALSE;
+            }
+        } else if (expression instanceof Between) {
+            Between between = (Between) expression;
+            if (isInvalidDecimal(between.getLow()) || isInvalidDecimal(between.getHigh())) {
+                return Literal.FALSE;
+            }
+            BigDecimal low = decimalValue(between.getLow());
+            BigDecimal high = decimalValue(between.getHigh());
+            if (!isNull(low) && !isNull(high) && low.compareTo(high) > 0) {
+                return Literal.FALSE;
+            }
+        } else if (expression instanceof And) {
+            List<Expression> operands = foldConjunction(((And) expression).getOperands());
+            if (operands.isEmpty()) {
+                return Literal.TRUE;
+            }
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+        return expression;
+    }
+
+    /**
+     * Flattens a conjunction and removes its {@code TRUE} conditions.
+     *
+     * @param conditions the conditions joined with {@code AND}
+     * @return the folded conditions (an empty list if they are always true)
+     */
+    private static List<Expression> foldConjunction(List<Expression> conditions) {
+        List<Expression> newConditions = new ArrayList<>();
+        for (Expression condition : conditions) {
+            if (Literal.FALSE.equals(condition)) {
+                return Collections.singletonList(Literal.FALSE);
+            }
+            if (condition instanceof And) {
+                newConditions.addAll(((And) condition).getOperands());
+            } else if (!Literal.TRUE.equals(condition)) {
+                newConditions.add(condition);
+            }
+        }
+        return newConditions;
+    }
+
+    /**
+     * Gets the value of a decimal parameter.
+     *
+     * @param expression the expression
+     * @return the value, or {@code null} if the expression is not a decimal parameter or its value is not a number
+     */
+    private static BigDecimal decimalValue(Expression expression) {
+        if (expression instanceof Cast && DECIMAL.equals(((Cast) expression).getDataType())
+                && ((Cast) expression).getExpression() instanceof Parameter) {
+            return parseDecimal(((Parameter) ((Cast) expression).getExpression()).getValue());
+        }
+        return null;
+    }
+
+    private static boolean isInvalidDecimal(Expression expression) {
+        return expression instanceof Cast && DECIMAL.equals(((Cast) expression).getDataType())
+                && ((Cast) expression).getExpression() instanceof Parameter && isNull(decimalValue(expression));
+    }
+}
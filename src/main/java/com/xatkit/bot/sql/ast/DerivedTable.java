@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The result of a subquery used as a table.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class DerivedTable extends Relation {
+
+    /**
+     * The subquery.
+     */
+    private final SelectStatement statement;
+
+    /**
+     * The alias of the table, or {@code null} if it has no alias.
+     */
+    private final String alias;
+
+    /**
+     * Instantiates a new {@link DerivedTable}.
+     *
+     * @param statement the subquery
+     * @param alias     the alias of the table, or {@code null} if it has no alias
+     */
+    public DerivedTable(SelectStatement statement, String alias) {
+        this.statement = statement;
+        this.alias = alias;
+    }
+}
@@ -0,0 +1,21 @@
+package com.xatkit.bot.sql.ast;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * An expression of a {@link SelectStatement} (a column, a parameter, a function call, a condition...).
+ * <p>
+ * Expressions are immutable, and they are compared by value, so equal conditions can be detected (see
+ * {@link QueryOptimizer}).
+ */
+public abstract class Expression {
+
+    /**
+     * Rewrites the expression bottom-up: the operands are rewritten first, and then the expression (with the rewritten
+     * operands) is given to the rewriter.
+     *
+     * @param rewriter the function that rewrites each expression
+     * @return the rewritten expression
+     */
+    public abstract Expression transform(UnaryOperator<Expression> rewriter);
+}
@@ -0,0 +1,57 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A call to a SQL function (e.g. an aggregate function like {@code COUNT} or {@code MAX}).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class FunctionCall extends Expression {
+
+    /**
+     * The name of the function.
+     */
+    private final String name;
+
+    /**
+     * The arguments of the function.
+     */
+    private final List<Expression> arguments;
+
+    /**
+     * Instantiates a new {@link FunctionCall}.
+     *
+     * @param name      the name of the function
+     * @param arguments the arguments
+     */
+    public FunctionCall(String name, Expression... arguments) {
+        this(name, Arrays.asList(arguments));
+    }
+
+    /**
+     * Instantiates a new {@link FunctionCall}.
+     *
+     * @param name      the name of the function
+     * @param arguments the arguments
+     */
+    public FunctionCall(String name, List<Expression> arguments) {
+        this.name = name;
+        this.arguments = new ArrayList<>(arguments);
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        List<Expression> newArguments = new ArrayList<>();
+        for (Expression argument : arguments) {
+            newArguments.add(argument.transform(rewriter));
+        }
+        return rewriter.apply(new FunctionCall(name, newArguments));
+    }
+}
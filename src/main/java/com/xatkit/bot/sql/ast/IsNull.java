@@ -0,0 +1,40 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The condition that checks whether a column is {@code NULL} (or not, if it is negated).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class IsNull extends Expression {
+
+    /**
+     * The column.
+     */
+    private final Column column;
+
+    /**
+     * Whether the condition checks that the column is not {@code NULL} or not.
+     */
+    private final boolean negated;
+
+    /**
+     * Instantiates a new {@link IsNull}.
+     *
+     * @param column  the column
+     * @param negated whether the condition checks that the column is not {@code NULL}
+     */
+    public IsNull(Column column, boolean negated) {
+        this.column = column;
+        this.negated = negated;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
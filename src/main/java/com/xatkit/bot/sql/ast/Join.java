@@ -0,0 +1,40 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The inner join of 2 relations.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Join extends Relation {
+
+    /**
+     * The left relation.
+     */
+    private final Relation left;
+
+    /**
+     * The right relation.
+     */
+    private final Relation right;
+
+    /**
+     * The join condition.
+     */
+    private final Expression on;
+
+    /**
+     * Instantiates a new {@link Join}.
+     *
+     * @param left  the left relation
+     * @param right the right relation
+     * @param on    the join condition
+     */
+    public Join(Relation left, Relation right, Expression on) {
+        this.left = left;
+        this.right = right;
+        this.on = on;
+    }
+}
@@ -0,0 +1,50 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A piece of SQL written as is in the statement (a constant, {@code *}, a qualified column of a join...).
+ * <p>
+ * It must never contain values given by the user, which are {@link Parameter}s.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Literal extends Expression {
+
+    /**
+     * The {@code TRUE} constant.
+     */
+    public static final Literal TRUE = new Literal("TRUE");
+
+    /**
+     * The {@code FALSE} constant.
+     */
+    public static final Literal FALSE = new Literal("FALSE");
+
+    /**
+     * All the columns (i.e. {@code *}).
+     */
+    public static final Literal ALL = new Literal("*");
+
+    /**
+     * The SQL text of the literal.
+     */
+    private final String sql;
+
+    /**
+     * Instantiates a new {@link Literal}.
+     *
+     * @param sql the SQL text
+     */
+    public Literal(String sql) {
+        this.sql = sql;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
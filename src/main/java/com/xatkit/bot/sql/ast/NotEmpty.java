@@ -0,0 +1,36 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The condition that checks that a column is not empty (see
+ * {@link com.xatkit.bot.sql.QueryBackend#notEmpty(String)}).
+ * <p>
+ * It guards the conditions that cast the column, so the empty values are discarded before casting them.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class NotEmpty extends Expression {
+
+    /**
+     * The column.
+     */
+    private final Column column;
+
+    /**
+     * Instantiates a new {@link NotEmpty}.
+     *
+     * @param column the column
+     */
+    public NotEmpty(Column column) {
+        this.column = column;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
@@ -0,0 +1,20 @@
+package com.xatkit.bot.sql.ast;
+
+import java.util.List;
+
+/**
+ * A rewrite pass of the {@link QueryOptimizer}.
+ * <p>
+ * It is applied to the conditions of the {@code WHERE} and {@code HAVING} clauses of each statement, and it must not
+ * change the rows selected by them.
+ */
+interface OptimizerPass {
+
+    /**
+     * Rewrites a list of conditions joined with {@code AND}.
+     *
+     * @param conditions the conditions
+     * @return the rewritten conditions
+     */
+    List<Expression> apply(List<Expression> conditions);
+}
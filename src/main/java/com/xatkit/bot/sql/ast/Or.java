@@ -0,0 +1,39 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * The disjunction of conditions.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Or extends Expression {
+
+    /**
+     * The conditions.
+     */
+    private final List<Expression> operands;
+
+    /**
+     * Instantiates a new {@link Or}.
+     *
+     * @param operands the conditions
+     */
+    public Or(List<Expression> operands) {
+        this.operands = new ArrayList<>(operands);
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        List<Expression> newOperands = new ArrayList<>();
+        for (Expression operand : operands) {
+            newOperands.add(operand.transform(rewriter));
+        }
+        return rewriter.apply(new Or(newOperands));
+    }
+}
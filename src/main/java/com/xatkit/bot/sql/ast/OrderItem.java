@@ -0,0 +1,51 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * An expression of the {@code ORDER BY} clause of a {@link SelectStatement}, with its direction.
+ */
+@Getter
+@EqualsAndHashCode
+public class OrderItem {
+
+    /**
+     * The expression to sort by.
+     */
+    private final Expression expression;
+
+    /**
+     * Whether the rows are sorted in ascending (true) or descending (false) order.
+     */
+    private final boolean ascending;
+
+    /**
+     * Whether the {@code NULL} values are sorted before the other values (in both directions) or where the backend
+     * sorts them by default, which differs from one backend to another.
+     */
+    private final boolean nullsFirst;
+
+    /**
+     * Instantiates a new {@link OrderItem}.
+     *
+     * @param expression the expression to sort by
+     * @param ascending  whether the order is ascending or descending
+     */
+    public OrderItem(Expression expression, boolean ascending) {
+        this(expression, ascending, false);
+    }
+
+    /**
+     * Instantiates a new {@link OrderItem}.
+     *
+     * @param expression the expression to sort by
+     * @param ascending  whether the order is ascending or descending
+     * @param nullsFirst whether the {@code NULL} values are sorted before the other values
+     */
+    public OrderItem(Expression expression, boolean ascending, boolean nullsFirst) {
+        this.expression = expression;
+        this.ascending = ascending;
+        this.nullsFirst = nullsFirst;
+    }
+}
@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A value given by the user, which is printed as a {@code ?} placeholder and bound to the statement.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Parameter extends Expression {
+
+    /**
+     * The value of the parameter.
+     */
+    private final String value;
+
+    /**
+     * Instantiates a new {@link Parameter}.
+     *
+     * @param value the value
+     */
+    public Parameter(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(this);
+    }
+}
@@ -0,0 +1,244 @@
+package com.xatkit.bot.sql.ast;
+
+import com.xatkit.bot.sql.DataPartitions;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.SqlQueries;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static com.xatkit.bot.library.Utils.normalize;
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * Selects the partitions of the data a statement needs to read (see {@link DataPartitions}).
+ * <p>
+ * The value of a partition field is the same in all the rows of a partition, so the conditions of the {@code WHERE}
+ * clause that only depend on partition fields can be evaluated once per partition: if one of them is false, no row of
+ * the partition is selected. The conditions that cannot be evaluated this way never discard a partition.
+ */
+class PartitionPruning {
+
+    /**
+     * The partitions of the data.
+     */
+    private final DataPartitions partitions;
+
+    /**
+     * Instantiates a new {@link PartitionPruning}.
+     *
+     * @param partitions the partitions of the data
+     */
+    PartitionPruning(DataPartitions partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Gets the relation to read the rows selected by some conditions from.
+     *
+     * @param conditions the conditions of the {@code WHERE} clause, joined with {@code AND}
+     * @return {@link Table#DATA} if all the partitions must be read, or the table of the partitions to read otherwise
+     */
+    Table prune(List<Expression> conditions) {
+        List<Partition> selectedPartitions = new ArrayList<>();
+        for (Partition partition : partitions.getPartitions()) {
+            if (mayMatch(conditions, partition)) {
+                selectedPartitions.add(partition);
+            }
+        }
+        if (selectedPartitions.size() == partitions.getPartitions().size()) {
+            return Table.DATA;
+        }
+        if (selectedPartitions.isEmpty()) {
+            // The statement still needs a table to select no rows from (e.g. to count 0 rows)
+            selectedPartitions.add(partitions.getPartitions().get(0));
+        }
+        return new Table(selectedPartitions);
+    }
+
+    private boolean mayMatch(List<Expression> conditions, Partition partition) {
+        for (Expression condition : conditions) {
+            if (!mayMatch(condition, partition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a condition may be true in some row of a partition.
+     *
+     * @param condition the condition
+     * @param partition the partition
+     * @return {@code false} if the condition is false in all the rows of the partition, {@code true} otherwise
+     */
+    private boolean mayMatch(Expression condition, Partition partition) {
+        if (Literal.FALSE.equals(condition)) {
+            return false;
+        }
+        if (condition instanceof And) {
+            return mayMatch(((And) condition).getOperands(), partition);
+        }
+        if (condition instanceof NotEmpty) {
+            String value = getValue(((NotEmpty) condition).getColumn(), partition);
+            return isNull(value) || !isEmpty(value);
+        }
+        if (condition instanceof Comparison) {
+            Comparison comparison = (Comparison) condition;
+            return mayMatch(comparison.getLeft(), comparison.getOperator(), comparison.getRight(), partition);
+        }
+        if (condition instanceof Between) {
+            Between between = (Between) condition;
+            return mayMatch(between.getExpression(), ">=", between.getLow(), partition)
+                    && mayMatch(between.getExpression(), "<=", between.getHigh(), partition);
+        }
+        return true;
+    }
+
+    private boolean mayMatch(Expression left, String operator, Expression right, Partition partition) {
+        if (left instanceof Column && right instanceof Parameter) {
+            String value = getValue((Column) left, partition);
+            return isNull(value) || compare(value, operator, ((Parameter) right).getValue());
+        }
+        if (left instanceof Upper && ((Upper) left).getExpression() instanceof Column) {
+            String value = getValue((Column) ((Upper) left).getExpression(), partition);
+            if (isNull(value)) {
+                return true;
+            }
+            if (right instanceof Upper && ((Upper) right).getExpression() instanceof Parameter) {
+                right = new Parameter(((Parameter) ((Upper) right).getExpression()).getValue()
+                        .toUpperCase(Locale.ROOT));
+            }
+            return !(right instanceof Parameter)
+                    || compare(value.toUpperCase(Locale.ROOT), operator, ((Parameter) right).getValue());
+        }
+        if (left instanceof Cast && ((Cast) left).getExpression() instanceof Column && right instanceof Cast
+                && ((Cast) right).getExpression() instanceof Parameter) {
+            String value = getValue((Column) ((Cast) left).getExpression(), partition);
+            String parameter = ((Parameter) ((Cast) right).getExpression()).getValue();
+            if (isNull(value)) {
+                return true;
+            }
+            Integer order;
+            if (DECIMAL.equals(((Cast) left).getDataType())) {
+                order = compareDecimals(value, parameter);
+            } else {
+                order = compareDatetimes(value, parameter);
+            }
+            return isNull(order) || satisfies(order, operator);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of a column in the rows of a partition. The normalized shadow column of a partition field (see
+     * {@link SqlQueries#getNormalizedColumn(String)}) has the normalized value of the field.
+     *
+     * @param column    the column
+     * @param partition the partition
+     * @return the value, or {@code null} if the column is not a partition field (nor its normalized shadow column)
+     */
+    private String getValue(Column column, Partition partition) {
+        String value = partitions.getValue(partition, column.getField());
+        if (isNull(value) && column.getField().endsWith(SqlQueries.NORMALIZED_COLUMN_SUFFIX)) {
+            String field = column.getField().substring(0,
+                    column.getField().length() - SqlQueries.NORMALIZED_COLUMN_SUFFIX.length());
+            value = partitions.getValue(partition, field);
+            return (isNull(value) ? null : normalize(value));
+        }
+        return value;
+    }
+
+    /**
+     * Compares two texts.
+     *
+     * @param value     the value of the column
+     * @param operator  the SQL comparison operator
+     * @param parameter the value of the parameter
+     * @return the result of the comparison (or {@code true} if the operator is unknown)
+     */
+    private static boolean compare(String value, String operator, String parameter) {
+        if (Comparison.LIKE.equals(operator)) {
+            return toRegex(parameter).matcher(value).matches();
+        }
+        return satisfies(value.compareTo(parameter), operator);
+    }
+
+    /**
+     * Checks whether the order of two values satisfies a comparison operator.
+     *
+     * @param order    the order of the values (negative, zero or positive, like {@link Comparable#compareTo(Object)})
+     * @param operator the SQL comparison operator
+     * @return the result of the comparison (or {@code true} if the operator is unknown)
+     */
+    private static boolean satisfies(int order, String operator) {
+        switch (operator) {
+            case Comparison.EQUALS:
+                return order == 0;
+            case Comparison.NOT_EQUALS:
+                return order != 0;
+            case "<":
+                return order < 0;
+            case "<=":
+                return order <= 0;
+            case ">":
+                return order > 0;
+            case ">=":
+                return order >= 0;
+            default:
+                return true;
+        }
+    }
+
+    private static Integer compareDecimals(String value, String parameter) {
+        BigDecimal decimalValue = parseDecimal(value);
+        BigDecimal decimalParameter = parseDecimal(parameter);
+        if (isNull(decimalValue) || isNull(decimalParameter)) {
+            return null;
+        }
+        return decimalValue.compareTo(decimalParameter);
+    }
+
+    private static Integer compareDatetimes(String value, String parameter) {
+        OffsetDateTime datetimeValue = parseDatetime(value);
+        OffsetDateTime datetimeParameter = parseDatetime(parameter);
+        if (isNull(datetimeValue) || isNull(datetimeParameter)) {
+            return null;
+        }
+        return datetimeValue.toInstant().compareTo(datetimeParameter.toInstant());
+    }
+
+    /**
+     * Converts a SQL {@code LIKE} pattern into a regular expression.
+     *
+     * @param pattern the {@code LIKE} pattern
+     * @return the regular expression
+     */
+    private static Pattern toRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
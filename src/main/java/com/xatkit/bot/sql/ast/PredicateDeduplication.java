@@ -0,0 +1,17 @@
+package com.xatkit.bot.sql.ast;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Removes the repeated conditions of a conjunction (e.g. the same {@link NotEmpty} guard added by a condition and by a
+ * filter on the same field), keeping the first one.
+ */
+class PredicateDeduplication implements OptimizerPass {
+
+    @Override
+    public List<Expression> apply(List<Expression> conditions) {
+        return new ArrayList<>(new LinkedHashSet<>(conditions));
+    }
+}
@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * An expression of the select list of a {@link SelectStatement}, with its alias.
+ */
+@Getter
+@EqualsAndHashCode
+public class Projection {
+
+    /**
+     * The expression.
+     */
+    private final Expression expression;
+
+    /**
+     * The alias of the expression, or {@code null} if it has no alias.
+     */
+    private final String alias;
+
+    /**
+     * Instantiates a new {@link Projection}.
+     *
+     * @param expression the expression
+     * @param alias      the alias, or {@code null} if it has no alias
+     */
+    public Projection(Expression expression, String alias) {
+        this.expression = expression;
+        this.alias = alias;
+    }
+}
@@ -0,0 +1,133 @@
+package com.xatkit.bot.sql.ast;
+
+import com.xatkit.bot.sql.DataPartitions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rewrites a {@link SelectStatement} (and its subqueries) into an equivalent but cheaper one.
+ * <p>
+ * The conditions of the {@code WHERE} and {@code HAVING} clauses go through the following passes, in order:
+ * <ol>
+ *     <li>{@link CastHoisting}</li>
+ *     <li>{@link ConstantFolding}</li>
+ *     <li>{@link PredicateDeduplication}</li>
+ *     <li>{@link RedundantGuardRemoval}</li>
+ * </ol>
+ * If the data is split in partitions, the statements that read the table of the data only read the partitions that
+ * may contain the rows selected by their {@code WHERE} clause (see {@link PartitionPruning}).
+ */
+public class QueryOptimizer {
+
+    /**
+     * The passes applied to the conditions, in order.
+     */
+    private final List<OptimizerPass> passes;
+
+    /**
+     * The pruning of the partitions of the data, or {@code null} if the data is not split in partitions (or the backend
+     * cannot read them separately).
+     */
+    private final PartitionPruning partitionPruning;
+
+    /**
+     * Instantiates a new {@link QueryOptimizer}.
+     */
+    public QueryOptimizer() {
+        this(null);
+    }
+
+    /**
+     * Instantiates a new {@link QueryOptimizer} that prunes the partitions of the data.
+     *
+     * @param partitions the partitions of the data, or {@code null} if they cannot be read separately
+     */
+    public QueryOptimizer(DataPartitions partitions) {
+        this(Arrays.asList(
+                new CastHoisting(),
+                new ConstantFolding(),
+                new PredicateDeduplication(),
+                new RedundantGuardRemoval()
+        ), partitions);
+    }
+
+    private QueryOptimizer(List<OptimizerPass> passes, DataPartitions partitions) {
+        this.passes = passes;
+        this.partitionPruning = (partitions != null && partitions.isPartitioned()
+                ? new PartitionPruning(partitions) : null);
+    }
+
+    /**
+     * Gets an optimizer that leaves the statements unchanged, so the optimized statements can be checked against
+     * the original ones.
+     *
+     * @return the optimizer
+     */
+    public static QueryOptimizer disabled() {
+        return new QueryOptimizer(Collections.emptyList(), null);
+    }
+
+    /**
+     * Optimizes a statement (in place).
+     *
+     * @param statement the statement
+     * @return the optimized statement
+     */
+    public SelectStatement optimize(SelectStatement statement) {
+        for (SelectStatement subquery : getSubqueries(statement)) {
+            optimize(subquery);
+        }
+        optimize(statement.getWhere());
+        optimize(statement.getHaving());
+        if (partitionPruning != null && Table.DATA.equals(statement.getFrom())) {
+            statement.from(partitionPruning.prune(statement.getWhere()));
+        }
+        return statement;
+    }
+
+    private void optimize(List<Expression> conditions) {
+        List<Expression> newConditions = new ArrayList<>(conditions);
+        for (OptimizerPass pass : passes) {
+            newConditions = pass.apply(newConditions);
+        }
+        conditions.clear();
+        conditions.addAll(newConditions);
+    }
+
+    /**
+     * Gets the subqueries of a statement (not the subqueries of its subqueries).
+     *
+     * @param statement the statement
+     * @return the subqueries
+     */
+    private static List<SelectStatement> getSubqueries(SelectStatement statement) {
+        List<SelectStatement> subqueries = new ArrayList<>();
+        addSubqueries(statement.getFrom(), subqueries);
+        List<Expression> expressions = new ArrayList<>(statement.getWhere());
+        expressions.addAll(statement.getHaving());
+        for (Projection projection : statement.getProjections()) {
+            expressions.add(projection.getExpression());
+        }
+        for (Expression expression : expressions) {
+            expression.transform(e -> {
+                if (e instanceof ScalarSubquery) {
+                    subqueries.add(((ScalarSubquery) e).getStatement());
+                }
+                return e;
+            });
+        }
+        return subqueries;
+    }
+
+    private static void addSubqueries(Relation relation, List<SelectStatement> subqueries) {
+        if (relation instanceof DerivedTable) {
+            subqueries.add(((DerivedTable) relation).getStatement());
+        } else if (relation instanceof Join) {
+            addSubqueries(((Join) relation).getLeft(), subqueries);
+            addSubqueries(((Join) relation).getRight(), subqueries);
+        }
+    }
+}
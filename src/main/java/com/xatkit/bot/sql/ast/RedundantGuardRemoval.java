@@ -0,0 +1,65 @@
+package com.xatkit.bot.sql.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes the {@link NotEmpty} guards of the columns that are already compared to a non-empty value by another
+ * condition of the conjunction (e.g. {@code col = ?} or {@code UPPER(col) LIKE ?}), since that condition discards the
+ * empty values too.
+ * <p>
+ * The guards must be checked before the conditions that cast the column, so the condition that makes a guard
+ * redundant takes its place.
+ */
+class RedundantGuardRemoval implements OptimizerPass {
+
+    @Override
+    public List<Expression> apply(List<Expression> conditions) {
+        List<Expression> newConditions = new ArrayList<>(conditions);
+        for (int i = 0; i < newConditions.size(); i++) {
+            if (!(newConditions.get(i) instanceof NotEmpty)) {
+                continue;
+            }
+            Column column = ((NotEmpty) newConditions.get(i)).getColumn();
+            for (int j = 0; j < newConditions.size(); j++) {
+                if (j != i && impliesNotEmpty(newConditions.get(j), column)) {
+                    Expression condition = newConditions.remove(j);
+                    newConditions.set(j < i ? i - 1 : i, condition);
+                    break;
+                }
+            }
+        }
+        return newConditions;
+    }
+
+    /**
+     * Checks whether a condition is only satisfied by the rows where a column is not empty.
+     *
+     * @param condition the condition
+     * @param column    the column
+     * @return {@code true} if the condition implies that the column is not empty, {@code false} otherwise
+     */
+    private static boolean impliesNotEmpty(Expression condition, Column column) {
+        if (!(condition instanceof Comparison)) {
+            return false;
+        }
+        Comparison comparison = (Comparison) condition;
+        Expression left = comparison.getLeft();
+        if (left instanceof Upper) {
+            left = ((Upper) left).getExpression();
+        }
+        if (!column.equals(left) || !(comparison.getRight() instanceof Parameter)) {
+            return false;
+        }
+        String value = ((Parameter) comparison.getRight()).getValue();
+        switch (comparison.getOperator()) {
+            case Comparison.EQUALS:
+                return !value.isEmpty();
+            case Comparison.LIKE:
+                // The pattern matches the empty text only if it is made up of % wildcards
+                return !value.replace("%", "").isEmpty();
+            default:
+                return false;
+        }
+    }
+}
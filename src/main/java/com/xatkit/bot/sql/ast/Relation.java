@@ -0,0 +1,11 @@
+package com.xatkit.bot.sql.ast;
+
+/**
+ * The relation a {@link SelectStatement} reads its rows from (its {@code FROM} clause).
+ *
+ * @see Table
+ * @see DerivedTable
+ * @see Join
+ */
+public abstract class Relation {
+}
@@ -0,0 +1,34 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A subquery that returns a single value.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class ScalarSubquery extends Expression {
+
+    /**
+     * The subquery.
+     */
+    private final SelectStatement statement;
+
+    /**
+     * Instantiates a new {@link ScalarSubquery}.
+     *
+     * @param statement the subquery
+     */
+    public ScalarSubquery(SelectStatement statement) {
+        this.statement = statement;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        // The subquery is optimized separately (see QueryOptimizer)
+        return rewriter.apply(this);
+    }
+}
@@ -0,0 +1,214 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The model of a SQL {@code SELECT} statement.
+ * <p>
+ * The {@link com.xatkit.bot.sql.SqlQueries} methods build a statement, which is rewritten by the
+ * {@link QueryOptimizer} and then printed in the SQL dialect of the backend by a {@link SqlPrinter}. This way, the
+ * shape of the queries can be analyzed and optimized in a single place.
+ * <p>
+ * The {@code WHERE} and {@code HAVING} clauses are stored as lists of conditions joined with {@code AND}.
+ */
+@Getter
+@EqualsAndHashCode
+public class SelectStatement {
+
+    /**
+     * Whether the selected rows must be distinct or not.
+     */
+    private boolean distinct = false;
+
+    /**
+     * The select list.
+     */
+    private final List<Projection> projections = new ArrayList<>();
+
+    /**
+     * The relation the rows are read from.
+     */
+    private Relation from = Table.DATA;
+
+    /**
+     * The conditions of the {@code WHERE} clause.
+     */
+    private final List<Expression> where = new ArrayList<>();
+
+    /**
+     * The expressions of the {@code GROUP BY} clause.
+     */
+    private final List<Expression> groupBy = new ArrayList<>();
+
+    /**
+     * The conditions of the {@code HAVING} clause.
+     */
+    private final List<Expression> having = new ArrayList<>();
+
+    /**
+     * The expressions of the {@code ORDER BY} clause.
+     */
+    private final List<OrderItem> orderBy = new ArrayList<>();
+
+    /**
+     * The maximum number of rows to select, or {@code -1} if there is no limit.
+     */
+    private int limit = -1;
+
+    /**
+     * The number of rows to skip before the selected rows.
+     */
+    private int offset = 0;
+
+    /**
+     * Sets whether the selected rows must be distinct or not.
+     *
+     * @param distinct whether the rows must be distinct
+     * @return this statement
+     */
+    public SelectStatement distinct(boolean distinct) {
+        this.distinct = distinct;
+        return this;
+    }
+
+    /**
+     * Adds an expression to the select list.
+     *
+     * @param expression the expression
+     * @param alias      the alias of the expression, or {@code null} if it has no alias
+     * @return this statement
+     */
+    public SelectStatement select(Expression expression, String alias) {
+        projections.add(new Projection(expression, alias));
+        return this;
+    }
+
+    /**
+     * Adds the column of a field to the select list, aliased with the field name.
+     *
+     * @param field the field
+     * @return this statement
+     */
+    public SelectStatement select(String field) {
+        return select(new Column(field), field);
+    }
+
+    /**
+     * Adds the columns of some fields to the select list, aliased with the field names.
+     *
+     * @param fields the fields
+     * @return this statement
+     */
+    public SelectStatement select(List<String> fields) {
+        for (String field : fields) {
+            select(field);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the relation the rows are read from (by default, the table of the chatbot data).
+     *
+     * @param from the relation
+     * @return this statement
+     */
+    public SelectStatement from(Relation from) {
+        this.from = from;
+        return this;
+    }
+
+    /**
+     * Adds conditions to the {@code WHERE} clause.
+     *
+     * @param conditions the conditions
+     * @return this statement
+     */
+    public SelectStatement where(List<Expression> conditions) {
+        where.addAll(conditions);
+        return this;
+    }
+
+    /**
+     * Adds a condition to the {@code WHERE} clause.
+     *
+     * @param condition the condition
+     * @return this statement
+     */
+    public SelectStatement where(Expression condition) {
+        where.add(condition);
+        return this;
+    }
+
+    /**
+     * Adds an expression to the {@code GROUP BY} clause.
+     *
+     * @param expression the expression
+     * @return this statement
+     */
+    public SelectStatement groupBy(Expression expression) {
+        groupBy.add(expression);
+        return this;
+    }
+
+    /**
+     * Adds a condition to the {@code HAVING} clause.
+     *
+     * @param condition the condition
+     * @return this statement
+     */
+    public SelectStatement having(Expression condition) {
+        having.add(condition);
+        return this;
+    }
+
+    /**
+     * Adds an expression to the {@code ORDER BY} clause.
+     *
+     * @param expression the expression
+     * @param ascending  whether the order is ascending or descending
+     * @return this statement
+     */
+    public SelectStatement orderBy(Expression expression, boolean ascending) {
+        orderBy.add(new OrderItem(expression, ascending));
+        return this;
+    }
+
+    /**
+     * Adds an expression to the {@code ORDER BY} clause, sorting its {@code NULL} values first.
+     *
+     * @param expression the expression
+     * @param ascending  whether the order is ascending or descending
+     * @return this statement
+     * @see OrderItem#isNullsFirst()
+     */
+    public SelectStatement orderByNullsFirst(Expression expression, boolean ascending) {
+        orderBy.add(new OrderItem(expression, ascending, true));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows to select.
+     *
+     * @param limit the maximum number of rows, or {@code -1} if there is no limit
+     * @return this statement
+     */
+    public SelectStatement limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows to skip before the selected rows.
+     *
+     * @param offset the number of rows to skip
+     * @return this statement
+     */
+    public SelectStatement offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+}
@@ -0,0 +1,236 @@
+package com.xatkit.bot.sql.ast;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.QueryBackend;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static java.util.Objects.isNull;
+
+/**
+ * Prints a {@link SelectStatement} as a SQL statement in the dialect of a {@link QueryBackend}.
+ * <p>
+ * The {@link Parameter}s are printed as {@code ?} placeholders, and their values are collected in
+ * {@link #parameters}, in the same order as the placeholders. A printer must only be used to print one statement.
+ *
+ * @see QueryBackend#newPrinter()
+ */
+public class SqlPrinter {
+
+    /**
+     * The backend that defines the SQL dialect.
+     */
+    protected final QueryBackend backend;
+
+    /**
+     * The values of the parameters of the printed statement.
+     */
+    @Getter
+    private final List<String> parameters = new ArrayList<>();
+
+    /**
+     * Instantiates a new {@link SqlPrinter}.
+     *
+     * @param backend the backend that defines the SQL dialect
+     */
+    public SqlPrinter(QueryBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Prints a statement.
+     *
+     * @param statement the statement
+     * @return the SQL statement
+     */
+    public String print(SelectStatement statement) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (statement.isDistinct()) {
+            sql.append("DISTINCT ");
+        }
+        List<String> projections = new ArrayList<>();
+        for (Projection projection : statement.getProjections()) {
+            String expression = print(projection.getExpression());
+            projections.add(isNull(projection.getAlias()) ? expression
+                    : expression + " AS " + backend.alias(projection.getAlias()));
+        }
+        sql.append(String.join(", ", projections));
+        sql.append(" FROM ").append(print(statement.getFrom()));
+        if (!statement.getWhere().isEmpty()) {
+            sql.append(" WHERE ").append(printConditions(statement.getWhere()));
+        }
+        if (!statement.getGroupBy().isEmpty()) {
+            sql.append(" GROUP BY ").append(printList(statement.getGroupBy()));
+        }
+        if (!statement.getHaving().isEmpty()) {
+            sql.append(" HAVING ").append(printConditions(statement.getHaving()));
+        }
+        if (!statement.getOrderBy().isEmpty()) {
+            sql.append(" ORDER BY ").append(printOrderBy(statement.getOrderBy()));
+        }
+        if (statement.getLimit() >= 0) {
+            sql.append(" LIMIT ").append(statement.getLimit());
+        }
+        if (statement.getOffset() > 0) {
+            sql.append(" OFFSET ").append(statement.getOffset());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Prints a relation.
+     *
+     * @param relation the relation
+     * @return the SQL text of the relation
+     */
+    protected String print(Relation relation) {
+        if (relation instanceof Table) {
+            List<Partition> partitions = ((Table) relation).getPartitions();
+            return isNull(partitions) ? backend.table() : backend.table(partitions);
+        }
+        if (relation instanceof DerivedTable) {
+            DerivedTable derivedTable = (DerivedTable) relation;
+            String subquery = "(" + print(derivedTable.getStatement()) + ")";
+            return isNull(derivedTable.getAlias()) ? subquery : subquery + " " + derivedTable.getAlias();
+        }
+        if (relation instanceof Join) {
+            Join join = (Join) relation;
+            return print(join.getLeft()) + " JOIN " + print(join.getRight()) + " ON " + print(join.getOn());
+        }
+        throw new IllegalArgumentException("Unknown relation " + relation.getClass().getSimpleName());
+    }
+
+    /**
+     * Prints an expression.
+     *
+     * @param expression the expression
+     * @return the SQL text of the expression
+     */
+    protected String print(Expression expression) {
+        if (expression instanceof Column) {
+            return backend.column(((Column) expression).getField());
+        }
+        if (expression instanceof Parameter) {
+            parameters.add(((Parameter) expression).getValue());
+            return "?";
+        }
+        if (expression instanceof Literal) {
+            return ((Literal) expression).getSql();
+        }
+        if (expression instanceof AliasRef) {
+            return backend.alias(((AliasRef) expression).getAlias());
+        }
+        if (expression instanceof Cast) {
+            return print((Cast) expression);
+        }
+        if (expression instanceof Upper) {
+            return backend.upper(print(((Upper) expression).getExpression()));
+        }
+        if (expression instanceof FunctionCall) {
+            FunctionCall functionCall = (FunctionCall) expression;
+            return functionCall.getName() + "(" + printList(functionCall.getArguments()) + ")";
+        }
+        if (expression instanceof WindowFunction) {
+            WindowFunction windowFunction = (WindowFunction) expression;
+            return print(windowFunction.getFunction()) + " OVER (ORDER BY "
+                    + printOrderBy(windowFunction.getOrderBy()) + ")";
+        }
+        if (expression instanceof ScalarSubquery) {
+            return "(" + print(((ScalarSubquery) expression).getStatement()) + ")";
+        }
+        if (expression instanceof Comparison) {
+            Comparison comparison = (Comparison) expression;
+            return print(comparison.getLeft()) + " " + comparison.getOperator() + " " + print(comparison.getRight());
+        }
+        if (expression instanceof Between) {
+            Between between = (Between) expression;
+            return print(between.getExpression()) + " BETWEEN " + print(between.getLow()) + " AND "
+                    + print(between.getHigh());
+        }
+        if (expression instanceof CaseWhen) {
+            CaseWhen caseWhen = (CaseWhen) expression;
+            return "CASE WHEN " + print(caseWhen.getCondition()) + " THEN " + print(caseWhen.getResult()) + " END";
+        }
+        if (expression instanceof NotEmpty) {
+            return backend.notEmpty(print(((NotEmpty) expression).getColumn()));
+        }
+        if (expression instanceof IsNull) {
+            IsNull isNull = (IsNull) expression;
+            return print(isNull.getColumn()) + (isNull.isNegated() ? " IS NOT NULL" : " IS NULL");
+        }
+        if (expression instanceof And) {
+            return "(" + printConditions(((And) expression).getOperands()) + ")";
+        }
+        if (expression instanceof Or) {
+            List<String> printedOperands = new ArrayList<>();
+            for (Expression operand : ((Or) expression).getOperands()) {
+                printedOperands.add(print(operand));
+            }
+            return "(" + String.join(" OR ", printedOperands) + ")";
+        }
+        throw new IllegalArgumentException("Unknown expression " + expression.getClass().getSimpleName());
+    }
+
+    /**
+     * Prints a cast. The casts of parameters use the specific expressions of the backend (see
+     * {@link QueryBackend#decimalParameter()} and {@link QueryBackend#dateTimeParameter()}).
+     *
+     * @param cast the cast
+     * @return the SQL text of the cast
+     */
+    protected String print(Cast cast) {
+        boolean decimal = DECIMAL.equals(cast.getDataType());
+        if (cast.getExpression() instanceof Parameter) {
+            print(cast.getExpression());
+            return decimal ? backend.decimalParameter() : backend.dateTimeParameter();
+        }
+        String expression = print(cast.getExpression());
+        return decimal ? backend.toDecimal(expression) : backend.toDateTime(expression);
+    }
+
+    /**
+     * Prints a list of conditions joined with {@code AND}.
+     *
+     * @param conditions the conditions
+     * @return the SQL text of the conditions
+     */
+    private String printConditions(List<Expression> conditions) {
+        List<String> printedConditions = new ArrayList<>();
+        for (Expression condition : conditions) {
+            printedConditions.add(print(condition));
+        }
+        return String.join(" AND ", printedConditions);
+    }
+
+    /**
+     * Prints a list of order items separated by commas.
+     *
+     * @param orderItems the order items
+     * @return the SQL text of the order items
+     */
+    private String printOrderBy(List<OrderItem> orderItems) {
+        List<String> printedOrderItems = new ArrayList<>();
+        for (OrderItem orderItem : orderItems) {
+            printedOrderItems.add(print(orderItem.getExpression()) + (orderItem.isAscending() ? " ASC" : " DESC")
+                    + (orderItem.isNullsFirst() ? " NULLS FIRST" : ""));
+        }
+        return String.join(", ", printedOrderItems);
+    }
+
+    /**
+     * Prints a list of expressions separated by commas.
+     *
+     * @param expressions the expressions
+     * @return the SQL text of the expressions
+     */
+    private String printList(List<Expression> expressions) {
+        List<String> printedExpressions = new ArrayList<>();
+        for (Expression expression : expressions) {
+            printedExpressions.add(print(expression));
+        }
+        return String.join(", ", printedExpressions);
+    }
+}
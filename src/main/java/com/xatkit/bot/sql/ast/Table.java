@@ -0,0 +1,40 @@
+package com.xatkit.bot.sql.ast;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The table of the chatbot data (see {@link com.xatkit.bot.sql.QueryBackend#table()}), or some of its partitions
+ * (see {@link com.xatkit.bot.sql.QueryBackend#table(List)}).
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public final class Table extends Relation {
+
+    /**
+     * The table of the chatbot data.
+     */
+    public static final Table DATA = new Table();
+
+    /**
+     * The partitions to read, or {@code null} if all the data must be read.
+     */
+    private final List<Partition> partitions;
+
+    private Table() {
+        this.partitions = null;
+    }
+
+    /**
+     * Instantiates a new {@link Table} that only reads some partitions of the data.
+     *
+     * @param partitions the partitions to read
+     */
+    public Table(List<Partition> partitions) {
+        this.partitions = Collections.unmodifiableList(partitions);
+    }
+}
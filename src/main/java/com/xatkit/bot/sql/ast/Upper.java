@@ -0,0 +1,33 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * The upper case of a text expression, used to compare texts ignoring the case.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class Upper extends Expression {
+
+    /**
+     * The text expression.
+     */
+    private final Expression expression;
+
+    /**
+     * Instantiates a new {@link Upper}.
+     *
+     * @param expression the text expression
+     */
+    public Upper(Expression expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        return rewriter.apply(new Upper(expression.transform(rewriter)));
+    }
+}
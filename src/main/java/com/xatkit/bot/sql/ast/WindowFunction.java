@@ -0,0 +1,64 @@
+package com.xatkit.bot.sql.ast;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A window function over the whole result of a {@link SelectStatement} (i.e. {@code function OVER (ORDER BY ...)}),
+ * e.g. {@code RANK() OVER (ORDER BY COUNT(col) DESC)}.
+ * <p>
+ * It is computed after the grouping, so it can rank the groups of a statement without scanning the table again.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class WindowFunction extends Expression {
+
+    /**
+     * The function.
+     */
+    private final FunctionCall function;
+
+    /**
+     * The order of the rows of the window.
+     */
+    private final List<OrderItem> orderBy;
+
+    /**
+     * Instantiates a new {@link WindowFunction}.
+     *
+     * @param function the function
+     * @param orderBy  the order of the rows of the window
+     */
+    public WindowFunction(FunctionCall function, OrderItem... orderBy) {
+        this(function, Arrays.asList(orderBy));
+    }
+
+    /**
+     * Instantiates a new {@link WindowFunction}.
+     *
+     * @param function the function
+     * @param orderBy  the order of the rows of the window
+     */
+    public WindowFunction(FunctionCall function, List<OrderItem> orderBy) {
+        this.function = function;
+        this.orderBy = new ArrayList<>(orderBy);
+    }
+
+    @Override
+    public Expression transform(UnaryOperator<Expression> rewriter) {
+        List<OrderItem> newOrderBy = new ArrayList<>();
+        for (OrderItem orderItem : orderBy) {
+            newOrderBy.add(new OrderItem(orderItem.getExpression().transform(rewriter), orderItem.isAscending()));
+        }
+        Expression newFunction = function.transform(rewriter);
+        if (!(newFunction instanceof FunctionCall)) {
+            throw new IllegalStateException("The function of a window function must be a function call");
+        }
+        return rewriter.apply(new WindowFunction((FunctionCall) newFunction, newOrderBy));
+    }
+}
@@ -0,0 +1,123 @@
+package com.xatkit.bot.sql.columnar;
+
+/**
+ * Utility methods to work with bitmaps stored as {@code long[]} words, where bit {@code i % 64} of word
+ * {@code i / 64} represents row {@code i}.
+ * <p>
+ * Predicates are evaluated one word (i.e. 64 rows) at a time, so combining them is a single bitwise operation per
+ * word.
+ */
+public final class Bitmaps {
+
+    private Bitmaps() {
+    }
+
+    /**
+     * Gets the number of words needed to store a bitmap of {@code numRows} rows.
+     *
+     * @param numRows the number of rows
+     * @return the number of words
+     */
+    public static int numWords(int numRows) {
+        return (numRows + 63) >>> 6;
+    }
+
+    /**
+     * Creates a bitmap with the first {@code numRows} bits set.
+     *
+     * @param numRows the number of rows
+     * @return the bitmap
+     */
+    public static long[] full(int numRows) {
+        long[] words = new long[numWords(numRows)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = -1L;
+        }
+        int remainder = numRows & 63;
+        if (remainder != 0) {
+            words[words.length - 1] = (1L << remainder) - 1;
+        }
+        return words;
+    }
+
+    /**
+     * Sets a bit of a bitmap.
+     *
+     * @param words the bitmap
+     * @param i     the index of the bit
+     */
+    public static void set(long[] words, int i) {
+        words[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Checks whether a bit of a bitmap is set.
+     *
+     * @param words the bitmap
+     * @param i     the index of the bit
+     * @return {@code true} if the bit is set, {@code false} otherwise
+     */
+    public static boolean get(long[] words, int i) {
+        return (words[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Intersects {@code target} with {@code other}, storing the result in {@code target}.
+     *
+     * @param target the first bitmap, which is modified
+     * @param other  the second bitmap
+     */
+    public static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    /**
+     * Checks whether a bitmap has no bits set.
+     *
+     * @param words the bitmap
+     * @return {@code true} if no bit is set, {@code false} otherwise
+     */
+    public static boolean isEmpty(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of bits set in a bitmap.
+     *
+     * @param words the bitmap
+     * @return the number of bits set
+     */
+    public static int cardinality(long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Gets the rows (i.e. the indexes of the bits set) of a bitmap, in ascending order.
+     *
+     * @param words the bitmap
+     * @return the rows
+     */
+    public static int[] toRows(long[] words) {
+        int[] rows = new int[cardinality(words)];
+        int n = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                rows[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,411 @@
+package com.xatkit.bot.sql.columnar;
+
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import static com.xatkit.bot.library.Utils.normalize;
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+
+/**
+ * A column of a {@link ColumnarTable}.
+ * <p>
+ * The values are dictionary-encoded: each distinct value is stored once in {@link #dictionary}, and each row stores
+ * the code (i.e. the index in the dictionary) of its value. Numeric and datetime views of the column are stored as
+ * primitive vectors ({@code double} and epoch milliseconds, respectively) with a null bitmap for the values that
+ * cannot be parsed. Since parsing is done per dictionary entry, a typed view costs a single pass over the codes.
+ * <p>
+ * Categorical columns also have a bitmap index: a {@link CompressedBitmap} with the rows of each dictionary entry, so
+ * equality conditions and value counts are answered without scanning the codes. Textual columns may have a
+ * {@link TrigramIndex} to narrow the entries that may satisfy a substring condition, and numeric and datetime columns
+ * a {@link RangeIndex} to find the rows within a range of values.
+ */
+public class Column {
+
+    /**
+     * The name of the column (i.e. the original name of the field).
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * The code of the value of each row.
+     */
+    private final int[] codes;
+
+    /**
+     * The distinct values of the column.
+     */
+    private final String[] dictionary;
+
+    /**
+     * The upper case version of {@link #dictionary}, used by case insensitive comparisons.
+     */
+    private String[] upperDictionary;
+
+    /**
+     * The normalized version of {@link #dictionary}, used by case and accent insensitive comparisons.
+     *
+     * @see com.xatkit.bot.library.Utils#normalize(String)
+     */
+    private String[] normalizedDictionary;
+
+    /**
+     * The numeric value of each row.
+     */
+    private double[] numbers;
+
+    /**
+     * The null bitmap of {@link #numbers}.
+     */
+    private long[] numberNulls;
+
+    /**
+     * The datetime value of each row, in epoch milliseconds.
+     */
+    private long[] datetimes;
+
+    /**
+     * The null bitmap of {@link #datetimes}.
+     */
+    private long[] datetimeNulls;
+
+    /**
+     * The sorted index of {@link #numbers}.
+     */
+    private RangeIndex numberIndex;
+
+    /**
+     * The sorted index of {@link #datetimes}.
+     */
+    private RangeIndex datetimeIndex;
+
+    /**
+     * The rows of each dictionary entry (i.e. {@code bitmapIndex[code]} contains the rows with the value
+     * {@code dictionary[code]}).
+     */
+    private CompressedBitmap[] bitmapIndex;
+
+    /**
+     * The trigram index of {@link #upperDictionary} or {@link #normalizedDictionary}.
+     */
+    private TrigramIndex trigramIndex;
+
+    /**
+     * Instantiates a new {@link Column}.
+     *
+     * @param name       the name of the column
+     * @param codes      the code of the value of each row
+     * @param dictionary the distinct values of the column
+     */
+    Column(String name, int[] codes, String[] dictionary) {
+        this.name = name;
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Gets the number of rows of the column.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Gets the codes of the column rows.
+     *
+     * @return the codes
+     */
+    int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * Gets the number of distinct values of the column.
+     *
+     * @return the dictionary size
+     */
+    public int getDictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * Gets a value of the dictionary.
+     *
+     * @param code the code of the value
+     * @return the value
+     */
+    public String getDictionaryValue(int code) {
+        return dictionary[code];
+    }
+
+    /**
+     * Gets the code of a value.
+     *
+     * @param value the value
+     * @return the code of the value, or {@code -1} if the column does not contain it
+     */
+    public int getCode(String value) {
+        for (int code = 0; code < dictionary.length; code++) {
+            if (dictionary[code].equals(value)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the value of a row.
+     *
+     * @param row the row
+     * @return the value
+     */
+    public String getString(int row) {
+        return dictionary[codes[row]];
+    }
+
+    /**
+     * Gets the upper case dictionary of the column.
+     *
+     * @return the upper case dictionary
+     */
+    synchronized String[] getUpperDictionary() {
+        if (upperDictionary == null) {
+            upperDictionary = new String[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                upperDictionary[code] = dictionary[code].toUpperCase(Locale.ROOT);
+            }
+        }
+        return upperDictionary;
+    }
+
+    /**
+     * Gets the normalized dictionary of the column.
+     *
+     * @return the normalized dictionary
+     */
+    synchronized String[] getNormalizedDictionary() {
+        if (normalizedDictionary == null) {
+            normalizedDictionary = new String[dictionary.length];
+            for (int code = 0; code < dictionary.length; code++) {
+                normalizedDictionary[code] = normalize(dictionary[code]);
+            }
+        }
+        return normalizedDictionary;
+    }
+
+    /**
+     * Gets the numeric vector of the column.
+     *
+     * @return the numeric vector
+     * @see #getNumberNulls()
+     */
+    double[] getNumbers() {
+        buildNumbers();
+        return numbers;
+    }
+
+    /**
+     * Gets the null bitmap of the numeric vector of the column (a bit is set if the value of the row is empty or it
+     * is not a number).
+     *
+     * @return the null bitmap
+     */
+    long[] getNumberNulls() {
+        buildNumbers();
+        return numberNulls;
+    }
+
+    /**
+     * Gets the datetime vector (in epoch milliseconds) of the column.
+     *
+     * @return the datetime vector
+     * @see #getDatetimeNulls()
+     */
+    long[] getDatetimes() {
+        buildDatetimes();
+        return datetimes;
+    }
+
+    /**
+     * Gets the null bitmap of the datetime vector of the column (a bit is set if the value of the row is empty or it
+     * is not a datetime).
+     *
+     * @return the null bitmap
+     */
+    long[] getDatetimeNulls() {
+        buildDatetimes();
+        return datetimeNulls;
+    }
+
+    /**
+     * Builds the numeric vector of the column, if it was not already built.
+     */
+    synchronized void buildNumbers() {
+        if (numbers != null) {
+            return;
+        }
+        double[] dictionaryNumbers = new double[dictionary.length];
+        boolean[] dictionaryNulls = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            BigDecimal number = parseDecimal(dictionary[code]);
+            dictionaryNulls[code] = (number == null);
+            dictionaryNumbers[code] = (number == null ? 0 : number.doubleValue());
+        }
+        double[] values = new double[codes.length];
+        long[] nulls = new long[Bitmaps.numWords(codes.length)];
+        for (int row = 0; row < codes.length; row++) {
+            values[row] = dictionaryNumbers[codes[row]];
+            if (dictionaryNulls[codes[row]]) {
+                nulls[row >>> 6] |= 1L << row;
+            }
+        }
+        numberNulls = nulls;
+        numbers = values;
+    }
+
+    /**
+     * Builds the datetime vector of the column, if it was not already built.
+     */
+    synchronized void buildDatetimes() {
+        if (datetimes != null) {
+            return;
+        }
+        long[] dictionaryDatetimes = new long[dictionary.length];
+        boolean[] dictionaryNulls = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            OffsetDateTime datetime = parseDatetime(dictionary[code]);
+            dictionaryNulls[code] = (datetime == null);
+            dictionaryDatetimes[code] = (datetime == null ? 0 : datetime.toInstant().toEpochMilli());
+        }
+        long[] values = new long[codes.length];
+        long[] nulls = new long[Bitmaps.numWords(codes.length)];
+        for (int row = 0; row < codes.length; row++) {
+            values[row] = dictionaryDatetimes[codes[row]];
+            if (dictionaryNulls[codes[row]]) {
+                nulls[row >>> 6] |= 1L << row;
+            }
+        }
+        datetimeNulls = nulls;
+        datetimes = values;
+    }
+
+    /**
+     * Gets the bitmap index of the column.
+     *
+     * @return the rows of each dictionary entry, or {@code null} if the index has not been built
+     * @see #buildBitmapIndex()
+     */
+    synchronized CompressedBitmap[] getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    /**
+     * Builds the bitmap index of the column, if it was not already built.
+     */
+    synchronized void buildBitmapIndex() {
+        if (bitmapIndex != null) {
+            return;
+        }
+        int[][] rows = new int[dictionary.length][];
+        int[] counts = new int[dictionary.length];
+        for (int code : codes) {
+            counts[code]++;
+        }
+        for (int code = 0; code < dictionary.length; code++) {
+            rows[code] = new int[counts[code]];
+            counts[code] = 0;
+        }
+        for (int row = 0; row < codes.length; row++) {
+            rows[codes[row]][counts[codes[row]]++] = row;
+        }
+        CompressedBitmap[] index = new CompressedBitmap[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            index[code] = CompressedBitmap.of(rows[code]);
+        }
+        bitmapIndex = index;
+    }
+
+    /**
+     * Gets the trigram index of the column.
+     *
+     * @return the trigram index, or {@code null} if it has not been built
+     * @see #buildTrigramIndex()
+     */
+    synchronized TrigramIndex getTrigramIndex() {
+        return trigramIndex;
+    }
+
+    /**
+     * Builds the trigram index of the column, if it was not already built.
+     *
+     * @param normalized whether to index the normalized dictionary or the upper case one
+     */
+    synchronized void buildTrigramIndex(boolean normalized) {
+        if (trigramIndex == null) {
+            trigramIndex = TrigramIndex.build(normalized ? getNormalizedDictionary() : getUpperDictionary(), codes,
+                    normalized);
+        }
+    }
+
+    /**
+     * Gets the sorted index of the numeric vector of the column.
+     *
+     * @return the index, or {@code null} if it has not been built
+     * @see #buildNumberIndex()
+     */
+    synchronized RangeIndex getNumberIndex() {
+        return numberIndex;
+    }
+
+    /**
+     * Builds the sorted index of the numeric vector of the column (and the vector itself), if it was not already
+     * built.
+     */
+    synchronized void buildNumberIndex() {
+        if (numberIndex != null) {
+            return;
+        }
+        buildNumbers();
+        long[] codeKeys = new long[dictionary.length];
+        boolean[] codeNulls = new boolean[dictionary.length];
+        for (int row = 0; row < codes.length; row++) {
+            codeKeys[codes[row]] = RangeIndex.numberKey(numbers[row]);
+            codeNulls[codes[row]] = Bitmaps.get(numberNulls, row);
+        }
+        numberIndex = RangeIndex.build(codeKeys, codeNulls, codes);
+    }
+
+    /**
+     * Gets the sorted index of the datetime vector of the column.
+     *
+     * @return the index, or {@code null} if it has not been built
+     * @see #buildDatetimeIndex()
+     */
+    synchronized RangeIndex getDatetimeIndex() {
+        return datetimeIndex;
+    }
+
+    /**
+     * Builds the sorted index of the datetime vector of the column (and the vector itself), if it was not already
+     * built.
+     */
+    synchronized void buildDatetimeIndex() {
+        if (datetimeIndex != null) {
+            return;
+        }
+        buildDatetimes();
+        long[] codeKeys = new long[dictionary.length];
+        boolean[] codeNulls = new boolean[dictionary.length];
+        for (int row = 0; row < codes.length; row++) {
+            codeKeys[codes[row]] = datetimes[row];
+            codeNulls[codes[row]] = Bitmaps.get(datetimeNulls, row);
+        }
+        datetimeIndex = RangeIndex.build(codeKeys, codeNulls, codes);
+    }
+}
@@ -0,0 +1,882 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.Condition;
+import com.xatkit.bot.sql.Query;
+import com.xatkit.bot.sql.QueryAnswerer;
+import com.xatkit.bot.sql.SqlQueries;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DATETIME;
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static com.xatkit.bot.library.Utils.normalize;
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link QueryAnswerer} that answers the queries in-process over a {@link ColumnarTable}, without running any SQL
+ * statement.
+ * <p>
+ * The conditions of a query are evaluated into selection bitmaps, 64 rows at a time, and intersected. Textual
+ * conditions are evaluated once per dictionary entry, so the scan over the rows is just a lookup of the row code.
+ * Numeric and datetime conditions are evaluated over the primitive vectors of the columns or, if they have a
+ * {@link RangeIndex}, with binary searches over it.
+ * <p>
+ * The {@code equals} and {@code different} conditions on categorical fields are answered with the bitmap indexes of
+ * their columns (see {@link Column#getBitmapIndex()}), intersecting and subtracting compressed bitmaps. When all the
+ * conditions of a query are indexed, counts are answered with the cardinality of the selection and only the rows of
+ * the requested page are materialized.
+ * <p>
+ * If the data contains normalized shadow columns (see {@link SqlQueries#getNormalizedColumn(String)}), the textual
+ * conditions compare the normalized dictionaries of the columns with the normalized values, as the SQL statements do.
+ * <p>
+ * Queries with a condition it does not support (e.g. a value that cannot be parsed) are not answered, so they are
+ * run in the database.
+ */
+public class ColumnarEngine implements QueryAnswerer {
+
+    /**
+     * The table where the queries are answered.
+     */
+    private final ColumnarTable table;
+
+    /**
+     * Whether the textual conditions are case and accent insensitive (i.e. they compare normalized values) or just
+     * case insensitive.
+     *
+     * @see com.xatkit.bot.library.Utils#normalize(String)
+     */
+    private final boolean normalized;
+
+    /**
+     * Instantiates a new {@link ColumnarEngine}, whose textual conditions are case insensitive.
+     *
+     * @param table the table where the queries are answered
+     */
+    public ColumnarEngine(ColumnarTable table) {
+        this(table, false);
+    }
+
+    /**
+     * Instantiates a new {@link ColumnarEngine}.
+     *
+     * @param table      the table where the queries are answered
+     * @param normalized whether the textual conditions compare normalized values (i.e. they are case and accent
+     *                   insensitive) or not
+     */
+    public ColumnarEngine(ColumnarTable table, boolean normalized) {
+        this.table = table;
+        this.normalized = normalized;
+    }
+
+    @Override
+    public ResultSet answer(Query query) {
+        if (isNull(query.getOperation())) {
+            return null;
+        }
+        if (query.getOperation() == Query.Operation.FIELD_COUNT) {
+            return fieldCount();
+        }
+        List<Condition> scannedConditions = new ArrayList<>();
+        CompressedBitmap indexedSelection = selectIndexed(query.getConditions(), scannedConditions);
+        if (!isNull(indexedSelection) && scannedConditions.isEmpty()) {
+            ResultSet resultSet = answerIndexed(query, indexedSelection);
+            if (!isNull(resultSet)) {
+                return resultSet;
+            }
+        }
+        long[] selection = scan(indexedSelection, scannedConditions);
+        if (isNull(selection)) {
+            return null;
+        }
+        switch (query.getOperation()) {
+            case SELECT:
+                return select(query, selection);
+            case COUNT:
+                return count(query, selection);
+            case FREQUENT_VALUE:
+                return frequentValue(query, selection);
+            case COMPARE_VALUES:
+                return compareValues(query, selection);
+            case AGGREGATE:
+                return aggregate(query, selection);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Evaluates a list of conditions.
+     *
+     * @param conditions the conditions
+     * @return the bitmap of the rows that satisfy all the conditions, or {@code null} if some condition is not
+     * supported
+     */
+    long[] select(List<Condition> conditions) {
+        List<Condition> scannedConditions = new ArrayList<>();
+        return scan(selectIndexed(conditions, scannedConditions), scannedConditions);
+    }
+
+    /**
+     * Evaluates the conditions that are not indexed over a selection.
+     *
+     * @param indexedSelection the rows that satisfy the indexed conditions, or {@code null} if no condition is indexed
+     * @param conditions       the conditions that are not indexed
+     * @return the bitmap of the rows of the selection that satisfy all the conditions, or {@code null} if some
+     * condition is not supported
+     */
+    private long[] scan(CompressedBitmap indexedSelection, List<Condition> conditions) {
+        long[] selection = (isNull(indexedSelection) ? Bitmaps.full(table.getNumRows())
+                : indexedSelection.toWords(table.getNumRows()));
+        for (Condition condition : conditions) {
+            long[] matches = evaluate(condition);
+            if (isNull(matches)) {
+                return null;
+            }
+            Bitmaps.and(selection, matches);
+        }
+        return selection;
+    }
+
+    /**
+     * Evaluates the conditions that can be answered with the bitmap indexes.
+     *
+     * @param conditions        the conditions
+     * @param scannedConditions the list where the conditions that are not indexed are added
+     * @return the rows that satisfy all the indexed conditions, or {@code null} if no condition is indexed
+     */
+    private CompressedBitmap selectIndexed(List<Condition> conditions, List<Condition> scannedConditions) {
+        CompressedBitmap selection = null;
+        List<CompressedBitmap> excludedRows = new ArrayList<>();
+        for (Condition condition : conditions) {
+            CompressedBitmap matches = lookup(condition);
+            if (isNull(matches)) {
+                scannedConditions.add(condition);
+            } else if ("different".equals(condition.getOperator())) {
+                excludedRows.add(matches);
+            } else {
+                selection = (isNull(selection) ? matches : selection.and(matches));
+            }
+        }
+        if (!excludedRows.isEmpty() && isNull(selection)) {
+            selection = CompressedBitmap.range(table.getNumRows());
+        }
+        for (CompressedBitmap rows : excludedRows) {
+            selection = selection.andNot(rows);
+        }
+        return selection;
+    }
+
+    /**
+     * Looks up the value of an equality condition in the bitmap index of its column.
+     *
+     * @param condition the condition
+     * @return the rows with the value of the condition (for {@code different}, the rows to exclude), or {@code null}
+     * if the column is not indexed or the condition is not an equality
+     */
+    private CompressedBitmap lookup(Condition condition) {
+        Column column = table.getColumn(condition.getField());
+        if (isNull(column) || isNull(column.getBitmapIndex()) || isNull(condition.getValue())) {
+            return null;
+        }
+        CompressedBitmap[] index = column.getBitmapIndex();
+        switch (condition.getOperator()) {
+            case Condition.VALUE_EQUALS: {
+                int code = column.getCode(condition.getValue());
+                return (code < 0 ? CompressedBitmap.empty() : index[code]);
+            }
+            case "equals":
+            case "different": {
+                // Case insensitive, so several dictionary entries may match
+                String[] dictionary = (normalized ? column.getNormalizedDictionary() : column.getUpperDictionary());
+                String matchValue = (normalized ? normalize(condition.getValue())
+                        : condition.getValue().toUpperCase(Locale.ROOT));
+                CompressedBitmap matches = CompressedBitmap.empty();
+                for (int code = 0; code < dictionary.length; code++) {
+                    if (dictionary[code].equals(matchValue)) {
+                        matches = matches.or(index[code]);
+                    }
+                }
+                return matches;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Answers a query whose conditions are all indexed, without decompressing its selection.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query needs the uncompressed selection
+     */
+    private ResultSet answerIndexed(Query query, CompressedBitmap selection) {
+        switch (query.getOperation()) {
+            case COUNT:
+                if (query.isDistinct()) {
+                    return null;
+                }
+                return countResult(query, selection.cardinality());
+            case SELECT: {
+                List<Column> columns = getColumns(query.getFields());
+                if (isNull(columns) || query.isDistinct() || !isNull(query.getOrderField())) {
+                    return null;
+                }
+                int limit = (query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit());
+                List<Row> resultRows = new ArrayList<>();
+                for (int row : selection.toRows(query.getOffset(), limit)) {
+                    List<String> values = new ArrayList<>();
+                    for (Column column : columns) {
+                        values.add(column.getString(row));
+                    }
+                    resultRows.add(new Row(values));
+                }
+                return new ResultSet(new ArrayList<>(query.getFields()), resultRows);
+            }
+            case COMPARE_VALUES: {
+                List<String> header = new ArrayList<>();
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < query.getFields().size(); i++) {
+                    CompressedBitmap matches = lookup(new Condition(query.getFields().get(i), Condition.VALUE_EQUALS,
+                            query.getValues().get(i)));
+                    if (isNull(matches)) {
+                        return null;
+                    }
+                    header.add("freq" + (i + 1));
+                    values.add(String.valueOf(matches.and(selection).cardinality()));
+                }
+                return new ResultSet(header, new ArrayList<>(Collections.singletonList(new Row(values))));
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Evaluates a condition.
+     *
+     * @param condition the condition
+     * @return the bitmap of the rows that satisfy the condition, or {@code null} if the condition is not supported
+     */
+    private long[] evaluate(Condition condition) {
+        Column column = table.getColumn(condition.getField());
+        if (isNull(column)) {
+            return null;
+        }
+        String operator = condition.getOperator();
+        switch (operator) {
+            // Numeric Filters
+            case "=":
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+            case "!=": {
+                BigDecimal value = parseDecimal(condition.getValue());
+                if (isNull(value)) {
+                    return null;
+                }
+                return compareNumbers(column, operator, value.doubleValue(), value.doubleValue());
+            }
+            // Textual Filters
+            case "equals":
+            case "different":
+            case "contains":
+            case "starts with":
+            case "ends with":
+                return matchText(column, operator, condition.getValue(), normalized);
+            case Condition.VALUE_EQUALS: {
+                long[] matches = new long[Bitmaps.numWords(column.size())];
+                int code = column.getCode(condition.getValue());
+                if (code >= 0) {
+                    int[] codes = column.getCodes();
+                    for (int row = 0; row < codes.length; row++) {
+                        if (codes[row] == code) {
+                            matches[row >>> 6] |= 1L << row;
+                        }
+                    }
+                }
+                return matches;
+            }
+            // Datetime Filters
+            case "date_equals":
+            case "date_different":
+            case "before":
+            case "after": {
+                OffsetDateTime value = parseDatetime(condition.getValue());
+                if (isNull(value)) {
+                    return null;
+                }
+                long millis = value.toInstant().toEpochMilli();
+                return compareDatetimes(column, operator, millis, millis);
+            }
+            case Condition.NOT_EMPTY:
+                if (DECIMAL.equals(condition.getDataType())) {
+                    return notNull(column.getNumberNulls());
+                } else if (DATETIME.equals(condition.getDataType())) {
+                    return notNull(column.getDatetimeNulls());
+                }
+                return matchText(column, "different", "", false);
+            case Condition.BETWEEN:
+                if (DECIMAL.equals(condition.getDataType())) {
+                    BigDecimal value1 = parseDecimal(condition.getValue());
+                    BigDecimal value2 = parseDecimal(condition.getValue2());
+                    if (isNull(value1) || isNull(value2)) {
+                        return null;
+                    }
+                    return compareNumbers(column, Condition.BETWEEN, value1.doubleValue(), value2.doubleValue());
+                } else if (DATETIME.equals(condition.getDataType())) {
+                    OffsetDateTime value1 = parseDatetime(condition.getValue());
+                    OffsetDateTime value2 = parseDatetime(condition.getValue2());
+                    if (isNull(value1) || isNull(value2)) {
+                        return null;
+                    }
+                    return compareDatetimes(column, Condition.BETWEEN, value1.toInstant().toEpochMilli(),
+                            value2.toInstant().toEpochMilli());
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Evaluates a textual condition (case insensitive). The condition is evaluated once for each dictionary entry of
+     * the column, and then the rows are selected by their code. If the column has a {@link TrigramIndex}, only the
+     * candidate entries are evaluated, and the rows of the matching ones are selected directly.
+     *
+     * @param column     the column
+     * @param operator   the textual operator
+     * @param value      the value
+     * @param normalized whether to compare the normalized values (i.e. also accent insensitive) or the upper case ones
+     * @return the bitmap of the rows that satisfy the condition
+     */
+    private static long[] matchText(Column column, String operator, String value, boolean normalized) {
+        String[] dictionary = (normalized ? column.getNormalizedDictionary() : column.getUpperDictionary());
+        String matchValue = (normalized ? normalize(value) : value.toUpperCase(Locale.ROOT));
+        TrigramIndex trigramIndex = column.getTrigramIndex();
+        int[] candidates = (isNull(trigramIndex) || trigramIndex.isNormalized() != normalized ? null
+                : trigramIndex.candidates(operator, matchValue));
+        if (!isNull(candidates)) {
+            long[] matches = new long[Bitmaps.numWords(column.size())];
+            for (int code : candidates) {
+                if (matchText(dictionary[code], operator, matchValue)) {
+                    trigramIndex.setRows(matches, code);
+                }
+            }
+            return matches;
+        }
+        boolean[] matchingCodes = new boolean[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++) {
+            matchingCodes[code] = matchText(dictionary[code], operator, matchValue);
+        }
+        int[] codes = column.getCodes();
+        long[] matches = new long[Bitmaps.numWords(codes.length)];
+        for (int word = 0; word < matches.length; word++) {
+            long bits = 0;
+            int base = word << 6;
+            int end = Math.min(base + 64, codes.length);
+            for (int row = base; row < end; row++) {
+                if (matchingCodes[codes[row]]) {
+                    bits |= 1L << row;
+                }
+            }
+            matches[word] = bits;
+        }
+        return matches;
+    }
+
+    /**
+     * Evaluates a textual operator over a value.
+     *
+     * @param text     the upper case value
+     * @param operator the textual operator
+     * @param value    the upper case value of the condition
+     * @return {@code true} if the value satisfies the condition, {@code false} otherwise
+     */
+    private static boolean matchText(String text, String operator, String value) {
+        switch (operator) {
+            case "equals":
+                return text.equals(value);
+            case "different":
+                return !text.equals(value);
+            case "contains":
+                return text.contains(value);
+            case "starts with":
+                return text.startsWith(value);
+            case "ends with":
+                return text.endsWith(value);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Evaluates a numeric comparison over the numeric vector of a column. Rows with a null value never satisfy it.
+     *
+     * @param column   the column
+     * @param operator the numeric operator, or {@link Condition#BETWEEN}
+     * @param value    the value to compare with
+     * @param value2   the upper bound (only for {@link Condition#BETWEEN})
+     * @return the bitmap of the rows that satisfy the comparison
+     */
+    private static long[] compareNumbers(Column column, String operator, double value, double value2) {
+        RangeIndex index = column.getNumberIndex();
+        if (!isNull(index)) {
+            return selectRange(index, column.size(), operator, RangeIndex.numberKey(value),
+                    RangeIndex.numberKey(value2));
+        }
+        double[] numbers = column.getNumbers();
+        long[] nulls = column.getNumberNulls();
+        long[] matches = new long[nulls.length];
+        for (int word = 0; word < matches.length; word++) {
+            long bits = 0;
+            int base = word << 6;
+            int end = Math.min(base + 64, numbers.length);
+            for (int row = base; row < end; row++) {
+                double x = numbers[row];
+                boolean match;
+                switch (operator) {
+                    case "=":
+                        match = x == value;
+                        break;
+                    case "<":
+                        match = x < value;
+                        break;
+                    case "<=":
+                        match = x <= value;
+                        break;
+                    case ">":
+                        match = x > value;
+                        break;
+                    case ">=":
+                        match = x >= value;
+                        break;
+                    case "!=":
+                        match = x != value;
+                        break;
+                    case Condition.BETWEEN:
+                        match = x >= value && x <= value2;
+                        break;
+                    default:
+                        match = false;
+                }
+                if (match) {
+                    bits |= 1L << row;
+                }
+            }
+            matches[word] = bits & ~nulls[word];
+        }
+        return matches;
+    }
+
+    /**
+     * Evaluates a datetime comparison over the datetime vector of a column. Rows with a null value never satisfy it.
+     *
+     * @param column   the column
+     * @param operator the datetime operator, or {@link Condition#BETWEEN}
+     * @param value    the epoch milliseconds to compare with
+     * @param value2   the upper bound (only for {@link Condition#BETWEEN})
+     * @return the bitmap of the rows that satisfy the comparison
+     */
+    private static long[] compareDatetimes(Column column, String operator, long value, long value2) {
+        RangeIndex index = column.getDatetimeIndex();
+        if (!isNull(index)) {
+            return selectRange(index, column.size(), operator, value, value2);
+        }
+        long[] datetimes = column.getDatetimes();
+        long[] nulls = column.getDatetimeNulls();
+        long[] matches = new long[nulls.length];
+        for (int word = 0; word < matches.length; word++) {
+            long bits = 0;
+            int base = word << 6;
+            int end = Math.min(base + 64, datetimes.length);
+            for (int row = base; row < end; row++) {
+                long x = datetimes[row];
+                boolean match;
+                switch (operator) {
+                    case "date_equals":
+                        match = x == value;
+                        break;
+                    case "date_different":
+                        match = x != value;
+                        break;
+                    case "before":
+                        match = x < value;
+                        break;
+                    case "after":
+                        match = x > value;
+                        break;
+                    case Condition.BETWEEN:
+                        match = x >= value && x <= value2;
+                        break;
+                    default:
+                        match = false;
+                }
+                if (match) {
+                    bits |= 1L << row;
+                }
+            }
+            matches[word] = bits & ~nulls[word];
+        }
+        return matches;
+    }
+
+    /**
+     * Evaluates a numeric or datetime comparison with the sorted index of a column: the rows that satisfy it are one
+     * slice of the index (or two, for the inequality), delimited with binary searches. Rows with a null value are not
+     * in the index, so they never satisfy it.
+     *
+     * @param index    the index
+     * @param numRows  the number of rows of the column
+     * @param operator the numeric or datetime operator, or {@link Condition#BETWEEN}
+     * @param key      the key to compare with
+     * @param key2     the upper bound (only for {@link Condition#BETWEEN})
+     * @return the bitmap of the rows that satisfy the comparison
+     */
+    static long[] selectRange(RangeIndex index, int numRows, String operator, long key, long key2) {
+        long[] matches = new long[Bitmaps.numWords(numRows)];
+        switch (operator) {
+            case "=":
+            case "date_equals":
+                index.setRows(matches, index.lowerBound(key), index.upperBound(key));
+                break;
+            case "!=":
+            case "date_different":
+                index.setRows(matches, 0, index.lowerBound(key));
+                index.setRows(matches, index.upperBound(key), index.size());
+                break;
+            case "<":
+            case "before":
+                index.setRows(matches, 0, index.lowerBound(key));
+                break;
+            case "<=":
+                index.setRows(matches, 0, index.upperBound(key));
+                break;
+            case ">":
+            case "after":
+                index.setRows(matches, index.upperBound(key), index.size());
+                break;
+            case ">=":
+                index.setRows(matches, index.lowerBound(key), index.size());
+                break;
+            case Condition.BETWEEN: {
+                int from = index.lowerBound(key);
+                index.setRows(matches, from, Math.max(from, index.upperBound(key2)));
+                break;
+            }
+            default:
+                break;
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the complement of a null bitmap.
+     *
+     * @param nulls the null bitmap
+     * @return the bitmap of the rows that are not null
+     */
+    private long[] notNull(long[] nulls) {
+        long[] matches = Bitmaps.full(table.getNumRows());
+        for (int word = 0; word < matches.length; word++) {
+            matches[word] &= ~nulls[word];
+        }
+        return matches;
+    }
+
+    /**
+     * Answers a {@link Query.Operation#FIELD_COUNT} query.
+     *
+     * @return the result set, with the columns of the table and no rows
+     */
+    private ResultSet fieldCount() {
+        List<String> header = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            // The normalized shadow columns are not fields of the data
+            if (!column.getName().endsWith(SqlQueries.NORMALIZED_COLUMN_SUFFIX)) {
+                header.add(SqlQueries.replaceSpecialChars(column.getName()));
+            }
+        }
+        return new ResultSet(header, new ArrayList<>());
+    }
+
+    /**
+     * Answers a {@link Query.Operation#COUNT} query.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet count(Query query, long[] selection) {
+        int count;
+        if (query.isDistinct()) {
+            List<Column> columns = getColumns(query.getFields());
+            if (isNull(columns)) {
+                return null;
+            }
+            Set<List<Integer>> distinctRows = new HashSet<>();
+            for (int row : Bitmaps.toRows(selection)) {
+                List<Integer> codes = new ArrayList<>();
+                for (Column column : columns) {
+                    codes.add(column.getCodes()[row]);
+                }
+                distinctRows.add(codes);
+            }
+            count = distinctRows.size();
+        } else {
+            count = Bitmaps.cardinality(selection);
+        }
+        return countResult(query, count);
+    }
+
+    /**
+     * Creates the result set of a {@link Query.Operation#COUNT} query.
+     *
+     * @param query the query
+     * @param count the number of rows
+     * @return the result set
+     */
+    private static ResultSet countResult(Query query, int count) {
+        return new ResultSet(new ArrayList<>(Collections.singletonList(query.getLabel())),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(
+                        String.valueOf(count)))))));
+    }
+
+    /**
+     * Answers a {@link Query.Operation#SELECT} query.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet select(Query query, long[] selection) {
+        List<Column> columns = getColumns(query.getFields());
+        if (isNull(columns)) {
+            return null;
+        }
+        int[] rows;
+        if (isNull(query.getOrderField())) {
+            rows = Bitmaps.toRows(selection);
+        } else {
+            TopK.RowOrder order = getOrder(query);
+            if (isNull(order)) {
+                return null;
+            }
+            long k = (long) query.getOffset() + query.getLimit();
+            if (!query.isDistinct() && query.getLimit() >= 0 && k < Bitmaps.cardinality(selection)) {
+                // Only the first offset + limit rows are returned, so they are kept in a bounded heap instead of
+                // sorting all the selected rows
+                TopK topK = new TopK((int) k, order);
+                topK.offerAll(selection);
+                rows = topK.getRows();
+            } else {
+                rows = sort(Bitmaps.toRows(selection), order);
+            }
+        }
+        int limit = (query.getLimit() < 0 ? Integer.MAX_VALUE : query.getLimit());
+        // Without distinct, the skipped rows do not need to be built
+        int skipped = (query.isDistinct() ? 0 : Math.min(query.getOffset(), rows.length));
+        List<Row> resultRows = new ArrayList<>();
+        Set<List<String>> distinctRows = new LinkedHashSet<>();
+        for (int i = skipped; i < rows.length && resultRows.size() < limit; i++) {
+            List<String> values = new ArrayList<>();
+            for (Column column : columns) {
+                values.add(column.getString(rows[i]));
+            }
+            if (!query.isDistinct() || distinctRows.add(values)) {
+                if (skipped < query.getOffset()) {
+                    skipped++;
+                } else {
+                    resultRows.add(new Row(values));
+                }
+            }
+        }
+        return new ResultSet(new ArrayList<>(query.getFields()), resultRows);
+    }
+
+    /**
+     * Gets the order of the rows of a query by its order field. Rows with the same value are ordered by row, as in the
+     * stable sort of all the rows.
+     *
+     * @param query the query
+     * @return the order, or {@code null} if the order field cannot be sorted
+     */
+    private TopK.RowOrder getOrder(Query query) {
+        Column column = table.getColumn(query.getOrderField());
+        if (isNull(column)) {
+            return null;
+        }
+        int direction = (query.isAscending() ? 1 : -1);
+        if (DECIMAL.equals(query.getOrderDataType())) {
+            double[] numbers = column.getNumbers();
+            return (row1, row2) -> {
+                int result = direction * Double.compare(numbers[row1], numbers[row2]);
+                return (result != 0 ? result : Integer.compare(row1, row2));
+            };
+        } else if (DATETIME.equals(query.getOrderDataType())) {
+            long[] datetimes = column.getDatetimes();
+            return (row1, row2) -> {
+                int result = direction * Long.compare(datetimes[row1], datetimes[row2]);
+                return (result != 0 ? result : Integer.compare(row1, row2));
+            };
+        }
+        return null;
+    }
+
+    /**
+     * Sorts the selected rows of a query.
+     *
+     * @param rows  the selected rows
+     * @param order the order of the rows
+     * @return the sorted rows
+     */
+    private static int[] sort(int[] rows, TopK.RowOrder order) {
+        Integer[] sortedRows = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            sortedRows[i] = rows[i];
+        }
+        Arrays.sort(sortedRows, order::compare);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = sortedRows[i];
+        }
+        return rows;
+    }
+
+    /**
+     * Answers a {@link Query.Operation#FREQUENT_VALUE} query.
+     * <p>
+     * As in the SQL statement, the values are ranked by their frequency among the selected rows (the rank of a value is
+     * 1 plus the number of values with a higher, or lower, frequency), and the values with a rank up to the limit are
+     * returned.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet frequentValue(Query query, long[] selection) {
+        String field = query.getFields().get(0);
+        Column column = table.getColumn(field);
+        if (isNull(column)) {
+            return null;
+        }
+        int[] codes = column.getCodes();
+        int[] counts = new int[column.getDictionarySize()];
+        for (int row : Bitmaps.toRows(selection)) {
+            counts[codes[row]]++;
+        }
+        boolean max = "max".equals(query.getFunction());
+        List<Integer> frequentCodes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                frequentCodes.add(code);
+            }
+        }
+        Comparator<Integer> byFrequency = Comparator.comparingInt(code -> counts[code]);
+        frequentCodes.sort((max ? byFrequency.reversed() : byFrequency)
+                .thenComparing(column::getDictionaryValue, Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<Row> rows = new ArrayList<>();
+        int rank = 0;
+        for (int i = 0; i < frequentCodes.size(); i++) {
+            int code = frequentCodes.get(i);
+            if (i == 0 || counts[code] != counts[frequentCodes.get(i - 1)]) {
+                rank = i + 1;
+            }
+            if (query.getLimit() >= 0 && rank > query.getLimit()) {
+                break;
+            }
+            rows.add(new Row(new ArrayList<>(Arrays.asList(column.getDictionaryValue(code),
+                    String.valueOf(counts[code])))));
+        }
+        return new ResultSet(new ArrayList<>(Arrays.asList(field, "freq")), rows);
+    }
+
+    /**
+     * Answers a {@link Query.Operation#COMPARE_VALUES} query.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet compareValues(Query query, long[] selection) {
+        List<String> header = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < query.getFields().size(); i++) {
+            String field = query.getFields().get(i);
+            String value = query.getValues().get(i);
+            long[] matches = evaluate(new Condition(field, Condition.VALUE_EQUALS, value));
+            if (isNull(matches)) {
+                return null;
+            }
+            Bitmaps.and(matches, selection);
+            int count = Bitmaps.cardinality(matches);
+            header.add("freq" + (i + 1));
+            values.add(String.valueOf(count));
+        }
+        return new ResultSet(header, new ArrayList<>(Collections.singletonList(new Row(values))));
+    }
+
+    /**
+     * Answers a {@link Query.Operation#AGGREGATE} query.
+     *
+     * @param query     the query
+     * @param selection the selected rows
+     * @return the result set, or {@code null} if the query cannot be answered
+     */
+    private ResultSet aggregate(Query query, long[] selection) {
+        String field = query.getFields().get(0);
+        Column column = table.getColumn(field);
+        if (isNull(column) || !("avg".equals(query.getFunction()) || "sum".equals(query.getFunction()))) {
+            return null;
+        }
+        double[] numbers = column.getNumbers();
+        long[] nulls = column.getNumberNulls();
+        double sum = 0;
+        int count = 0;
+        for (int row : Bitmaps.toRows(selection)) {
+            if ((nulls[row >>> 6] & (1L << row)) == 0) {
+                sum += numbers[row];
+                count++;
+            }
+        }
+        String result = null;
+        if (count > 0) {
+            double value = ("avg".equals(query.getFunction()) ? sum / count : sum);
+            result = BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+        return new ResultSet(new ArrayList<>(Collections.singletonList(field)),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(result))))));
+    }
+
+    /**
+     * Gets the columns of a list of fields.
+     *
+     * @param fields the fields
+     * @return the columns, or {@code null} if some field is not a column of the table
+     */
+    private List<Column> getColumns(List<String> fields) {
+        List<Column> columns = new ArrayList<>();
+        for (String field : fields) {
+            Column column = table.getColumn(field);
+            if (isNull(column)) {
+                return null;
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+}
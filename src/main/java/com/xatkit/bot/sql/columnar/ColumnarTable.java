@@ -0,0 +1,298 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.sql.DataPartitions;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import fr.inria.atlanmod.commons.log.Log;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Objects.isNull;
+
+/**
+ * An in-memory, column-oriented copy of the {@code .csv} file stored in the resources folder (or the files of its
+ * partitions, see {@link DataPartitions}).
+ * <p>
+ * Each column is stored as a dictionary-encoded {@link Column}. The numeric and datetime vectors (and their sorted
+ * indexes) of the numeric and datetime fields are built at load time, the rest of the typed vectors are built the
+ * first time they are needed. The bitmap indexes of the categorical fields are built at load time too.
+ */
+public class ColumnarTable {
+
+    /**
+     * The number of rows of the table.
+     */
+    @Getter
+    private final int numRows;
+
+    /**
+     * The columns of the table, in the order of the {@code .csv} header.
+     */
+    @Getter
+    private final List<Column> columns;
+
+    /**
+     * The columns of the table by name.
+     */
+    private final Map<String, Column> columnsByName;
+
+    /**
+     * Instantiates a new {@link ColumnarTable}.
+     *
+     * @param numRows the number of rows
+     * @param columns the columns
+     */
+    ColumnarTable(int numRows, List<Column> columns) {
+        this.numRows = numRows;
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnsByName = new HashMap<>();
+        for (Column column : columns) {
+            columnsByName.put(column.getName(), column);
+        }
+    }
+
+    /**
+     * Gets a column of the table.
+     *
+     * @param field the name of the column (i.e. the original name of the field)
+     * @return the column, or {@code null} if the table does not contain it
+     */
+    public Column getColumn(String field) {
+        return columnsByName.get(field);
+    }
+
+    /**
+     * Builds the trigram indexes of the textual fields that are not categorical (i.e. the free text fields), so the
+     * {@code contains}, {@code starts with} and {@code ends with} conditions on them do not check every value.
+     *
+     * @param normalized whether to index the normalized values (see {@link ColumnarEngine#ColumnarEngine(ColumnarTable,
+     *                   boolean)}) or the upper case ones
+     */
+    public void buildTrigramIndexes(boolean normalized) {
+        long start = System.currentTimeMillis();
+        for (Column column : columns) {
+            if ("textualFieldEntity".equals(Entities.getFieldEntityName(column.getName()))
+                    && !Entities.isCategoricalField(column.getName())) {
+                column.buildTrigramIndex(normalized);
+            }
+        }
+        Log.info("Built the trigram indexes of the columnar engine in {0} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Loads the {@code .csv} files of the data from the resources folder into a new {@link ColumnarTable}.
+     * <p>
+     * The files of the partitions (see {@link DataPartitions}) are read in parallel, and the bitmap indexes of the
+     * partition fields are built too.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     * @return the table, or {@code null} if the files could not be loaded
+     */
+    public static ColumnarTable load(DataPartitions partitions, char delimiter) {
+        long start = System.currentTimeMillis();
+        try {
+            String[] fileHeader;
+            try (CSVReader reader = DataPartitions.openReader(partitions.getPartitions().get(0), delimiter)) {
+                fileHeader = reader.readNext();
+            }
+            if (isNull(fileHeader)) {
+                Log.error("The csv file \"{0}\" is empty", partitions.getPartitions().get(0).getFile());
+                return null;
+            }
+            String[] header = partitions.getHeader(fileHeader);
+            int numThreads = Math.min(partitions.getPartitions().size(), Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+            Builder builder = null;
+            try {
+                List<Future<Builder>> reads = new ArrayList<>();
+                for (Partition partition : partitions.getPartitions()) {
+                    reads.add(executor.submit(() -> read(partitions, partition, fileHeader, header, delimiter)));
+                }
+                // The rows are merged in the order of the partitions
+                for (Future<Builder> read : reads) {
+                    if (isNull(builder)) {
+                        builder = read.get();
+                    } else {
+                        builder.addAll(read.get());
+                    }
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = (isNull(e.getCause()) ? e : e.getCause());
+                throw new IOException(cause.getMessage(), cause);
+            } finally {
+                executor.shutdownNow();
+            }
+            ColumnarTable table = builder.build();
+            for (String field : partitions.getFields()) {
+                table.getColumn(field).buildBitmapIndex();
+            }
+            Log.info("Loaded {0} rows from {1} files into the columnar engine in {2} ms", table.getNumRows(),
+                    partitions.getPartitions().size(), System.currentTimeMillis() - start);
+            return table;
+        } catch (IOException | CsvValidationException e) {
+            Log.error("An error occurred while loading the data into the columnar engine, see the attached exception");
+            Log.error(e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Reads the {@code .csv} file of a partition into a new {@link Builder}.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param partition  the partition to read
+     * @param fileHeader the header of the files
+     * @param header     the header of the data
+     * @param delimiter  the csv delimiter
+     * @return the builder containing the rows of the partition
+     */
+    private static Builder read(DataPartitions partitions, Partition partition, String[] fileHeader, String[] header,
+                                char delimiter) throws IOException, CsvValidationException {
+        try (CSVReader reader = DataPartitions.openReader(partition, delimiter)) {
+            if (!Arrays.equals(fileHeader, reader.readNext())) {
+                throw new IOException("The csv file \"" + partition.getFile() + "\" does not have the same columns "
+                        + "as \"" + partitions.getPartitions().get(0).getFile() + "\"");
+            }
+            Builder builder = new Builder(header);
+            String[] row;
+            while (!isNull(row = reader.readNext())) {
+                builder.addRow(partitions.getRow(row, fileHeader.length, partition));
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * Builds a {@link ColumnarTable} row by row, dictionary-encoding the values of each column.
+     */
+    static class Builder {
+
+        /**
+         * The names of the columns (i.e. the original names of the fields).
+         */
+        private final String[] header;
+
+        /**
+         * The dictionary of each column, mapping each value to its code.
+         */
+        private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+
+        /**
+         * The codes of the rows of each column.
+         */
+        private final List<int[]> codes = new ArrayList<>();
+
+        /**
+         * The number of rows added so far.
+         */
+        private int numRows = 0;
+
+        /**
+         * Instantiates a new {@link Builder}.
+         *
+         * @param header the names of the columns
+         */
+        Builder(String[] header) {
+            this.header = header;
+            for (int i = 0; i < header.length; i++) {
+                dictionaries.add(new LinkedHashMap<>());
+                codes.add(new int[1024]);
+            }
+        }
+
+        /**
+         * Adds a row to the table. The missing values are empty.
+         *
+         * @param row the values of the row, in the order of the header
+         */
+        void addRow(String[] row) {
+            for (int i = 0; i < header.length; i++) {
+                String value = (i < row.length && !isNull(row[i]) ? row[i] : "");
+                Map<String, Integer> dictionary = dictionaries.get(i);
+                Integer code = dictionary.get(value);
+                if (isNull(code)) {
+                    code = dictionary.size();
+                    dictionary.put(value, code);
+                }
+                int[] columnCodes = codes.get(i);
+                if (numRows == columnCodes.length) {
+                    columnCodes = Arrays.copyOf(columnCodes, columnCodes.length * 2);
+                    codes.set(i, columnCodes);
+                }
+                columnCodes[numRows] = code;
+            }
+            numRows++;
+        }
+
+        /**
+         * Adds the rows of another builder with the same columns, re-encoding their values with the dictionaries of
+         * this builder.
+         *
+         * @param other the other builder
+         */
+        void addAll(Builder other) {
+            for (int i = 0; i < header.length; i++) {
+                Map<String, Integer> dictionary = dictionaries.get(i);
+                String[] otherValues = other.dictionaries.get(i).keySet().toArray(new String[0]);
+                int[] recoding = new int[otherValues.length];
+                for (int code = 0; code < otherValues.length; code++) {
+                    Integer newCode = dictionary.get(otherValues[code]);
+                    if (isNull(newCode)) {
+                        newCode = dictionary.size();
+                        dictionary.put(otherValues[code], newCode);
+                    }
+                    recoding[code] = newCode;
+                }
+                int[] columnCodes = codes.get(i);
+                if (numRows + other.numRows > columnCodes.length) {
+                    columnCodes = Arrays.copyOf(columnCodes, Math.max(columnCodes.length * 2, numRows + other.numRows));
+                    codes.set(i, columnCodes);
+                }
+                int[] otherCodes = other.codes.get(i);
+                for (int row = 0; row < other.numRows; row++) {
+                    columnCodes[numRows + row] = recoding[otherCodes[row]];
+                }
+            }
+            numRows += other.numRows;
+        }
+
+        /**
+         * Builds the table with the added rows.
+         *
+         * @return the table
+         */
+        ColumnarTable build() {
+            List<Column> columns = new ArrayList<>();
+            for (int i = 0; i < header.length; i++) {
+                Column column = new Column(header[i], Arrays.copyOf(codes.get(i), numRows),
+                        dictionaries.get(i).keySet().toArray(new String[0]));
+                String fieldEntityName = Entities.getFieldEntityName(header[i]);
+                if ("numericFieldEntity".equals(fieldEntityName)) {
+                    column.buildNumberIndex();
+                } else if ("datetimeFieldEntity".equals(fieldEntityName)) {
+                    column.buildDatetimeIndex();
+                }
+                if (Entities.isCategoricalField(header[i])) {
+                    column.buildBitmapIndex();
+                }
+                columns.add(column);
+            }
+            return new ColumnarTable(numRows, columns);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.xatkit.bot.sql.columnar;
+
+import java.util.Arrays;
+
+/**
+ * An immutable compressed set of rows, in the style of Roaring bitmaps.
+ * <p>
+ * The rows are split in chunks of 2^16 rows (by their 16 high bits), and each non-empty chunk is stored in a
+ * container: a sorted {@code char[]} with the 16 low bits of its rows when it has at most {@link #ARRAY_MAX_SIZE}
+ * rows, or a {@code long[]} bitmap of {@link #CHUNK_WORDS} words otherwise. This way, a sparse set (e.g. the rows with
+ * an infrequent value) takes 2 bytes per row and a dense one at most 8 KB per chunk, and the set operations are
+ * computed container by container, skipping the chunks that are empty in one of the operands.
+ *
+ * @see Bitmaps
+ */
+public final class CompressedBitmap {
+
+    /**
+     * The maximum number of rows of an array container. Chunks with more rows are stored as bitmaps.
+     */
+    private static final int ARRAY_MAX_SIZE = 4096;
+
+    /**
+     * The number of words of a bitmap container.
+     */
+    private static final int CHUNK_WORDS = 1024;
+
+    /**
+     * The empty set.
+     */
+    private static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Object[0]);
+
+    /**
+     * The 16 high bits of the rows of each container, in ascending order.
+     */
+    private final char[] keys;
+
+    /**
+     * The containers, either a sorted {@code char[]} or a {@code long[]} bitmap. They are never empty.
+     */
+    private final Object[] containers;
+
+    /**
+     * The number of rows of the set.
+     */
+    private final int cardinality;
+
+    /**
+     * Instantiates a new {@link CompressedBitmap}.
+     *
+     * @param keys       the 16 high bits of the rows of each container
+     * @param containers the containers
+     */
+    private CompressedBitmap(char[] keys, Object[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int count = 0;
+        for (Object container : containers) {
+            count += cardinality(container);
+        }
+        this.cardinality = count;
+    }
+
+    /**
+     * Gets the empty set.
+     *
+     * @return the empty set
+     */
+    public static CompressedBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a set with the rows {@code 0} to {@code numRows - 1}.
+     *
+     * @param numRows the number of rows
+     * @return the set
+     */
+    public static CompressedBitmap range(int numRows) {
+        int numChunks = (numRows + 0xFFFF) >>> 16;
+        char[] keys = new char[numChunks];
+        Object[] containers = new Object[numChunks];
+        for (int key = 0; key < numChunks; key++) {
+            int size = Math.min(numRows - (key << 16), 1 << 16);
+            long[] words = new long[CHUNK_WORDS];
+            for (int row = 0; row < size; row++) {
+                words[row >>> 6] |= 1L << row;
+            }
+            keys[key] = (char) key;
+            containers[key] = compact(words);
+        }
+        return new CompressedBitmap(keys, containers);
+    }
+
+    /**
+     * Creates a set with the given rows.
+     *
+     * @param rows the rows, in ascending order
+     * @return the set
+     */
+    public static CompressedBitmap of(int[] rows) {
+        int numChunks = (rows.length == 0 ? 0 : (rows[rows.length - 1] >>> 16) + 1);
+        char[] keys = new char[Math.min(numChunks, rows.length)];
+        Object[] containers = new Object[keys.length];
+        int n = 0;
+        int start = 0;
+        while (start < rows.length) {
+            int key = rows[start] >>> 16;
+            int end = start;
+            while (end < rows.length && (rows[end] >>> 16) == key) {
+                end++;
+            }
+            if (end - start > ARRAY_MAX_SIZE) {
+                long[] words = new long[CHUNK_WORDS];
+                for (int i = start; i < end; i++) {
+                    words[(rows[i] >>> 6) & (CHUNK_WORDS - 1)] |= 1L << rows[i];
+                }
+                containers[n] = words;
+            } else {
+                char[] values = new char[end - start];
+                for (int i = start; i < end; i++) {
+                    values[i - start] = (char) rows[i];
+                }
+                containers[n] = values;
+            }
+            keys[n++] = (char) key;
+            start = end;
+        }
+        return new CompressedBitmap(Arrays.copyOf(keys, n), Arrays.copyOf(containers, n));
+    }
+
+    /**
+     * Gets the number of rows of the set.
+     *
+     * @return the number of rows
+     */
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Intersects this set with another one.
+     *
+     * @param other the other set
+     * @return the rows of both sets
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        char[] resultKeys = new char[Math.min(keys.length, other.keys.length)];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object container = and(containers[i], other.containers[j]);
+                if (container != null) {
+                    resultKeys[n] = keys[i];
+                    resultContainers[n++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Removes the rows of another set from this set.
+     *
+     * @param other the other set
+     * @return the rows of this set that are not in the other set
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length];
+        Object[] resultContainers = new Object[keys.length];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Object container = containers[i];
+            if (j < other.keys.length && other.keys[j] == keys[i]) {
+                container = andNot(container, other.containers[j]);
+            }
+            if (container != null) {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = container;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Unites this set with another one.
+     *
+     * @param other the other set
+     * @return the rows of any of the sets
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length + other.keys.length];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[n] = other.keys[j];
+                resultContainers[n++] = other.containers[j++];
+            } else {
+                resultKeys[n] = keys[i];
+                resultContainers[n++] = or(containers[i++], other.containers[j++]);
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, n), Arrays.copyOf(resultContainers, n));
+    }
+
+    /**
+     * Converts the set to an uncompressed bitmap (see {@link Bitmaps}).
+     *
+     * @param numRows the number of rows of the bitmap
+     * @return the bitmap
+     */
+    public long[] toWords(int numRows) {
+        long[] words = new long[Bitmaps.numWords(numRows)];
+        for (int i = 0; i < keys.length; i++) {
+            int base = keys[i] << 16;
+            if (containers[i] instanceof char[]) {
+                for (char value : (char[]) containers[i]) {
+                    Bitmaps.set(words, base + value);
+                }
+            } else {
+                int firstWord = base >>> 6;
+                System.arraycopy(containers[i], 0, words, firstWord, Math.min(CHUNK_WORDS, words.length - firstWord));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Gets a page of the rows of the set, in ascending order. The containers before the page are skipped by their
+     * cardinality, so only the rows of the page are decoded.
+     *
+     * @param offset the number of rows to skip
+     * @param limit  the maximum number of rows
+     * @return the rows
+     */
+    public int[] toRows(int offset, int limit) {
+        int[] rows = new int[Math.max(0, Math.min(limit, cardinality - offset))];
+        int n = 0;
+        int skipped = 0;
+        for (int i = 0; i < keys.length && n < rows.length; i++) {
+            int containerCardinality = cardinality(containers[i]);
+            if (skipped + containerCardinality <= offset) {
+                skipped += containerCardinality;
+                continue;
+            }
+            int base = keys[i] << 16;
+            if (containers[i] instanceof char[]) {
+                for (char value : (char[]) containers[i]) {
+                    if (n == rows.length) {
+                        break;
+                    }
+                    if (skipped++ >= offset) {
+                        rows[n++] = base + value;
+                    }
+                }
+            } else {
+                long[] words = (long[]) containers[i];
+                for (int w = 0; w < CHUNK_WORDS && n < rows.length; w++) {
+                    long word = words[w];
+                    while (word != 0 && n < rows.length) {
+                        if (skipped++ >= offset) {
+                            rows[n++] = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                        }
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the number of rows of a container.
+     *
+     * @param container the container
+     * @return the number of rows
+     */
+    private static int cardinality(Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        int count = 0;
+        for (long word : (long[]) container) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether a container contains a row.
+     *
+     * @param container the container
+     * @param value     the 16 low bits of the row
+     * @return {@code true} if the container contains the row, {@code false} otherwise
+     */
+    private static boolean contains(Object container, char value) {
+        if (container instanceof char[]) {
+            return Arrays.binarySearch((char[]) container, value) >= 0;
+        }
+        return (((long[]) container)[value >>> 6] & (1L << value)) != 0;
+    }
+
+    /**
+     * Converts a container to a bitmap container.
+     *
+     * @param container the container
+     * @return a new bitmap with the rows of the container
+     */
+    private static long[] toBitmap(Object container) {
+        if (container instanceof long[]) {
+            return ((long[]) container).clone();
+        }
+        long[] words = new long[CHUNK_WORDS];
+        for (char value : (char[]) container) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    /**
+     * Converts a bitmap container to an array container if it has few rows.
+     *
+     * @param words the bitmap container
+     * @return the container, or {@code null} if it is empty
+     */
+    private static Object compact(long[] words) {
+        int count = cardinality(words);
+        if (count == 0) {
+            return null;
+        }
+        if (count > ARRAY_MAX_SIZE) {
+            return words;
+        }
+        char[] values = new char[count];
+        int n = 0;
+        for (int w = 0; w < CHUNK_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Keeps the values of an array container that are (or are not) contained in another container.
+     *
+     * @param values   the array container
+     * @param other    the other container
+     * @param included whether to keep the values contained in {@code other} or the ones not contained in it
+     * @return the resulting container, or {@code null} if it is empty
+     */
+    private static char[] filter(char[] values, Object other, boolean included) {
+        char[] result = new char[values.length];
+        int n = 0;
+        for (char value : values) {
+            if (contains(other, value) == included) {
+                result[n++] = value;
+            }
+        }
+        return (n == 0 ? null : Arrays.copyOf(result, n));
+    }
+
+    /**
+     * Intersects two containers.
+     *
+     * @param a the first container
+     * @param b the second container
+     * @return the resulting container, or {@code null} if it is empty
+     */
+    private static Object and(Object a, Object b) {
+        if (a instanceof char[]) {
+            return filter((char[]) a, b, true);
+        }
+        if (b instanceof char[]) {
+            return filter((char[]) b, a, true);
+        }
+        long[] words = toBitmap(a);
+        long[] otherWords = (long[]) b;
+        for (int w = 0; w < CHUNK_WORDS; w++) {
+            words[w] &= otherWords[w];
+        }
+        return compact(words);
+    }
+
+    /**
+     * Removes the rows of a container from another one.
+     *
+     * @param a the container
+     * @param b the container with the rows to remove
+     * @return the resulting container, or {@code null} if it is empty
+     */
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof char[]) {
+            return filter((char[]) a, b, false);
+        }
+        long[] words = toBitmap(a);
+        if (b instanceof char[]) {
+            for (char value : (char[]) b) {
+                words[value >>> 6] &= ~(1L << value);
+            }
+        } else {
+            long[] otherWords = (long[]) b;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                words[w] &= ~otherWords[w];
+            }
+        }
+        return compact(words);
+    }
+
+    /**
+     * Unites two containers.
+     *
+     * @param a the first container
+     * @param b the second container
+     * @return the resulting container
+     */
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] && b instanceof char[]) {
+            char[] values = (char[]) a;
+            char[] otherValues = (char[]) b;
+            char[] result = new char[values.length + otherValues.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < otherValues.length) {
+                if (j == otherValues.length || (i < values.length && values[i] < otherValues[j])) {
+                    result[n++] = values[i++];
+                } else if (i == values.length || values[i] > otherValues[j]) {
+                    result[n++] = otherValues[j++];
+                } else {
+                    result[n++] = values[i++];
+                    j++;
+                }
+            }
+            return (n > ARRAY_MAX_SIZE ? toBitmap(Arrays.copyOf(result, n)) : Arrays.copyOf(result, n));
+        }
+        long[] words = toBitmap(a);
+        if (b instanceof char[]) {
+            for (char value : (char[]) b) {
+                words[value >>> 6] |= 1L << value;
+            }
+        } else {
+            long[] otherWords = (long[]) b;
+            for (int w = 0; w < CHUNK_WORDS; w++) {
+                words[w] |= otherWords[w];
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,156 @@
+package com.xatkit.bot.sql.columnar;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A sorted index over the typed (numeric or datetime) values of a {@link Column}.
+ * <p>
+ * The rows with a non-null value are stored sorted by their value, so the rows that satisfy a range predicate (e.g.
+ * {@code > 10} or {@code BETWEEN a AND b}) are a contiguous slice of the index, found with two binary searches. Only
+ * the rows of that slice are then set in the selection bitmap, instead of comparing the value of every row.
+ * <p>
+ * The values are stored as {@code long} keys: epoch milliseconds for datetimes, and an order-preserving encoding of
+ * the {@code double} for numbers (see {@link #numberKey(double)}).
+ */
+final class RangeIndex {
+
+    /**
+     * The keys of the values, in ascending order.
+     */
+    private final long[] keys;
+
+    /**
+     * The rows of each key of {@link #keys}.
+     */
+    private final int[] rows;
+
+    /**
+     * Instantiates a new {@link RangeIndex}.
+     *
+     * @param keys the keys of the values, in ascending order
+     * @param rows the rows of each key
+     */
+    private RangeIndex(long[] keys, int[] rows) {
+        this.keys = keys;
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the index of a dictionary-encoded column.
+     * <p>
+     * The dictionary entries are sorted by their key, and then the rows are placed by the rank of their code (a
+     * counting sort), so the cost is linear in the number of rows plus the sort of the dictionary.
+     *
+     * @param codeKeys  the key of each dictionary entry
+     * @param codeNulls whether each dictionary entry is null (i.e. it has no typed value) or not
+     * @param codes     the code of the value of each row
+     * @return the index
+     */
+    static RangeIndex build(long[] codeKeys, boolean[] codeNulls, int[] codes) {
+        Integer[] sortedCodes = new Integer[codeKeys.length];
+        for (int code = 0; code < codeKeys.length; code++) {
+            sortedCodes[code] = code;
+        }
+        Arrays.sort(sortedCodes, Comparator.comparingLong(code -> codeKeys[code]));
+        int[] offsets = new int[codeKeys.length + 1];
+        for (int code : codes) {
+            if (!codeNulls[code]) {
+                offsets[code + 1]++;
+            }
+        }
+        // The offsets of the codes, in the order of their keys
+        int[] starts = new int[codeKeys.length];
+        int size = 0;
+        for (int code : sortedCodes) {
+            starts[code] = size;
+            size += offsets[code + 1];
+        }
+        long[] keys = new long[size];
+        int[] rows = new int[size];
+        for (int row = 0; row < codes.length; row++) {
+            int code = codes[row];
+            if (!codeNulls[code]) {
+                int position = starts[code]++;
+                keys[position] = codeKeys[code];
+                rows[position] = row;
+            }
+        }
+        return new RangeIndex(keys, rows);
+    }
+
+    /**
+     * Gets the key of a number, which preserves the order of the numbers (i.e. {@code a < b} if and only if
+     * {@code numberKey(a) < numberKey(b)}, for numbers that are not {@code NaN}).
+     *
+     * @param number the number
+     * @return the key
+     */
+    static long numberKey(double number) {
+        long bits = Double.doubleToLongBits(number == 0 ? 0.0 : number);
+        // Negative numbers are ordered in reverse by their bits, so all the bits but the sign are flipped
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Gets the number of rows of the index (i.e. the rows with a non-null value).
+     *
+     * @return the number of rows
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the position of the first key that is greater than or equal to a key.
+     *
+     * @param key the key
+     * @return the position, or {@link #size()} if all the keys are lower
+     */
+    int lowerBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the position of the first key that is greater than a key.
+     *
+     * @param key the key
+     * @return the position, or {@link #size()} if all the keys are lower or equal
+     */
+    int upperBound(long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sets the rows of a slice of the index in a bitmap.
+     *
+     * @param words the bitmap
+     * @param from  the first position of the slice (included)
+     * @param to    the last position of the slice (excluded)
+     */
+    void setRows(long[] words, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Bitmaps.set(words, rows[i]);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.Condition;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A (small) filtered result kept in memory, together with the conditions that produced it, so it can be refined with
+ * new conditions without running a new query.
+ * <p>
+ * When the user adds a filter, the new result is a subset of the previous one: only the added conditions are evaluated
+ * (with a {@link ColumnarEngine} over the rows of this result). If some condition was removed, the result cannot be
+ * refined and the query must be run again.
+ */
+public class RefinableResult {
+
+    /**
+     * The conditions that all the rows of the result satisfy.
+     */
+    @Getter
+    private final List<Condition> conditions;
+
+    /**
+     * The header of the result as it is shown to the user (i.e. the readable names of the fields).
+     */
+    private final List<String> header;
+
+    /**
+     * The rows of the result, whose columns are named with the original names of the fields.
+     */
+    private final ColumnarTable table;
+
+    /**
+     * Whether the textual conditions compare normalized values or not (see
+     * {@link ColumnarEngine#ColumnarEngine(ColumnarTable, boolean)}).
+     */
+    private final boolean normalized;
+
+    /**
+     * Instantiates a new {@link RefinableResult}.
+     *
+     * @param conditions the conditions that all the rows of the result satisfy
+     * @param header     the header of the result as it is shown to the user
+     * @param table      the rows of the result
+     * @param normalized whether the textual conditions compare normalized values or not
+     */
+    private RefinableResult(List<Condition> conditions, List<String> header, ColumnarTable table,
+                            boolean normalized) {
+        this.conditions = new ArrayList<>(conditions);
+        this.header = header;
+        this.table = table;
+        this.normalized = normalized;
+    }
+
+    /**
+     * Creates a new {@link RefinableResult} with a copy of the rows of a result set.
+     *
+     * @param conditions the conditions that all the rows of the result set satisfy
+     * @param fields     the fields of the columns of the result set
+     * @param resultSet  the result set
+     * @param normalized whether the textual conditions compare normalized values or not
+     * @return the refinable result
+     */
+    public static RefinableResult of(List<Condition> conditions, List<String> fields, ResultSet resultSet,
+                                     boolean normalized) {
+        ColumnarTable.Builder builder = new ColumnarTable.Builder(fields.toArray(new String[0]));
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            String[] row = new String[fields.size()];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = resultSet.getValue(i, j);
+            }
+            builder.addRow(row);
+        }
+        return new RefinableResult(conditions, new ArrayList<>(resultSet.getHeader()), builder.build(), normalized);
+    }
+
+    /**
+     * Gets the number of rows of the result.
+     *
+     * @return the number of rows
+     */
+    public int getNumRows() {
+        return table.getNumRows();
+    }
+
+    /**
+     * Refines the result with new conditions.
+     *
+     * @param newConditions the new conditions, which must include all the {@link #conditions} of this result
+     * @return the refined result, or {@code null} if it cannot be computed from this result (some condition was
+     * removed, or an added condition is not supported by the {@link ColumnarEngine})
+     */
+    public RefinableResult refine(List<Condition> newConditions) {
+        List<Condition> addedConditions = new ArrayList<>(newConditions);
+        for (Condition condition : conditions) {
+            if (!addedConditions.remove(condition)) {
+                return null;
+            }
+        }
+        if (addedConditions.isEmpty()) {
+            return this;
+        }
+        long[] selection = new ColumnarEngine(table, normalized).select(addedConditions);
+        if (isNull(selection)) {
+            return null;
+        }
+        List<Column> columns = table.getColumns();
+        String[] fields = new String[columns.size()];
+        for (int j = 0; j < fields.length; j++) {
+            fields[j] = columns.get(j).getName();
+        }
+        ColumnarTable.Builder builder = new ColumnarTable.Builder(fields);
+        for (int i : Bitmaps.toRows(selection)) {
+            String[] row = new String[fields.length];
+            for (int j = 0; j < fields.length; j++) {
+                row[j] = columns.get(j).getString(i);
+            }
+            builder.addRow(row);
+        }
+        return new RefinableResult(newConditions, header, builder.build(), normalized);
+    }
+
+    /**
+     * Gets the result as a {@link ResultSet}, with the header shown to the user.
+     * <p>
+     * The result set is a view over the columns of the result: its rows are not copied, they are built when they are
+     * requested.
+     *
+     * @return the result set
+     */
+    public ResultSet toResultSet() {
+        return new TableResultSet(new ArrayList<>(header), table);
+    }
+
+    /**
+     * A {@link ResultSet} whose rows are read from the columns of a {@link ColumnarTable}.
+     */
+    private static final class TableResultSet extends ResultSet {
+
+        /**
+         * The columns of the result set, in the same order as the header.
+         */
+        private final List<Column> columns;
+
+        /**
+         * The number of rows of the result set.
+         */
+        private final int numRows;
+
+        /**
+         * Instantiates a new {@link TableResultSet}.
+         *
+         * @param header the header
+         * @param table  the table with the rows
+         */
+        private TableResultSet(List<String> header, ColumnarTable table) {
+            super(header, new ArrayList<>());
+            this.columns = table.getColumns();
+            this.numRows = table.getNumRows();
+        }
+
+        @Override
+        public Row getRow(int i) {
+            if (i < 0 || i >= numRows) {
+                throw new IndexOutOfBoundsException("Row " + i + " out of " + numRows);
+            }
+            List<String> values = new ArrayList<>(columns.size());
+            for (Column column : columns) {
+                values.add(column.getString(i));
+            }
+            return new Row(values);
+        }
+
+        @Override
+        public String getValue(int row, int column) {
+            return columns.get(column).getString(row);
+        }
+
+        @Override
+        public int getNumRows() {
+            return numRows;
+        }
+
+        @Override
+        protected boolean hasRow(int i) {
+            return i < numRows;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import com.xatkit.bot.library.Entities;
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.Condition;
+import com.xatkit.bot.sql.DataPartitions;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.Query;
+import com.xatkit.bot.sql.QueryAnswerer;
+import fr.inria.atlanmod.commons.log.Log;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A {@link QueryAnswerer} that estimates the result of the approximate queries (see {@link Query#isApproximate()})
+ * from a stratified random sample of the {@code .csv} file, with a 95% confidence interval.
+ * <p>
+ * The rows are stratified by the first partition field of the data, or by its first categorical field if it is not
+ * partitioned (or not stratified if there is none), so the small groups are not missed by the sample. The sample
+ * size is split among the strata, half proportionally to their size and half equally, and each stratum is sampled
+ * with a reservoir of its share (see {@link #load(DataPartitions, char, int, boolean)}). The
+ * sampled rows are stored in a {@link ColumnarTable}, where the conditions of the queries are evaluated by a
+ * {@link ColumnarEngine}.
+ * <p>
+ * The counts and sums are estimated with the stratified estimator of a total, and the averages with the (combined)
+ * ratio estimator. The result contains the point estimate, with its confidence interval (see
+ * {@link ResultSet#getEstimate(int, int)}). If every stratum fits in the sample, the result is exact and it has no
+ * interval.
+ * <p>
+ * It only answers the {@link Query.Operation#COUNT} (not distinct) and {@link Query.Operation#AGGREGATE} queries. The
+ * {@link Query.Operation#FREQUENT_VALUE} queries are not answered: a sample cannot tell which values are the most
+ * frequent ones when their frequencies are close, nor find the least frequent ones (which are often missing from it).
+ */
+public class SampleEngine implements QueryAnswerer {
+
+    /**
+     * The z-score of the 95% confidence intervals.
+     */
+    private static final double Z = 1.96;
+
+    /**
+     * The seed of the sampling, so the same data always gives the same sample (and the same estimates).
+     */
+    private static final long SEED = 42;
+
+    /**
+     * The table of the sampled rows.
+     */
+    private final ColumnarTable sample;
+
+    /**
+     * The engine that evaluates the conditions of the queries over the {@link #sample}.
+     */
+    private final ColumnarEngine engine;
+
+    /**
+     * The stratum of each sampled row.
+     */
+    private final int[] strata;
+
+    /**
+     * The number of rows of each stratum in the data.
+     */
+    private final long[] populationSizes;
+
+    /**
+     * The number of sampled rows of each stratum.
+     */
+    private final int[] sampleSizes;
+
+    /**
+     * The number of rows of the data.
+     */
+    @Getter
+    private final long numRows;
+
+    /**
+     * Instantiates a new {@link SampleEngine}.
+     *
+     * @param sample          the table of the sampled rows
+     * @param strata          the stratum of each sampled row
+     * @param populationSizes the number of rows of each stratum in the data
+     * @param sampleSizes     the number of sampled rows of each stratum
+     * @param normalized      whether the textual conditions compare normalized values (i.e. they are case and accent
+     *                        insensitive) or not
+     */
+    SampleEngine(ColumnarTable sample, int[] strata, long[] populationSizes, int[] sampleSizes, boolean normalized) {
+        this.sample = sample;
+        this.engine = new ColumnarEngine(sample, normalized);
+        this.strata = strata;
+        this.populationSizes = populationSizes;
+        this.sampleSizes = sampleSizes;
+        long n = 0;
+        for (long populationSize : populationSizes) {
+            n += populationSize;
+        }
+        this.numRows = n;
+    }
+
+    @Override
+    public ResultSet answer(Query query) {
+        if (!query.isApproximate() || isNull(query.getOperation())) {
+            return null;
+        }
+        switch (query.getOperation()) {
+            case COUNT:
+                if (query.isDistinct()) {
+                    return null;
+                }
+                return count(query.getConditions(), query.getLabel());
+            case AGGREGATE:
+                return aggregate(query.getConditions(), query.getFields().get(0), query.getFunction());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Estimates the result of a {@link Query.Operation#COUNT} query.
+     *
+     * @param conditions the conditions of the query
+     * @param label      the label of the count column
+     * @return the result set, or {@code null} if the conditions are not supported
+     */
+    ResultSet count(List<Condition> conditions, String label) {
+        long[] selection = engine.select(conditions);
+        if (isNull(selection)) {
+            return null;
+        }
+        int numStrata = populationSizes.length;
+        long[] matches = new long[numStrata];
+        for (int row : Bitmaps.toRows(selection)) {
+            matches[strata[row]]++;
+        }
+        // The strata that are fully sampled are counted exactly, the others are estimated together
+        long exactCount = 0;
+        long populationSize = 0;
+        long sampleSize = 0;
+        long sampleMatches = 0;
+        double total = 0;
+        double variance = 0;
+        for (int h = 0; h < numStrata; h++) {
+            int n = sampleSizes[h];
+            if (n >= populationSizes[h]) {
+                exactCount += matches[h];
+            } else {
+                populationSize += populationSizes[h];
+                sampleSize += n;
+                sampleMatches += matches[h];
+                total += (double) populationSizes[h] * matches[h] / n;
+                if (n > 1) {
+                    double p = (double) matches[h] / n;
+                    variance += stratumVariance(h, p * (1 - p) * n / (n - 1));
+                }
+            }
+        }
+        long count = exactCount + Math.round(total);
+        ResultSet resultSet = singleValue(label, String.valueOf(count));
+        if (populationSize > 0 && !conditions.isEmpty()) {
+            double[] interval = wilsonInterval(total / populationSize, variance / ((double) populationSize
+                    * populationSize), sampleSize, populationSize);
+            // The sampled rows that match (or do not match) the conditions bound the count
+            long lower = Math.max(exactCount + sampleMatches,
+                    exactCount + (long) Math.floor(populationSize * interval[0]));
+            long upper = Math.min(exactCount + populationSize - (sampleSize - sampleMatches),
+                    exactCount + (long) Math.ceil(populationSize * interval[1]));
+            resultSet.setEstimate(0, 0, new Estimate(count, Math.min(lower, count), Math.max(upper, count)));
+        }
+        return resultSet;
+    }
+
+    /**
+     * Gets the Wilson score interval of a proportion estimated from a stratified sample.
+     * <p>
+     * The Wilson interval keeps its coverage for the proportions close to 0 or 1 (i.e. the conditions that select
+     * few rows), where the normal interval is too narrow, and it is never empty, even if no sampled row is selected.
+     * The stratified sample is replaced by a simple random sample with the same variance of the proportion (i.e. its
+     * effective size), so the interval takes the stratification into account. If the variance is 0 (e.g. no sampled
+     * row is selected), the effective size is the size of the sample, with the finite population correction.
+     *
+     * @param proportion     the estimated proportion
+     * @param variance       the variance of the estimated proportion
+     * @param sampleSize     the number of sampled rows
+     * @param populationSize the number of rows the proportion is estimated for
+     * @return the lower and the upper bounds of the confidence interval of the proportion
+     */
+    private static double[] wilsonInterval(double proportion, double variance, long sampleSize, long populationSize) {
+        double n;
+        if (variance > 0 && proportion > 0 && proportion < 1) {
+            n = proportion * (1 - proportion) / variance;
+        } else {
+            n = sampleSize / (1 - (double) sampleSize / populationSize);
+        }
+        double z2 = Z * Z;
+        double center = (proportion + z2 / (2 * n)) / (1 + z2 / n);
+        double halfWidth = Z / (1 + z2 / n) * Math.sqrt(proportion * (1 - proportion) / n + z2 / (4 * n * n));
+        return new double[]{Math.max(0, center - halfWidth), Math.min(1, center + halfWidth)};
+    }
+
+    /**
+     * Estimates the result of a {@link Query.Operation#AGGREGATE} query.
+     *
+     * @param conditions the conditions of the query
+     * @param field      the aggregated field
+     * @param function   the aggregate function, {@code avg} or {@code sum}
+     * @return the result set, or {@code null} if the query cannot be answered (e.g. no sampled row is selected)
+     */
+    ResultSet aggregate(List<Condition> conditions, String field, String function) {
+        Column column = sample.getColumn(field);
+        boolean avg = "avg".equals(function);
+        if (isNull(column) || !(avg || "sum".equals(function))) {
+            return null;
+        }
+        long[] selection = engine.select(conditions);
+        if (isNull(selection)) {
+            return null;
+        }
+        double[] numbers = column.getNumbers();
+        long[] nulls = column.getNumberNulls();
+        int numStrata = populationSizes.length;
+        // The sums of x (whether a row is selected and has a value) and y (its value, or 0) by stratum
+        double[] counts = new double[numStrata];
+        double[] sums = new double[numStrata];
+        double[] squares = new double[numStrata];
+        for (int row : Bitmaps.toRows(selection)) {
+            if ((nulls[row >>> 6] & (1L << row)) == 0) {
+                int h = strata[row];
+                counts[h]++;
+                sums[h] += numbers[row];
+                squares[h] += numbers[row] * numbers[row];
+            }
+        }
+        double totalCount = 0;
+        double total = 0;
+        for (int h = 0; h < numStrata; h++) {
+            totalCount += populationSizes[h] * counts[h] / sampleSizes[h];
+            total += populationSizes[h] * sums[h] / sampleSizes[h];
+        }
+        if (totalCount == 0) {
+            return null;
+        }
+        double value = (avg ? total / totalCount : total);
+        double variance = 0;
+        for (int h = 0; h < numStrata; h++) {
+            int n = sampleSizes[h];
+            if (n > 1 && n < populationSizes[h]) {
+                double stratumSum;
+                double stratumSquares;
+                if (avg) {
+                    // The residuals d = y - R * x of the ratio estimator (x is 0 or 1, and y is 0 when x is 0)
+                    stratumSum = sums[h] - value * counts[h];
+                    stratumSquares = squares[h] - 2 * value * sums[h] + value * value * counts[h];
+                } else {
+                    stratumSum = sums[h];
+                    stratumSquares = squares[h];
+                }
+                double s2 = Math.max(0, (stratumSquares - stratumSum * stratumSum / n) / (n - 1));
+                variance += stratumVariance(h, s2);
+            }
+        }
+        if (avg) {
+            variance /= totalCount * totalCount;
+        }
+        ResultSet resultSet = singleValue(field, BigDecimal.valueOf(value).stripTrailingZeros().toPlainString());
+        if (!isExact()) {
+            double halfWidth = Z * Math.sqrt(variance);
+            BigDecimal estimate = BigDecimal.valueOf(value);
+            BigDecimal error = (Double.isNaN(halfWidth) || Double.isInfinite(halfWidth) ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(halfWidth));
+            resultSet.setEstimate(0, 0, new Estimate(estimate, estimate.subtract(error), estimate.add(error)));
+        }
+        return resultSet;
+    }
+
+    /**
+     * Gets the variance of the estimated total of a stratum.
+     *
+     * @param h  the stratum
+     * @param s2 the sample variance of the estimated variable in the stratum
+     * @return the variance, with the finite population correction
+     */
+    private double stratumVariance(int h, double s2) {
+        double populationSize = populationSizes[h];
+        int n = sampleSizes[h];
+        return populationSize * populationSize * (1 - n / populationSize) * s2 / n;
+    }
+
+    /**
+     * Checks if every stratum fits in the sample, so the estimates are exact.
+     *
+     * @return {@code true} if the sample contains all the rows of the data, {@code false} otherwise
+     */
+    private boolean isExact() {
+        for (int h = 0; h < populationSizes.length; h++) {
+            if (sampleSizes[h] < populationSizes[h]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a result set with a single value.
+     *
+     * @param label the column label
+     * @param value the value
+     * @return the result set
+     */
+    private static ResultSet singleValue(String label, String value) {
+        return new ResultSet(new ArrayList<>(Collections.singletonList(label)),
+                new ArrayList<>(Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList(value))))));
+    }
+
+    /**
+     * Samples the {@code .csv} files of the data from the resources folder into a new {@link SampleEngine}.
+     * <p>
+     * The strata are the values of the first partition field if the data is split in partitions (see
+     * {@link DataPartitions}), or the values of the first categorical field otherwise. The files are read twice: first
+     * to count the rows of each stratum, so the sample size can be split among the strata (see
+     * {@link #allocate(long[], int)}), and then to sample each stratum with a reservoir of its share of the sample.
+     * This way, no more than {@code sampleSize} rows are kept in memory. If there are more than half as many strata as
+     * sampled rows, the rows are not stratified, since each stratum needs at least 2 sampled rows to estimate its
+     * variance.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     * @param sampleSize the number of rows of the sample
+     * @param normalized whether the textual conditions compare normalized values (i.e. they are case and accent
+     *                   insensitive) or not
+     * @return the sample engine, or {@code null} if the files could not be sampled
+     */
+    public static SampleEngine load(DataPartitions partitions, char delimiter, int sampleSize, boolean normalized) {
+        long start = System.currentTimeMillis();
+        String[] fileHeader;
+        try (CSVReader reader = DataPartitions.openReader(partitions.getPartitions().get(0), delimiter)) {
+            fileHeader = reader.readNext();
+        } catch (IOException | CsvValidationException e) {
+            Log.error("An error occurred while sampling {0}, see the attached exception",
+                    partitions.getPartitions().get(0).getFile());
+            Log.error(e.getMessage());
+            return null;
+        }
+        if (isNull(fileHeader)) {
+            Log.error("The csv file \"{0}\" is empty", partitions.getPartitions().get(0).getFile());
+            return null;
+        }
+        String[] header = partitions.getHeader(fileHeader);
+        int headerStratumField = getStratumField(partitions, header);
+        // First pass: the size of each stratum
+        Map<String, long[]> populationSizes = new LinkedHashMap<>();
+        if (!scan(partitions, delimiter, fileHeader, (row, partition) -> populationSizes.computeIfAbsent(
+                getStratum(row, headerStratumField), k -> new long[1])[0]++)) {
+            return null;
+        }
+        int stratumField = headerStratumField;
+        if (populationSizes.size() * 2 > sampleSize) {
+            Log.info("There are too many strata ({0}) for a sample of {1} rows, sampling without strata",
+                    populationSizes.size(), sampleSize);
+            long numRows = 0;
+            for (long[] populationSize : populationSizes.values()) {
+                numRows += populationSize[0];
+            }
+            populationSizes.clear();
+            populationSizes.put("", new long[]{numRows});
+            stratumField = -1;
+        }
+        int numStrata = populationSizes.size();
+        long[] stratumPopulationSizes = new long[numStrata];
+        Map<String, Integer> stratumIndexes = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : populationSizes.entrySet()) {
+            stratumPopulationSizes[stratumIndexes.size()] = entry.getValue()[0];
+            stratumIndexes.put(entry.getKey(), stratumIndexes.size());
+        }
+        int[] stratumSampleSizes = allocate(stratumPopulationSizes, sampleSize);
+        // Second pass: a reservoir of the share of the sample of each stratum
+        List<List<String[]>> reservoirs = new ArrayList<>();
+        for (int h = 0; h < numStrata; h++) {
+            reservoirs.add(new ArrayList<>());
+        }
+        long[] seen = new long[numStrata];
+        Random random = new Random(SEED);
+        int finalStratumField = stratumField;
+        if (!scan(partitions, delimiter, fileHeader, (row, partition) -> {
+            int h = stratumIndexes.get(getStratum(row, finalStratumField));
+            List<String[]> reservoir = reservoirs.get(h);
+            seen[h]++;
+            if (reservoir.size() < stratumSampleSizes[h]) {
+                reservoir.add(row);
+            } else {
+                long i = (long) (random.nextDouble() * seen[h]);
+                if (i < stratumSampleSizes[h]) {
+                    reservoir.set((int) i, row);
+                }
+            }
+        })) {
+            return null;
+        }
+        ColumnarTable.Builder builder = new ColumnarTable.Builder(header);
+        List<Integer> sampleStrata = new ArrayList<>();
+        for (int h = 0; h < numStrata; h++) {
+            for (String[] sampledRow : reservoirs.get(h)) {
+                builder.addRow(sampledRow);
+                sampleStrata.add(h);
+            }
+        }
+        int[] strata = new int[sampleStrata.size()];
+        for (int i = 0; i < strata.length; i++) {
+            strata[i] = sampleStrata.get(i);
+        }
+        SampleEngine engine = new SampleEngine(builder.build(), strata, stratumPopulationSizes,
+                stratumSampleSizes, normalized);
+        Log.info("Sampled {0} of {1} rows ({2} strata) from {3} files in {4} ms", strata.length, engine.getNumRows(),
+                numStrata, partitions.getPartitions().size(), System.currentTimeMillis() - start);
+        return engine;
+    }
+
+    /**
+     * Splits a sample size among some strata: half proportionally to their size and half equally, with at least 2
+     * rows (or all the rows, if it has fewer) in each stratum. The shares are rounded with the largest remainder
+     * method, so they add up to the sample size (or to the number of rows, if it is smaller).
+     *
+     * @param populationSizes the number of rows of each stratum
+     * @param sampleSize      the number of rows of the sample, which must be at least twice the number of strata
+     * @return the number of sampled rows of each stratum
+     * @throws IllegalArgumentException if the sample size is smaller than twice the number of strata
+     */
+    static int[] allocate(long[] populationSizes, int sampleSize) {
+        int numStrata = populationSizes.length;
+        if (numStrata * 2L > sampleSize) {
+            throw new IllegalArgumentException("A sample of " + sampleSize + " rows cannot have 2 rows of each of the "
+                    + numStrata + " strata");
+        }
+        long numRows = 0;
+        for (long populationSize : populationSizes) {
+            numRows += populationSize;
+        }
+        int[] sampleSizes = new int[numStrata];
+        int allocated = 0;
+        for (int h = 0; h < numStrata; h++) {
+            sampleSizes[h] = (int) Math.min(2, populationSizes[h]);
+            allocated += sampleSizes[h];
+        }
+        int budget = sampleSize - allocated;
+        double[] remainders = new double[numStrata];
+        for (int h = 0; h < numStrata; h++) {
+            double share = budget * (0.5 * populationSizes[h] / numRows + 0.5 / numStrata);
+            int n = (int) Math.min(populationSizes[h] - sampleSizes[h], (long) Math.floor(share));
+            sampleSizes[h] += n;
+            allocated += n;
+            remainders[h] = share - Math.floor(share);
+        }
+        // The rows left by the rounding (and by the strata that are fully sampled) go to the largest remainders
+        Integer[] order = new Integer[numStrata];
+        for (int h = 0; h < numStrata; h++) {
+            order[h] = h;
+        }
+        Arrays.sort(order, (h1, h2) -> Double.compare(remainders[h2], remainders[h1]));
+        boolean room = true;
+        while (allocated < sampleSize && room) {
+            room = false;
+            for (int h : order) {
+                if (allocated < sampleSize && sampleSizes[h] < populationSizes[h]) {
+                    sampleSizes[h]++;
+                    allocated++;
+                    room = true;
+                }
+            }
+        }
+        return sampleSizes;
+    }
+
+    /**
+     * A consumer of the rows of the data.
+     */
+    private interface RowConsumer {
+
+        /**
+         * Consumes a row of the data.
+         *
+         * @param row       the row
+         * @param partition the partition of the row
+         */
+        void accept(String[] row, Partition partition);
+    }
+
+    /**
+     * Reads all the rows of the {@code .csv} files of the data.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param delimiter  the csv delimiter
+     * @param fileHeader the header of the files
+     * @param consumer   the consumer of the rows
+     * @return {@code true} if all the files were read, {@code false} otherwise
+     */
+    private static boolean scan(DataPartitions partitions, char delimiter, String[] fileHeader,
+                                RowConsumer consumer) {
+        for (Partition partition : partitions.getPartitions()) {
+            try (CSVReader reader = DataPartitions.openReader(partition, delimiter)) {
+                if (!Arrays.equals(fileHeader, reader.readNext())) {
+                    Log.error("The csv file \"{0}\" does not have the same columns as \"{1}\"", partition.getFile(),
+                            partitions.getPartitions().get(0).getFile());
+                    return false;
+                }
+                String[] fileRow;
+                while (!isNull(fileRow = reader.readNext())) {
+                    consumer.accept(partitions.getRow(fileRow, fileHeader.length, partition), partition);
+                }
+            } catch (IOException | CsvValidationException e) {
+                Log.error("An error occurred while sampling {0}, see the attached exception", partition.getFile());
+                Log.error(e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the field the rows are stratified by: the first partition field if the data is split in partitions, or the
+     * first categorical field otherwise.
+     *
+     * @param partitions the {@code .csv} files of the data
+     * @param header     the header of the data
+     * @return the index of the field in the header, or {@code -1} if there is none
+     */
+    private static int getStratumField(DataPartitions partitions, String[] header) {
+        for (int i = 0; i < header.length; i++) {
+            if (partitions.isPartitioned() ? header[i].equals(partitions.getFields().get(0))
+                    : Entities.isCategoricalField(header[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String getStratum(String[] row, int stratumField) {
+        return (stratumField < 0 ? "" : (stratumField < row.length && !isNull(row[stratumField])
+                ? row[stratumField] : ""));
+    }
+}
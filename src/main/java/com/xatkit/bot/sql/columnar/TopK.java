@@ -0,0 +1,148 @@
+package com.xatkit.bot.sql.columnar;
+
+import java.util.Arrays;
+
+/**
+ * A bounded heap that keeps the first {@code k} rows of a selection in a given order, in one pass over the selection
+ * and {@code O(k)} memory (instead of sorting all the selected rows to take the first ones).
+ * <p>
+ * The heap is a max-heap by the order, so its root is the last of the kept rows: a new row is only kept if it goes
+ * before the root, which is then discarded.
+ */
+final class TopK {
+
+    /**
+     * An order of the rows of a table.
+     */
+    interface RowOrder {
+
+        /**
+         * Compares two rows.
+         *
+         * @param row1 the first row
+         * @param row2 the second row
+         * @return a negative number, zero, or a positive number if the first row goes before, with, or after the
+         * second one
+         */
+        int compare(int row1, int row2);
+    }
+
+    /**
+     * The order of the rows.
+     */
+    private final RowOrder order;
+
+    /**
+     * The kept rows, as a max-heap by {@link #order}.
+     */
+    private final int[] heap;
+
+    /**
+     * The number of kept rows.
+     */
+    private int size = 0;
+
+    /**
+     * Instantiates a new {@link TopK}.
+     *
+     * @param k     the maximum number of rows to keep
+     * @param order the order of the rows
+     */
+    TopK(int k, RowOrder order) {
+        this.order = order;
+        this.heap = new int[k];
+    }
+
+    /**
+     * Offers all the rows of a selection.
+     *
+     * @param selection the bitmap of the selected rows
+     */
+    void offerAll(long[] selection) {
+        for (int i = 0; i < selection.length; i++) {
+            long word = selection[i];
+            while (word != 0) {
+                offer((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Offers a row, which is kept if it is one of the first {@code k} rows offered so far.
+     *
+     * @param row the row
+     */
+    void offer(int row) {
+        if (size < heap.length) {
+            heap[size] = row;
+            siftUp(size++);
+        } else if (size > 0 && order.compare(row, heap[0]) < 0) {
+            heap[0] = row;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Gets the kept rows, sorted by the order.
+     *
+     * @return the rows
+     */
+    int[] getRows() {
+        int[] rows = Arrays.copyOf(heap, size);
+        int[] sortedRows = new int[size];
+        // Popping the root of the heap gives the rows from the last to the first
+        for (int i = size - 1; i >= 0; i--) {
+            sortedRows[i] = heap[0];
+            heap[0] = heap[i];
+            size = i;
+            siftDown(0);
+        }
+        // The heap is restored, so more rows can still be offered
+        System.arraycopy(rows, 0, heap, 0, rows.length);
+        size = rows.length;
+        return sortedRows;
+    }
+
+    /**
+     * Moves a row of the heap up until its parent goes after it.
+     *
+     * @param i the position of the row
+     */
+    private void siftUp(int i) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (order.compare(heap[parent], row) >= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = row;
+    }
+
+    /**
+     * Moves a row of the heap down until its children go before it.
+     *
+     * @param i the position of the row
+     */
+    private void siftDown(int i) {
+        int row = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(heap[child], row) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+}
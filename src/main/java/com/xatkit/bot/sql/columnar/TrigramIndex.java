@@ -0,0 +1,213 @@
+package com.xatkit.bot.sql.columnar;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+
+/**
+ * A trigram inverted index over the upper case (or normalized) dictionary of a textual {@link Column}.
+ * <p>
+ * Each dictionary entry is split in the trigrams (i.e. substrings of 3 characters) of the entry wrapped with a start
+ * and an end marker, and the index maps each trigram to the sorted codes of the entries that contain it. An entry can
+ * only contain (start with, or end with) a value if it contains all the trigrams of the value (with the start, or
+ * end, marker), so intersecting their posting lists gives a small set of candidate entries, which are then verified.
+ * The rows of each entry are also stored, grouped by code, so the rows of the matching entries are selected without
+ * scanning the column.
+ */
+final class TrigramIndex {
+
+    /**
+     * The marker of the start of a dictionary entry.
+     */
+    private static final char START = '\u0002';
+
+    /**
+     * The marker of the end of a dictionary entry.
+     */
+    private static final char END = '\u0003';
+
+    /**
+     * The sorted codes of the dictionary entries that contain each trigram.
+     */
+    private final Map<String, int[]> postings;
+
+    /**
+     * The rows of the column grouped by code: the rows of code {@code c} are {@code rowsByCode[rowOffsets[c]]} to
+     * {@code rowsByCode[rowOffsets[c + 1] - 1]}.
+     */
+    private final int[] rowsByCode;
+
+    /**
+     * The position in {@link #rowsByCode} of the first row of each code.
+     */
+    private final int[] rowOffsets;
+
+    /**
+     * Whether the index is built over the normalized dictionary or over the upper case one.
+     */
+    @Getter
+    private final boolean normalized;
+
+    /**
+     * Instantiates a new {@link TrigramIndex}.
+     *
+     * @param postings   the sorted codes of the dictionary entries that contain each trigram
+     * @param rowsByCode the rows of the column grouped by code
+     * @param rowOffsets the position in {@code rowsByCode} of the first row of each code
+     * @param normalized whether the index is built over the normalized dictionary or over the upper case one
+     */
+    private TrigramIndex(Map<String, int[]> postings, int[] rowsByCode, int[] rowOffsets, boolean normalized) {
+        this.postings = postings;
+        this.rowsByCode = rowsByCode;
+        this.rowOffsets = rowOffsets;
+        this.normalized = normalized;
+    }
+
+    /**
+     * Builds the trigram index of a column.
+     *
+     * @param dictionary      the upper case (or normalized) dictionary of the column
+     * @param codes           the code of the value of each row
+     * @param normalized      whether the dictionary is the normalized one or the upper case one
+     * @return the index
+     */
+    static TrigramIndex build(String[] dictionary, int[] codes, boolean normalized) {
+        Map<String, int[]> growingPostings = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int code = 0; code < dictionary.length; code++) {
+            for (String trigram : trigrams(START + dictionary[code] + END)) {
+                int[] posting = growingPostings.get(trigram);
+                int size = sizes.getOrDefault(trigram, 0);
+                if (isNull(posting)) {
+                    posting = new int[4];
+                } else if (size == posting.length) {
+                    posting = Arrays.copyOf(posting, size * 2);
+                }
+                posting[size] = code;
+                growingPostings.put(trigram, posting);
+                sizes.put(trigram, size + 1);
+            }
+        }
+        Map<String, int[]> postings = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : growingPostings.entrySet()) {
+            postings.put(entry.getKey(), Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey())));
+        }
+        int[] rowOffsets = new int[dictionary.length + 1];
+        for (int code : codes) {
+            rowOffsets[code + 1]++;
+        }
+        for (int code = 0; code < dictionary.length; code++) {
+            rowOffsets[code + 1] += rowOffsets[code];
+        }
+        int[] rowsByCode = new int[codes.length];
+        int[] next = Arrays.copyOf(rowOffsets, dictionary.length);
+        for (int row = 0; row < codes.length; row++) {
+            rowsByCode[next[codes[row]]++] = row;
+        }
+        return new TrigramIndex(postings, rowsByCode, rowOffsets, normalized);
+    }
+
+    /**
+     * Gets the dictionary entries that may satisfy a textual condition.
+     *
+     * @param operator the textual operator ({@code contains}, {@code starts with} or {@code ends with})
+     * @param value    the upper case (or normalized) value of the condition
+     * @return the sorted codes of the candidate entries, or {@code null} if the index cannot narrow them (the operator
+     * is not supported or the value is too short)
+     */
+    int[] candidates(String operator, String value) {
+        String pattern;
+        switch (operator) {
+            case "contains":
+                pattern = value;
+                break;
+            case "starts with":
+                pattern = START + value;
+                break;
+            case "ends with":
+                pattern = value + END;
+                break;
+            default:
+                return null;
+        }
+        if (pattern.length() < 3) {
+            return null;
+        }
+        List<int[]> lists = new ArrayList<>();
+        for (String trigram : trigrams(pattern)) {
+            int[] posting = postings.get(trigram);
+            if (isNull(posting)) {
+                return new int[0];
+            }
+            lists.add(posting);
+        }
+        // Intersect from the shortest list, so the intermediate results are as small as possible
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Sets the rows of a dictionary entry in a bitmap.
+     *
+     * @param words the bitmap
+     * @param code  the code of the entry
+     */
+    void setRows(long[] words, int code) {
+        for (int i = rowOffsets[code]; i < rowOffsets[code + 1]; i++) {
+            Bitmaps.set(words, rowsByCode[i]);
+        }
+    }
+
+    /**
+     * Gets the distinct trigrams of a string.
+     *
+     * @param s the string
+     * @return the trigrams
+     */
+    private static Set<String> trigrams(String s) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            trigrams.add(s.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Intersects two sorted lists of codes.
+     *
+     * @param a the first list
+     * @param b the second list
+     * @return the codes of both lists, sorted
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
@@ -0,0 +1 @@
+package com.xatkit.bot.sql.columnar;
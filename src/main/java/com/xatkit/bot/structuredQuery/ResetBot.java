@@ -2,6 +2,7 @@ package com.xatkit.bot.structuredQuery;
 
 import com.xatkit.bot.Bot;
 import com.xatkit.bot.library.ContextKeys;
+import com.xatkit.bot.library.Utils;
 import com.xatkit.bot.sql.SqlQueries;
 import com.xatkit.execution.State;
 import lombok.Getter;
@@ -38,6 +39,8 @@ public class ResetBot {
                 .body(context -> {
                     SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
                     sqlQueries.clearFilters();
+                    context.getSession().remove(ContextKeys.REFINABLE_RESULT);
+                    Utils.storeResultSet(context.getSession(), null);
                     List<String> viewFieldOptions = new ArrayList<>(sqlQueries.getAllFields());
                     context.getSession().put(ContextKeys.VIEW_FIELD_OPTIONS, viewFieldOptions);
                 })
@@ -1,7 +1,7 @@
 package com.xatkit.bot.structuredQuery;
 
-import com.xatkit.bot.library.ResultSet;
 import com.xatkit.bot.Bot;
+import com.xatkit.bot.getResult.GetResult;
 import com.xatkit.bot.library.ContextKeys;
 import com.xatkit.bot.library.Utils;
 import com.xatkit.bot.sql.SqlQueries;
@@ -14,7 +14,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static com.xatkit.bot.App.sql;
 import static com.xatkit.dsl.DSL.intentIs;
 import static com.xatkit.dsl.DSL.state;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -162,11 +161,7 @@ public class StructuredFilter {
                     if (!isEmpty(field) && !isEmpty(operator) && !isEmpty(value)) {
                         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
                         sqlQueries.addFilter(field, operator, value);
-                        String sqlQuery =  sqlQueries.selectAll();
-                        ResultSet resultSet = sql.runSqlQuery(bot, sqlQuery);
-                        context.getSession().put(ContextKeys.RESULTSET, resultSet);
-                        int resultSetNumRows = resultSet.getNumRows();
-                        context.getSession().put(ContextKeys.RESULTSET_NUM_ROWS, resultSet.getNumRows());
+                        int resultSetNumRows = GetResult.storePagedQuery(bot, context, sqlQueries);
                         String fieldRN = bot.entities.readableNames.get(field);
                         bot.reactPlatform.reply(context, MessageFormat.format(bot.messages.getString("FilterAdded"),
                                 fieldRN, operator, value, resultSetNumRows));
@@ -211,11 +206,11 @@ public class StructuredFilter {
                     if (!isEmpty(field) && !isEmpty(operator) && !isEmpty(value)) {
                         SqlQueries sqlQueries = (SqlQueries) context.getSession().get(ContextKeys.SQL_QUERIES);
                         sqlQueries.removeFilter(field, operator, value);
-                        String sqlQuery =  sqlQueries.selectAll();
-                        ResultSet resultSet = sql.runSqlQuery(bot, sqlQuery);
+                        context.getSession().remove(ContextKeys.REFINABLE_RESULT);
+                        int resultSetNumRows = GetResult.countRows(bot, sqlQueries.rowCount());
                         String fieldRN = bot.entities.readableNames.get(field);
                         bot.reactPlatform.reply(context, MessageFormat.format(bot.messages.getString("FilterRemoved"),
-                                fieldRN, operator, value, resultSet.getNumRows()));
+                                fieldRN, operator, value, resultSetNumRows));
                     } else {
                         bot.reactPlatform.reply(context, bot.messages.getString("SomethingWentWrong"));
                     }
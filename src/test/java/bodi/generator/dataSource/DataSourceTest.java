@@ -1,9 +1,47 @@
 package bodi.generator.dataSource;
 
+import bodi.generator.dataSchema.DataType;
+import bodi.generator.dataSchema.SchemaType;
+import com.xatkit.bot.sql.CountMinSketch;
+import com.xatkit.bot.sql.DataPartitions;
+import com.xatkit.bot.sql.HyperLogLog;
+import com.xatkit.bot.sql.SpaceSaving;
 import com.xatkit.bot.sql.SqlEngine;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.schema.GroupType;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.PrimitiveType;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static bodi.generator.library.BodiGeneratorProperties.MAIN_SCHEMA_TYPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class DataSourceTest{
 
     private SqlEngine sql;
@@ -134,4 +172,291 @@ class DataSourceTest{
         }
     }
      */
+
+    /**
+     * Test that the data written as Parquet has a typed column for each field (named as the csv columns of the
+     * chatbot), and that reading it back gives the values of the data, with {@code null} for the empty values and for
+     * the numbers and datetimes that cannot be parsed.
+     */
+    @Test
+    void testWriteParquet() throws IOException {
+        TabularDataSource tds = csv(Arrays.asList("name,birth date,age,city",
+                "a,1995-08-24T12:00:00+01:00,30,Madrid",
+                "b,unknown,n/a,",
+                "c,,41.5,Girona",
+                "d,2000-01-15T00:00:00Z,,Madrid"));
+        SchemaType schemaType = tds.toDataSchema().getSchemaType(MAIN_SCHEMA_TYPE);
+        // The types of the columns with values that cannot be parsed are set by hand, as the user does in the UI
+        schemaType.getSchemaField("birth date").setType(DataType.DATETIME);
+        schemaType.getSchemaField("age").setType(DataType.NUMBER);
+        Path folder = Files.createTempDirectory("data-source-test");
+        try {
+            Path file = folder.resolve("data.parquet");
+            tds.writeParquet(file.toString(), schemaType);
+            // The checksum file of Hadoop is removed
+            try (Stream<Path> paths = Files.list(folder)) {
+                assertEquals(Collections.singletonList(file), paths.collect(Collectors.toList()));
+            }
+            List<Group> groups = new ArrayList<>();
+            try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(),
+                    new org.apache.hadoop.fs.Path(file.toString())).build()) {
+                for (Group group = reader.read(); group != null; group = reader.read()) {
+                    groups.add(group);
+                }
+            }
+            assertEquals(4, groups.size());
+            GroupType schema = groups.get(0).getType();
+            assertEquals(4, schema.getFieldCount());
+            assertEquals(Arrays.asList("name", "birth_date", "age", "city"), Arrays.asList(schema.getType(0).getName(),
+                    schema.getType(1).getName(), schema.getType(2).getName(), schema.getType(3).getName()));
+            assertEquals(PrimitiveType.PrimitiveTypeName.BINARY,
+                    schema.getType(0).asPrimitiveType().getPrimitiveTypeName());
+            assertEquals(LogicalTypeAnnotation.stringType(), schema.getType(0).getLogicalTypeAnnotation());
+            assertEquals(PrimitiveType.PrimitiveTypeName.INT64,
+                    schema.getType(1).asPrimitiveType().getPrimitiveTypeName());
+            assertEquals(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MILLIS),
+                    schema.getType(1).getLogicalTypeAnnotation());
+            assertEquals(PrimitiveType.PrimitiveTypeName.DOUBLE,
+                    schema.getType(2).asPrimitiveType().getPrimitiveTypeName());
+            assertEquals(LogicalTypeAnnotation.stringType(), schema.getType(3).getLogicalTypeAnnotation());
+
+            assertEquals("a", groups.get(0).getString(0, 0));
+            assertEquals(809262000000L, groups.get(0).getLong(1, 0));
+            assertEquals(30.0, groups.get(0).getDouble(2, 0));
+            assertEquals("Madrid", groups.get(0).getString(3, 0));
+            // Unparsable datetime and number (the empty texts are kept as they are)
+            assertEquals(0, groups.get(1).getFieldRepetitionCount(1));
+            assertEquals(0, groups.get(1).getFieldRepetitionCount(2));
+            assertEquals("", groups.get(1).getString(3, 0));
+            // Empty datetime
+            assertEquals(0, groups.get(2).getFieldRepetitionCount(1));
+            assertEquals(41.5, groups.get(2).getDouble(2, 0));
+            assertEquals(947894400000L, groups.get(3).getLong(1, 0));
+            // Empty number
+            assertEquals(0, groups.get(3).getFieldRepetitionCount(2));
+        } finally {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static TabularDataSource csv(List<String> lines) {
+        return new TabularDataSource(new ByteArrayInputStream(String.join("\n", lines)
+                .getBytes(StandardCharsets.UTF_8)), ',');
+    }
+
+    /**
+     * Test that the statistics manifest contains the number of rows, the fields, the frequency tables of the
+     * categorical fields and the sketches of the distinct values and of the free text fields, with the values of the
+     * data.
+     */
+    @Test
+    void testStatisticsJson() {
+        List<String> lines = new ArrayList<>();
+        lines.add("name,city,comment,age");
+        String[] cities = {"Barcelona", "Girona", "Lleida", "Tarragona"};
+        for (int i = 0; i < 200; i++) {
+            String comment = (i % 7 == 0 ? "" : "comment " + (i % 23) * (i % 3));
+            lines.add("name" + (i % 150) + "," + cities[i % 4 == 3 ? 0 : i % 4] + "," + comment + "," + (i % 60));
+        }
+        TabularDataSource tds = csv(lines);
+        SchemaType schemaType = tds.toDataSchema().getSchemaType(MAIN_SCHEMA_TYPE);
+        JSONObject statistics = tds.generateStatisticsJson(schemaType);
+
+        assertEquals(200, statistics.getInt("numRows"));
+        assertEquals(Arrays.asList("name", "city", "comment", "age"), toList(statistics.getJSONArray("fields")));
+        // Only city is categorical
+        JSONObject valueCounts = statistics.getJSONObject("valueCounts");
+        assertEquals(Set.of("city"), valueCounts.keySet());
+        Map<String, Integer> cityCounts = new HashMap<>();
+        for (int i = 0; i < tds.getNumRows(); i++) {
+            cityCounts.merge(tds.getRow(i).getColumnValue(1), 1, Integer::sum);
+        }
+        assertEquals(cityCounts, toIntegerMap(valueCounts.getJSONObject("city")));
+
+        JSONObject distinctSketches = statistics.getJSONObject("distinctSketches");
+        for (int column = 0; column < tds.getNumColumns(); column++) {
+            String field = tds.getHeaderCopy().get(column);
+            HyperLogLog sketch = HyperLogLog.decode(distinctSketches.getString(field));
+            long numDistinct = distinctValues(tds, column, -1, null).size();
+            if (sketch.isExact()) {
+                assertEquals(numDistinct, sketch.count(), field);
+            } else {
+                assertEquals(numDistinct, sketch.count(), 0.13 * numDistinct, field);
+            }
+        }
+        JSONObject citySketches = statistics.getJSONObject("valueSketches").getJSONObject("city");
+        assertEquals(cityCounts.keySet(), citySketches.keySet());
+        for (String city : citySketches.keySet()) {
+            for (int column = 0; column < tds.getNumColumns(); column++) {
+                String field = tds.getHeaderCopy().get(column);
+                HyperLogLog sketch = HyperLogLog.decode(citySketches.getJSONObject(city).getString(field));
+                assertTrue(sketch.isExact());
+                assertEquals(distinctValues(tds, column, 1, city).size(), sketch.count(), city + ", " + field);
+            }
+        }
+
+        // The free text fields are name and comment, whose empty values are not counted
+        Map<String, Long> commentCounts = new HashMap<>();
+        for (int i = 0; i < tds.getNumRows(); i++) {
+            String comment = tds.getRow(i).getColumnValue(2);
+            if (!comment.isEmpty()) {
+                commentCounts.merge(comment, 1L, Long::sum);
+            }
+        }
+        assertEquals(Set.of("name", "comment"), statistics.getJSONObject("heavyHitters").keySet());
+        SpaceSaving summary = SpaceSaving.fromJson(statistics.getJSONObject("heavyHitters").getJSONObject("comment"));
+        assertTrue(summary.isExact());
+        assertEquals(commentCounts.size(), summary.getCounters().size());
+        for (Map.Entry<String, Long> entry : commentCounts.entrySet()) {
+            assertEquals(entry.getValue().longValue(), summary.get(entry.getKey()).getCount());
+        }
+        CountMinSketch sketch = CountMinSketch.decode(statistics.getJSONObject("frequencySketches")
+                .getString("comment"));
+        assertEquals(commentCounts.values().stream().mapToLong(Long::longValue).sum(), sketch.getNumRows());
+        for (Map.Entry<String, Long> entry : commentCounts.entrySet()) {
+            assertTrue(sketch.estimate(entry.getKey()) >= entry.getValue());
+        }
+    }
+
+    /**
+     * Test that the path of a partition gives back the values of its partition fields, including values with the
+     * characters used in the paths.
+     */
+    @Test
+    void testPartitionPath() {
+        List<String> fields = Arrays.asList("district", "year", "type");
+        List<List<String>> valuesList = Arrays.asList(
+                Arrays.asList("Gracia", "2020", "a"),
+                Arrays.asList("Sant Mart\u00ed/Nord", "", "x=y"),
+                Arrays.asList("..", "100%", "a\\b"),
+                Arrays.asList("?&#", "+", " "));
+        for (List<String> values : valuesList) {
+            String path = DataPartitions.getPath(fields, values);
+            assertEquals(fields.size(), path.split("/").length, path);
+            Map<String, String> parsed = DataPartitions.parsePath(path);
+            assertEquals(fields, new ArrayList<>(parsed.keySet()), path);
+            assertEquals(values, new ArrayList<>(parsed.values()), path);
+            // The segments that do not follow the field=value convention are skipped
+            assertEquals(parsed, DataPartitions.parsePath("data/" + path));
+        }
+        assertEquals("year=2020/district=Gracia",
+                DataPartitions.getPath(Arrays.asList("year", "district"), Arrays.asList("2020", "Gracia")));
+        assertTrue(DataPartitions.parsePath("data").isEmpty());
+        assertEquals(Map.of("year", "2020"), DataPartitions.parsePath("data\\year=2020"));
+    }
+
+    /**
+     * Test that the data written in partitions has a file for each combination of values of the partition fields
+     * (grouped in order of appearance) without the partition fields, and that reading the partitions back gives the
+     * same rows.
+     */
+    @Test
+    void testWritePartitionsCsv() throws IOException {
+        Map<String, TabularDataSource> partitions = new LinkedHashMap<>();
+        partitions.put("year=2021/district=Gracia.csv", csv(Arrays.asList("name,age", "a,1", "b,2")));
+        partitions.put(DataPartitions.getPath(Arrays.asList("year", "district"),
+                Arrays.asList("2020", "Sant Mart\u00ed/Nord")) + ".csv", csv(Arrays.asList("name,age", "c,3")));
+        partitions.put("year=2020/district=Gracia.csv", csv(Arrays.asList("name,age", "d,4", "e,5", "f,6")));
+        TabularDataSource tds = TabularDataSource.fromPartitions(partitions);
+        assertEquals(Arrays.asList("name", "age", "year", "district"), tds.getHeaderCopy());
+        assertEquals(Arrays.asList("year", "district"), tds.getPartitionFields());
+        assertEquals(6, tds.getNumRows());
+        assertEquals(Arrays.asList("c", "3", "2020", "Sant Mart\u00ed/Nord"), tds.getRow(2).getValues());
+
+        Path folder = Files.createTempDirectory("data-source-test");
+        try {
+            JSONObject manifest = tds.writePartitionsCsv(folder.toString(), "data");
+            assertEquals(Arrays.asList("year", "district"), toList(manifest.getJSONArray("fields")));
+            JSONArray partitionsJson = manifest.getJSONArray("partitions");
+            assertEquals(3, partitionsJson.length());
+            List<List<String>> expectedValues = Arrays.asList(Arrays.asList("2021", "Gracia"),
+                    Arrays.asList("2020", "Sant Mart\u00ed/Nord"), Arrays.asList("2020", "Gracia"));
+            int[] expectedNumRows = {2, 1, 3};
+            for (int i = 0; i < partitionsJson.length(); i++) {
+                JSONObject partitionJson = partitionsJson.getJSONObject(i);
+                String path = partitionJson.getString("path");
+                List<String> values = toList(partitionJson.getJSONArray("values"));
+                assertEquals(expectedValues.get(i), values);
+                assertEquals(values, new ArrayList<>(DataPartitions.parsePath(path).values()));
+                assertTrue(path.startsWith("data/"), path);
+                // The files do not contain the partition fields
+                TabularDataSource file = new TabularDataSource(folder.resolve(path + ".csv").toString(), ',');
+                assertEquals(Arrays.asList("name", "age"), file.getHeaderCopy());
+                assertEquals(expectedNumRows[i], file.getNumRows());
+            }
+            TabularDataSource read = TabularDataSource.fromPartitions(folder.resolve("data").toString(), ',');
+            assertEquals(tds.getHeaderCopy(), read.getHeaderCopy());
+            assertEquals(tds.getPartitionFields(), read.getPartitionFields());
+            assertEquals(sortedRows(tds), sortedRows(read));
+        } finally {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Test that partitions with different columns or partition fields are rejected.
+     */
+    @Test
+    void testFromPartitionsErrors() {
+        Map<String, TabularDataSource> columns = new LinkedHashMap<>();
+        columns.put("year=2020.csv", csv(Arrays.asList("name,age", "a,1")));
+        columns.put("year=2021.csv", csv(Arrays.asList("name,size", "b,2")));
+        assertThrows(IllegalArgumentException.class, () -> TabularDataSource.fromPartitions(columns));
+        Map<String, TabularDataSource> fields = new LinkedHashMap<>();
+        fields.put("year=2020.csv", csv(Arrays.asList("name,age", "a,1")));
+        fields.put("district=Gracia.csv", csv(Arrays.asList("name,age", "b,2")));
+        assertThrows(IllegalArgumentException.class, () -> TabularDataSource.fromPartitions(fields));
+        Map<String, TabularDataSource> repeated = new LinkedHashMap<>();
+        repeated.put("age=1.csv", csv(Arrays.asList("name,age", "a,1")));
+        assertThrows(IllegalArgumentException.class, () -> TabularDataSource.fromPartitions(repeated));
+        assertThrows(IllegalArgumentException.class, () -> TabularDataSource.fromPartitions(new LinkedHashMap<>()));
+    }
+
+    /**
+     * Gets the distinct values of a column, in the rows with a value of another column.
+     *
+     * @param tds         the data
+     * @param column      the column
+     * @param whereColumn the column of the condition, or {@code -1} to get the values of all the rows
+     * @param whereValue  the value of the condition
+     * @return the distinct values
+     */
+    private static Set<String> distinctValues(TabularDataSource tds, int column, int whereColumn, String whereValue) {
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < tds.getNumRows(); i++) {
+            if (whereColumn < 0 || tds.getRow(i).getColumnValue(whereColumn).equals(whereValue)) {
+                values.add(tds.getRow(i).getColumnValue(column));
+            }
+        }
+        return values;
+    }
+
+    private static List<List<String>> sortedRows(TabularDataSource tds) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < tds.getNumRows(); i++) {
+            rows.add(tds.getRow(i).getValues());
+        }
+        rows.sort(Comparator.comparing(Object::toString));
+        return rows;
+    }
+
+    private static List<String> toList(JSONArray array) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+
+    private static Map<String, Integer> toIntegerMap(JSONObject object) {
+        Map<String, Integer> map = new HashMap<>();
+        for (String key : object.keySet()) {
+            map.put(key, object.getInt(key));
+        }
+        return map;
+    }
 }
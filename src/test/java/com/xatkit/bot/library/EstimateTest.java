@@ -0,0 +1,77 @@
+package com.xatkit.bot.library;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link Estimate}, and of the estimated values of a {@link ResultSet}.
+ */
+class EstimateTest {
+
+    /**
+     * Test that the estimates are rounded to the precision of their interval, which is written with its half width if
+     * it is symmetric and with its bounds otherwise.
+     */
+    @Test
+    void testToString() {
+        assertEquals("~1250 (+/-12)", new Estimate(1250, 1238, 1262).toString());
+        assertEquals("~1250 [1238, 1300]", new Estimate(1250, 1238, 1300).toString());
+        assertEquals("~3 [1, 9]", new Estimate(3, 1, 9).toString());
+        assertEquals("~125000 (+/-7499)", new Estimate(125000, 117501, 132499).toString());
+        assertEquals("~12.35 (+/-0.41)", estimate("12.3456", "11.9372", "12.754").toString());
+        // Symmetric but for the rounding errors of the bounds
+        assertEquals("~0.50 (+/-0.11)", estimate("0.5", "0.3900000000000001", "0.61").toString());
+        assertEquals("~0.42 [0.31, 0.60]", estimate("0.42", "0.3123", "0.6").toString());
+        // An empty interval
+        assertEquals("~12.35", estimate("12.3456", "12.3456", "12.3456").toString());
+        assertEquals("~7", new Estimate(7, 7, 7).toString());
+    }
+
+    /**
+     * Test that the interval must contain the estimate.
+     */
+    @Test
+    void testInvalidInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new Estimate(10, 11, 12));
+        assertThrows(IllegalArgumentException.class, () -> new Estimate(10, 8, 9));
+    }
+
+    /**
+     * Test that the estimated values of a result set keep their point estimate, so they can be read as numbers, and
+     * that they are only formatted when they are shown.
+     */
+    @Test
+    void testResultSet() {
+        ResultSet resultSet = new ResultSet(new ArrayList<>(Arrays.asList("city", "freq")), new ArrayList<>(
+                Arrays.asList(new Row(new ArrayList<>(Arrays.asList("Madrid", "1250"))),
+                        new Row(new ArrayList<>(Arrays.asList("Girona", "12"))))));
+        assertFalse(resultSet.isEstimate());
+        Estimate estimate = new Estimate(1250, 1238, 1262);
+        resultSet.setEstimate(0, 1, estimate);
+        assertTrue(resultSet.isEstimate());
+        assertEquals(1250, resultSet.getLong(0, 1));
+        assertEquals(estimate, resultSet.getEstimate(0, 1));
+        assertNull(resultSet.getEstimate(1, 1));
+        assertNull(resultSet.getEstimate(1, 0));
+        assertEquals("~1250 (+/-12)", resultSet.getDisplayValue(0, 1));
+        assertEquals("12", resultSet.getDisplayValue(1, 1));
+        assertTrue(resultSet.printTable(0, 10).contains("~1250 (+/-12)"));
+        ResultSet exact = new ResultSet(new ArrayList<>(Collections.singletonList("count")), new ArrayList<>(
+                Collections.singletonList(new Row(new ArrayList<>(Collections.singletonList("3"))))));
+        assertEquals("3", exact.getDisplayValue(0, 0));
+    }
+
+    private static Estimate estimate(String value, String lower, String upper) {
+        return new Estimate(new BigDecimal(value), new BigDecimal(lower), new BigDecimal(upper));
+    }
+}
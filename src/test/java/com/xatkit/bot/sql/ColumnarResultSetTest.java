@@ -0,0 +1,122 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Row;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link ColumnarResultSet}, which loads the result sets from an in-memory H2 database.
+ */
+class ColumnarResultSetTest {
+
+    private static final List<String> HEADER = Arrays.asList("name", "age", "income", "code");
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void setUpBeforeAll() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:columnar_result_set_test");
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE t (name VARCHAR, age INTEGER, income DECIMAL(30, 2), code VARCHAR)");
+            statement.execute("INSERT INTO t VALUES ('Ann', 30, 12345678901234567.50, '42'), "
+                    + "('Bob', NULL, NULL, NULL), ('Ann', 41, 0.10, ' 7 ')");
+        }
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * Test that the rows built from the columns have the values of the JDBC result set.
+     */
+    @Test
+    void testRows() throws SQLException {
+        ColumnarResultSet resultSet = load("SELECT * FROM t ORDER BY age NULLS LAST");
+        assertEquals(HEADER, resultSet.getHeader());
+        assertEquals(3, resultSet.getNumRows());
+        assertEquals(Arrays.asList("Ann", "30", "12345678901234567.5", "42"), resultSet.getRow(0).getValues());
+        assertEquals(Arrays.asList("Ann", "41", "0.1", " 7 "), resultSet.getRow(1).getValues());
+        assertEquals(Arrays.asList("Bob", null, null, null), resultSet.getRow(2).getValues());
+        assertEquals("12345678901234567.5", resultSet.getValue(0, 2));
+        assertEquals(ResultColumn.Type.DECIMAL, resultSet.getColumn(2).getType());
+        assertThrows(IndexOutOfBoundsException.class, () -> resultSet.getRow(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> resultSet.getRow(-1));
+    }
+
+    /**
+     * Test that the numbers are read with their type, exactly, and that the texts are parsed.
+     */
+    @Test
+    void testGetLong() throws SQLException {
+        ColumnarResultSet resultSet = load("SELECT * FROM t ORDER BY age NULLS LAST");
+        assertEquals(30, resultSet.getLong(0, 1));
+        assertEquals(12345678901234567L, resultSet.getLong(0, 2));
+        assertEquals(42, resultSet.getLong(0, 3));
+        assertEquals(7, resultSet.getLong(1, 3));
+        assertThrows(NumberFormatException.class, () -> resultSet.getLong(2, 3));
+        ColumnarResultSet count = load("SELECT COUNT(*) FROM t");
+        assertEquals(3, count.getLong(0, 0));
+    }
+
+    /**
+     * Test that an empty result keeps its header, and that the header must match the columns.
+     */
+    @Test
+    void testEmpty() throws SQLException {
+        ColumnarResultSet resultSet = load("SELECT * FROM t WHERE age > 100");
+        assertEquals(0, resultSet.getNumRows());
+        assertEquals(HEADER, resultSet.getHeader());
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarResultSet(HEADER,
+                Collections.<ResultColumn>emptyList(), 0));
+    }
+
+    /**
+     * Test that the repeated texts of a big result are stored once, so it takes less memory than its rows.
+     */
+    @Test
+    void testSizeInBytes() throws SQLException {
+        ColumnarResultSet resultSet = load("SELECT name, age, income, code FROM t, SYSTEM_RANGE(1, 1000)");
+        assertEquals(3000, resultSet.getNumRows());
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            rows.add(resultSet.getRow(i));
+        }
+        long rowBytes = QueryCache.estimateBytes(new com.xatkit.bot.library.ResultSet(HEADER, rows));
+        assertTrue(resultSet.getSizeInBytes() * 2 < rowBytes, resultSet.getSizeInBytes() + " >= " + rowBytes);
+    }
+
+    /**
+     * Loads the result of a query.
+     *
+     * @param sql the query
+     * @return the result set
+     */
+    private static ColumnarResultSet load(String sql) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            List<String> header = new ArrayList<>();
+            for (int i = 1; i <= resultSet.getMetaData().getColumnCount(); i++) {
+                header.add(resultSet.getMetaData().getColumnLabel(i).toLowerCase(Locale.ROOT));
+            }
+            return ColumnarResultSet.load(resultSet, header);
+        }
+    }
+}
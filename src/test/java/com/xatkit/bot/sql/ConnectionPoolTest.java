@@ -0,0 +1,182 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link ConnectionPool}, over the connections of an {@link H2Backend}.
+ */
+class ConnectionPoolTest {
+
+    /**
+     * The name of the {@code .csv} file of the test data.
+     */
+    private static final String DATA_FILE = "connection_pool_test.csv";
+
+    /**
+     * The maximum number of milliseconds to wait for an available connection.
+     */
+    private static final long TIMEOUT = 200;
+
+    private static Path folder;
+
+    private static H2Backend backend;
+
+    private ConnectionPool pool;
+
+    /**
+     * Writes the test data in a temporary folder and loads it into an {@link H2Backend}.
+     */
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("connection-pool-test");
+        Files.write(folder.resolve(DATA_FILE), Arrays.asList("name,city,age,born", "n1,Madrid,30,2000-01-01"),
+                StandardCharsets.UTF_8);
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(SqlQueriesTest.ENTITIES_JSON),
+                StandardCharsets.UTF_8);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader testClassLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, classLoader)) {
+            Thread.currentThread().setContextClassLoader(testClassLoader);
+            backend = new H2Backend(new DataPartitions(Collections.emptyList(),
+                    Collections.singletonList(new Partition(DATA_FILE, Collections.emptyList()))), ',');
+        } finally {
+            Thread.currentThread().setContextClassLoader(classLoader);
+        }
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        backend.close();
+        for (File file : folder.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Creates a pool of 2 connections, each one caching 2 prepared statements.
+     */
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(backend, 2, TIMEOUT, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * Test that a full pool makes the callers wait until a connection is released, or fail after the timeout.
+     */
+    @Test
+    void testBoundedBorrow() throws SQLException, InterruptedException, ExecutionException, TimeoutException {
+        Connection conn1 = pool.borrow();
+        Connection conn2 = pool.borrow();
+        assertNotSame(conn1, conn2);
+        long start = System.currentTimeMillis();
+        assertThrows(SQLException.class, () -> pool.borrow());
+        assertTrue(System.currentTimeMillis() - start >= TIMEOUT);
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrow();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(TIMEOUT / 4);
+        assertFalse(waiting.isDone());
+        pool.release(conn1);
+        assertSame(conn1, waiting.get(TIMEOUT, TimeUnit.MILLISECONDS));
+        pool.release(conn1);
+        pool.release(conn2);
+    }
+
+    /**
+     * Test that a connection that is no longer valid is replaced by a new one, without growing the pool.
+     */
+    @Test
+    void testInvalidConnection() throws SQLException {
+        Connection conn = pool.borrow();
+        pool.release(conn);
+        conn.close();
+        Connection newConn = pool.borrow();
+        assertNotSame(conn, newConn);
+        assertTrue(newConn.isValid(1));
+        Connection otherConn = pool.borrow();
+        assertThrows(SQLException.class, () -> pool.borrow());
+        pool.release(newConn);
+        pool.release(otherConn);
+    }
+
+    /**
+     * Test that each connection caches its most recently used prepared statements, closing the least recently used
+     * one when its cache is full.
+     */
+    @Test
+    void testStatementCache() throws SQLException {
+        Connection conn = pool.borrow();
+        PreparedStatement statement1 = pool.prepare(conn, "SELECT 1");
+        PreparedStatement statement2 = pool.prepare(conn, "SELECT 2");
+        assertSame(statement1, pool.prepare(conn, "SELECT 1"));
+        PreparedStatement statement3 = pool.prepare(conn, "SELECT 3");
+        assertTrue(statement2.isClosed());
+        assertFalse(statement1.isClosed());
+        assertFalse(statement3.isClosed());
+        assertSame(statement1, pool.prepare(conn, "SELECT 1"));
+        assertSame(statement3, pool.prepare(conn, "SELECT 3"));
+        PreparedStatement newStatement2 = pool.prepare(conn, "SELECT 2");
+        assertNotSame(statement2, newStatement2);
+        assertFalse(newStatement2.isClosed());
+        // The statements are cached by connection
+        Connection otherConn = pool.borrow();
+        assertNotSame(statement1, pool.prepare(otherConn, "SELECT 1"));
+        pool.release(conn);
+        pool.release(otherConn);
+    }
+
+    /**
+     * Test that closing the pool closes all its connections, including the borrowed ones, and that a closed pool does
+     * not give connections.
+     */
+    @Test
+    void testClose() throws SQLException {
+        Connection idleConn = pool.borrow();
+        Connection borrowedConn = pool.borrow();
+        pool.release(idleConn);
+        pool.close();
+        assertTrue(idleConn.isClosed());
+        assertTrue(borrowedConn.isClosed());
+        assertThrows(SQLException.class, () -> pool.borrow());
+        // Releasing a connection after closing the pool does not fail
+        pool.release(borrowedConn);
+    }
+}
@@ -0,0 +1,75 @@
+package com.xatkit.bot.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link CountMinSketch}, which checks its estimates against the real frequencies of the values.
+ */
+class CountMinSketchTest {
+
+    /**
+     * Test that the estimates are never lower than the frequencies, and that (almost) all of them are within the error
+     * bound, on skewed streams with fixed seeds.
+     */
+    @Test
+    void testErrorBound() {
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            CountMinSketch sketch = new CountMinSketch();
+            Map<String, Long> frequencies = SpaceSavingTest.zipfStream(random, 100000, 20000, new SpaceSaving(1));
+            for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+                for (long i = 0; i < entry.getValue(); i++) {
+                    sketch.offer(entry.getKey());
+                }
+            }
+            assertEquals(100000, sketch.getNumRows());
+            int numOutOfBound = 0;
+            for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+                long estimate = sketch.estimate(entry.getKey());
+                assertTrue(estimate >= entry.getValue(), entry.getKey());
+                if (estimate > entry.getValue() + sketch.getErrorBound()) {
+                    numOutOfBound++;
+                }
+            }
+            // The bound holds with a probability of 1 - e^-4 (98%) for each value
+            assertTrue(numOutOfBound <= 0.02 * frequencies.size(), "seed " + seed + ": " + numOutOfBound);
+        }
+    }
+
+    @Test
+    void testEmpty() {
+        CountMinSketch sketch = new CountMinSketch();
+        assertEquals(0, sketch.estimate("a"));
+        assertEquals(0, sketch.getErrorBound());
+        sketch.offer("a");
+        sketch.offer("a");
+        assertEquals(2, sketch.estimate("a"));
+    }
+
+    @Test
+    void testEncode() {
+        Random random = new Random(9);
+        CountMinSketch sketch = new CountMinSketch();
+        for (int i = 0; i < 5000; i++) {
+            sketch.offer("v" + random.nextInt(700));
+        }
+        String encoded = sketch.encode();
+        CountMinSketch decoded = CountMinSketch.decode(encoded);
+        assertEquals(encoded, decoded.encode());
+        assertEquals(sketch.getNumRows(), decoded.getNumRows());
+        assertEquals(sketch.getErrorBound(), decoded.getErrorBound());
+        for (int i = 0; i < 800; i++) {
+            assertEquals(sketch.estimate("v" + i), decoded.estimate("v" + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.decode(
+                Base64.getEncoder().encodeToString(new byte[16])));
+    }
+}
@@ -0,0 +1,263 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.BotProperties;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link CursorResultSet}, which checks that the rows are fetched lazily from an {@link H2Backend}, that
+ * the connection of the cursor is given back to the pool, and that a cursor opened again returns the missing rows.
+ */
+class CursorResultSetTest {
+
+    /**
+     * The name of the test data (i.e. the name of its {@code .csv} file without the extension).
+     */
+    private static final String DATA_NAME = "cursor_result_set_test";
+
+    /**
+     * The fields of the test data.
+     */
+    private static final List<String> FIELDS = Arrays.asList("name", "city");
+
+    /**
+     * The number of rows of the test data.
+     */
+    private static final int NUM_ROWS = 60;
+
+    /**
+     * The number of rows fetched from the database in each round trip.
+     */
+    private static final int FETCH_SIZE = 10;
+
+    private static Path folder;
+
+    private static ClassLoader classLoader;
+
+    private SqlEngine engine;
+
+    /**
+     * Writes the test data in a temporary folder, which is added to the class path until all the tests finish. Each
+     * row appears 4 times, so the rows skipped by a cursor opened again must be counted.
+     */
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("cursor-result-set-test");
+        List<String> lines = new ArrayList<>();
+        lines.add(String.join(",", FIELDS));
+        for (int i = 0; i < NUM_ROWS; i++) {
+            lines.add("n" + (i % 15) + ",c" + (i % 3));
+        }
+        Files.write(folder.resolve(DATA_NAME + ".csv"), lines, StandardCharsets.UTF_8);
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(SqlQueriesTest.ENTITIES_JSON),
+                StandardCharsets.UTF_8);
+        classLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{folder.toUri().toURL()},
+                classLoader));
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        ((URLClassLoader) Thread.currentThread().getContextClassLoader()).close();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        for (File file : folder.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Creates an engine with 2 connections (so only 1 cursor can stay open), without cache and without reaping the
+     * cursors (the tests release them explicitly).
+     */
+    @BeforeEach
+    void setUp() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.setProperty(BotProperties.DATA_NAME, DATA_NAME);
+        configuration.setProperty(BotProperties.SQL_BACKEND, SqlEngine.H2);
+        configuration.setProperty(BotProperties.SQL_POOL_SIZE, 2);
+        configuration.setProperty(BotProperties.SQL_POOL_TIMEOUT, 500);
+        configuration.setProperty(BotProperties.SQL_CACHE_SIZE, 0);
+        configuration.setProperty(BotProperties.SQL_FETCH_SIZE, FETCH_SIZE);
+        configuration.setProperty(BotProperties.SQL_CURSOR_TIMEOUT, 3600000);
+        engine = new SqlEngine(configuration);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * Test that the number of rows is counted without fetching them, in the connection of the cursor (the other
+     * connection of the pool is taken), and that the connection is given back once all the rows are fetched.
+     */
+    @Test
+    void testLazyNumRows() throws SQLException {
+        CursorResultSet resultSet = openCursor();
+        resultSet.getRow(0);
+        Connection other = engine.getPool().borrow();
+        try {
+            assertEquals(NUM_ROWS, resultSet.getNumRows());
+            assertTrue(resultSet.getNumFetchedRows() < NUM_ROWS, "fetched " + resultSet.getNumFetchedRows());
+            // The cursor still holds the other connection
+            assertThrows(SQLException.class, () -> engine.getPool().borrow());
+        } finally {
+            engine.getPool().release(other);
+        }
+        assertEquals(sorted(expectedRows()), sorted(getRows(resultSet)));
+        assertEquals(NUM_ROWS, resultSet.getNumRows());
+        assertPoolIsFree();
+    }
+
+    /**
+     * Test that an idle cursor gives its connection back, and that it is opened again (only when more rows are
+     * needed) to fetch the missing rows, without repeating or losing any row.
+     */
+    @Test
+    void testReapAndReopen() throws SQLException, InterruptedException {
+        CursorResultSet resultSet = openCursor();
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(resultSet.getRow(i).getValues());
+        }
+        Thread.sleep(10);
+        resultSet.releaseIfIdle(0);
+        assertPoolIsFree();
+        assertEquals(25, resultSet.getNumFetchedRows());
+        for (int i = 25; i < NUM_ROWS; i++) {
+            rows.add(resultSet.getRow(i).getValues());
+        }
+        assertEquals(sorted(expectedRows()), sorted(rows));
+        assertEquals(NUM_ROWS, resultSet.getNumRows());
+        // The fetched rows are not fetched again
+        assertEquals(rows.get(10), resultSet.getRow(10).getValues());
+        assertPoolIsFree();
+    }
+
+    /**
+     * Test that a cursor opened again while another cursor is open (so it cannot stay open) only holds its connection
+     * while it fetches the needed rows.
+     */
+    @Test
+    void testReopenWithoutFreeCursor() throws SQLException, InterruptedException {
+        CursorResultSet resultSet = openCursor();
+        resultSet.getRow(FETCH_SIZE - 1);
+        Thread.sleep(10);
+        resultSet.releaseIfIdle(0);
+        CursorResultSet other = openCursor();
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows.add(resultSet.getRow(i).getValues());
+            // The other cursor holds one connection, and the reopened cursor gives the other one back
+            engine.getPool().release(engine.getPool().borrow());
+        }
+        assertEquals(sorted(expectedRows()), sorted(rows));
+        other.close();
+        assertPoolIsFree();
+    }
+
+    /**
+     * Test that closing a cursor gives its connection back, and that the result set then only contains the fetched
+     * rows.
+     */
+    @Test
+    void testClose() throws SQLException {
+        CursorResultSet resultSet = openCursor();
+        resultSet.getRow(FETCH_SIZE + 2);
+        resultSet.close();
+        assertPoolIsFree();
+        assertEquals(FETCH_SIZE + 3, resultSet.getNumRows());
+        assertEquals(FETCH_SIZE + 3, resultSet.getNumFetchedRows());
+    }
+
+    /**
+     * Opens a cursor over all the rows, as {@link SqlEngine#runSqlQuery(com.xatkit.bot.Bot, Query)} does.
+     *
+     * @return the result set of the cursor
+     */
+    private CursorResultSet openCursor() throws SQLException {
+        SqlQueries sqlQueries = new SqlQueries(engine.getBackend());
+        sqlQueries.getAllFields().addAll(FIELDS);
+        Query query = sqlQueries.selectAll();
+        assertTrue(engine.reserveCursor());
+        Connection conn = engine.getPool().borrow();
+        ResultSet cursor = engine.executeQuery(conn, query, FETCH_SIZE);
+        CursorResultSet resultSet = new CursorResultSet(engine, query, FIELDS, conn, cursor, FETCH_SIZE);
+        engine.cursorOpened(resultSet);
+        return resultSet;
+    }
+
+    /**
+     * Checks that all the connections of the pool can be borrowed (i.e. no cursor holds a connection).
+     */
+    private void assertPoolIsFree() throws SQLException {
+        Connection conn1 = engine.getPool().borrow();
+        Connection conn2 = engine.getPool().borrow();
+        engine.getPool().release(conn1);
+        engine.getPool().release(conn2);
+    }
+
+    /**
+     * Gets the rows of the test data.
+     *
+     * @return the rows
+     */
+    private static List<List<String>> expectedRows() {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < NUM_ROWS; i++) {
+            rows.add(Arrays.asList("n" + (i % 15), "c" + (i % 3)));
+        }
+        return rows;
+    }
+
+    /**
+     * Gets all the rows of a result set.
+     *
+     * @param resultSet the result set
+     * @return the rows
+     */
+    private static List<List<String>> getRows(com.xatkit.bot.library.ResultSet resultSet) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            rows.add(resultSet.getRow(i).getValues());
+        }
+        return rows;
+    }
+
+    /**
+     * Sorts a list of rows, so results can be compared regardless of the order of their rows.
+     *
+     * @param rows the rows
+     * @return the sorted rows
+     */
+    private static List<List<String>> sorted(List<List<String>> rows) {
+        List<List<String>> sortedRows = new ArrayList<>(rows);
+        sortedRows.sort((r1, r2) -> String.join(",", r1).compareTo(String.join(",", r2)));
+        return sortedRows;
+    }
+}
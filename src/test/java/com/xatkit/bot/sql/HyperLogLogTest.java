@@ -0,0 +1,151 @@
+package com.xatkit.bot.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link HyperLogLog}.
+ */
+class HyperLogLogTest {
+
+    /**
+     * The number of hashes kept in exact mode.
+     */
+    private static final int MAX_EXACT_HASHES = 128;
+
+    /**
+     * The relative error allowed to the estimates: 4 standard errors of a sketch with 1024 registers.
+     */
+    private static final double MAX_ERROR = 4 * 1.04 / Math.sqrt(1024);
+
+    /**
+     * Test that the count is exact up to {@link #MAX_EXACT_HASHES} distinct values, and that the sketch switches to the
+     * registers with one more.
+     */
+    @Test
+    void testExactMode() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertTrue(sketch.isExact());
+        assertEquals(0, sketch.count());
+        for (int i = 0; i < MAX_EXACT_HASHES; i++) {
+            sketch.add("value" + i);
+            // Repeated values are not counted again
+            sketch.add("value" + i);
+            assertTrue(sketch.isExact());
+            assertEquals(i + 1, sketch.count());
+        }
+        sketch.add("value0");
+        assertTrue(sketch.isExact());
+        sketch.add("value" + MAX_EXACT_HASHES);
+        assertFalse(sketch.isExact());
+        assertEquals(MAX_EXACT_HASHES + 1, sketch.count(), MAX_ERROR * (MAX_EXACT_HASHES + 1));
+    }
+
+    /**
+     * Test that the estimates are within the error bound, for several cardinalities on fixed seeds.
+     */
+    @Test
+    void testErrorBound() {
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            for (int numValues : new int[]{200, 1000, 5000, 50000, 200000}) {
+                HyperLogLog sketch = new HyperLogLog();
+                long prefix = random.nextLong();
+                for (int i = 0; i < numValues; i++) {
+                    sketch.add(prefix + "-" + i);
+                    if (random.nextInt(4) == 0) {
+                        // Duplicates
+                        sketch.add(prefix + "-" + random.nextInt(i + 1));
+                    }
+                }
+                assertEquals(numValues, sketch.count(), MAX_ERROR * numValues,
+                        "seed " + seed + ", " + numValues + " values");
+            }
+        }
+    }
+
+    /**
+     * Test that the merge of two sketches counts the union of their sets, in all the combinations of modes.
+     */
+    @Test
+    void testMerge() {
+        int[][] sizes = {{10, 20}, {100, 100}, {10, 5000}, {5000, 10}, {5000, 8000}};
+        for (int[] size : sizes) {
+            HyperLogLog sketch1 = new HyperLogLog();
+            HyperLogLog sketch2 = new HyperLogLog();
+            HyperLogLog union = new HyperLogLog();
+            // Half of the values of the first set are also in the second one
+            for (int i = 0; i < size[0]; i++) {
+                sketch1.add("v" + i);
+                union.add("v" + i);
+            }
+            for (int i = size[0] / 2; i < size[0] / 2 + size[1]; i++) {
+                sketch2.add("v" + i);
+                union.add("v" + i);
+            }
+            long numValues = Math.max(size[0], size[0] / 2 + size[1]);
+            sketch1.merge(sketch2);
+            assertEquals(union.isExact(), sketch1.isExact());
+            if (sketch1.isExact()) {
+                assertEquals(numValues, sketch1.count());
+            } else {
+                assertEquals(numValues, sketch1.count(), MAX_ERROR * numValues);
+                assertEquals(union.encode(), sketch1.encode());
+            }
+        }
+    }
+
+    /**
+     * Test that a decoded sketch is equal to the encoded one, in exact mode and with the registers.
+     */
+    @Test
+    void testEncode() {
+        for (int numValues : new int[]{0, 1, MAX_EXACT_HASHES, MAX_EXACT_HASHES + 1, 10000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < numValues; i++) {
+                sketch.add("value" + i);
+            }
+            String encoded = sketch.encode();
+            HyperLogLog decoded = HyperLogLog.decode(encoded);
+            assertEquals(sketch.isExact(), decoded.isExact());
+            assertEquals(sketch.count(), decoded.count());
+            assertEquals(encoded, decoded.encode());
+            // The decoded sketch keeps counting
+            sketch.add("other");
+            decoded.add("other");
+            assertEquals(sketch.encode(), decoded.encode());
+        }
+        assertEquals(1 + MAX_EXACT_HASHES * Long.BYTES, Base64.getDecoder().decode(exactSketch().encode()).length);
+    }
+
+    @Test
+    void testDecodeInvalid() {
+        Base64.Encoder encoder = Base64.getEncoder();
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.decode(encoder.encodeToString(new byte[3])));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.decode(encoder.encodeToString(
+                new byte[1 + (MAX_EXACT_HASHES + 1) * Long.BYTES])));
+        byte[] registers = new byte[1 + 1023];
+        registers[0] = 1;
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.decode(encoder.encodeToString(registers)));
+    }
+
+    /**
+     * Gets a sketch with the maximum number of hashes of the exact mode.
+     */
+    private static HyperLogLog exactSketch() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < MAX_EXACT_HASHES; i++) {
+            sketch.add("value" + i);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,230 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link MetadataAnswerer}, which checks its approximate answers against the real frequencies of the
+ * values of a free text field.
+ */
+class MetadataAnswererTest {
+
+    private static final String FIELD = "comment";
+
+    private static final int NUM_ROWS = 50000;
+
+    /**
+     * Test that the frequency of a value, bounded by the Count-Min sketch and the Space-Saving summary, contains the
+     * real frequency whenever it is answered, and that it is answered for the frequent values.
+     */
+    @Test
+    void testValueFrequencyBounds() {
+        for (int seed = 0; seed < 3; seed++) {
+            Map<String, Long> frequencies = new HashMap<>();
+            MetadataAnswerer answerer = newAnswerer(new Random(seed), frequencies);
+            int numAnswered = 0;
+            for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+                ResultSet resultSet = answerer.answer(valueFrequency(entry.getKey()));
+                if (resultSet == null) {
+                    continue;
+                }
+                numAnswered++;
+                long[] bounds = getBounds(resultSet, 0, 0);
+                long frequency = entry.getValue();
+                assertTrue(bounds[0] <= frequency && frequency <= bounds[1],
+                        entry.getKey() + ": " + frequency + " not in " + resultSet.getDisplayValue(0, 0));
+                // The answer is only given if the bounds are tight enough
+                assertTrue(bounds[1] <= 2 * bounds[0], resultSet.getDisplayValue(0, 0));
+            }
+            // The 10 most frequent values always have a meaningful estimate
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(answerer.answer(valueFrequency("v" + i)), "v" + i);
+            }
+            assertTrue(numAnswered >= 10);
+            // A value that never appears is never answered with a positive frequency
+            ResultSet missing = answerer.answer(valueFrequency("missing"));
+            if (missing != null) {
+                assertEquals(0, getBounds(missing, 0, 0)[0]);
+            }
+        }
+    }
+
+    /**
+     * Test that the most frequent values are only answered when the summary guarantees them, and then they are the
+     * real most frequent values.
+     */
+    @Test
+    void testFrequentValue() {
+        for (int seed = 0; seed < 3; seed++) {
+            Map<String, Long> frequencies = new HashMap<>();
+            MetadataAnswerer answerer = newAnswerer(new Random(seed), frequencies);
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(frequencies.entrySet());
+            sorted.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+            for (int k : new int[]{1, 3, 5}) {
+                ResultSet resultSet = answerer.answer(frequentValue(k));
+                assertNotNull(resultSet, "k " + k);
+                for (int i = 0; i < resultSet.getNumRows(); i++) {
+                    String value = resultSet.getValue(i, 0);
+                    long[] bounds = getBounds(resultSet, i, 1);
+                    long frequency = frequencies.get(value);
+                    assertTrue(bounds[0] <= frequency && frequency <= bounds[1], value);
+                    // No value outside of the answer is more frequent than the least frequent value of the answer
+                    assertTrue(frequency >= sorted.get(resultSet.getNumRows()).getValue()
+                            || resultSet.getNumRows() == frequencies.size(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the sketches are not used for exact queries.
+     */
+    @Test
+    void testExactQueries() {
+        MetadataAnswerer answerer = newAnswerer(new Random(1), new HashMap<>());
+        assertNull(answerer.answer(valueFrequency("v0").exact()));
+        assertNull(answerer.answer(frequentValue(1).exact()));
+    }
+
+    /**
+     * Test that the statistics manifest is only loaded if it was generated from the current data, also when the data
+     * was edited without changing its size.
+     */
+    @Test
+    void testLoadStaleStatistics() throws IOException {
+        Path folder = Files.createTempDirectory("metadata-answerer-test");
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader testClassLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, classLoader)) {
+            Thread.currentThread().setContextClassLoader(testClassLoader);
+            Path dataFile = folder.resolve("metadata_answerer_test.csv");
+            Files.write(dataFile, Arrays.asList("city", "Madrid", "Girona"), StandardCharsets.UTF_8);
+            DataPartitions partitions = new DataPartitions(Collections.emptyList(),
+                    Collections.singletonList(new Partition(dataFile.getFileName().toString(),
+                            Collections.emptyList())));
+            JSONObject statistics = new JSONObject();
+            statistics.put("numRows", 2);
+            statistics.put("fields", new JSONArray(Collections.singletonList("city")));
+            JSONObject cityCounts = new JSONObject();
+            cityCounts.put("Madrid", 1);
+            cityCounts.put("Girona", 1);
+            statistics.put("valueCounts", new JSONObject().put("city", cityCounts));
+            statistics.put("dataSize", Files.size(dataFile));
+            Checksum checksum = new CRC32();
+            try (InputStream is = Files.newInputStream(dataFile)) {
+                DataPartitions.updateChecksum(checksum, is);
+            }
+            statistics.put("dataChecksum", checksum.getValue());
+            Path statisticsFile = folder.resolve(MetadataAnswerer.STATISTICS_JSON_FILE);
+            Files.write(statisticsFile, Collections.singletonList(statistics.toString()), StandardCharsets.UTF_8);
+            assertEquals(checksum.getValue(), partitions.getDataChecksum());
+            assertNotNull(MetadataAnswerer.load(partitions, false));
+
+            // The same size, but a different content
+            Files.write(dataFile, Arrays.asList("city", "Madrid", "Gerona"), StandardCharsets.UTF_8);
+            assertEquals(statistics.getLong("dataSize"), Files.size(dataFile));
+            assertNull(MetadataAnswerer.load(partitions, false));
+
+            // A manifest without checksum (generated by an older version) is not trusted
+            Files.write(dataFile, Arrays.asList("city", "Madrid", "Girona"), StandardCharsets.UTF_8);
+            assertNotNull(MetadataAnswerer.load(partitions, false));
+            statistics.remove("dataChecksum");
+            Files.write(statisticsFile, Collections.singletonList(statistics.toString()), StandardCharsets.UTF_8);
+            assertNull(MetadataAnswerer.load(partitions, false));
+        } finally {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    /**
+     * Creates an answerer with the sketches of a skewed stream of values of {@link #FIELD}.
+     *
+     * @param random      the random generator
+     * @param frequencies the map to store the frequency of each value in
+     * @return the answerer
+     */
+    private static MetadataAnswerer newAnswerer(Random random, Map<String, Long> frequencies) {
+        SpaceSaving summary = new SpaceSaving(100);
+        frequencies.putAll(SpaceSavingTest.zipfStream(random, NUM_ROWS, 5000, summary));
+        CountMinSketch sketch = new CountMinSketch();
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            for (long i = 0; i < entry.getValue(); i++) {
+                sketch.offer(entry.getKey());
+            }
+        }
+        Map<String, SpaceSaving> heavyHitters = new HashMap<>();
+        heavyHitters.put(FIELD, summary);
+        Map<String, CountMinSketch> frequencySketches = new HashMap<>();
+        frequencySketches.put(FIELD, sketch);
+        return new MetadataAnswerer(NUM_ROWS, Collections.singletonList(FIELD), new HashMap<String,
+                TreeMap<String, Integer>>(), false, new HashMap<>(), new HashMap<>(), heavyHitters, frequencySketches);
+    }
+
+    private static Query valueFrequency(String value) {
+        return new Query("SELECT COUNT(*) AS \"freq\" FROM \"data\" WHERE \"" + FIELD + "\" = ?",
+                Query.Operation.COUNT)
+                .conditions(Collections.singletonList(new Condition(FIELD, Condition.VALUE_EQUALS, value)))
+                .label("freq")
+                .approximate(true);
+    }
+
+    private static Query frequentValue(int k) {
+        return new Query("SELECT \"" + FIELD + "\", COUNT(*) AS \"freq\" FROM \"data\" GROUP BY \"" + FIELD + "\"",
+                Query.Operation.FREQUENT_VALUE)
+                .fields(Collections.singletonList(FIELD))
+                .function("max")
+                .limit(k)
+                .approximate(true);
+    }
+
+    /**
+     * Gets the bounds of a frequency answered by the answerer, which is either exact or estimated (then the cell
+     * contains the point estimate, within the bounds).
+     *
+     * @param resultSet the result set
+     * @param row       the row of the frequency
+     * @param column    the column of the frequency
+     * @return the lowest and the highest frequency
+     */
+    private static long[] getBounds(ResultSet resultSet, int row, int column) {
+        long value = resultSet.getLong(row, column);
+        Estimate estimate = resultSet.getEstimate(row, column);
+        if (estimate == null) {
+            return new long[]{value, value};
+        }
+        assertEquals(value, estimate.getValue().longValueExact());
+        return new long[]{estimate.getLower().longValueExact(), estimate.getUpper().longValueExact()};
+    }
+}
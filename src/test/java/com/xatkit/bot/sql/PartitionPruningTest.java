@@ -0,0 +1,317 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.ast.QueryOptimizer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.xatkit.bot.library.Utils.normalize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of the partition pruning of the {@link QueryOptimizer}, which checks that the statements that only read
+ * the partitions selected by their conditions give the same results as the statements that read all the data, running
+ * both in an {@link H2Backend}.
+ */
+class PartitionPruningTest {
+
+    /**
+     * The prefix of the names of the {@code .csv} files of the partitions.
+     */
+    private static final String DATA_NAME = "partition_pruning_test";
+
+    /**
+     * The partition fields. Their values include case and accent variants, {@code LIKE} wildcards and regular
+     * expression metacharacters, decimals with different scales, datetimes with different offsets, and empty values
+     * and numbers and datetimes that cannot be parsed (which are {@code NULL} in the database).
+     */
+    private static final List<String> PARTITION_FIELDS = Arrays.asList("city", "age", "born");
+
+    private static final String[] CITIES = {"Barcelona", "Sant Adri\u00e0", "St. (Mary)*", "", "SANT ADRIA"};
+
+    private static final String[] AGES = {"25", "30", "30.50", "n/a"};
+
+    private static final String[] BORNS = {"1960-05-15T10:00:00+01:00", "1985-01-01T00:00:00Z", "unknown"};
+
+    /**
+     * The number of rows of each partition.
+     */
+    private static final int NUM_PARTITION_ROWS = 3;
+
+    /**
+     * The filters the statements are checked with: textual filters (turned into {@code LIKE} patterns with
+     * wildcards), numeric and datetime filters, filters that do not select any partition and a filter over a field
+     * that is not a partition field.
+     */
+    private static final String[][] FILTERS = {{"city", "contains", "a"}, {"city", "starts with", "sant"},
+            {"city", "ends with", "ia"}, {"city", "equals", "barcelona"}, {"city", "different", "barcelona"},
+            {"city", "contains", "t_a"}, {"city", "contains", ". (m"}, {"city", "contains", "%)*"},
+            {"city", "equals", "nowhere"}, {"age", "=", "30"}, {"age", ">", "29.9"}, {"age", "<=", "30.5"},
+            {"age", "!=", "30.0"}, {"age", ">", "100"}, {"born", "before", "1970-01-01T00:00:00Z"},
+            {"born", "after", "1985-01-01T01:00:00+02:00"}, {"born", "date_equals", "1985-01-01T01:00:00+01:00"},
+            {"name", "contains", "-1"}};
+
+    private static Path folder;
+
+    private static PartitionedH2Backend backend;
+
+    private static PartitionedH2Backend normalizedBackend;
+
+    /**
+     * Writes the partitions of the test data in a temporary folder (with and without the normalized shadow columns of
+     * the textual fields) and loads them into {@link H2Backend}s. The partitions have all the combinations of the
+     * values of the partition fields.
+     */
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("partition-pruning-test");
+        List<Partition> partitions = new ArrayList<>();
+        List<Partition> normalizedPartitions = new ArrayList<>();
+        int numPartitions = CITIES.length * AGES.length * BORNS.length;
+        for (int i = 0; i < numPartitions; i++) {
+            List<String> values = Arrays.asList(CITIES[i % CITIES.length], AGES[i % AGES.length],
+                    BORNS[i % BORNS.length]);
+            List<String> lines = new ArrayList<>();
+            List<String> normalizedLines = new ArrayList<>();
+            lines.add("name");
+            normalizedLines.add("name,name" + SqlQueries.NORMALIZED_COLUMN_SUFFIX + ",city"
+                    + SqlQueries.NORMALIZED_COLUMN_SUFFIX);
+            for (int j = 0; j < NUM_PARTITION_ROWS; j++) {
+                String name = "p" + i + "-" + j;
+                lines.add(name);
+                normalizedLines.add(name + "," + normalize(name) + "," + normalize(values.get(0)));
+            }
+            String file = DATA_NAME + "_" + i + ".csv";
+            String normalizedFile = DATA_NAME + "_normalized_" + i + ".csv";
+            Files.write(folder.resolve(file), lines, StandardCharsets.UTF_8);
+            Files.write(folder.resolve(normalizedFile), normalizedLines, StandardCharsets.UTF_8);
+            partitions.add(new Partition(file, values));
+            normalizedPartitions.add(new Partition(normalizedFile, values));
+        }
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(SqlQueriesTest.ENTITIES_JSON),
+                StandardCharsets.UTF_8);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader testClassLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, classLoader)) {
+            Thread.currentThread().setContextClassLoader(testClassLoader);
+            backend = new PartitionedH2Backend(new DataPartitions(PARTITION_FIELDS, partitions));
+            normalizedBackend = new PartitionedH2Backend(new DataPartitions(PARTITION_FIELDS, normalizedPartitions));
+        } finally {
+            Thread.currentThread().setContextClassLoader(classLoader);
+        }
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        backend.close();
+        normalizedBackend.close();
+        for (File file : folder.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Test that the selections give the same rows with and without pruning the partitions.
+     */
+    @Test
+    void testSelectAll() throws SQLException {
+        assertEquivalent(SqlQueries::selectAll);
+    }
+
+    /**
+     * Test that the counts give the same result with and without pruning the partitions.
+     */
+    @Test
+    void testRowCount() throws SQLException {
+        assertEquivalent(SqlQueries::rowCount);
+    }
+
+    /**
+     * Test that the distinct values of a partition field are the same with and without pruning the partitions.
+     */
+    @Test
+    void testShowFieldDistinct() throws SQLException {
+        assertEquivalent(q -> q.showFieldDistinct("city"));
+    }
+
+    /**
+     * Test that a statement whose conditions do not select any partition still reads one partition (so it is a valid
+     * statement), and that it does not select any row.
+     */
+    @Test
+    void testEmptySelection() throws SQLException {
+        for (boolean normalized : new boolean[]{false, true}) {
+            SqlQueries queries = newSqlQueries(true, normalized);
+            queries.addFilter("city", "equals", "nowhere");
+            Query query = queries.selectAll();
+            assertEquals(1, countPartitions(query), query.getInlineSql());
+            assertEquals(Collections.emptyList(), run(query, normalized));
+            Query count = queries.rowCount();
+            assertEquals(Collections.singletonList(Collections.singletonList("0")), run(count, normalized));
+        }
+    }
+
+    /**
+     * Test that the conditions over the normalized shadow column of a partition field (which is not a partition
+     * field, but has the normalized value of the field in all the rows of a partition) prune the partitions.
+     */
+    @Test
+    void testNormalizedColumn() {
+        SqlQueries queries = newSqlQueries(true, true);
+        queries.addFilter("city", "contains", "adria");
+        Query query = queries.selectAll();
+        assertTrue(query.getSql().contains(SqlQueries.NORMALIZED_COLUMN_SUFFIX), query.getSql());
+        assertEquals(2 * AGES.length * BORNS.length, countPartitions(query),
+                query.getInlineSql());
+    }
+
+    /**
+     * Checks that a query gives the same result with and without pruning the partitions, with each filter and with
+     * two filters, with and without normalized shadow columns. Some of the filters must prune partitions.
+     *
+     * @param generator the generator of the query
+     */
+    private static void assertEquivalent(Function<SqlQueries, Query> generator) throws SQLException {
+        int numPrunedQueries = 0;
+        for (boolean normalized : new boolean[]{false, true}) {
+            List<String[][]> filterLists = new ArrayList<>();
+            for (String[] filter : FILTERS) {
+                filterLists.add(new String[][]{filter});
+            }
+            filterLists.add(new String[][]{{"city", "starts with", "sant"}, {"age", ">", "26"}});
+            filterLists.add(new String[][]{{"born", "after", "1970-01-01T00:00:00Z"}, {"age", "<", "30.5"}});
+            for (String[][] filters : filterLists) {
+                SqlQueries pruned = newSqlQueries(true, normalized);
+                SqlQueries unpruned = newSqlQueries(false, normalized);
+                for (String[] filter : filters) {
+                    pruned.addFilter(filter[0], filter[1], filter[2]);
+                    unpruned.addFilter(filter[0], filter[1], filter[2]);
+                }
+                Query prunedQuery = generator.apply(pruned);
+                Query unprunedQuery = generator.apply(unpruned);
+                assertFalse(unprunedQuery.getSql().contains(PartitionedH2Backend.PARTITIONS_ALIAS));
+                if (countPartitions(prunedQuery) > 0) {
+                    numPrunedQueries++;
+                }
+                assertEquals(run(unprunedQuery, normalized), run(prunedQuery, normalized),
+                        unprunedQuery.getInlineSql() + " != " + prunedQuery.getInlineSql());
+            }
+        }
+        assertNotEquals(0, numPrunedQueries);
+    }
+
+    /**
+     * Creates a generator of queries over the test data.
+     *
+     * @param pruning    whether to prune the partitions or not
+     * @param normalized whether to use the data with the normalized shadow columns or not
+     * @return the generator
+     */
+    private static SqlQueries newSqlQueries(boolean pruning, boolean normalized) {
+        PartitionedH2Backend queryBackend = (normalized ? normalizedBackend : backend);
+        SqlQueries queries = new SqlQueries(queryBackend, normalized,
+                pruning ? new QueryOptimizer(queryBackend.getPartitions()) : new QueryOptimizer());
+        queries.getAllFields().add("name");
+        queries.getAllFields().addAll(PARTITION_FIELDS);
+        return queries;
+    }
+
+    /**
+     * Counts the partitions a query reads.
+     *
+     * @param query the query
+     * @return the number of partitions, or {@code 0} if the query reads all the data
+     */
+    private static int countPartitions(Query query) {
+        String sql = query.getSql();
+        if (!sql.contains(PartitionedH2Backend.PARTITIONS_ALIAS)) {
+            return 0;
+        }
+        return sql.split("-%'", -1).length - 1;
+    }
+
+    /**
+     * Runs a query in the database.
+     *
+     * @param query      the query
+     * @param normalized whether to run it over the data with the normalized shadow columns or not
+     * @return the sorted rows of the result
+     */
+    private static List<List<String>> run(Query query, boolean normalized) throws SQLException {
+        List<List<String>> rows = new ArrayList<>();
+        try (Connection conn = (normalized ? normalizedBackend : backend).newConnection();
+             PreparedStatement statement = conn.prepareStatement(query.getSql())) {
+            for (int i = 0; i < query.getParameters().size(); i++) {
+                statement.setString(i + 1, query.getParameters().get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int numColumns = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    List<String> row = new ArrayList<>();
+                    for (int i = 1; i <= numColumns; i++) {
+                        row.add(resultSet.getString(i));
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        rows.sort((r1, r2) -> String.valueOf(r1).compareTo(String.valueOf(r2)));
+        return rows;
+    }
+
+    /**
+     * An {@link H2Backend} that can read some partitions of the data, selecting the rows of the partitions by their
+     * names (the names of the rows of the i-th partition start with {@code pi-}).
+     */
+    private static final class PartitionedH2Backend extends H2Backend {
+
+        /**
+         * The alias of the relation of the partitions read by a statement.
+         */
+        static final String PARTITIONS_ALIAS = "\"partitions\"";
+
+        private final DataPartitions partitions;
+
+        PartitionedH2Backend(DataPartitions partitions) {
+            super(partitions, ',');
+            this.partitions = partitions;
+        }
+
+        @Override
+        public DataPartitions getPartitions() {
+            return partitions;
+        }
+
+        @Override
+        public String table(List<Partition> selectedPartitions) {
+            List<String> conditions = new ArrayList<>();
+            for (Partition partition : selectedPartitions) {
+                conditions.add(column("name") + " LIKE 'p" + partitions.getPartitions().indexOf(partition) + "-%'");
+            }
+            // The upper-cased shadow columns are invisible, so they are not selected by *
+            return "(SELECT *, " + upper(column("name")) + ", " + upper(column("city")) + " FROM " + table()
+                    + " WHERE " + String.join(" OR ", conditions) + ") " + PARTITIONS_ALIAS;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link QueryCache}.
+ */
+class QueryCacheTest {
+
+    /**
+     * The name of the {@code .csv} file of the test data.
+     */
+    private static final String DATA_FILE = "query_cache_test.csv";
+
+    /**
+     * The number of milliseconds to wait until the cache checks the version of the data again.
+     */
+    private static final long VERSION_CHECK_WAIT = 1100;
+
+    private static Path folder;
+
+    private static ClassLoader classLoader;
+
+    private static H2Backend backend;
+
+    /**
+     * Writes the test data in a temporary folder, which is added to the class path until all the tests finish.
+     */
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("query-cache-test");
+        Files.write(folder.resolve(DATA_FILE), Arrays.asList("name,city,age,born", "n1,Madrid,30,2000-01-01"),
+                StandardCharsets.UTF_8);
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(SqlQueriesTest.ENTITIES_JSON),
+                StandardCharsets.UTF_8);
+        classLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{folder.toUri().toURL()},
+                classLoader));
+        backend = new H2Backend(new DataPartitions(Collections.emptyList(),
+                Collections.singletonList(new Partition(DATA_FILE, Collections.emptyList()))), ',');
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        backend.close();
+        ((URLClassLoader) Thread.currentThread().getContextClassLoader()).close();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        for (File file : folder.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Test that the cache does not store more bytes than its bound, evicting the least recently used results, and that
+     * the results bigger than the cache are not stored.
+     */
+    @Test
+    void testEviction() {
+        long entryBytes = QueryCache.estimateBytes(newResultSet("x"));
+        QueryCache cache = new QueryCache(DATA_FILE, 3 * entryBytes, 0);
+        List<Query> queries = new ArrayList<>();
+        List<ResultSet> resultSets = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            queries.add(new Query("SELECT " + i, Query.Operation.SELECT));
+            resultSets.add(newResultSet(String.valueOf(i)));
+        }
+        for (int i = 0; i < 3; i++) {
+            cache.put(queries.get(i), resultSets.get(i));
+        }
+        // The first result becomes the most recently used one, so the second one is evicted
+        assertSame(resultSets.get(0), cache.get(queries.get(0)));
+        cache.put(queries.get(3), resultSets.get(3));
+        assertNull(cache.get(queries.get(1)));
+        assertSame(resultSets.get(0), cache.get(queries.get(0)));
+        assertSame(resultSets.get(2), cache.get(queries.get(2)));
+        assertSame(resultSets.get(3), cache.get(queries.get(3)));
+        assertTrue(cache.getStats().contains("evictions=1,"), cache.getStats());
+        assertTrue(cache.getStats().contains("bytes=" + 3 * entryBytes + "/"), cache.getStats());
+
+        Query bigQuery = new Query("SELECT 'big'", Query.Operation.SELECT);
+        String[] bigValues = new String[10];
+        Arrays.fill(bigValues, "x");
+        assertTrue(QueryCache.estimateBytes(newResultSet(bigValues)) > 3 * entryBytes);
+        cache.put(bigQuery, newResultSet(bigValues));
+        assertNull(cache.get(bigQuery));
+        assertSame(resultSets.get(3), cache.get(queries.get(3)));
+    }
+
+    /**
+     * Test that the results are not returned once they expire.
+     */
+    @Test
+    void testTtl() throws InterruptedException {
+        QueryCache cache = new QueryCache(DATA_FILE, 1024 * 1024, 50);
+        Query query = new Query("SELECT 1", Query.Operation.SELECT);
+        ResultSet resultSet = newResultSet("x");
+        cache.put(query, resultSet);
+        assertSame(resultSet, cache.get(query));
+        Thread.sleep(100);
+        assertNull(cache.get(query));
+        assertTrue(cache.getStats().contains("entries=0,"), cache.getStats());
+    }
+
+    /**
+     * Test that all the results are discarded when the file of the data changes, and that the results computed from a
+     * file that is not in the file system are kept.
+     */
+    @Test
+    void testDataVersion() throws IOException, InterruptedException {
+        Path dataFile = folder.resolve("query_cache_version_test.csv");
+        Files.write(dataFile, Collections.singletonList("name"), StandardCharsets.UTF_8);
+        QueryCache cache = new QueryCache(dataFile.getFileName().toString(), 1024 * 1024, 0);
+        QueryCache unversionedCache = new QueryCache("missing.csv", 1024 * 1024, 0);
+        Query query = new Query("SELECT 1", Query.Operation.SELECT);
+        ResultSet resultSet = newResultSet("x");
+        cache.put(query, resultSet);
+        unversionedCache.put(query, resultSet);
+        Thread.sleep(VERSION_CHECK_WAIT);
+        assertSame(resultSet, cache.get(query));
+        Files.write(dataFile, Collections.singletonList("n1"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Thread.sleep(VERSION_CHECK_WAIT);
+        assertNull(cache.get(query));
+        assertSame(resultSet, unversionedCache.get(query));
+        // The results computed from the new version are stored
+        cache.put(query, resultSet);
+        assertSame(resultSet, cache.get(query));
+    }
+
+    /**
+     * Test that all the results are discarded when a partition of the data is edited in place, without rewriting the
+     * manifest of the partitions.
+     */
+    @Test
+    void testPartitionVersion() throws IOException, InterruptedException {
+        Path manifest = folder.resolve(DataPartitions.PARTITIONS_JSON_FILE);
+        Path partition1 = folder.resolve("query_cache_partition_1.csv");
+        Path partition2 = folder.resolve("query_cache_partition_2.csv");
+        for (Path file : Arrays.asList(manifest, partition1, partition2)) {
+            Files.write(file, Collections.singletonList("name"), StandardCharsets.UTF_8);
+        }
+        try {
+            QueryCache cache = new QueryCache(Arrays.asList(DataPartitions.PARTITIONS_JSON_FILE,
+                    partition1.getFileName().toString(), partition2.getFileName().toString()), 1024 * 1024, 0);
+            Query query = new Query("SELECT 1", Query.Operation.SELECT);
+            ResultSet resultSet = newResultSet("x");
+            cache.put(query, resultSet);
+            Files.write(partition2, Collections.singletonList("n1"), StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+            Thread.sleep(VERSION_CHECK_WAIT);
+            assertNull(cache.get(query));
+        } finally {
+            // The manifest must not be found by the data of the other tests
+            Files.delete(manifest);
+        }
+    }
+
+    /**
+     * Test that the same filters added in a different order give the same cache key, and that different filters do
+     * not.
+     */
+    @Test
+    void testKeyFilterOrder() {
+        SqlQueries queries = new SqlQueries(backend);
+        queries.addFilter("age", ">", "30");
+        queries.addFilter("city", "equals", "madrid");
+        queries.addFilter("name", "contains", "n");
+        SqlQueries reorderedQueries = new SqlQueries(backend);
+        reorderedQueries.addFilter("name", "contains", "n");
+        reorderedQueries.addFilter("city", "equals", "madrid");
+        reorderedQueries.addFilter("age", ">", "30");
+        SqlQueries otherQueries = new SqlQueries(backend);
+        otherQueries.addFilter("age", ">", "30");
+        otherQueries.addFilter("city", "equals", "barcelona");
+        otherQueries.addFilter("name", "contains", "n");
+        for (SqlQueries sqlQueries : Arrays.asList(queries, reorderedQueries, otherQueries)) {
+            sqlQueries.getAllFields().addAll(Arrays.asList("name", "city", "age", "born"));
+        }
+        assertEquals(queries.rowCount().getKey(), reorderedQueries.rowCount().getKey());
+        assertEquals(queries.selectAll().getKey(), reorderedQueries.selectAll().getKey());
+        assertEquals(queries.valueFrequency("city", "Madrid").getKey(),
+                reorderedQueries.valueFrequency("city", "Madrid").getKey());
+        assertNotEquals(queries.rowCount().getKey(), otherQueries.rowCount().getKey());
+        assertNotEquals(queries.rowCount().getKey(), queries.rowCount(true).getKey());
+    }
+
+    /**
+     * Creates a result set with a single column.
+     *
+     * @param values the values of the rows
+     * @return the result set
+     */
+    private static ResultSet newResultSet(String... values) {
+        List<Row> rows = new ArrayList<>();
+        for (String value : values) {
+            rows.add(new Row(Collections.singletonList(value)));
+        }
+        return new ResultSet(Collections.singletonList("a"), rows);
+    }
+}
@@ -0,0 +1,100 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.library.Row;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link QueryExecution}.
+ */
+class QueryExecutionTest {
+
+    /**
+     * Test that cancelling an execution after its deadline expired cancels the statement running in the database
+     * (only once), that a statement is not run after the execution was cancelled, and that the result arriving later
+     * is closed instead of being returned.
+     */
+    @Test
+    void testCancelAfterTimeout() throws TimeoutException {
+        QueryExecution execution = new QueryExecution(new Query("SELECT 1", Query.Operation.SELECT));
+        AtomicInteger numCancellations = new AtomicInteger(0);
+        assertTrue(execution.started(newStatement(numCancellations)));
+        assertThrows(TimeoutException.class, () -> execution.get(50));
+        assertFalse(execution.isCancelled());
+        execution.cancel();
+        assertTrue(execution.isCancelled());
+        assertEquals(1, numCancellations.get());
+        execution.cancel();
+        assertEquals(1, numCancellations.get());
+        assertFalse(execution.started(newStatement(numCancellations)));
+
+        execution.finished();
+        ClosableResultSet lateResultSet = new ClosableResultSet();
+        execution.complete(lateResultSet);
+        assertTrue(lateResultSet.closed);
+        assertEquals(0, execution.get(50).getNumRows());
+    }
+
+    /**
+     * Test that the result of an execution that finished on time is returned without closing it, and that cancelling
+     * a finished execution does not cancel its (already finished) statement.
+     */
+    @Test
+    void testCompleteOnTime() throws TimeoutException {
+        QueryExecution execution = new QueryExecution(new Query("SELECT 1", Query.Operation.SELECT));
+        AtomicInteger numCancellations = new AtomicInteger(0);
+        assertTrue(execution.started(newStatement(numCancellations)));
+        execution.finished();
+        ClosableResultSet resultSet = new ClosableResultSet();
+        execution.complete(resultSet);
+        assertSame(resultSet, execution.get(50));
+        execution.cancel();
+        assertEquals(0, numCancellations.get());
+        assertFalse(resultSet.closed);
+    }
+
+    /**
+     * Creates a statement that counts how many times it is cancelled.
+     *
+     * @param numCancellations the number of cancellations
+     * @return the statement
+     */
+    private static Statement newStatement(AtomicInteger numCancellations) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if ("cancel".equals(method.getName())) {
+                        numCancellations.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * A result set that records whether it was closed.
+     */
+    private static final class ClosableResultSet extends ResultSet {
+
+        private boolean closed = false;
+
+        ClosableResultSet() {
+            super(Collections.singletonList("a"), Collections.singletonList(new Row(Collections.singletonList("1"))));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.xatkit.bot.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link Query}.
+ */
+class QueryTest {
+
+    /**
+     * Test that the parameters are written as escaped text literals in their placeholders.
+     */
+    @Test
+    void testInlineSql() {
+        Query query = new Query("SELECT \"a\" FROM \"t\" WHERE \"a\" = ? AND \"b\" <> ?", Query.Operation.SELECT)
+                .parameters(Arrays.asList("x", "it's"));
+        assertEquals("SELECT \"a\" FROM \"t\" WHERE \"a\" = 'x' AND \"b\" <> 'it''s'", query.getInlineSql());
+        assertEquals(query.getInlineSql(), query.toString());
+    }
+
+    /**
+     * Test that the {@code ?} inside literals and quoted identifiers are not taken as placeholders, even with escaped
+     * quotes.
+     */
+    @Test
+    void testInlineSqlQuotes() {
+        Query query = new Query("SELECT 'why?', \"col?\", `c?` FROM t WHERE a = 'it''s ?' AND b = ? AND c = ?",
+                Query.Operation.SELECT)
+                .parameters(Arrays.asList("what?", "o'k"));
+        assertEquals("SELECT 'why?', \"col?\", `c?` FROM t WHERE a = 'it''s ?' AND b = 'what?' AND c = 'o''k'",
+                query.getInlineSql());
+    }
+
+    /**
+     * Test that a statement without parameters is not changed, and that the placeholders without a value are kept.
+     */
+    @Test
+    void testInlineSqlMissingParameters() {
+        assertEquals("SELECT '?'", new Query("SELECT '?'", Query.Operation.SELECT).getInlineSql());
+        Query query = new Query("SELECT ? , ?", Query.Operation.SELECT)
+                .parameters(Collections.singletonList("a"));
+        assertEquals("SELECT 'a' , ?", query.getInlineSql());
+    }
+
+    /**
+     * Test that the approximate and exact versions of a query have different keys.
+     */
+    @Test
+    void testExact() {
+        Query query = new Query("SELECT COUNT(*) FROM t WHERE a = ?", Query.Operation.COUNT)
+                .parameters(Collections.singletonList("x"))
+                .approximate(true);
+        Query exact = query.exact();
+        assertFalse(exact.isApproximate());
+        assertTrue(query.isApproximate());
+        assertNotEquals(query.getKey(), exact.getKey());
+        assertEquals(query.getSql(), exact.getSql());
+        assertEquals(query.getParameters(), exact.getParameters());
+        assertEquals(exact, exact.exact());
+    }
+}
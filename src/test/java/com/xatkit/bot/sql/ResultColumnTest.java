@@ -0,0 +1,148 @@
+package com.xatkit.bot.sql;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link ResultColumn}, which loads the columns from the typed columns of an in-memory H2 database.
+ */
+class ResultColumnTest {
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void setUpBeforeAll() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:result_column_test");
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * Test that the type of a column is chosen from its JDBC type.
+     */
+    @Test
+    void testOf() {
+        assertEquals(ResultColumn.Type.LONG, ResultColumn.of(Types.INTEGER).getType());
+        assertEquals(ResultColumn.Type.LONG, ResultColumn.of(Types.BIGINT).getType());
+        assertEquals(ResultColumn.Type.DOUBLE, ResultColumn.of(Types.DOUBLE).getType());
+        assertEquals(ResultColumn.Type.DECIMAL, ResultColumn.of(Types.DECIMAL).getType());
+        assertEquals(ResultColumn.Type.DECIMAL, ResultColumn.of(Types.NUMERIC).getType());
+        assertEquals(ResultColumn.Type.DATETIME, ResultColumn.of(Types.TIMESTAMP).getType());
+        assertEquals(ResultColumn.Type.DATETIME, ResultColumn.of(Types.TIMESTAMP_WITH_TIMEZONE).getType());
+        assertEquals(ResultColumn.Type.STRING, ResultColumn.of(Types.VARCHAR).getType());
+    }
+
+    /**
+     * Test that the decimal values are exact, also beyond the integers a {@code double} can represent (2^53) and
+     * beyond the unscaled values a {@code long} can store, and that they are printed without trailing zeros.
+     */
+    @Test
+    void testDecimal() throws SQLException {
+        ResultColumn column = load("SELECT CAST(x AS DECIMAL(40, 4)) FROM (VALUES ('9007199254740993'), ('30.50'), "
+                + "('100'), ('-0.0010'), ('0'), (NULL), ('123456789012345678901234567890.5'), ('-9223372036854775808'))"
+                + " t(x)");
+        assertEquals(ResultColumn.Type.DECIMAL, column.getType());
+        assertEquals(8, column.size());
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < column.size(); i++) {
+            values.add(column.getString(i));
+        }
+        assertEquals(Arrays.asList("9007199254740993", "30.5", "100", "-0.001", "0", null,
+                "123456789012345678901234567890.5", "-9223372036854775808"), values);
+        assertEquals(9007199254740993L, column.getLong(0));
+        assertEquals(new BigDecimal("9007199254740993"), column.getBigDecimal(0));
+        assertEquals(30.5, column.getDouble(1));
+        assertEquals(30, column.getLong(1));
+        assertTrue(column.isNull(5));
+        assertFalse(column.isNull(4));
+        assertNull(column.getBigDecimal(5));
+        assertEquals(0, column.getLong(5));
+        assertEquals(new BigDecimal("123456789012345678901234567890.5"), column.getBigDecimal(6));
+        assertEquals(Long.MIN_VALUE, column.getLong(7));
+    }
+
+    /**
+     * Test that the floating-point values are printed without decimals when they are integral.
+     */
+    @Test
+    void testDouble() throws SQLException {
+        ResultColumn column = load("SELECT CAST(x AS DOUBLE) FROM (VALUES ('2'), ('2.25'), (NULL)) t(x)");
+        assertEquals(ResultColumn.Type.DOUBLE, column.getType());
+        assertEquals("2", column.getString(0));
+        assertEquals("2.25", column.getString(1));
+        assertNull(column.getString(2));
+        assertEquals(new BigDecimal("2.25"), column.getBigDecimal(1));
+    }
+
+    /**
+     * Test that the columns grow beyond their initial capacity, and that the texts are encoded with a dictionary.
+     */
+    @Test
+    void testGrowth() throws SQLException {
+        ResultColumn longs = load("SELECT CAST(x AS BIGINT) FROM SYSTEM_RANGE(1, 200)");
+        ResultColumn strings = load("SELECT CAST(MOD(x, 3) AS VARCHAR) FROM SYSTEM_RANGE(1, 200)");
+        assertEquals(200, longs.size());
+        assertEquals(200, strings.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i + 1, longs.getLong(i));
+            assertEquals(String.valueOf((i + 1) % 3), strings.getString(i));
+        }
+        ResultColumn.StringColumn stringColumn = (ResultColumn.StringColumn) strings;
+        assertEquals(3, stringColumn.getDictionarySize());
+        assertEquals(stringColumn.getCode(0), stringColumn.getCode(3));
+        assertThrows(UnsupportedOperationException.class, () -> strings.getDouble(0));
+    }
+
+    /**
+     * Test that the datetimes with time zone keep their offset.
+     */
+    @Test
+    void testDatetime() throws SQLException {
+        ResultColumn column = load("SELECT CAST(x AS TIMESTAMP WITH TIME ZONE) FROM (VALUES "
+                + "('1995-08-24 12:00:00+01:00'), ('2001-01-01 00:00:00-05:30'), (NULL)) t(x)");
+        assertEquals(ResultColumn.Type.DATETIME, column.getType());
+        assertEquals("1995-08-24T12:00:00+01:00", column.getString(0));
+        assertEquals("2001-01-01T00:00:00-05:30", column.getString(1));
+        assertNull(column.getString(2));
+        assertEquals(809262000000L, ((ResultColumn.DatetimeColumn) column).getEpochMillis(0));
+    }
+
+    /**
+     * Loads the first column of the result of a query.
+     *
+     * @param sql the query
+     * @return the column
+     */
+    private static ResultColumn load(String sql) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            ResultColumn column = ResultColumn.of(resultSet.getMetaData().getColumnType(1));
+            while (resultSet.next()) {
+                column.append(resultSet, 1);
+            }
+            column.trim();
+            return column;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.xatkit.bot.sql;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link SpaceSaving}, which checks its guarantees against the real frequencies of the values.
+ */
+class SpaceSavingTest {
+
+    /**
+     * Test the guarantees of the summary on skewed streams with fixed seeds: the count of a monitored value is not
+     * lower than its frequency and at most its error higher, and the values that are not monitored are not more
+     * frequent than the lowest count, which is at most {@code numRows / capacity}.
+     */
+    @Test
+    void testGuarantees() {
+        for (int seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            for (int capacity : new int[]{1, 10, 100}) {
+                SpaceSaving summary = new SpaceSaving(capacity);
+                Map<String, Long> frequencies = zipfStream(random, 20000, 1000, summary);
+                assertGuarantees(summary, frequencies);
+                assertFalse(summary.isExact());
+            }
+        }
+    }
+
+    /**
+     * Test that the counts are exact while there are fewer distinct values than counters.
+     */
+    @Test
+    void testExact() {
+        SpaceSaving summary = new SpaceSaving(50);
+        Map<String, Long> frequencies = zipfStream(new Random(1), 5000, 50, summary);
+        assertTrue(summary.isExact());
+        assertGuarantees(summary, frequencies);
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            SpaceSaving.Counter counter = summary.get(entry.getKey());
+            assertEquals(entry.getValue().longValue(), counter.getCount());
+            assertEquals(0, counter.getError());
+        }
+        assertNull(summary.get("missing"));
+        assertEquals(0, new SpaceSaving(10).getMinCount());
+    }
+
+    @Test
+    void testCountersOrder() {
+        SpaceSaving summary = new SpaceSaving(10);
+        zipfStream(new Random(2), 3000, 30, summary);
+        List<SpaceSaving.Counter> counters = summary.getCounters();
+        for (int i = 1; i < counters.size(); i++) {
+            SpaceSaving.Counter previous = counters.get(i - 1);
+            SpaceSaving.Counter counter = counters.get(i);
+            assertTrue(previous.getCount() > counter.getCount() || (previous.getCount() == counter.getCount()
+                    && previous.getValue().compareTo(counter.getValue()) < 0));
+        }
+    }
+
+    /**
+     * Test that a summary read from its json object has the same counters and keeps its guarantees.
+     */
+    @Test
+    void testJson() {
+        Random random = new Random(3);
+        SpaceSaving summary = new SpaceSaving(20);
+        Map<String, Long> frequencies = zipfStream(random, 10000, 200, summary);
+        JSONObject json = summary.toJson();
+        SpaceSaving read = SpaceSaving.fromJson(new JSONObject(json.toString()));
+        assertEquals(json.toString(), read.toJson().toString());
+        assertEquals(summary.getMinCount(), read.getMinCount());
+        assertEquals(summary.isExact(), read.isExact());
+        assertEquals(summary.getNumRows(), read.getNumRows());
+        // The summaries keep counting in the same way
+        for (int i = 0; i < 2000; i++) {
+            String value = "v" + random.nextInt(300);
+            summary.offer(value);
+            read.offer(value);
+            frequencies.merge(value, 1L, Long::sum);
+        }
+        assertEquals(summary.toJson().toString(), read.toJson().toString());
+        assertGuarantees(read, frequencies);
+    }
+
+    private static void assertGuarantees(SpaceSaving summary, Map<String, Long> frequencies) {
+        long numRows = 0;
+        for (long frequency : frequencies.values()) {
+            numRows += frequency;
+        }
+        assertEquals(numRows, summary.getNumRows());
+        assertTrue(summary.getMinCount() <= numRows / summary.getCapacity());
+        for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+            long frequency = entry.getValue();
+            SpaceSaving.Counter counter = summary.get(entry.getKey());
+            if (counter == null) {
+                assertTrue(frequency <= summary.getMinCount(), entry.getKey());
+            } else {
+                assertTrue(counter.getCount() >= frequency, entry.getKey());
+                assertTrue(counter.getCount() - counter.getError() <= frequency, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Offers a stream of values with a Zipf-like distribution (the value {@code vi} has a frequency proportional to
+     * {@code 1 / (i + 1)}) to a summary.
+     *
+     * @return the frequency of each value
+     */
+    static Map<String, Long> zipfStream(Random random, int numRows, int numValues, SpaceSaving summary) {
+        double[] cumulative = new double[numValues];
+        double sum = 0;
+        for (int i = 0; i < numValues; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Map<String, Long> frequencies = new HashMap<>();
+        for (int row = 0; row < numRows; row++) {
+            double x = random.nextDouble() * sum;
+            int i = 0;
+            while (i < numValues - 1 && cumulative[i] < x) {
+                i++;
+            }
+            String value = "v" + i;
+            summary.offer(value);
+            frequencies.merge(value, 1L, Long::sum);
+        }
+        return frequencies;
+    }
+}
@@ -0,0 +1,603 @@
+package com.xatkit.bot.sql;
+
+import com.xatkit.bot.library.Row;
+import com.xatkit.bot.sql.DataPartitions.Partition;
+import com.xatkit.bot.sql.ast.QueryOptimizer;
+import com.xatkit.bot.sql.columnar.ColumnarEngine;
+import com.xatkit.bot.sql.columnar.ColumnarTable;
+import com.xatkit.bot.sql.columnar.RefinableResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DATETIME;
+import static com.xatkit.bot.customQuery.AbstractCustomQuery.DECIMAL;
+import static com.xatkit.bot.customQuery.SelectFieldsWithConditions.MAX;
+import static com.xatkit.bot.customQuery.SelectFieldsWithConditions.MIN;
+import static com.xatkit.bot.library.Utils.normalize;
+import static com.xatkit.bot.library.Utils.parseDatetime;
+import static com.xatkit.bot.library.Utils.parseDecimal;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static java.util.Objects.isNull;
+
+/**
+ * Test class of {@link SqlQueries}, which checks that the statements optimized by the
+ * {@link com.xatkit.bot.sql.ast.QueryOptimizer} give the same results as the original statements, running both in an
+ * {@link H2Backend}, and that the {@link ColumnarEngine} gives the same results as the database.
+ */
+public class SqlQueriesTest {
+
+    /**
+     * The name of the {@code .csv} file of the test data.
+     */
+    private static final String DATA_FILE = "sql_queries_test.csv";
+
+    /**
+     * The name of the {@code .csv} file of the test data with the normalized shadow columns of its textual fields.
+     */
+    private static final String NORMALIZED_DATA_FILE = "sql_queries_normalized_test.csv";
+
+    /**
+     * The fields of the test data.
+     */
+    private static final List<String> FIELDS = Arrays.asList("name", "city", "age", "born");
+
+    /**
+     * The entities of the test data. The entities are loaded once, so all the tests that write them must write the
+     * same ones (also the tests of other packages).
+     */
+    public static final String ENTITIES_JSON = "{"
+            + "\"numericFieldEntity\":{\"age\":{\"key\":false,\"categorical\":false,\"values\":{}}},"
+            + "\"datetimeFieldEntity\":{\"born\":{\"key\":false,\"values\":{}}},"
+            + "\"textualFieldEntity\":{\"name\":{\"key\":true,\"categorical\":false,\"values\":{}},"
+            + "\"city\":{\"key\":false,\"categorical\":true,\"values\":{}}},"
+            + "\"fieldGroups\":{},\"rowNameEntity\":{}}";
+
+    private static Path folder;
+
+    private static H2Backend backend;
+
+    private static H2Backend normalizedBackend;
+
+    /**
+     * The columnar engines over the test data, with and without trigram indexes.
+     */
+    private static List<ColumnarEngine> columnarEngines;
+
+    /**
+     * The columnar engines over the test data with the normalized shadow columns, with and without trigram indexes.
+     */
+    private static List<ColumnarEngine> normalizedColumnarEngines;
+
+    /**
+     * Writes the test data in a temporary folder and loads it into an {@link H2Backend} and into
+     * {@link ColumnarEngine}s. The data has values that only differ in case or accents, empty values, and numbers and
+     * datetimes that cannot be parsed (which are {@code NULL} in the database).
+     */
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("sql-queries-test");
+        List<String> lines = new ArrayList<>();
+        List<String> normalizedLines = new ArrayList<>();
+        lines.add(String.join(",", FIELDS));
+        normalizedLines.add(String.join(",", FIELDS) + ",name" + SqlQueries.NORMALIZED_COLUMN_SUFFIX + ",city"
+                + SqlQueries.NORMALIZED_COLUMN_SUFFIX);
+        String[] cities = {"Barcelona", "barcelona", "Madrid", "Girona", "", "BARCELONA", "Sant Adri\u00e0",
+                "SANT ADRIA"};
+        for (int i = 0; i < 60; i++) {
+            String name = (i % 10 == 4 ? "N\u00faria " : "n") + (i % 45);
+            String city = cities[i % cities.length];
+            String age = (i % 13 == 5 ? "" : (i % 11 == 7 ? "n/a" : String.valueOf(18 + (i * 7) % 50)));
+            String born = (i % 17 == 3 ? "unknown" : (1950 + i % 40) + "-0" + (1 + i % 9) + "-15T10:00:00+01:00");
+            String line = name + "," + city + "," + age + "," + born;
+            lines.add(line);
+            normalizedLines.add(line + "," + normalize(name) + "," + normalize(city));
+        }
+        Files.write(folder.resolve(DATA_FILE), lines, StandardCharsets.UTF_8);
+        Files.write(folder.resolve(NORMALIZED_DATA_FILE), normalizedLines, StandardCharsets.UTF_8);
+        // Only used if the chatbot does not have its own entities
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(ENTITIES_JSON), StandardCharsets.UTF_8);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader testClassLoader = new URLClassLoader(new URL[]{folder.toUri().toURL()}, classLoader)) {
+            Thread.currentThread().setContextClassLoader(testClassLoader);
+            DataPartitions partitions = new DataPartitions(Collections.emptyList(),
+                    Collections.singletonList(new Partition(DATA_FILE, Collections.emptyList())));
+            backend = new H2Backend(partitions, ',');
+            columnarEngines = newColumnarEngines(partitions, false);
+            DataPartitions normalizedPartitions = new DataPartitions(Collections.emptyList(),
+                    Collections.singletonList(new Partition(NORMALIZED_DATA_FILE, Collections.emptyList())));
+            normalizedBackend = new H2Backend(normalizedPartitions, ',');
+            normalizedColumnarEngines = newColumnarEngines(normalizedPartitions, true);
+        } finally {
+            Thread.currentThread().setContextClassLoader(classLoader);
+        }
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        backend.close();
+        normalizedBackend.close();
+        for (File file : folder.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(folder);
+    }
+
+    /**
+     * Loads the test data into two {@link ColumnarEngine}s, the second one with trigram indexes on the textual fields.
+     *
+     * @param partitions the {@code .csv} file of the data
+     * @param normalized whether the data has the normalized shadow columns or not
+     * @return the engines
+     */
+    private static List<ColumnarEngine> newColumnarEngines(DataPartitions partitions, boolean normalized) {
+        ColumnarTable indexedTable = ColumnarTable.load(partitions, ',');
+        indexedTable.buildTrigramIndexes(normalized);
+        return Arrays.asList(new ColumnarEngine(ColumnarTable.load(partitions, ','), normalized),
+                new ColumnarEngine(indexedTable, normalized));
+    }
+
+    @Test
+    void testSelectAll() throws SQLException {
+        assertEquivalent(SqlQueries::selectAll, 60);
+    }
+
+    @Test
+    void testShowFieldDistinct() throws SQLException {
+        assertEquivalent(q -> q.showFieldDistinct("city"), 8);
+    }
+
+    @Test
+    void testFrequentValueInField() throws SQLException {
+        // The 4 most frequent cities are tied
+        assertEquivalent(q -> q.frequentValueInField("city", true, 1), 4);
+        // The 4 least frequent cities are tied, so there is no second rank
+        assertEquivalent(q -> q.frequentValueInField("city", false, 2), 4);
+    }
+
+    @Test
+    void testCompareValues() throws SQLException {
+        assertEquivalent(q -> q.compareValues(Arrays.asList("city", "city"), Arrays.asList("Madrid", "Girona")), 1);
+    }
+
+    @Test
+    void testValueFrequency() throws SQLException {
+        assertEquivalent(q -> q.valueFrequency("city", "Barcelona"), 1);
+    }
+
+    @Test
+    void testRowCount() throws SQLException {
+        assertEquivalent(SqlQueries::rowCount, 1);
+    }
+
+    @Test
+    void testFieldCount() throws SQLException {
+        assertEquivalent(SqlQueries::fieldCount, 0);
+    }
+
+    @Test
+    void testSelectFieldsWithConditionsMaxMinOperator() throws SQLException {
+        Map<String, String> valueFieldMap = new HashMap<>();
+        valueFieldMap.put("Madrid", "city");
+        assertEquivalent(q -> q.selectFieldsWithConditionsMaxMinOperator(new ArrayList<>(
+                Collections.singletonList("name")), "age", MAX, DECIMAL, valueFieldMap, "3"), 3);
+        assertEquivalent(q -> q.selectFieldsWithConditionsMaxMinOperator(new ArrayList<>(
+                Collections.singletonList("name")), "born", MIN, DATETIME, new HashMap<>(), "2"), 2);
+        // The greatest ages are tied, and the smallest ones too
+        for (String number : new String[]{"1", "2", "5"}) {
+            assertEquivalent(q -> q.selectFieldsWithConditionsMaxMinOperator(new ArrayList<>(
+                    Collections.singletonList("name")), "age", MAX, DECIMAL, new HashMap<>(), number), -1);
+            assertEquivalent(q -> q.selectFieldsWithConditionsMaxMinOperator(new ArrayList<>(
+                    Collections.singletonList("city")), "age", MIN, DECIMAL, new HashMap<>(), number), -1);
+        }
+    }
+
+    @Test
+    void testSelectFieldsWithConditionsAvgSumOperator() throws SQLException {
+        Map<String, String> valueFieldMap = new HashMap<>();
+        valueFieldMap.put("Girona", "city");
+        assertEquivalent(q -> q.selectFieldsWithConditionsAvgSumOperator("age", "avg", valueFieldMap), 1);
+        assertEquivalent(q -> q.selectFieldsWithConditionsAvgSumOperator("age", "sum", new HashMap<>()), 1);
+    }
+
+    @Test
+    void testSelectFieldsWithConditionsNoOperator() throws SQLException {
+        Map<String, String> valueFieldMap = new HashMap<>();
+        valueFieldMap.put("Madrid", "city");
+        assertEquivalent(q -> q.selectFieldsWithConditionsNoOperator(Arrays.asList("name", "city"), valueFieldMap,
+                true), 8);
+        assertEquivalent(q -> q.selectFieldsWithConditionsDistinctCount(Collections.singletonList("city"),
+                new HashMap<>()), 1);
+    }
+
+    @Test
+    void testFieldOperatorValue() throws SQLException {
+        String[][] conditions = {
+                {"age", ">", "40"}, {"age", "<=", "40"}, {"age", "=", "25"}, {"age", "!=", "25"},
+                {"city", "equals", "barcelona"}, {"city", "different", "barcelona"}, {"city", "contains", "ARC"},
+                {"city", "starts with", "gi"}, {"city", "ends with", "RID"}, {"city", "equals", "SANT ADRI\u00c0"},
+                {"city", "different", ""}, {"city", "contains", "adri"}, {"name", "contains", "URIA"},
+                {"name", "ends with", "1"}, {"born", "date_different", "1951-02-15T10:00:00+01:00"},
+                {"born", "date_equals", "1951-02-15T10:00:00+01:00"}, {"born", "before", "1970-01-01T00:00:00Z"},
+                {"born", "after", "1970-01-01T00:00:00Z"}
+        };
+        for (String[] condition : conditions) {
+            assertEquivalent(q -> q.fieldOperatorValue(new ArrayList<>(Collections.singletonList("name")),
+                    condition[0], condition[1], condition[2]), -1);
+        }
+    }
+
+    @Test
+    void testFieldBetweenValues() throws SQLException {
+        assertEquivalent(q -> q.fieldBetweenValues(new ArrayList<>(Collections.singletonList("name")), "age", "20",
+                "40", DECIMAL), -1);
+        assertEquivalent(q -> q.fieldBetweenValues(new ArrayList<>(Collections.singletonList("name")), "born",
+                "1960-01-01T00:00:00Z", "1980-01-01T00:00:00Z", DATETIME), -1);
+        // An empty interval
+        assertEquivalent(q -> q.fieldBetweenValues(new ArrayList<>(Collections.singletonList("name")), "age", "40",
+                "20", DECIMAL), 0);
+    }
+
+    /**
+     * Test that the optimizer removes the predicates repeated by the filters and the query, without changing the
+     * result.
+     */
+    @Test
+    void testRepeatedPredicates() throws SQLException {
+        SqlQueries optimized = newSqlQueries(new QueryOptimizer());
+        SqlQueries original = newSqlQueries(QueryOptimizer.disabled());
+        for (SqlQueries queries : Arrays.asList(optimized, original)) {
+            queries.addFilter("age", ">", "30");
+            queries.addFilter("city", "different", "madrid");
+        }
+        Query optimizedQuery = optimized.fieldOperatorValue(new ArrayList<>(Collections.singletonList("name")),
+                "age", ">", "30");
+        Query originalQuery = original.fieldOperatorValue(new ArrayList<>(Collections.singletonList("name")),
+                "age", ">", "30");
+        assertTrue(optimizedQuery.getSql().length() < originalQuery.getSql().length(),
+                "The optimized statement is not shorter: " + optimizedQuery.getSql());
+        assertEquals(sorted(run(originalQuery)), sorted(run(optimizedQuery)));
+    }
+
+    /**
+     * Test that the pages retrieved with keyset pagination are the consecutive slices of the sorted result, going
+     * forward and back, with rows repeated across pages, {@code NULL} values, and typed values in the anchors (which
+     * are read back from the shown pages).
+     */
+    @Test
+    void testSelectAllPages() throws SQLException {
+        List<List<String>> fieldLists = Arrays.asList(FIELDS, Arrays.asList("age", "city"),
+                Collections.singletonList("city"));
+        for (List<String> fields : fieldLists) {
+            for (boolean filtered : new boolean[]{false, true}) {
+                for (int pageSize : new int[]{1, 4, 7, 100}) {
+                    SqlQueries queries = new SqlQueries(backend, false, new QueryOptimizer());
+                    queries.getAllFields().addAll(fields);
+                    if (filtered) {
+                        queries.addFilter("city", "contains", "a");
+                    }
+                    List<List<String>> rows = getRows(load(queries.selectAllPage(fields,
+                            queries.getFiltersAsSqlConditions(), queries.getFiltersAsConditions(), null, 0, 0, -1)));
+                    assertTrue(rows.size() > 1);
+                    String message = fields + (filtered ? " filtered" : "") + ", page size " + pageSize;
+                    ResultPages pages = queries.selectAllPages(pageSize);
+                    for (int offset = 0; offset < rows.size(); offset += pageSize) {
+                        Query pageQuery = pages.getPage(offset);
+                        // Only the first page is retrieved without a known row to start after
+                        assertEquals(offset > 0, pageQuery.getSql().contains(" OR "), message);
+                        com.xatkit.bot.library.ResultSet page = load(pageQuery);
+                        assertEquals(rows.subList(offset, Math.min(rows.size(), offset + pageSize)), getRows(page),
+                                message + ", offset " + offset);
+                        pages.pageShown(offset, page);
+                    }
+                    int lastOffset = (rows.size() - 1) / pageSize * pageSize;
+                    for (int offset = lastOffset; offset >= 0; offset -= pageSize) {
+                        assertEquals(rows.subList(offset, Math.min(rows.size(), offset + pageSize)),
+                                getRows(load(pages.getPage(offset))), message + ", back to offset " + offset);
+                    }
+                    // The last page is retrieved by skipping the previous rows when its previous page was not shown
+                    ResultPages otherPages = queries.selectAllPages(pageSize);
+                    assertEquals(rows.subList(lastOffset, rows.size()), getRows(load(otherPages.getPage(lastOffset))),
+                            message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that refining a filtered result with an added filter gives the same rows as running the query with all the
+     * filters, and that the result cannot be refined when a filter is removed or changed.
+     */
+    @Test
+    void testRefine() throws SQLException {
+        String[][] filters = {{"city", "contains", "a"}, {"age", ">=", "30"}, {"city", "equals", "sant adria"},
+                {"name", "starts with", "NU"}, {"born", "before", "1970-01-01T00:00:00Z"}, {"age", "<", "40"}};
+        for (boolean normalized : new boolean[]{false, true}) {
+            for (String[] filter : filters) {
+                for (String[] addedFilter : filters) {
+                    SqlQueries queries = newSqlQueries(new QueryOptimizer(), normalized);
+                    queries.addFilter(filter[0], filter[1], filter[2]);
+                    RefinableResult result = RefinableResult.of(queries.getFiltersAsConditions(),
+                            queries.getAllFields(), load(queries.selectAll(), normalized), normalized);
+                    queries.addFilter(addedFilter[0], addedFilter[1], addedFilter[2]);
+                    RefinableResult refinedResult = result.refine(queries.getFiltersAsConditions());
+                    String message = Arrays.toString(filter) + " + " + Arrays.toString(addedFilter)
+                            + (normalized ? " normalized" : "");
+                    assertNotNull(refinedResult, message);
+                    com.xatkit.bot.library.ResultSet expectedResult = load(queries.selectAll(), normalized);
+                    assertEquals(expectedResult.getNumRows(), refinedResult.getNumRows(), message);
+                    assertEquals(sorted(toList(expectedResult)), sorted(toList(refinedResult.toResultSet())), message);
+                }
+            }
+        }
+        SqlQueries queries = newSqlQueries(new QueryOptimizer());
+        queries.addFilter("city", "contains", "a");
+        queries.addFilter("age", ">=", "30");
+        RefinableResult result = RefinableResult.of(queries.getFiltersAsConditions(), queries.getAllFields(),
+                load(queries.selectAll()), false);
+        assertEquals(FIELDS, result.toResultSet().getHeader());
+        assertSame(result, result.refine(queries.getFiltersAsConditions()));
+        SqlQueries removedQueries = newSqlQueries(new QueryOptimizer());
+        removedQueries.addFilter("city", "contains", "a");
+        assertNull(result.refine(removedQueries.getFiltersAsConditions()));
+        SqlQueries changedQueries = newSqlQueries(new QueryOptimizer());
+        changedQueries.addFilter("city", "contains", "a");
+        changedQueries.addFilter("age", ">=", "40");
+        assertNull(result.refine(changedQueries.getFiltersAsConditions()));
+    }
+
+    /**
+     * Checks that a query gives the same result with and without optimizing its statement, and in the
+     * {@link ColumnarEngine}s, with and without filters and normalized shadow columns.
+     *
+     * @param generator the generator of the query
+     * @param numRows   the expected number of rows of the result without filters, or {@code -1} to not check it
+     */
+    private static void assertEquivalent(Function<SqlQueries, Query> generator, int numRows) throws SQLException {
+        assertEquivalent(generator, numRows, false);
+        assertEquivalent(generator, numRows, true);
+    }
+
+    /**
+     * Checks that a query gives the same result with and without optimizing its statement, and in the
+     * {@link ColumnarEngine}s, with and without filters.
+     *
+     * @param generator  the generator of the query
+     * @param numRows    the expected number of rows of the result without filters, or {@code -1} to not check it
+     * @param normalized whether to use the data with the normalized shadow columns or not
+     */
+    private static void assertEquivalent(Function<SqlQueries, Query> generator, int numRows, boolean normalized)
+            throws SQLException {
+        String[][] filters = {{}, {"city", "contains", "a"}, {"age", ">=", "30"}, {"city", "equals", "sant adria"},
+                {"name", "starts with", "NU"}, {"born", "before", "1970-01-01T00:00:00Z"}};
+        for (String[] filter : filters) {
+            SqlQueries optimized = newSqlQueries(new QueryOptimizer(), normalized);
+            SqlQueries original = newSqlQueries(QueryOptimizer.disabled(), normalized);
+            if (filter.length > 0) {
+                optimized.addFilter(filter[0], filter[1], filter[2]);
+                original.addFilter(filter[0], filter[1], filter[2]);
+            }
+            Query optimizedQuery = generator.apply(optimized);
+            Query originalQuery = generator.apply(original);
+            assertEquals(originalQuery.getParameters().size(), originalQuery.getSql().replaceAll("[^?]", "").length());
+            List<List<String>> optimizedResult = run(optimizedQuery, normalized);
+            List<List<String>> originalResult = run(originalQuery, normalized);
+            assertEquals(comparable(originalQuery, originalResult), comparable(optimizedQuery, optimizedResult),
+                    originalQuery.getInlineSql() + " != " + optimizedQuery.getInlineSql());
+            for (ColumnarEngine columnarEngine : (normalized ? normalizedColumnarEngines : columnarEngines)) {
+                com.xatkit.bot.library.ResultSet columnarResultSet = columnarEngine.answer(optimizedQuery);
+                assertNotNull(columnarResultSet, optimizedQuery.getInlineSql());
+                List<List<String>> columnarResult = toList(columnarResultSet);
+                if (optimizedQuery.getOperation() == Query.Operation.COUNT) {
+                    // The counts are read by position, and the count of a derived query (see Query#count()) has the
+                    // column label of each database
+                    columnarResult.set(0, originalResult.get(0));
+                }
+                assertEquals(comparable(originalQuery, originalResult), comparable(optimizedQuery, columnarResult),
+                        optimizedQuery.getInlineSql());
+            }
+            if (filter.length == 0 && numRows >= 0) {
+                assertEquals(numRows, optimizedResult.size() - 1, optimizedQuery.getInlineSql());
+            }
+        }
+    }
+
+    private static SqlQueries newSqlQueries(QueryOptimizer optimizer) {
+        return newSqlQueries(optimizer, false);
+    }
+
+    private static SqlQueries newSqlQueries(QueryOptimizer optimizer, boolean normalized) {
+        SqlQueries queries = new SqlQueries(normalized ? normalizedBackend : backend, normalized, optimizer);
+        queries.getAllFields().addAll(FIELDS);
+        return queries;
+    }
+
+    /**
+     * Runs a query in the database, loading its result as the {@link SqlEngine} does.
+     *
+     * @param query the query
+     * @return the result of the query
+     */
+    private static com.xatkit.bot.library.ResultSet load(Query query) throws SQLException {
+        return load(query, false);
+    }
+
+    /**
+     * Runs a query in the database, loading its result as the {@link SqlEngine} does.
+     *
+     * @param query      the query
+     * @param normalized whether to run it over the data with the normalized shadow columns or not
+     * @return the result of the query
+     */
+    private static com.xatkit.bot.library.ResultSet load(Query query, boolean normalized) throws SQLException {
+        try (Connection conn = (normalized ? normalizedBackend : backend).newConnection();
+             PreparedStatement statement = conn.prepareStatement(query.getSql())) {
+            for (int i = 0; i < query.getParameters().size(); i++) {
+                statement.setString(i + 1, query.getParameters().get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return ColumnarResultSet.load(resultSet, query.getFields());
+            }
+        }
+    }
+
+    /**
+     * Gets the rows of a result set.
+     *
+     * @param resultSet the result set
+     * @return the values of the rows
+     */
+    private static List<List<String>> getRows(com.xatkit.bot.library.ResultSet resultSet) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            rows.add(resultSet.getRow(i).getValues());
+        }
+        return rows;
+    }
+
+    private static List<List<String>> run(Query query) throws SQLException {
+        return run(query, false);
+    }
+
+    /**
+     * Runs a query in the database. The typed values are written as in {@link #toList(
+     * com.xatkit.bot.library.ResultSet)}.
+     *
+     * @param query      the query
+     * @param normalized whether to run it over the data with the normalized shadow columns or not
+     * @return the column labels followed by the rows of the result
+     */
+    private static List<List<String>> run(Query query, boolean normalized) throws SQLException {
+        List<List<String>> result = new ArrayList<>();
+        try (Connection conn = (normalized ? normalizedBackend : backend).newConnection();
+             PreparedStatement statement = conn.prepareStatement(query.getSql())) {
+            for (int i = 0; i < query.getParameters().size(); i++) {
+                statement.setString(i + 1, query.getParameters().get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int numColumns = resultSet.getMetaData().getColumnCount();
+                List<String> labels = new ArrayList<>();
+                for (int i = 1; i <= numColumns; i++) {
+                    labels.add(resultSet.getMetaData().getColumnLabel(i));
+                }
+                result.add(labels);
+                while (resultSet.next()) {
+                    List<String> row = new ArrayList<>();
+                    for (int i = 1; i <= numColumns; i++) {
+                        int type = resultSet.getMetaData().getColumnType(i);
+                        if (type == Types.DECIMAL && !isNull(resultSet.getBigDecimal(i))) {
+                            row.add(canonical(resultSet.getBigDecimal(i)));
+                        } else if (type == Types.TIMESTAMP_WITH_TIMEZONE && !isNull(resultSet.getObject(i))) {
+                            row.add(resultSet.getObject(i, OffsetDateTime.class).toInstant().toString());
+                        } else {
+                            row.add(resultSet.getString(i));
+                        }
+                    }
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the column labels and the rows of a result set of the {@link #columnarEngine}, which contains the values of
+     * the {@code .csv} file. The values of the numeric and datetime columns are written as the typed values of the
+     * database: the numbers without trailing zeros (rounded to 6 decimals, since the engine computes the averages with
+     * doubles) and the datetimes as instants.
+     *
+     * @param resultSet the result set
+     * @return the column labels followed by the rows of the result
+     */
+    private static List<List<String>> toList(com.xatkit.bot.library.ResultSet resultSet) {
+        List<List<String>> result = new ArrayList<>();
+        result.add(resultSet.getHeader());
+        for (int i = 0; i < resultSet.getNumRows(); i++) {
+            Row row = resultSet.getRow(i);
+            List<String> values = new ArrayList<>();
+            for (int j = 0; j < resultSet.getHeader().size(); j++) {
+                String label = resultSet.getHeader().get(j);
+                String value = row.getColumnValue(j);
+                if ("age".equals(label) && !isNull(value)) {
+                    BigDecimal number = parseDecimal(value);
+                    values.add(isNull(number) ? null : canonical(number));
+                } else if ("born".equals(label) && !isNull(value)) {
+                    OffsetDateTime datetime = parseDatetime(value);
+                    values.add(isNull(datetime) ? null : datetime.toInstant().toString());
+                } else {
+                    values.add(value);
+                }
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    private static String canonical(BigDecimal number) {
+        return number.setScale(6, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Gets a result in a form that does not depend on the order SQL leaves unspecified: the rows are sorted, and if
+     * the query sorts its rows by a field and has a limit, the rows tied with the last one (any of which can be
+     * selected) are replaced by their order value.
+     *
+     * @param query  the query
+     * @param result the result of the query
+     * @return the comparable result
+     */
+    private static List<List<String>> comparable(Query query, List<List<String>> result) {
+        if (isNull(query.getOrderField()) || query.getLimit() < 0 || result.size() < 2) {
+            return sorted(result);
+        }
+        int orderColumn = result.get(0).indexOf(query.getOrderField());
+        String lastValue = result.get(result.size() - 1).get(orderColumn);
+        List<List<String>> comparableResult = new ArrayList<>();
+        for (List<String> row : result) {
+            boolean tied = !isNull(lastValue) && lastValue.equals(row.get(orderColumn));
+            comparableResult.add(tied ? Collections.singletonList(lastValue) : row);
+        }
+        return sorted(comparableResult);
+    }
+
+    /**
+     * Sorts the rows of a result (keeping the column labels first), since the rows of the queries without
+     * {@code ORDER BY} can come in any order.
+     *
+     * @param result the result
+     * @return the sorted result
+     */
+    private static List<List<String>> sorted(List<List<String>> result) {
+        List<List<String>> rows = new ArrayList<>(result.subList(1, result.size()));
+        rows.sort((r1, r2) -> String.valueOf(r1).compareTo(String.valueOf(r2)));
+        rows.add(0, result.get(0));
+        return rows;
+    }
+}
@@ -0,0 +1,143 @@
+package com.xatkit.bot.sql.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class of {@link CompressedBitmap}, which checks the set operations against a {@link BitSet}.
+ */
+class CompressedBitmapTest {
+
+    /**
+     * The number of rows of the sets, which spans 4 chunks (the last one partially).
+     */
+    private static final int NUM_ROWS = 3 * (1 << 16) + 1000;
+
+    /**
+     * The densities of the random sets: the sparse ones are stored in array containers and the dense ones in bitmap
+     * containers.
+     */
+    private static final double[] DENSITIES = {0, 0.001, 0.03, 0.5, 0.99, 1};
+
+    @Test
+    void testOf() {
+        Random random = new Random(42);
+        for (double density : DENSITIES) {
+            BitSet expected = randomSet(random, density);
+            assertSame(expected, CompressedBitmap.of(toRows(expected)));
+        }
+    }
+
+    @Test
+    void testRange() {
+        for (int numRows : new int[]{0, 1, 63, 64, 4096, 4097, 1 << 16, (1 << 16) + 1, NUM_ROWS}) {
+            BitSet expected = new BitSet();
+            expected.set(0, numRows);
+            assertSame(expected, CompressedBitmap.range(numRows));
+        }
+    }
+
+    @Test
+    void testOperations() {
+        Random random = new Random(7);
+        for (double density1 : DENSITIES) {
+            for (double density2 : DENSITIES) {
+                BitSet set1 = randomSet(random, density1);
+                BitSet set2 = randomSet(random, density2);
+                CompressedBitmap bitmap1 = CompressedBitmap.of(toRows(set1));
+                CompressedBitmap bitmap2 = CompressedBitmap.of(toRows(set2));
+                BitSet and = (BitSet) set1.clone();
+                and.and(set2);
+                assertSame(and, bitmap1.and(bitmap2));
+                BitSet andNot = (BitSet) set1.clone();
+                andNot.andNot(set2);
+                assertSame(andNot, bitmap1.andNot(bitmap2));
+                BitSet or = (BitSet) set1.clone();
+                or.or(set2);
+                assertSame(or, bitmap1.or(bitmap2));
+            }
+        }
+    }
+
+    /**
+     * Test the operations whose result crosses the size limit of an array container (4096 rows): the union of two
+     * array containers is promoted to a bitmap, and a bitmap container that loses rows is demoted to an array.
+     */
+    @Test
+    void testContainerPromotion() {
+        for (int size : new int[]{4095, 4096, 4097}) {
+            BitSet evens = new BitSet();
+            BitSet odds = new BitSet();
+            for (int i = 0; i < size; i++) {
+                evens.set(2 * i);
+                odds.set(2 * i + 1);
+            }
+            CompressedBitmap evenBitmap = CompressedBitmap.of(toRows(evens));
+            CompressedBitmap oddBitmap = CompressedBitmap.of(toRows(odds));
+            BitSet all = (BitSet) evens.clone();
+            all.or(odds);
+            CompressedBitmap union = evenBitmap.or(oddBitmap);
+            assertSame(all, union);
+            assertSame(evens, union.andNot(oddBitmap));
+            assertSame(odds, union.and(oddBitmap));
+            // Union of an array container with the rows of a bitmap container it already contains
+            assertSame(all, union.or(evenBitmap));
+            assertSame(new BitSet(), union.andNot(union));
+            assertSame(all, union.andNot(CompressedBitmap.empty()));
+        }
+        // A bitmap container demoted to an array container by removing one row
+        BitSet expected = new BitSet();
+        expected.set(0, 4097);
+        CompressedBitmap bitmap = CompressedBitmap.of(toRows(expected));
+        expected.clear(4096);
+        assertSame(expected, bitmap.andNot(CompressedBitmap.of(new int[]{4096})));
+    }
+
+    @Test
+    void testToRows() {
+        Random random = new Random(3);
+        for (double density : DENSITIES) {
+            BitSet set = randomSet(random, density);
+            int[] rows = toRows(set);
+            CompressedBitmap bitmap = CompressedBitmap.of(rows);
+            for (int offset : new int[]{0, 1, 4095, 4096, 70000, rows.length - 1, rows.length, rows.length + 5}) {
+                if (offset < 0) {
+                    continue;
+                }
+                for (int limit : new int[]{0, 1, 10, 5000, NUM_ROWS}) {
+                    int from = Math.min(offset, rows.length);
+                    int to = (int) Math.min(rows.length, (long) from + limit);
+                    assertArrayEquals(Arrays.copyOfRange(rows, from, to), bitmap.toRows(offset, limit),
+                            "offset " + offset + ", limit " + limit);
+                }
+            }
+        }
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertArrayEquals(toRows(expected), actual.toRows(0, Integer.MAX_VALUE));
+        int numRows = Math.max(expected.length(), 1);
+        assertArrayEquals(Arrays.copyOf(expected.toLongArray(), Bitmaps.numWords(numRows)), actual.toWords(numRows));
+    }
+
+    private static BitSet randomSet(Random random, double density) {
+        BitSet set = new BitSet(NUM_ROWS);
+        for (int row = 0; row < NUM_ROWS; row++) {
+            if (random.nextDouble() < density) {
+                set.set(row);
+            }
+        }
+        return set;
+    }
+
+    private static int[] toRows(BitSet set) {
+        return set.stream().toArray();
+    }
+}
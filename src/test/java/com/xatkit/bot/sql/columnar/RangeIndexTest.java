@@ -0,0 +1,181 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.xatkit.bot.sql.Condition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link RangeIndex}, which checks the binary searches and the range selections against a scan of the
+ * values.
+ */
+class RangeIndexTest {
+
+    private static final String[] OPERATORS = {"=", "!=", "<", "<=", ">", ">=", "date_equals", "date_different",
+            "before", "after"};
+
+    /**
+     * The dictionary of the column: a few keys (with duplicates) and 2 null entries.
+     */
+    private static final long[] CODE_KEYS = {5, -3, 5, 0, 10, 0, 7, Long.MIN_VALUE};
+
+    private static final boolean[] CODE_NULLS = {false, false, false, false, false, true, false, true};
+
+    @Test
+    void testBounds() {
+        int[] codes = randomCodes(new Random(1), 500);
+        RangeIndex index = RangeIndex.build(CODE_KEYS, CODE_NULLS, codes);
+        long[] sortedKeys = sortedKeys(index, codes);
+        for (long key = -5; key <= 12; key++) {
+            int lower = 0;
+            while (lower < sortedKeys.length && sortedKeys[lower] < key) {
+                lower++;
+            }
+            int upper = lower;
+            while (upper < sortedKeys.length && sortedKeys[upper] <= key) {
+                upper++;
+            }
+            assertEquals(lower, index.lowerBound(key), "lowerBound " + key);
+            assertEquals(upper, index.upperBound(key), "upperBound " + key);
+        }
+        assertEquals(0, index.lowerBound(Long.MIN_VALUE));
+        assertEquals(0, index.upperBound(Long.MIN_VALUE));
+        assertEquals(index.size(), index.lowerBound(Long.MAX_VALUE));
+        assertEquals(index.size(), index.upperBound(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test that the null entries are not indexed, even when their key is the lowest one.
+     */
+    @Test
+    void testNulls() {
+        int[] codes = randomCodes(new Random(2), 300);
+        int numNotNull = 0;
+        for (int code : codes) {
+            if (!CODE_NULLS[code]) {
+                numNotNull++;
+            }
+        }
+        RangeIndex index = RangeIndex.build(CODE_KEYS, CODE_NULLS, codes);
+        assertEquals(numNotNull, index.size());
+        RangeIndex allNulls = RangeIndex.build(new long[]{0}, new boolean[]{true}, new int[]{0, 0, 0});
+        assertEquals(0, allNulls.size());
+        assertEquals(0, allNulls.lowerBound(0));
+        assertEquals(0, allNulls.upperBound(0));
+        RangeIndex empty = RangeIndex.build(new long[0], new boolean[0], new int[0]);
+        assertEquals(0, empty.size());
+    }
+
+    @Test
+    void testSelectRange() {
+        int[] codes = randomCodes(new Random(3), 1000);
+        RangeIndex index = RangeIndex.build(CODE_KEYS, CODE_NULLS, codes);
+        for (String operator : OPERATORS) {
+            for (long key = -5; key <= 12; key++) {
+                assertArrayEquals(scan(codes, operator, key, 0),
+                        ColumnarEngine.selectRange(index, codes.length, operator, key, 0), operator + " " + key);
+            }
+        }
+        for (long low = -5; low <= 12; low++) {
+            for (long high = -5; high <= 12; high++) {
+                // Empty if low > high, like the SQL BETWEEN
+                assertArrayEquals(scan(codes, Condition.BETWEEN, low, high),
+                        ColumnarEngine.selectRange(index, codes.length, Condition.BETWEEN, low, high),
+                        "between " + low + " and " + high);
+            }
+        }
+    }
+
+    @Test
+    void testNumberKey() {
+        double[] numbers = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1e10, -2.5, -1, -Double.MIN_VALUE, 0,
+                Double.MIN_VALUE, 0.5, 1, 2.5, 1e10, Double.MAX_VALUE, Double.POSITIVE_INFINITY};
+        for (int i = 1; i < numbers.length; i++) {
+            assertTrue(RangeIndex.numberKey(numbers[i - 1]) < RangeIndex.numberKey(numbers[i]),
+                    numbers[i - 1] + " < " + numbers[i]);
+        }
+        assertEquals(RangeIndex.numberKey(0.0), RangeIndex.numberKey(-0.0));
+    }
+
+    /**
+     * Evaluates a comparison over every row, with the semantics of SQL: the rows with a null value never satisfy it.
+     */
+    private static long[] scan(int[] codes, String operator, long key, long key2) {
+        long[] matches = new long[Bitmaps.numWords(codes.length)];
+        for (int row = 0; row < codes.length; row++) {
+            if (CODE_NULLS[codes[row]]) {
+                continue;
+            }
+            long value = CODE_KEYS[codes[row]];
+            boolean matched;
+            switch (operator) {
+                case "=":
+                case "date_equals":
+                    matched = value == key;
+                    break;
+                case "!=":
+                case "date_different":
+                    matched = value != key;
+                    break;
+                case "<":
+                case "before":
+                    matched = value < key;
+                    break;
+                case "<=":
+                    matched = value <= key;
+                    break;
+                case ">":
+                case "after":
+                    matched = value > key;
+                    break;
+                case ">=":
+                    matched = value >= key;
+                    break;
+                default:
+                    matched = key <= value && value <= key2;
+            }
+            if (matched) {
+                Bitmaps.set(matches, row);
+            }
+        }
+        return matches;
+    }
+
+    private static int[] randomCodes(Random random, int numRows) {
+        int[] codes = new int[numRows];
+        for (int row = 0; row < numRows; row++) {
+            codes[row] = random.nextInt(CODE_KEYS.length);
+        }
+        return codes;
+    }
+
+    /**
+     * Gets the keys of the rows with a non-null value in ascending order, checking that each position of the index
+     * stores a row with the key of that position.
+     */
+    private static long[] sortedKeys(RangeIndex index, int[] codes) {
+        long[] keys = new long[codes.length];
+        int n = 0;
+        for (int code : codes) {
+            if (!CODE_NULLS[code]) {
+                keys[n++] = CODE_KEYS[code];
+            }
+        }
+        keys = Arrays.copyOf(keys, n);
+        Arrays.sort(keys);
+        assertEquals(keys.length, index.size());
+        for (int i = 0; i < index.size(); i++) {
+            long[] words = new long[Bitmaps.numWords(codes.length)];
+            index.setRows(words, i, i + 1);
+            int[] rows = Bitmaps.toRows(words);
+            assertEquals(1, rows.length);
+            assertEquals(keys[i], CODE_KEYS[codes[rows[0]]], "position " + i);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,251 @@
+package com.xatkit.bot.sql.columnar;
+
+import com.xatkit.bot.library.Estimate;
+import com.xatkit.bot.library.ResultSet;
+import com.xatkit.bot.sql.Condition;
+import com.xatkit.bot.sql.Query;
+import com.xatkit.bot.sql.SqlQueriesTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link SampleEngine}, which checks its estimates against the real results over a synthetic population
+ * of 3 strata of different sizes.
+ */
+class SampleEngineTest {
+
+    /**
+     * The fields of the population (see {@link SqlQueriesTest#ENTITIES_JSON}): the stratum (a categorical field), a
+     * textual field with a frequent and a rare value, and a numeric field.
+     */
+    private static final String[] HEADER = {"city", "name", "age"};
+
+    private static final int[] STRATUM_SIZES = {5000, 1000, 100};
+
+    private static final double[] YES_PROPORTIONS = {0.02, 0.3, 0.6};
+
+    private static final double[] AGE_MEANS = {30, 50, 80};
+
+    /**
+     * The proportion of rows of the first stratum with the rare name.
+     */
+    private static final double RARE_PROPORTION = 0.002;
+
+    private static final int SAMPLE_SIZE = 600;
+
+    private static final int NUM_SAMPLES = 300;
+
+    private static Path folder;
+
+    private static ClassLoader classLoader;
+
+    @BeforeAll
+    static void setUpBeforeAll() throws IOException {
+        folder = Files.createTempDirectory("sample-engine-test");
+        Files.write(folder.resolve("entities.json"), Collections.singletonList(SqlQueriesTest.ENTITIES_JSON),
+                StandardCharsets.UTF_8);
+        classLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[]{folder.toUri().toURL()},
+                classLoader));
+    }
+
+    @AfterAll
+    static void tearDownAfterAll() throws IOException {
+        ((URLClassLoader) Thread.currentThread().getContextClassLoader()).close();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        Files.delete(folder.resolve("entities.json"));
+        Files.delete(folder);
+    }
+
+    /**
+     * Test that the sample size is split among the strata without exceeding it, with at least 2 rows (or all the rows)
+     * of each stratum and never more rows than a stratum has.
+     */
+    @Test
+    void testAllocate() {
+        assertArrayEquals(new int[]{10, 20, 30}, SampleEngine.allocate(new long[]{10, 20, 30}, 1000));
+        int[] skewed = SampleEngine.allocate(new long[]{100000, 50, 1}, 100);
+        assertEquals(100, skewed[0] + skewed[1] + skewed[2]);
+        assertEquals(1, skewed[2]);
+        assertTrue(skewed[1] >= 2);
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            int numStrata = 1 + random.nextInt(20);
+            long[] populationSizes = new long[numStrata];
+            long numRows = 0;
+            for (int h = 0; h < numStrata; h++) {
+                // Skewed sizes, with some tiny strata
+                populationSizes[h] = 1 + (long) Math.pow(10, random.nextDouble() * 5);
+                numRows += populationSizes[h];
+            }
+            int sampleSize = 2 * numStrata + random.nextInt(2000);
+            int[] sampleSizes = SampleEngine.allocate(populationSizes, sampleSize);
+            long allocated = 0;
+            for (int h = 0; h < numStrata; h++) {
+                assertTrue(sampleSizes[h] >= Math.min(2, populationSizes[h]), "stratum " + h + " of case " + i);
+                assertTrue(sampleSizes[h] <= populationSizes[h], "stratum " + h + " of case " + i);
+                allocated += sampleSizes[h];
+            }
+            assertEquals(Math.min(sampleSize, numRows), allocated, "case " + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> SampleEngine.allocate(new long[]{10, 20, 30}, 5));
+    }
+
+    /**
+     * Test that the results are exact, without interval, when every stratum is fully sampled.
+     */
+    @Test
+    void testExact() {
+        List<List<String[]>> population = newPopulation(new Random(1));
+        SampleEngine engine = newEngine(new Random(2), population, 10000);
+        ResultSet count = engine.count(nameEquals("yes"), "count");
+        assertEquals(realCount(population, "yes"), count.getLong(0, 0));
+        assertNull(count.getEstimate(0, 0));
+        assertFalse(count.isEstimate());
+        ResultSet avg = engine.aggregate(nameEquals("yes"), "age", "avg");
+        assertEquals(realAvg(population, "yes"), Double.parseDouble(avg.getValue(0, 0)), 1e-9);
+        assertNull(avg.getEstimate(0, 0));
+    }
+
+    /**
+     * Test that a count without conditions is exact, since the size of each stratum is known, and that the estimates
+     * are shown with their interval.
+     */
+    @Test
+    void testEstimates() {
+        List<List<String[]>> population = newPopulation(new Random(1));
+        SampleEngine engine = newEngine(new Random(2), population, SAMPLE_SIZE);
+        ResultSet count = engine.count(Collections.emptyList(), "count");
+        assertEquals(6100, count.getLong(0, 0));
+        assertNull(count.getEstimate(0, 0));
+        ResultSet yes = engine.count(nameEquals("yes"), "count");
+        Estimate estimate = yes.getEstimate(0, 0);
+        assertEquals(yes.getLong(0, 0), estimate.getValue().longValueExact());
+        assertTrue(yes.getDisplayValue(0, 0).startsWith("~" + yes.getLong(0, 0) + " "), yes.getDisplayValue(0, 0));
+        // A value that is missing from the sample still gets a non-empty interval
+        ResultSet missing = engine.count(nameEquals("missing"), "count");
+        assertEquals(0, missing.getLong(0, 0));
+        assertEquals(0, missing.getEstimate(0, 0).getLower().signum());
+        assertTrue(missing.getEstimate(0, 0).getUpper().signum() > 0);
+        // The approximate queries only
+        assertNull(engine.answer(new Query("SELECT COUNT(*) FROM \"data\"", Query.Operation.COUNT)));
+    }
+
+    /**
+     * Test that the 95% confidence intervals of the counts (of a frequent and a rare value) and of the averages
+     * contain the real result in (about) 95% of the samples. The threshold leaves room for the sampling error of the
+     * coverage itself (about 1.3% with {@link #NUM_SAMPLES} samples).
+     */
+    @Test
+    void testCoverage() {
+        List<List<String[]>> population = newPopulation(new Random(1));
+        long realYes = realCount(population, "yes");
+        long realRare = realCount(population, "rare");
+        double realAvg = realAvg(population, "yes");
+        assertTrue(realRare > 0);
+        Random random = new Random(7);
+        int yesCovered = 0;
+        int rareCovered = 0;
+        int avgCovered = 0;
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            SampleEngine engine = newEngine(random, population, SAMPLE_SIZE);
+            yesCovered += (contains(engine.count(nameEquals("yes"), "count"), realYes) ? 1 : 0);
+            rareCovered += (contains(engine.count(nameEquals("rare"), "count"), realRare) ? 1 : 0);
+            ResultSet avg = engine.aggregate(nameEquals("yes"), "age", "avg");
+            avgCovered += (avg != null && contains(avg, realAvg) ? 1 : 0);
+        }
+        assertTrue(yesCovered >= 0.9 * NUM_SAMPLES, "count coverage " + yesCovered + "/" + NUM_SAMPLES);
+        assertTrue(rareCovered >= 0.9 * NUM_SAMPLES, "rare count coverage " + rareCovered + "/" + NUM_SAMPLES);
+        assertTrue(avgCovered >= 0.9 * NUM_SAMPLES, "avg coverage " + avgCovered + "/" + NUM_SAMPLES);
+    }
+
+    private static List<Condition> nameEquals(String name) {
+        return Collections.singletonList(new Condition("name", Condition.VALUE_EQUALS, name));
+    }
+
+    private static boolean contains(ResultSet resultSet, double value) {
+        Estimate estimate = resultSet.getEstimate(0, 0);
+        return estimate.getLower().doubleValue() <= value && value <= estimate.getUpper().doubleValue();
+    }
+
+    /**
+     * Creates the rows of each stratum of the population. 5% of the ages are empty.
+     *
+     * @param random the random generator
+     * @return the rows of each stratum
+     */
+    private static List<List<String[]>> newPopulation(Random random) {
+        List<List<String[]>> population = new ArrayList<>();
+        for (int h = 0; h < STRATUM_SIZES.length; h++) {
+            List<String[]> rows = new ArrayList<>();
+            for (int i = 0; i < STRATUM_SIZES[h]; i++) {
+                double u = random.nextDouble();
+                String name = (u < YES_PROPORTIONS[h] ? "yes"
+                        : (h == 0 && u < YES_PROPORTIONS[h] + RARE_PROPORTION ? "rare" : "no"));
+                String age = (random.nextDouble() < 0.05 ? ""
+                        : String.valueOf(Math.round(AGE_MEANS[h] + 10 * random.nextGaussian())));
+                rows.add(new String[]{"g" + h, name, age});
+            }
+            population.add(rows);
+        }
+        return population;
+    }
+
+    /**
+     * Creates an engine with a stratified random sample of the population, drawn without replacement.
+     *
+     * @param random     the random generator
+     * @param population the rows of each stratum
+     * @param sampleSize the number of rows of the sample
+     * @return the engine
+     */
+    private static SampleEngine newEngine(Random random, List<List<String[]>> population, int sampleSize) {
+        long[] populationSizes = new long[population.size()];
+        for (int h = 0; h < population.size(); h++) {
+            populationSizes[h] = population.get(h).size();
+        }
+        int[] sampleSizes = SampleEngine.allocate(populationSizes, sampleSize);
+        ColumnarTable.Builder builder = new ColumnarTable.Builder(HEADER);
+        List<Integer> strata = new ArrayList<>();
+        for (int h = 0; h < population.size(); h++) {
+            List<String[]> rows = new ArrayList<>(population.get(h));
+            Collections.shuffle(rows, random);
+            for (String[] row : rows.subList(0, sampleSizes[h])) {
+                builder.addRow(row);
+                strata.add(h);
+            }
+        }
+        return new SampleEngine(builder.build(), strata.stream().mapToInt(Integer::intValue).toArray(),
+                populationSizes, sampleSizes, false);
+    }
+
+    private static long realCount(List<List<String[]>> population, String name) {
+        return population.stream().flatMap(List::stream).filter(row -> row[1].equals(name)).count();
+    }
+
+    private static double realAvg(List<List<String[]>> population, String name) {
+        return population.stream().flatMap(List::stream)
+                .filter(row -> row[1].equals(name) && !row[2].isEmpty())
+                .mapToDouble(row -> Double.parseDouble(row[2]))
+                .average().getAsDouble();
+    }
+}
@@ -0,0 +1,110 @@
+package com.xatkit.bot.sql.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class of {@link TopK}, which checks the kept rows against a sort of all the rows.
+ */
+class TopKTest {
+
+    private static final int NUM_ROWS = 2000;
+
+    /**
+     * Test that the rows with the same value are kept in the order of their rows, like the orders of the
+     * {@link ColumnarEngine} (which break the ties by row) and the stable sort of all the rows.
+     */
+    @Test
+    void testTies() {
+        Random random = new Random(5);
+        // Few distinct values, so most of the rows are tied
+        double[] values = new double[NUM_ROWS];
+        for (int row = 0; row < NUM_ROWS; row++) {
+            values[row] = random.nextInt(4);
+        }
+        for (int direction : new int[]{1, -1}) {
+            TopK.RowOrder order = (row1, row2) -> {
+                int result = direction * Double.compare(values[row1], values[row2]);
+                return (result != 0 ? result : Integer.compare(row1, row2));
+            };
+            for (int k : new int[]{0, 1, 2, 10, 499, 500, 501, NUM_ROWS - 1, NUM_ROWS, NUM_ROWS + 1}) {
+                long[] selection = Bitmaps.full(NUM_ROWS);
+                TopK topK = new TopK(k, order);
+                topK.offerAll(selection);
+                assertArrayEquals(firstRows(Bitmaps.toRows(selection), order, k), topK.getRows(),
+                        "k " + k + ", direction " + direction);
+            }
+        }
+    }
+
+    /**
+     * Test that an order without ties by row still keeps the first {@code k} values, whatever rows are kept among the
+     * tied ones.
+     */
+    @Test
+    void testTiesWithoutRowOrder() {
+        Random random = new Random(6);
+        int[] values = new int[NUM_ROWS];
+        for (int row = 0; row < NUM_ROWS; row++) {
+            values[row] = random.nextInt(3);
+        }
+        TopK.RowOrder order = (row1, row2) -> Integer.compare(values[row1], values[row2]);
+        TopK topK = new TopK(800, order);
+        topK.offerAll(Bitmaps.full(NUM_ROWS));
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        int[] rows = topK.getRows();
+        int[] keptValues = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keptValues[i] = values[rows[i]];
+        }
+        assertArrayEquals(Arrays.copyOf(expected, 800), keptValues);
+        assertEquals(rows.length, Arrays.stream(rows).distinct().count());
+    }
+
+    /**
+     * Test that only the selected rows are offered, and that the heap can keep receiving rows after getting them.
+     */
+    @Test
+    void testSelectionAndRepeatedGet() {
+        Random random = new Random(8);
+        double[] values = new double[NUM_ROWS];
+        long[] selection = new long[Bitmaps.numWords(NUM_ROWS)];
+        for (int row = 0; row < NUM_ROWS; row++) {
+            values[row] = random.nextGaussian();
+            if (random.nextInt(3) == 0) {
+                Bitmaps.set(selection, row);
+            }
+        }
+        TopK.RowOrder order = (row1, row2) -> {
+            int result = Double.compare(values[row1], values[row2]);
+            return (result != 0 ? result : Integer.compare(row1, row2));
+        };
+        int[] selectedRows = Bitmaps.toRows(selection);
+        TopK topK = new TopK(50, order);
+        int half = selectedRows.length / 2;
+        for (int i = 0; i < half; i++) {
+            topK.offer(selectedRows[i]);
+        }
+        assertArrayEquals(firstRows(Arrays.copyOf(selectedRows, half), order, 50), topK.getRows());
+        assertArrayEquals(topK.getRows(), topK.getRows());
+        for (int i = half; i < selectedRows.length; i++) {
+            topK.offer(selectedRows[i]);
+        }
+        assertArrayEquals(firstRows(selectedRows, order, 50), topK.getRows());
+    }
+
+    /**
+     * Gets the first rows in an order, with a stable sort of all the rows.
+     */
+    private static int[] firstRows(int[] rows, TopK.RowOrder order, int k) {
+        Integer[] sortedRows = Arrays.stream(rows).boxed().toArray(Integer[]::new);
+        Arrays.sort(sortedRows, order::compare);
+        return Arrays.stream(sortedRows).mapToInt(Integer::intValue).limit(k).toArray();
+    }
+}
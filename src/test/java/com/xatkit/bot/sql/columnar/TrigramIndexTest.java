@@ -0,0 +1,150 @@
+package com.xatkit.bot.sql.columnar;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class of {@link TrigramIndex}, which checks the candidate entries against a scan of the dictionary.
+ */
+class TrigramIndexTest {
+
+    /**
+     * The dictionary, with entries shorter than a trigram and entries with repeated characters.
+     */
+    private static final String[] DICTIONARY = {"", "A", "B", "AB", "BA", "ABA", "AAA", "AAAA", "ABC", "CAB",
+            "ABCABC", "BARCELONA", "GIRONA", "LLEIDA", "TARRAGONA", "EL BORN", "BORNE", "NA"};
+
+    private static final String[] OPERATORS = {"contains", "starts with", "ends with"};
+
+    /**
+     * Test that the candidates of every operator and value include all the matching entries, and that they are
+     * exactly the matching entries when the value has a single trigram (with its markers).
+     */
+    @Test
+    void testCandidates() {
+        TrigramIndex index = TrigramIndex.build(DICTIONARY, new int[0], false);
+        List<String> values = new ArrayList<>(Arrays.asList("", "A", "B", "N", "Z", "AB", "BA", "NA", "ZZ", "AAA",
+                "AAAA", "AAAAA", "ABC", "CABC", "ONA", "RONA", "BORN", "L B", "BARCELONA", "BARCELONAS"));
+        for (String entry : DICTIONARY) {
+            for (int i = 0; i < entry.length(); i++) {
+                for (int j = i + 1; j <= entry.length(); j++) {
+                    values.add(entry.substring(i, j));
+                }
+            }
+        }
+        for (String operator : OPERATORS) {
+            for (String value : values) {
+                int[] expected = scan(operator, value);
+                int[] candidates = index.candidates(operator, value);
+                String message = operator + " \"" + value + "\"";
+                int patternLength = value.length() + ("contains".equals(operator) ? 0 : 1);
+                if (patternLength < 3) {
+                    assertNull(candidates, message);
+                    continue;
+                }
+                assertTrue(isSorted(candidates), message);
+                assertTrue(containsAll(candidates, expected), message);
+                if (patternLength == 3) {
+                    assertArrayEquals(expected, candidates, message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that values shorter than a trigram are not narrowed: {@code starts with} and {@code ends with} a single
+     * character, and {@code contains} up to 2 characters, must be answered by scanning the dictionary.
+     */
+    @Test
+    void testShortValues() {
+        TrigramIndex index = TrigramIndex.build(DICTIONARY, new int[0], false);
+        for (String value : new String[]{"", "A", "Z"}) {
+            assertNull(index.candidates("starts with", value));
+            assertNull(index.candidates("ends with", value));
+        }
+        assertNull(index.candidates("contains", "AB"));
+        // 2 characters and the marker make a trigram, which also matches the entries of 2 characters
+        assertArrayEquals(scan("starts with", "AB"), index.candidates("starts with", "AB"));
+        assertArrayEquals(scan("ends with", "BA"), index.candidates("ends with", "BA"));
+        assertNull(index.candidates("equals", "ABC"));
+    }
+
+    /**
+     * Test that the rows of the candidate entries are the rows with their codes.
+     */
+    @Test
+    void testSetRows() {
+        Random random = new Random(11);
+        int[] codes = new int[1000];
+        for (int row = 0; row < codes.length; row++) {
+            codes[row] = random.nextInt(DICTIONARY.length - 1);
+        }
+        TrigramIndex index = TrigramIndex.build(DICTIONARY, codes, false);
+        for (int code = 0; code < DICTIONARY.length; code++) {
+            long[] words = new long[Bitmaps.numWords(codes.length)];
+            index.setRows(words, code);
+            long[] expected = new long[words.length];
+            for (int row = 0; row < codes.length; row++) {
+                if (codes[row] == code) {
+                    Bitmaps.set(expected, row);
+                }
+            }
+            assertArrayEquals(expected, words, "code " + code);
+        }
+    }
+
+    /**
+     * Gets the entries of the dictionary that satisfy a condition, scanning it.
+     *
+     * @param operator the textual operator
+     * @param value    the value of the condition
+     * @return the sorted codes of the matching entries
+     */
+    private static int[] scan(String operator, String value) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < DICTIONARY.length; code++) {
+            String entry = DICTIONARY[code];
+            boolean matches;
+            switch (operator) {
+                case "contains":
+                    matches = entry.contains(value);
+                    break;
+                case "starts with":
+                    matches = entry.startsWith(value);
+                    break;
+                default:
+                    matches = entry.endsWith(value);
+            }
+            if (matches) {
+                codes.add(code);
+            }
+        }
+        return codes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static boolean isSorted(int[] codes) {
+        for (int i = 1; i < codes.length; i++) {
+            if (codes[i - 1] >= codes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAll(int[] codes, int[] expected) {
+        for (int code : expected) {
+            if (Arrays.binarySearch(codes, code) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}